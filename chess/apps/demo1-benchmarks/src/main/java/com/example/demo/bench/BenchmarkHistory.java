@@ -0,0 +1,129 @@
+package com.example.demo.bench;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs benchmarks and appends their scores to {@code results/history.csv}, one row per
+ * benchmark, parameter set and metric, tagged with the date and git commit. Each score is
+ * printed next to the last recorded one for the same machine, and a drop of more than
+ * {@code -Dthreshold} percent (default 10) in a throughput score is flagged as a regression,
+ * failing the run with exit status 1.
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.demo.bench.BenchmarkHistory MoveGenBenchmark
+ * </pre>
+ */
+public class BenchmarkHistory {
+    private static final Path HISTORY = Path.of("results", "history.csv");
+    private static final String HEADER = "date,commit,host,benchmark,params,metric,score,error,unit";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BenchmarkHistory <benchmark regex>...");
+            System.exit(2);
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        for (String include : args) {
+            options.include(include);
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        double threshold = Double.parseDouble(System.getProperty("threshold", "10"));
+        String host = hostName();
+        Map<String, Double> previous = lastScores(host);
+        List<String> rows = new ArrayList<>();
+        int regressions = 0;
+        String prefix = LocalDate.now() + "," + commit() + "," + host + ",";
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            benchmark = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            Map<String, String> params = new TreeMap<>();
+            for (String key : result.getParams().getParamsKeys()) {
+                params.put(key, result.getParams().getParam(key));
+            }
+            String paramList = params.toString().replace(",", ";").replace(" ", "");
+            Map<String, Result> metrics = new TreeMap<>(result.getSecondaryResults());
+            metrics.put("score", result.getPrimaryResult());
+            for (Map.Entry<String, Result> metric : metrics.entrySet()) {
+                Result score = metric.getValue();
+                String key = benchmark + "," + paramList + "," + metric.getKey();
+                rows.add(prefix + key + "," + score.getScore() + "," + score.getScoreError() + "," + score.getScoreUnit());
+                Double before = previous.get(key);
+                if (before == null || before == 0) {
+                    System.out.printf("%-60s %14.1f %s (first run)%n", key, score.getScore(), score.getScoreUnit());
+                    continue;
+                }
+                double change = (score.getScore() - before) * 100 / before;
+                boolean regression = score.getScoreUnit().endsWith("/s") && change < -threshold;
+                regressions += regression ? 1 : 0;
+                System.out.printf("%-60s %14.1f %s %+6.1f%%%s%n", key, score.getScore(), score.getScoreUnit(), change,
+                        regression ? "  REGRESSION" : "");
+            }
+        }
+        Files.createDirectories(HISTORY.getParent());
+        if (!Files.exists(HISTORY)) {
+            Files.writeString(HISTORY, HEADER + "\n");
+        }
+        Files.write(HISTORY, rows, StandardOpenOption.APPEND);
+        System.out.printf("Appended %d rows to %s%n", rows.size(), HISTORY);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the latest score recorded on {@code host}, by benchmark, params and metric
+     */
+    private static Map<String, Double> lastScores(String host) throws IOException {
+        Map<String, Double> scores = new HashMap<>();
+        if (!Files.exists(HISTORY)) {
+            return scores;
+        }
+        for (String line : Files.readAllLines(HISTORY)) {
+            String[] fields = line.split(",");
+            if (fields.length == 9 && fields[2].equals(host) && !line.equals(HEADER)) {
+                scores.put(fields[3] + "," + fields[4] + "," + fields[5], Double.parseDouble(fields[6]));
+            }
+        }
+        return scores;
+    }
+
+    private static String commit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                return git.waitFor() == 0 && line != null ? line.trim() : "unknown";
+            }
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    private static String hostName() {
+        String host = System.getProperty("host", System.getenv("HOSTNAME"));
+        return host == null || host.isBlank() ? "local" : host.replace(",", "_");
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.GameMessage;
+import com.example.demo.websocket.GameTopicBroker;
+import com.example.demo.websocket.WebSocketSessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish cost on {@code /topic/game/{id}} with 10k live games, simple broker plus
+ * {@link StompSubProtocolHandler} encoding ("simple") versus {@link GameTopicBroker} ("game").
+ * One operation is one publish to one game, fanned out to every subscriber of that game and
+ * encoded down to the bytes handed to the WebSocket session. Payload serialization is done at
+ * setup since both paths receive the same pre-converted message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BroadcastBenchmark {
+    private static final int GAMES = 10_000;
+    private static final int SESSIONS = 10_000;
+
+    @Param({"simple", "game"})
+    public String broker;
+
+    @Param({"2", "10", "50"})
+    public int subscribers;
+
+    private AbstractBrokerMessageHandler handler;
+    private Message<?>[] publishes;
+    private CountingSession[] rawSessions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+
+        rawSessions = new CountingSession[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            rawSessions[i] = new CountingSession("s" + i);
+        }
+
+        if ("simple".equals(broker)) {
+            Map<String, WebSocketSession> sessions = new HashMap<>();
+            for (CountingSession session : rawSessions) {
+                sessions.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, 10_000, 512 * 1024));
+            }
+            StompSubProtocolHandler stomp = new StompSubProtocolHandler();
+            outbound.subscribe((MessageHandler) message -> stomp.handleMessageToClient(
+                    sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())), message));
+            handler = new SimpleBrokerMessageHandler(inbound, outbound, brokerChannel, List.of("/topic"));
+        } else {
+            WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+            for (CountingSession session : rawSessions) {
+                registry.register(session);
+            }
+            handler = new GameTopicBroker(inbound, outbound, brokerChannel, registry);
+        }
+        handler.start();
+
+        for (CountingSession session : rawSessions) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            accessor.setSessionId(session.getId());
+            handler.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+        for (int game = 0; game < GAMES; game++) {
+            for (int j = 0; j < subscribers; j++) {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+                accessor.setSessionId(rawSessions[(game + j * 7919) % SESSIONS].getId());
+                accessor.setSubscriptionId("sub-" + game);
+                accessor.setDestination(destination(game));
+                handler.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+            }
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        publishes = new Message<?>[GAMES];
+        for (int game = 0; game < GAMES; game++) {
+            GameMessage message = new GameMessage("game-" + game, "42", GameMessage.MessageType.MOVE,
+                    "{\"from\":\"e2\",\"to\":\"e4\",\"notation\":\"e4\","
+                            + "\"clock\":{\"white\":600000,\"black\":598765,\"running\":\"black\"}}");
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination(game));
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setNativeHeader("game-handle", String.valueOf(game));
+            publishes[game] = MessageBuilder.createMessage(objectMapper.writeValueAsBytes(message),
+                    accessor.getMessageHeaders());
+        }
+        for (CountingSession session : rawSessions) {
+            session.frames = 0;
+            session.bytes = 0;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handler.stop();
+        long frames = 0;
+        long bytes = 0;
+        for (CountingSession session : rawSessions) {
+            frames += session.frames;
+            bytes += session.bytes;
+        }
+        System.out.printf("%n%s x%d: %d frames, %.1f bytes/frame%n",
+                broker, subscribers, frames, frames == 0 ? 0.0 : (double) bytes / frames);
+    }
+
+    @Benchmark
+    public void publish() {
+        int game = next;
+        next = game + 1 == GAMES ? 0 : game + 1;
+        handler.handleMessage(publishes[game]);
+    }
+
+    private static String destination(int game) {
+        return GameTopicBroker.DESTINATION_PREFIX + "game-" + game;
+    }
+
+    /**
+     * Open session that only counts what it is asked to send.
+     */
+    private static final class CountingSession implements WebSocketSession {
+        private final String id;
+        private final Map<String, Object> attributes = new HashMap<>();
+        long frames;
+        long bytes;
+
+        CountingSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            frames++;
+            bytes += message.getPayloadLength();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return "v12.stomp";
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
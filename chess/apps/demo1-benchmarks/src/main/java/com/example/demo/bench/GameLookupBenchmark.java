@@ -0,0 +1,151 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Game;
+import com.example.demo.persistence.WriteBehindStore;
+import com.example.demo.repository.GameMovesRepository;
+import com.example.demo.repository.GameRepository;
+import com.example.demo.dto.GameDto;
+import com.example.demo.service.GameService;
+import com.example.demo.service.LobbyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game lookups against an H2 games table of 100k and 1M rows, of which {@link #OPEN_GAMES}
+ * are waiting for a second player: a game by its code, the first and a deep page of open
+ * seats as the lobby reloads them, a lobby read from memory, and for comparison the lobby as
+ * it used to be read, the whole table filtered in Java. The indexed lookups should cost the
+ * same at both sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class GameLookupBenchmark {
+    private static final int OPEN_GAMES = 200;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int PAGE_SIZE = 50;
+    private static final String INSERT_GAME = "INSERT INTO games (game_id, white_player_id, white_player_name, "
+            + "white_player_elo, black_player_id, black_player_name, black_player_elo, base_time_millis, "
+            + "increment_millis, result) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private EntityManagerFactory entityManagerFactory;
+    private GameRepository gameRepository;
+    private GameService gameService;
+    private LobbyService lobbyService;
+    private int middleId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:games" + rows + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.example.demo.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        JpaRepositoryFactory repositories = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        gameRepository = repositories.getRepository(GameRepository.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        WriteBehindStore writeBehindStore = new WriteBehindStore(jdbcTemplate,
+                new JpaTransactionManager(entityManagerFactory), new SimpleMeterRegistry(), 250, 500, 5);
+        lobbyService = new LobbyService(gameRepository, writeBehindStore, new SimpleMeterRegistry(), 30_000);
+        gameService = new GameService(gameRepository, repositories.getRepository(GameMovesRepository.class),
+                writeBehindStore, lobbyService);
+
+        int openEvery = rows / OPEN_GAMES;
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 1; i <= rows; i++) {
+            boolean open = i % openEvery == 0;
+            boolean whiteOpen = open && (i / openEvery) % 2 == 0;
+            boolean blackOpen = open && !whiteOpen;
+            batch.add(new Object[]{
+                    "g" + i,
+                    whiteOpen ? null : (long) i, whiteOpen ? null : "white" + i, whiteOpen ? null : 1500,
+                    blackOpen ? null : (long) -i, blackOpen ? null : "black" + i, blackOpen ? null : 1500,
+                    180_000L, 2_000L, open ? null : "1-0"
+            });
+            if (batch.size() == INSERT_BATCH || i == rows) {
+                jdbcTemplate.batchUpdate(INSERT_GAME, batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+        middleId = rows / 2;
+        lobbyService.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        lobbyService.shutdown();
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Game gameByCode() {
+        return gameService.getGame("g" + ThreadLocalRandom.current().nextInt(1, rows + 1));
+    }
+
+    @Benchmark
+    public List<GameDto> openSeatsFirstPage() {
+        return gameRepository.findOpenBlackSeats(Integer.MAX_VALUE, Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<GameDto> openSeatsDeepPage() {
+        return gameRepository.findOpenBlackSeats(middleId, Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public LobbyService.GamePage lobbyFromMemory() {
+        return lobbyService.snapshot().page(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long lobbyFindAllAndFilter() {
+        return gameRepository.findAll().stream()
+                .filter(game -> (game.getWhitePlayerId() == null) ^ (game.getBlackPlayerId() == null))
+                .count();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.bench;
+
+import com.example.demo.clock.TimeControl;
+import com.example.demo.matchmaking.MatchQueue;
+import com.example.demo.service.MatchmakingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulation of the matchmaking queue with the default windows (50 points, widening by 10 a
+ * second up to 400). Ratings are normally distributed around 1500 with a spread of 350 and
+ * players pick one of the {@link MatchmakingService#TIME_CONTROLS} at random.
+ * <ul>
+ *     <li>{@code pairBacklog}: one matcher round over 10k and 100k players who joined at once,
+ *     as after a restart or at the start of an event.</li>
+ *     <li>{@code pairOnJoin}: time from two players of close ratings joining until the matcher
+ *     thread has paired them, with the matcher parked between rounds as in
+ *     {@link MatchmakingService}.</li>
+ * </ul>
+ */
+@Fork(1)
+public class MatchmakingBenchmark {
+    private static final List<TimeControl> TIME_CONTROLS = MatchmakingService.TIME_CONTROLS;
+    private static final long ROUND_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static MatchQueue<Integer> newQueue() {
+        return new MatchQueue<>(TIME_CONTROLS, 50, 10, 400);
+    }
+
+    private static int rating(Random random) {
+        return (int) Math.round(1500 + random.nextGaussian() * 350);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Backlog {
+        @Param({"10000", "100000"})
+        public int queued;
+
+        MatchQueue<Integer> queue;
+        int pairs;
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            Random random = new Random(queued);
+            queue = newQueue();
+            long now = System.nanoTime();
+            for (int i = 0; i < queued; i++) {
+                queue.enqueue(i, rating(random), TIME_CONTROLS.get(random.nextInt(TIME_CONTROLS.size())), now);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            System.out.printf("%nqueued=%d: paired %d, %d still waiting%n", queued, pairs * 2, queue.waiting());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Running {
+        private final AtomicLong paired = new AtomicLong();
+        private final Random random = new Random(42);
+        private MatchQueue<Integer> queue;
+        private Thread matcher;
+        private int player;
+
+        @Setup(Level.Trial)
+        public void start() {
+            queue = newQueue();
+            matcher = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    queue.match(System.nanoTime(), (first, second) -> paired.incrementAndGet());
+                    LockSupport.parkNanos(ROUND_NANOS);
+                }
+            }, "matchmaker");
+            matcher.setDaemon(true);
+            matcher.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            matcher.interrupt();
+            matcher.join();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public int pairBacklog(Backlog backlog) {
+        backlog.pairs = backlog.queue.match(System.nanoTime(), (first, second) -> { });
+        return backlog.pairs;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public long pairOnJoin(Running running) {
+        long target = running.paired.get() + 1;
+        int rating = rating(running.random);
+        TimeControl timeControl = TIME_CONTROLS.get(running.random.nextInt(TIME_CONTROLS.size()));
+        long now = System.nanoTime();
+        running.queue.enqueue(running.player++, rating, timeControl, now);
+        running.queue.enqueue(running.player++, rating + running.random.nextInt(40), timeControl, now);
+        LockSupport.unpark(running.matcher);
+        while (running.paired.get() < target) {
+            Thread.yield();
+        }
+        return target;
+    }
+}
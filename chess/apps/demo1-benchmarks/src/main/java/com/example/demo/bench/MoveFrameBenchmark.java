@@ -0,0 +1,78 @@
+package com.example.demo.bench;
+
+import com.example.demo.engine.Piece;
+import com.example.demo.model.GameMessage;
+import com.example.demo.websocket.BinaryMoveCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of one move broadcast: the Jackson {@link GameMessage} path versus a
+ * {@link BinaryMoveCodec#MOVE_WITH_CLOCK} frame. Payload sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveFrameBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GameMessage message;
+    private byte[] jsonFrame;
+    private byte[] binaryFrame;
+    private int wireMove;
+
+    @Setup
+    public void setup() throws Exception {
+        message = new GameMessage("7F3A-91BC", "42", GameMessage.MessageType.MOVE,
+                "{\"from\":\"e2\",\"to\":\"e4\",\"notation\":\"e4\","
+                        + "\"clock\":{\"white\":600000,\"black\":598765,\"running\":\"black\"}}");
+        jsonFrame = objectMapper.writeValueAsBytes(message);
+        wireMove = 12 | (28 << 6);
+        binaryFrame = BinaryMoveCodec.encodeMoveWithClock(1234, 1, wireMove, 600000, 598765, Piece.BLACK);
+        System.out.printf("payload bytes/frame: json=%d binary=%d%n", jsonFrame.length, binaryFrame.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public void jsonDecode(Blackhole blackhole) throws Exception {
+        GameMessage decoded = objectMapper.readValue(jsonFrame, GameMessage.class);
+        JsonNode content = objectMapper.readTree(decoded.getContent());
+        blackhole.consume(content.path("from").asText());
+        blackhole.consume(content.path("to").asText());
+        blackhole.consume(content.path("clock").path("white").asLong());
+        blackhole.consume(content.path("clock").path("black").asLong());
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return BinaryMoveCodec.encodeMoveWithClock(1234, 1, wireMove, 600000, 598765, Piece.BLACK);
+    }
+
+    @Benchmark
+    public void binaryDecode(Blackhole blackhole) {
+        blackhole.consume(BinaryMoveCodec.handle(binaryFrame));
+        blackhole.consume(BinaryMoveCodec.sequence(binaryFrame));
+        blackhole.consume(BinaryMoveCodec.wireMove(binaryFrame));
+        blackhole.consume(BinaryMoveCodec.whiteMillis(binaryFrame));
+        blackhole.consume(BinaryMoveCodec.blackMillis(binaryFrame));
+    }
+}
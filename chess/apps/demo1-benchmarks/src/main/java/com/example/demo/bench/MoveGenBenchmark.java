@@ -0,0 +1,112 @@
+package com.example.demo.bench;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.MoveGenerator;
+import com.example.demo.engine.Perft;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation speed on the perft reference positions. Each benchmark counts the moves or
+ * positions it handles in the {@code nodes} counter, which JMH reports per second next to the
+ * call rate: perft nodes, pseudo-legal and legal moves generated, moves made and unmade, and
+ * moves checked for legality.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenBenchmark {
+    @Param({"start", "kiwipete", "position3", "position4", "position5"})
+    public String position;
+
+    private Board board;
+    private int perftDepth;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private int[] pseudoLegal;
+    private int[] legal;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        board = new Board(switch (position) {
+            case "start" -> Board.STARTING_FEN;
+            case "kiwipete" -> "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+            case "position3" -> "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            case "position4" -> "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+            case "position5" -> "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+            default -> throw new IllegalArgumentException(position);
+        });
+        // Trees of 0.4 to 5 million nodes, so that a call is long next to its setup.
+        perftDepth = position.equals("start") || position.equals("position3") ? 5 : 4;
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        pseudoLegal = Arrays.copyOf(buffer, MoveGenerator.generatePseudoLegal(board, buffer));
+        legal = Arrays.copyOf(buffer, MoveGenerator.generateLegal(board, buffer));
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = Perft.perft(board, perftDepth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public int generatePseudoLegal(Nodes counter) {
+        int count = MoveGenerator.generatePseudoLegal(board, moves);
+        counter.nodes += count;
+        return count;
+    }
+
+    @Benchmark
+    public int generateLegal(Nodes counter) {
+        int count = MoveGenerator.generateLegal(board, moves);
+        counter.nodes += count;
+        return count;
+    }
+
+    @Benchmark
+    public void makeUnmake(Nodes counter, Blackhole blackhole) {
+        for (int move : legal) {
+            board.makeMove(move);
+            blackhole.consume(board.getHash());
+            board.unmakeMove();
+        }
+        counter.nodes += legal.length;
+    }
+
+    @Benchmark
+    public void isLegal(Nodes counter, Blackhole blackhole) {
+        for (int move : pseudoLegal) {
+            blackhole.consume(board.isLegal(move));
+        }
+        counter.nodes += pseudoLegal.length;
+    }
+}
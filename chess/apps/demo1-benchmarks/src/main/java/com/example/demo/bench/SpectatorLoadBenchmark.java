@@ -0,0 +1,234 @@
+package com.example.demo.bench;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.clock.TimeControl;
+import com.example.demo.engine.Move;
+import com.example.demo.model.GameMessage;
+import com.example.demo.service.GameBroadcastService;
+import com.example.demo.service.GameSessionService;
+import com.example.demo.service.SpectatorService;
+import com.example.demo.websocket.GameTopicBroker;
+import com.example.demo.websocket.WebSocketSessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for the spectator channel: latency of relaying one move to the two players of a
+ * game while 0 to 10k spectators watch it through {@link SpectatorService}. One in ten
+ * spectators is slow (every socket write takes 20 ms). The relay is the work done on the
+ * game's mailbox thread: the player publish plus recording the move for spectators. Spectator
+ * fan-out runs concurrently on its own threads at the default 100 ms tick.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpectatorLoadBenchmark {
+    private static final String GAME_ID = "spectated";
+    private static final int SLOW_EVERY = 10;
+    private static final long SLOW_WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Param({"0", "1000", "10000"})
+    public int spectators;
+
+    private GameTopicBroker broker;
+    private SpectatorService spectatorService;
+    private GameSessionService.GameSession session;
+    private Message<?> playerMove;
+    private int move;
+    private final AtomicLong fastFrames = new AtomicLong();
+    private final AtomicLong slowFrames = new AtomicLong();
+    private long relays;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        WebSocketSessionRegistry registry = new WebSocketSessionRegistry();
+        broker = new GameTopicBroker(new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(),
+                new ExecutorSubscribableChannel(), registry);
+        broker.start();
+
+        for (int i = 0; i < 2; i++) {
+            subscribe(registry, new StubSession("player-" + i, fastFrames, 0), GameBroadcastService.gameTopic(GAME_ID));
+        }
+        for (int i = 0; i < spectators; i++) {
+            boolean slow = i % SLOW_EVERY == 0;
+            StubSession spectator = new StubSession("spectator-" + i, slow ? slowFrames : fastFrames,
+                    slow ? SLOW_WRITE_NANOS : 0);
+            subscribe(registry, spectator, SpectatorService.watchTopic(GAME_ID));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        spectatorService = new SpectatorService(broker, objectMapper, 100, 0);
+        spectatorService.start();
+        session = new GameSessionService.GameSession(GAME_ID, 1,
+                new GameClock(GAME_ID, TimeControl.DEFAULT, clock -> { }));
+        move = Move.of(12, 28, Move.DOUBLE_PAWN_PUSH);
+
+        GameMessage message = new GameMessage(GAME_ID, "42", GameMessage.MessageType.MOVE,
+                "{\"from\":\"e2\",\"to\":\"e4\",\"notation\":\"e4\","
+                        + "\"clock\":{\"white\":600000,\"black\":598765,\"running\":\"black\"}}");
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(GameBroadcastService.gameTopic(GAME_ID));
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        playerMove = MessageBuilder.createMessage(objectMapper.writeValueAsBytes(message), accessor.getMessageHeaders());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        spectatorService.shutdown();
+        broker.stop();
+        System.out.printf("%nspectators=%d: relays=%d, frames to players+fast spectators=%d, to slow spectators=%d%n",
+                spectators, relays, fastFrames.get(), slowFrames.get());
+    }
+
+    @Benchmark
+    public void relayMove() {
+        broker.handleMessage(playerMove);
+        spectatorService.onMove(session, move, session.getClock());
+        relays++;
+    }
+
+    private void subscribe(WebSocketSessionRegistry registry, StubSession session, String destination) {
+        registry.register(session);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(session.getId());
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Open session that counts frames, optionally taking {@code writeNanos} per write.
+     */
+    private static final class StubSession implements WebSocketSession {
+        private final String id;
+        private final AtomicLong frames;
+        private final long writeNanos;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        StubSession(String id, AtomicLong frames, long writeNanos) {
+            this.id = id;
+            this.frames = frames;
+            this.writeNanos = writeNanos;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (writeNanos > 0) {
+                LockSupport.parkNanos(writeNanos);
+            }
+            frames.incrementAndGet();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return "v12.stomp";
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
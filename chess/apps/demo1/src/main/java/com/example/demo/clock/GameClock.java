@@ -0,0 +1,140 @@
+package com.example.demo.clock;
+
+import com.example.demo.engine.Piece;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Chess clock for one game, measured with {@link System#nanoTime()}. The clock starts on
+ * the first move: white's first move is free and starts black's time.
+ */
+public class GameClock {
+    @Getter
+    private final String gameId;
+    @Getter
+    private final TimeControl timeControl;
+    private final long incrementNanos;
+    private final long[] remainingNanos = new long[2];
+    private final TimingWheel.Timeout flagTimeout;
+    private int running = Piece.NONE;
+    private long turnStartedNanos;
+    private int flagged = Piece.NONE;
+    private boolean flagReported;
+
+    public GameClock(String gameId, TimeControl timeControl, Consumer<GameClock> onDeadline) {
+        this.gameId = gameId;
+        this.timeControl = timeControl;
+        this.incrementNanos = TimeUnit.MILLISECONDS.toNanos(timeControl.incrementMillis());
+        long baseNanos = TimeUnit.MILLISECONDS.toNanos(timeControl.baseMillis());
+        this.remainingNanos[Piece.WHITE] = baseNanos;
+        this.remainingNanos[Piece.BLACK] = baseNanos;
+        this.flagTimeout = new TimingWheel.Timeout(() -> onDeadline.accept(this));
+    }
+
+    public TimingWheel.Timeout getFlagTimeout() {
+        return flagTimeout;
+    }
+
+    /**
+     * Stops the mover's clock, adds the increment and starts the opponent's clock.
+     *
+     * @return the nanoTime at which the opponent flags, or -1 if the mover had already flagged
+     */
+    public synchronized long press(int moverColor, long nowNanos) {
+        if (flagged != Piece.NONE) {
+            return -1;
+        }
+        if (running == moverColor) {
+            remainingNanos[moverColor] -= nowNanos - turnStartedNanos;
+            if (remainingNanos[moverColor] <= 0) {
+                remainingNanos[moverColor] = 0;
+                flagged = moverColor;
+                running = Piece.NONE;
+                return -1;
+            }
+            remainingNanos[moverColor] += incrementNanos;
+        }
+        running = moverColor ^ 1;
+        turnStartedNanos = nowNanos;
+        return nowNanos + remainingNanos[running];
+    }
+
+    /**
+     * Re-evaluates the running side after its deadline fired.
+     *
+     * @return the flagged colour, or {@link Piece#NONE} if time is still left
+     */
+    public synchronized int checkFlag(long nowNanos) {
+        if (running != Piece.NONE && remainingNanos[running] - (nowNanos - turnStartedNanos) <= 0) {
+            remainingNanos[running] = 0;
+            flagged = running;
+            running = Piece.NONE;
+        }
+        return flagged;
+    }
+
+    /**
+     * Claims the flag fall for reporting, so the game is ended only once whether the press or
+     * the deadline noticed it.
+     *
+     * @return true the first time this is called after the clock flagged
+     */
+    public synchronized boolean reportFlag() {
+        if (flagged == Piece.NONE || flagReported) {
+            return false;
+        }
+        flagReported = true;
+        return true;
+    }
+
+    public synchronized long deadlineNanos() {
+        return running == Piece.NONE ? -1 : turnStartedNanos + remainingNanos[running];
+    }
+
+    public synchronized void stop(long nowNanos) {
+        if (running != Piece.NONE) {
+            remainingNanos[running] = Math.max(0, remainingNanos[running] - (nowNanos - turnStartedNanos));
+            running = Piece.NONE;
+        }
+    }
+
+    /**
+     * Resets the clock to state captured on another node, with the running side's turn
+     * starting now.
+     */
+    public synchronized void restore(long whiteMillis, long blackMillis, int runningColor, int flaggedColor,
+                                     long nowNanos) {
+        remainingNanos[Piece.WHITE] = TimeUnit.MILLISECONDS.toNanos(whiteMillis);
+        remainingNanos[Piece.BLACK] = TimeUnit.MILLISECONDS.toNanos(blackMillis);
+        running = flaggedColor == Piece.NONE ? runningColor : Piece.NONE;
+        flagged = flaggedColor;
+        flagReported = flaggedColor != Piece.NONE;
+        turnStartedNanos = nowNanos;
+    }
+
+    public synchronized long remainingMillis(int color, long nowNanos) {
+        long remaining = remainingNanos[color];
+        if (running == color) {
+            remaining -= nowNanos - turnStartedNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, remaining));
+    }
+
+    public synchronized boolean hasFlagged() {
+        return flagged != Piece.NONE;
+    }
+
+    public synchronized int getFlaggedColor() {
+        return flagged;
+    }
+
+    public synchronized boolean isRunning() {
+        return running != Piece.NONE;
+    }
+
+    public synchronized int getRunningColor() {
+        return running;
+    }
+}
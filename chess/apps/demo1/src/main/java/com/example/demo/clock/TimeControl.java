@@ -0,0 +1,19 @@
+package com.example.demo.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base time plus per-move increment, e.g. 10+0 or 3+2.
+ */
+public record TimeControl(long baseMillis, long incrementMillis) {
+    public static final TimeControl DEFAULT = ofMinutes(10, 0);
+
+    public static TimeControl ofMinutes(int minutes, int incrementSeconds) {
+        return new TimeControl(TimeUnit.MINUTES.toMillis(minutes), TimeUnit.SECONDS.toMillis(incrementSeconds));
+    }
+
+    @Override
+    public String toString() {
+        return TimeUnit.MILLISECONDS.toMinutes(baseMillis) + "+" + TimeUnit.MILLISECONDS.toSeconds(incrementMillis);
+    }
+}
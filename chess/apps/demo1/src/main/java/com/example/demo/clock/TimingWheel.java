@@ -0,0 +1,182 @@
+package com.example.demo.clock;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hierarchical timing wheel with four levels of 64 slots. With a 10ms tick level 0 covers
+ * 640ms, level 1 about 41s, level 2 about 44min and level 3 about 46h; longer deadlines are
+ * parked in the top level and re-placed when it cascades.
+ * <p>
+ * The wheel itself is only touched by the thread calling {@link #advance(long)}. Other
+ * threads call {@link #schedule} / {@link #cancel}, which record the new deadline on the
+ * {@link Timeout} and hand it over through a queue; repeated reschedules of the same timeout
+ * before the next tick are coalesced. Slots are intrusive linked lists, so rescheduling a
+ * timeout never allocates.
+ */
+public class TimingWheel {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+    private static final long CANCELLED = Long.MIN_VALUE;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickNanos, long startNanos) {
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * A reusable timer entry. The task runs on the thread driving the wheel.
+     */
+    public static class Timeout {
+        private final Runnable task;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile long requestedDeadline = CANCELLED;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Timeout prev;
+        private Timeout next;
+
+        public Timeout(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    public void schedule(Timeout timeout, long deadlineNanos) {
+        request(timeout, deadlineNanos);
+    }
+
+    public void cancel(Timeout timeout) {
+        request(timeout, CANCELLED);
+    }
+
+    private void request(Timeout timeout, long deadline) {
+        timeout.requestedDeadline = deadline;
+        if (timeout.queued.compareAndSet(false, true)) {
+            pending.offer(timeout);
+        }
+    }
+
+    /**
+     * Applies pending (re)schedules and expires every timeout due at or before {@code nowNanos}.
+     */
+    public void advance(long nowNanos) {
+        drainPending();
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            expireSlot();
+        }
+    }
+
+    /**
+     * @return number of timeouts currently linked into the wheel (wheel thread only)
+     */
+    public int size() {
+        return size;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void drainPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            timeout.queued.set(false);
+            long deadline = timeout.requestedDeadline;
+            unlink(timeout);
+            if (deadline != CANCELLED) {
+                long tick = Math.ceilDiv(deadline - startNanos, tickNanos);
+                timeout.deadlineTick = Math.max(tick, currentTick + 1);
+                place(timeout);
+            }
+        }
+    }
+
+    private void cascade() {
+        int level = 0;
+        while (level < LEVELS - 1 && ((currentTick >>> (SLOT_BITS * (level + 1))) << (SLOT_BITS * (level + 1))) == currentTick) {
+            level++;
+        }
+        for (; level > 0; level--) {
+            int index = (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+            Timeout timeout = slots[level][index];
+            slots[level][index] = null;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = timeout.next = null;
+                timeout.level = -1;
+                size--;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expireSlot() {
+        int index = (int) currentTick & SLOT_MASK;
+        Timeout timeout = slots[0][index];
+        slots[0][index] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = timeout.next = null;
+            timeout.level = -1;
+            size--;
+            if (timeout.deadlineTick > currentTick) {
+                place(timeout);
+            } else {
+                timeout.task.run();
+            }
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long placementTick = delta >= MAX_SPAN ? currentTick + MAX_SPAN - 1 : Math.max(timeout.deadlineTick, currentTick);
+        int level = 0;
+        while (level < LEVELS - 1 && (placementTick - currentTick) >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) (placementTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        Timeout head = slots[level][index];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[level][index] = timeout;
+        timeout.level = level;
+        timeout.slot = index;
+        size++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.level < 0) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = timeout.next = null;
+        timeout.level = -1;
+        size--;
+    }
+}
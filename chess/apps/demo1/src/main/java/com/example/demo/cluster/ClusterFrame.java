@@ -0,0 +1,75 @@
+package com.example.demo.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One message between cluster nodes: a type, the sending node's id, string headers and an
+ * opaque body. On the wire: type byte, sender, header count, header pairs (modified UTF-8),
+ * body length and body bytes.
+ */
+public record ClusterFrame(Type type, String sender, Map<String, String> headers, byte[] body) {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MAX_BODY = 16 * 1024 * 1024;
+
+    public enum Type {
+        /** Join request; the receiver answers with MEMBERS. */
+        HELLO,
+        /** Heartbeat carrying the sender's view of the membership. */
+        MEMBERS,
+        /** The sender is shutting down and has handed its games off. */
+        LEAVE,
+        /** A client message for a game the receiver owns. */
+        FORWARD,
+        /** A broker publish for the receiver's local subscribers. */
+        PUBLISH,
+        /** The state of a game the receiver now owns. */
+        HANDOFF,
+        /** A client of the sender closed its STOMP session. */
+        DISCONNECT
+    }
+
+    public ClusterFrame {
+        body = body == null ? EMPTY : body;
+    }
+
+    public String header(String name) {
+        return headers.get(name);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(sender);
+        out.writeShort(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeUTF(header.getValue());
+        }
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    static ClusterFrame readFrom(DataInputStream in) throws IOException {
+        int typeIndex = in.readUnsignedByte();
+        Type[] types = Type.values();
+        if (typeIndex >= types.length) {
+            throw new IOException("Unknown cluster frame type " + typeIndex);
+        }
+        String sender = in.readUTF();
+        int headerCount = in.readUnsignedShort();
+        Map<String, String> headers = new LinkedHashMap<>(headerCount * 2);
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(in.readUTF(), in.readUTF());
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_BODY) {
+            throw new IOException("Cluster frame body too large: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return new ClusterFrame(types[typeIndex], sender, headers, body);
+    }
+}
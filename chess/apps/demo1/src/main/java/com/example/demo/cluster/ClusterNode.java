@@ -0,0 +1,29 @@
+package com.example.demo.cluster;
+
+/**
+ * A member of the game cluster and the address its {@link ClusterTransport} listens on.
+ */
+public record ClusterNode(String id, String host, int port) {
+
+    public String address() {
+        return host + ":" + port;
+    }
+
+    /**
+     * Inverse of {@link #toString()}: {@code id@host:port}.
+     */
+    public static ClusterNode parse(String value) {
+        int at = value.lastIndexOf('@');
+        int colon = value.lastIndexOf(':');
+        if (at <= 0 || colon < at) {
+            throw new IllegalArgumentException("Invalid cluster node: " + value);
+        }
+        return new ClusterNode(value.substring(0, at), value.substring(at + 1, colon),
+                Integer.parseInt(value.substring(colon + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return id + "@" + address();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.cluster;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands client SENDs to game destinations to {@link ClusterService}, which forwards those for
+ * games owned by another node. Does nothing until the cluster service registers itself, so a
+ * standalone node pays one volatile read per message.
+ */
+@Component
+public class ClusterRoutingInterceptor implements ChannelInterceptor {
+    private volatile ClusterService router;
+
+    void setRouter(ClusterService router) {
+        this.router = router;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        ClusterService currentRouter = router;
+        if (currentRouter == null) {
+            return message;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+        return currentRouter.route(message, accessor);
+    }
+}
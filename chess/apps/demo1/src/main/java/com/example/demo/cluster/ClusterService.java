@@ -0,0 +1,654 @@
+package com.example.demo.cluster;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.engine.Piece;
+import com.example.demo.service.ClockService;
+import com.example.demo.service.GameMailboxService;
+import com.example.demo.service.GameReplayService;
+import com.example.demo.service.GameSessionService;
+import com.example.demo.service.SpectatorService;
+import com.example.demo.websocket.BinaryMoveCodec;
+import com.example.demo.websocket.BrokerRelay;
+import com.example.demo.websocket.GameTopicBroker;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Spreads live games over several nodes. Each gameId is owned by one node, chosen with a
+ * {@link ConsistentHashRing} over the current members, and only the owner holds the game's
+ * {@link GameSessionService.GameSession}:
+ * <ul>
+ *   <li>client SENDs to {@code /app/game.*} for a game owned elsewhere are forwarded to the
+ *   owner and injected into its inbound channel, as if the client were connected there;</li>
+ *   <li>the owner's publishes to {@code /topic/game/**} are relayed to the other nodes, which
+ *   deliver them to their own subscribers;</li>
+ *   <li>when members join or leave, games whose owner changed are handed to the new owner
+ *   with their position, players, clocks and message sequence;</li>
+ *   <li>STOMP disconnects are announced to the other nodes, so owners can reap games whose
+ *   players are gone.</li>
+ * </ul>
+ * Membership is gossiped over the same {@link ClusterTransport}: nodes greet the configured
+ * seeds, exchange member lists every heartbeat and drop members not heard from within the
+ * failure timeout. A node that stops gracefully hands its games off before leaving; games on
+ * a node that crashes are lost.
+ * <p>
+ * Disabled by default ({@code game.cluster.enabled=false}), in which case every game is local
+ * and nothing is intercepted.
+ */
+@Slf4j
+@Service
+public class ClusterService implements BrokerRelay {
+    static final String HOPS_HEADER = "clusterHops";
+
+    private static final int MAX_HOPS = 2;
+    private static final long LEAVE_TIMEOUT_MILLIS = 5000;
+    private static final String APP_GAME_PREFIX = "/app/game.";
+    private static final String BINARY_MOVE_DESTINATION = "/app/game.move.bin";
+    private static final String NATIVE_HEADER_PREFIX = "native.";
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final String host;
+    private final int port;
+    private final List<String> seeds;
+    private final long heartbeatMillis;
+    private final long failureTimeoutNanos;
+    private final int virtualNodes;
+
+    private final GameSessionService gameSessionService;
+    private final GameMailboxService gameMailboxService;
+    private final ClockService clockService;
+    private final GameReplayService gameReplayService;
+    private final SpectatorService spectatorService;
+    private final GameTopicBroker gameTopicBroker;
+    private final ClusterRoutingInterceptor routingInterceptor;
+    private final MessageChannel clientInboundChannel;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ConsistentHashRing ring;
+    private volatile boolean leaving;
+    private ClusterNode self;
+    private ClusterTransport transport;
+
+    private static final class Member {
+        private final ClusterNode node;
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        Member(ClusterNode node) {
+            this.node = node;
+        }
+    }
+
+    public ClusterService(@Value("${game.cluster.enabled:false}") boolean enabled,
+                          @Value("${game.cluster.node-id:}") String nodeId,
+                          @Value("${game.cluster.host:127.0.0.1}") String host,
+                          @Value("${game.cluster.port:7400}") int port,
+                          @Value("${game.cluster.seeds:}") List<String> seeds,
+                          @Value("${game.cluster.heartbeat-millis:1000}") long heartbeatMillis,
+                          @Value("${game.cluster.failure-timeout-millis:5000}") long failureTimeoutMillis,
+                          @Value("${game.cluster.virtual-nodes:128}") int virtualNodes,
+                          GameSessionService gameSessionService,
+                          GameMailboxService gameMailboxService,
+                          ClockService clockService,
+                          GameReplayService gameReplayService,
+                          SpectatorService spectatorService,
+                          GameTopicBroker gameTopicBroker,
+                          ClusterRoutingInterceptor routingInterceptor,
+                          @Qualifier("clientInboundChannel") MessageChannel clientInboundChannel,
+                          ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? "node-" + UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        this.host = host;
+        this.port = port;
+        this.seeds = seeds.stream().map(String::trim).filter(seed -> !seed.isEmpty()).toList();
+        this.heartbeatMillis = heartbeatMillis;
+        this.failureTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(failureTimeoutMillis);
+        this.virtualNodes = virtualNodes;
+        this.gameSessionService = gameSessionService;
+        this.gameMailboxService = gameMailboxService;
+        this.clockService = clockService;
+        this.gameReplayService = gameReplayService;
+        this.spectatorService = spectatorService;
+        this.gameTopicBroker = gameTopicBroker;
+        this.routingInterceptor = routingInterceptor;
+        this.clientInboundChannel = clientInboundChannel;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        transport = new ClusterTransport(host, port, this::onFrame);
+        transport.start();
+        self = new ClusterNode(nodeId, host, transport.getPort());
+        rebuildRing();
+        routingInterceptor.setRouter(this);
+        gameTopicBroker.setRelay(this);
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        log.info("Cluster node {} started, seeds: {}", self, seeds);
+    }
+
+    /**
+     * Leaves the cluster and hands every local game to its next owner.
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        if (transport == null) {
+            return;
+        }
+        leaving = true;
+        // Peers drop us from their rings first, so they keep the games we hand them
+        ClusterFrame leave = frame(ClusterFrame.Type.LEAVE, Map.of(), null);
+        members.values().forEach(member -> transport.send(member.node.address(), leave));
+        List<CompletableFuture<Void>> handoffs = rebuildRing();
+        try {
+            CompletableFuture.allOf(handoffs.toArray(CompletableFuture[]::new))
+                    .get(LEAVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Not every game was handed off before leaving the cluster", e);
+        }
+        transport.close(LEAVE_TIMEOUT_MILLIS);
+        log.info("Cluster node {} left", self);
+    }
+
+    public ClusterNode getLocalNode() {
+        return self;
+    }
+
+    /**
+     * @return ids of every member this node currently routes to, itself included
+     */
+    public Set<String> getMembers() {
+        ConsistentHashRing current = ring;
+        return current == null ? Set.of(nodeId) : current.nodes();
+    }
+
+    /**
+     * @return true if this node owns {@code gameId}
+     */
+    public boolean isLocal(String gameId) {
+        return !enabled || self.id().equals(ring.ownerOf(gameId));
+    }
+
+    /**
+     * @return the id of the node owning {@code gameId}
+     */
+    public String ownerOf(String gameId) {
+        return enabled ? ring.ownerOf(gameId) : nodeId;
+    }
+
+    @Override
+    public boolean isActive() {
+        return enabled && !members.isEmpty();
+    }
+
+    /**
+     * Forwards a client SEND for a game owned elsewhere.
+     *
+     * @return {@code message} to handle it here, or null if it was forwarded
+     */
+    Message<?> route(Message<?> message, StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (!isActive() || destination == null || !destination.startsWith(APP_GAME_PREFIX)
+                || !(message.getPayload() instanceof byte[] body)) {
+            return message;
+        }
+        int hops = hopsOf(accessor);
+        if (hops >= MAX_HOPS) {
+            return message;
+        }
+        if (BINARY_MOVE_DESTINATION.equals(destination)) {
+            if (hops > 0 || !BinaryMoveCodec.isValid(body)
+                    || gameSessionService.getGameSessionByHandle(BinaryMoveCodec.handle(body)) != null) {
+                return message;
+            }
+            // Only the owning node has a session for the handle to resolve to
+            ClusterFrame frame = forwardFrame(accessor, body, MAX_HOPS, true);
+            members.values().forEach(member -> transport.send(member.node.address(), frame));
+            return null;
+        }
+        String gameId = gameIdOf(body);
+        if (gameId == null || isLocal(gameId)) {
+            return message;
+        }
+        Member owner = members.get(ring.ownerOf(gameId));
+        if (owner == null) {
+            return message;
+        }
+        transport.send(owner.node.address(), forwardFrame(accessor, body, hops + 1, false));
+        return null;
+    }
+
+    /**
+     * Relays publishes for games owned here to every other member.
+     */
+    @Override
+    public void relay(String destination, byte[] body, MimeType contentType, Map<String, List<String>> nativeHeaders,
+                      boolean latest) {
+        if (!isActive()) {
+            return;
+        }
+        String gameId = gameIdOfTopic(destination);
+        if (gameId == null || !isLocal(gameId)) {
+            return;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("destination", destination);
+        if (contentType != null) {
+            headers.put("content-type", contentType.toString());
+        }
+        if (latest) {
+            headers.put("latest", "true");
+        }
+        nativeHeaders.forEach((name, values) -> {
+            if (!values.isEmpty() && values.get(0) != null) {
+                headers.put(NATIVE_HEADER_PREFIX + name, values.get(0));
+            }
+        });
+        ClusterFrame frame = frame(ClusterFrame.Type.PUBLISH, headers, body);
+        members.values().forEach(member -> transport.send(member.node.address(), frame));
+    }
+
+    private void onFrame(ClusterFrame frame) {
+        if (leaving && (frame.type() == ClusterFrame.Type.HELLO || frame.type() == ClusterFrame.Type.MEMBERS)) {
+            return;
+        }
+        switch (frame.type()) {
+            case HELLO -> {
+                ClusterNode node = admit(frame);
+                if (node != null) {
+                    transport.send(node.address(), membersFrame());
+                }
+            }
+            case MEMBERS -> {
+                admit(frame);
+                discover(frame.body());
+            }
+            case LEAVE -> remove(frame.sender(), "left");
+            case FORWARD -> {
+                touch(frame.sender());
+                onForward(frame);
+            }
+            case PUBLISH -> {
+                touch(frame.sender());
+                onPublish(frame);
+            }
+            case HANDOFF -> {
+                touch(frame.sender());
+                onHandoff(frame);
+            }
+            case DISCONNECT -> {
+                touch(frame.sender());
+                gameSessionService.disconnect(frame.header("session"));
+            }
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            long now = System.nanoTime();
+            for (Member member : List.copyOf(members.values())) {
+                if (now - member.lastSeenNanos > failureTimeoutNanos) {
+                    remove(member.node.id(), "timed out");
+                }
+            }
+            ClusterFrame membersFrame = membersFrame();
+            Set<String> addresses = new HashSet<>();
+            for (Member member : members.values()) {
+                addresses.add(member.node.address());
+                transport.send(member.node.address(), membersFrame);
+            }
+            for (String seed : seeds) {
+                if (!addresses.contains(seed) && !seed.equals(self.address())) {
+                    transport.send(seed, helloFrame());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error sending cluster heartbeat", e);
+        }
+    }
+
+    /**
+     * Adds or refreshes the member that sent a HELLO or MEMBERS frame.
+     */
+    private ClusterNode admit(ClusterFrame frame) {
+        ClusterNode node = ClusterNode.parse(frame.header("node"));
+        if (node.id().equals(self.id())) {
+            return null;
+        }
+        Member current = members.get(node.id());
+        if (current != null && current.node.equals(node)) {
+            current.lastSeenNanos = System.nanoTime();
+            return node;
+        }
+        members.put(node.id(), new Member(node));
+        if (current != null) {
+            transport.disconnect(current.node.address());
+        }
+        log.info("Cluster node {} joined", node);
+        rebuildRing();
+        return node;
+    }
+
+    /**
+     * Greets members we only know from another node's list. They join our view once they
+     * answer, so a dead node is never resurrected by stale gossip.
+     */
+    private void discover(byte[] memberList) {
+        for (String line : new String(memberList, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ClusterNode node = ClusterNode.parse(line);
+            if (!node.id().equals(self.id()) && !members.containsKey(node.id())) {
+                transport.send(node.address(), helloFrame());
+            }
+        }
+    }
+
+    private void remove(String memberId, String reason) {
+        Member member = members.remove(memberId);
+        if (member != null) {
+            log.info("Cluster node {} {}", member.node, reason);
+            transport.disconnect(member.node.address());
+            rebuildRing();
+            gameSessionService.disconnectAll(memberId + ":");
+        }
+    }
+
+    private void touch(String memberId) {
+        Member member = members.get(memberId);
+        if (member != null) {
+            member.lastSeenNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Rebuilds the ring from the current members and hands off local games that now belong
+     * to another node.
+     *
+     * @return one future per game handed off, completed once the handoff has run
+     */
+    private synchronized List<CompletableFuture<Void>> rebuildRing() {
+        Set<String> ids = new HashSet<>(members.keySet());
+        if (!leaving) {
+            ids.add(self.id());
+        }
+        if (ring != null && ring.nodes().equals(ids)) {
+            return List.of();
+        }
+        ring = new ConsistentHashRing(ids, virtualNodes);
+        log.info("Cluster ring on {}: {}", self.id(), ids.stream().sorted().toList());
+        return handOffForeignGames();
+    }
+
+    /**
+     * Games recovered from the journal at startup may now belong to another node.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order
+    public void onReady() {
+        if (transport != null) {
+            handOffForeignGames();
+        }
+    }
+
+    private List<CompletableFuture<Void>> handOffForeignGames() {
+        List<CompletableFuture<Void>> handoffs = new ArrayList<>();
+        for (String gameId : gameSessionService.getActiveGameIds()) {
+            if (!isLocal(gameId)) {
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                gameMailboxService.execute(gameId, () -> {
+                    try {
+                        handOff(gameId);
+                    } finally {
+                        done.complete(null);
+                    }
+                });
+                handoffs.add(done);
+            }
+        }
+        return handoffs;
+    }
+
+    /**
+     * Moves a local game to its current owner. Runs on the game's mailbox thread, after
+     * everything already queued for the game.
+     */
+    private void handOff(String gameId) {
+        GameSessionService.GameSession session = gameSessionService.getGameSession(gameId);
+        String owner = ring.ownerOf(gameId);
+        Member target = owner == null ? null : members.get(owner);
+        if (session == null || target == null) {
+            return;
+        }
+        GameClock clock = session.getClock();
+        long now = System.nanoTime();
+        GameHandoff handoff = new GameHandoff(
+                gameId,
+                session.getPlayers(),
+                qualify(session.getConnections()),
+                session.getLastMoverId(),
+                session.getMoves(),
+                session.getClockHistory(),
+                session.isOver(),
+                session.getResult(),
+                clock.remainingMillis(Piece.WHITE, now),
+                clock.remainingMillis(Piece.BLACK, now),
+                clock.getRunningColor(),
+                clock.getFlaggedColor(),
+                gameReplayService.lastSeq(gameId),
+                gameReplayService.snapshot(gameId),
+                spectatorService.latest(gameId)
+        );
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(handoff);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing handoff of game {}; keeping it here", gameId, e);
+            return;
+        }
+        gameSessionService.releaseGameSession(gameId);
+        transport.send(target.node.address(), frame(ClusterFrame.Type.HANDOFF, Map.of("game", gameId), body));
+        log.info("Handed game {} off to {} at ply {}", gameId, owner, handoff.moves().length);
+    }
+
+    /**
+     * Players of games owned elsewhere are bound there under their qualified session id.
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (transport == null || members.isEmpty()) {
+            return;
+        }
+        ClusterFrame frame = frame(ClusterFrame.Type.DISCONNECT, Map.of("session", qualify(event.getSessionId())), null);
+        members.values().forEach(member -> transport.send(member.node.address(), frame));
+    }
+
+    private void onHandoff(ClusterFrame frame) {
+        GameHandoff handoff;
+        try {
+            handoff = objectMapper.readValue(frame.body(), GameHandoff.class);
+        } catch (IOException e) {
+            log.error("Malformed handoff of game {} from {}", frame.header("game"), frame.sender(), e);
+            return;
+        }
+        gameMailboxService.execute(handoff.gameId(), () -> adopt(handoff, frame.sender()));
+    }
+
+    private void adopt(GameHandoff handoff, String from) {
+        String gameId = handoff.gameId();
+        GameSessionService.GameSession session = gameSessionService.restoreGameSession(gameId, handoff.players(),
+                unqualify(handoff.connections()), handoff.lastMoverId(), handoff.moves(), handoff.clocks());
+        if (handoff.over()) {
+            session.finish();
+            session.setResult(handoff.result());
+        }
+        clockService.resume(session.getClock(), handoff.whiteMillis(), handoff.blackMillis(),
+                handoff.runningColor(), handoff.flaggedColor());
+        gameReplayService.restore(gameId, handoff.lastSeq(), handoff.snapshot());
+        if (handoff.spectator() != null) {
+            spectatorService.restore(handoff.spectator());
+        }
+        gameSessionService.journalState(session);
+        log.info("Adopted game {} from {} at ply {}", gameId, from, handoff.moves().length);
+        if (!isLocal(gameId)) {
+            handOff(gameId);
+        }
+    }
+
+    private void onForward(ClusterFrame frame) {
+        byte[] body = frame.body();
+        if (frame.header("by-handle") != null && (!BinaryMoveCodec.isValid(body)
+                || gameSessionService.getGameSessionByHandle(BinaryMoveCodec.handle(body)) == null)) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(frame.header("destination"));
+        accessor.setSessionId(frame.header("session"));
+        accessor.setSessionAttributes(new ConcurrentHashMap<>());
+        String contentType = frame.header("content-type");
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType));
+        }
+        accessor.setHeader(HOPS_HEADER, Integer.parseInt(frame.header("hops")));
+        clientInboundChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+
+    private void onPublish(ClusterFrame frame) {
+        String destination = frame.header("destination");
+        if (frame.header("latest") != null) {
+            spectatorService.publishRelayed(destination, frame.body());
+            return;
+        }
+        String contentType = frame.header("content-type");
+        Map<String, List<String>> nativeHeaders = new HashMap<>();
+        frame.headers().forEach((name, value) -> {
+            if (name.startsWith(NATIVE_HEADER_PREFIX)) {
+                nativeHeaders.put(name.substring(NATIVE_HEADER_PREFIX.length()), List.of(value));
+            }
+        });
+        gameTopicBroker.deliverRelayed(destination, frame.body(),
+                contentType == null ? null : MimeType.valueOf(contentType), nativeHeaders);
+    }
+
+    private ClusterFrame forwardFrame(StompHeaderAccessor accessor, byte[] body, int hops, boolean byHandle) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("destination", accessor.getDestination());
+        headers.put("session", qualify(accessor.getSessionId()));
+        headers.put("hops", Integer.toString(hops));
+        MimeType contentType = accessor.getContentType();
+        if (contentType != null) {
+            headers.put("content-type", contentType.toString());
+        }
+        if (byHandle) {
+            headers.put("by-handle", "true");
+        }
+        return frame(ClusterFrame.Type.FORWARD, headers, body);
+    }
+
+    private ClusterFrame helloFrame() {
+        return frame(ClusterFrame.Type.HELLO, Map.of("node", self.toString()), null);
+    }
+
+    private ClusterFrame membersFrame() {
+        StringBuilder list = new StringBuilder(self.toString());
+        members.values().forEach(member -> list.append('\n').append(member.node));
+        return frame(ClusterFrame.Type.MEMBERS, Map.of("node", self.toString()),
+                list.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ClusterFrame frame(ClusterFrame.Type type, Map<String, String> headers, byte[] body) {
+        return new ClusterFrame(type, self.id(), headers, body);
+    }
+
+    /**
+     * STOMP session ids are only unique per node, so sessions are known by
+     * {@code nodeId:sessionId} once they cross nodes.
+     */
+    private String qualify(String sessionId) {
+        return sessionId == null || sessionId.indexOf(':') >= 0 ? sessionId : self.id() + ":" + sessionId;
+    }
+
+    private Map<String, String> qualify(Map<String, String> connections) {
+        Map<String, String> qualified = new HashMap<>();
+        connections.forEach((sessionId, userId) -> qualified.put(qualify(sessionId), userId));
+        return qualified;
+    }
+
+    private Map<String, String> unqualify(Map<String, String> connections) {
+        String prefix = self.id() + ":";
+        Map<String, String> local = new HashMap<>();
+        connections.forEach((sessionId, userId) -> local.put(
+                sessionId.startsWith(prefix) ? sessionId.substring(prefix.length()) : sessionId, userId));
+        return local;
+    }
+
+    private static int hopsOf(StompHeaderAccessor accessor) {
+        Object hops = accessor.getHeader(HOPS_HEADER);
+        return hops instanceof Integer count ? count : 0;
+    }
+
+    private String gameIdOf(byte[] body) {
+        try {
+            return objectMapper.readTree(body).path("gameId").asText(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String gameIdOfTopic(String destination) {
+        if (destination == null || !destination.startsWith(GameTopicBroker.DESTINATION_PREFIX)) {
+            return null;
+        }
+        int start = GameTopicBroker.DESTINATION_PREFIX.length();
+        int end = destination.indexOf('/', start);
+        String gameId = end < 0 ? destination.substring(start) : destination.substring(start, end);
+        return gameId.isEmpty() ? null : gameId;
+    }
+}
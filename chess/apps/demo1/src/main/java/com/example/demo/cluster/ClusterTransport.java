@@ -0,0 +1,253 @@
+package com.example.demo.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Length-prefixed {@link ClusterFrame}s over plain TCP. Each node accepts connections on one
+ * port and opens one outbound connection per peer address, so frames from one node to another
+ * arrive in the order they were sent. Sends only enqueue; a writer thread per peer drains the
+ * queue and flushes once it is empty, batching bursts into few packets. Frames to a peer that
+ * cannot be reached are dropped; membership heartbeats decide when a peer is gone.
+ */
+@Slf4j
+public class ClusterTransport implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final Consumer<ClusterFrame> handler;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final Map<Socket, Boolean> inbound = new ConcurrentHashMap<>();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    public ClusterTransport(String host, int port, Consumer<ClusterFrame> handler) {
+        this.host = host;
+        this.port = port;
+        this.handler = handler;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(host, port));
+        daemon("cluster-accept-" + getPort(), this::acceptLoop).start();
+    }
+
+    /**
+     * @return the bound port, which differs from the configured one when that was 0
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Queues {@code frame} for the node listening on {@code address} ({@code host:port}).
+     */
+    public void send(String address, ClusterFrame frame) {
+        if (closed) {
+            return;
+        }
+        Peer peer = peers.computeIfAbsent(address, Peer::new);
+        if (!peer.queue.offer(frame)) {
+            log.warn("Dropping {} frame to {}: send queue full", frame.type(), address);
+        }
+    }
+
+    /**
+     * Drops the connection and pending frames for {@code address}.
+     */
+    public void disconnect(String address) {
+        Peer peer = peers.remove(address);
+        if (peer != null) {
+            peer.close(false);
+        }
+    }
+
+    /**
+     * Stops accepting, sends what is already queued (waiting up to {@code timeoutMillis}) and
+     * closes every connection.
+     */
+    public void close(long timeoutMillis) {
+        closed = true;
+        closeQuietly(serverSocket);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Peer peer : peers.values()) {
+            peer.close(true);
+        }
+        for (Peer peer : peers.values()) {
+            try {
+                peer.writer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            peer.writer.interrupt();
+        }
+        peers.clear();
+        inbound.keySet().forEach(ClusterTransport::closeQuietly);
+    }
+
+    @Override
+    public void close() {
+        close(0);
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                inbound.put(socket, Boolean.TRUE);
+                daemon("cluster-reader-" + socket.getRemoteSocketAddress(), () -> readLoop(socket)).start();
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Error accepting cluster connection", e);
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket; DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (!closed) {
+                ClusterFrame frame = ClusterFrame.readFrom(in);
+                try {
+                    handler.accept(frame);
+                } catch (Exception e) {
+                    log.error("Error handling {} frame from {}", frame.type(), frame.sender(), e);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            log.debug("Cluster connection from {} closed", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            log.warn("Error reading from cluster connection {}", socket.getRemoteSocketAddress(), e);
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Error closing cluster socket", e);
+        }
+    }
+
+    /**
+     * Outbound connection to one address, reconnected lazily after a failure.
+     */
+    private final class Peer {
+        private static final ClusterFrame END = new ClusterFrame(ClusterFrame.Type.LEAVE, "", Map.of(), null);
+
+        private final String address;
+        private final BlockingQueue<ClusterFrame> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        private final Thread writer;
+        private Socket socket;
+        private DataOutputStream out;
+
+        Peer(String address) {
+            this.address = address;
+            this.writer = daemon("cluster-writer-" + address, this::writeLoop);
+            writer.start();
+        }
+
+        void close(boolean drain) {
+            if (!drain) {
+                queue.clear();
+            }
+            queue.offer(END);
+        }
+
+        private void writeLoop() {
+            try {
+                while (true) {
+                    ClusterFrame frame = queue.take();
+                    if (frame == END) {
+                        break;
+                    }
+                    write(frame);
+                    if (queue.isEmpty() && out != null) {
+                        flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (out != null) {
+                    flush();
+                }
+                closeQuietly(socket);
+            }
+        }
+
+        private void write(ClusterFrame frame) {
+            try {
+                if (out == null) {
+                    connect();
+                }
+                frame.writeTo(out);
+            } catch (IOException e) {
+                log.debug("Dropping {} frame to {}: {}", frame.type(), address, e.toString());
+                reset();
+            }
+        }
+
+        private void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.debug("Error flushing cluster connection to {}: {}", address, e.toString());
+                reset();
+            }
+        }
+
+        private void connect() throws IOException {
+            int colon = address.lastIndexOf(':');
+            Socket connection = new Socket();
+            try {
+                connection.connect(new InetSocketAddress(address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1))), CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream(), 64 * 1024));
+                socket = connection;
+            } catch (IOException e) {
+                closeQuietly(connection);
+                throw e;
+            }
+        }
+
+        private void reset() {
+            closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+    }
+}
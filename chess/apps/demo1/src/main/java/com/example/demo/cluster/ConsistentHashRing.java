@@ -0,0 +1,85 @@
+package com.example.demo.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Immutable consistent-hash ring mapping keys to node ids. Each node is placed at
+ * {@code virtualNodes} points so keys spread evenly, and adding or removing a node only moves
+ * the keys adjacent to its points. Points are kept in sorted parallel arrays, so a lookup is
+ * one binary search.
+ */
+public final class ConsistentHashRing {
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.nodes = Set.copyOf(nodeIds);
+        String[] sorted = nodes.stream().sorted().toArray(String[]::new);
+        int replicas = Math.max(1, virtualNodes);
+        long[] hashes = new long[sorted.length * replicas];
+        String[] hashOwners = new String[hashes.length];
+        Integer[] order = new Integer[hashes.length];
+        for (int n = 0; n < sorted.length; n++) {
+            for (int r = 0; r < replicas; r++) {
+                int i = n * replicas + r;
+                hashes[i] = hash(sorted[n] + "#" + r);
+                hashOwners[i] = sorted[n];
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(hashes[a], hashes[b]));
+        this.points = new long[hashes.length];
+        this.owners = new String[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = hashOwners[order[i]];
+        }
+    }
+
+    /**
+     * @return the node owning {@code key}, or null if the ring is empty
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        long hash = hash(key);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that similar
+     * keys (game-1, game-2, ...) land far apart.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.cluster;
+
+import com.example.demo.service.SpectatorService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to continue a live game on another node. {@code connections} map
+ * node-qualified STOMP session ids to players; {@code moves} are {@link com.example.demo.engine.Move}
+ * encodings from the starting position, with the mover's clock after each in {@code clocks}, or
+ * null if those were not all recorded. {@code over} and {@code result} carry a game that has
+ * already ended.
+ */
+record GameHandoff(String gameId, List<String> players, Map<String, String> connections, String lastMoverId,
+                   int[] moves, long[] clocks, boolean over, String result, long whiteMillis, long blackMillis,
+                   int runningColor, int flaggedColor, long lastSeq, byte[] snapshot,
+                   SpectatorService.SpectatorUpdate spectator) {
+}
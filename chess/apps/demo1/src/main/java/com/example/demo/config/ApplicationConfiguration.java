@@ -1,6 +1,7 @@
 package com.example.demo.config;
 
 
+import com.example.demo.persistence.WriteBehindStore;
 import com.example.demo.repository.UserRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,8 +16,10 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 @Configuration
 public class ApplicationConfiguration {
     private final UserRepository userRepository;
-    public ApplicationConfiguration(UserRepository userRepository) {
+    private final WriteBehindStore writeBehindStore;
+    public ApplicationConfiguration(UserRepository userRepository, WriteBehindStore writeBehindStore) {
         this.userRepository = userRepository;
+        this.writeBehindStore = writeBehindStore;
     }
 
     @Bean
@@ -24,6 +27,7 @@ public class ApplicationConfiguration {
         return email -> {
             System.out.println("Loading user by email: " + email);
             return userRepository.findByEmail(email)
+                .map(writeBehindStore::overlayUser)
                 .orElseThrow(() -> {
                     System.out.println("User not found with email: " + email);
                     return new UsernameNotFoundException("User not found with email: " + email);
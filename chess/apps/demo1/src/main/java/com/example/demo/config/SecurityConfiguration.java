@@ -75,6 +75,7 @@ public class SecurityConfiguration {
                 "Authorization", 
                 "Content-Type", 
                 "X-Requested-With",
+                "If-None-Match",
                 "upgrade",
                 "connection",
                 "sec-websocket-key", 
@@ -84,6 +85,7 @@ public class SecurityConfiguration {
                 
         configuration.setExposedHeaders(Arrays.asList(
                 "Authorization", 
+                "ETag",
                 "upgrade", 
                 "connection", 
                 "sec-websocket-accept"));
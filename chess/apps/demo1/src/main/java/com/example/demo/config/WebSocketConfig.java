@@ -1,17 +1,30 @@
 package com.example.demo.config;
 
+import com.example.demo.cluster.ClusterRoutingInterceptor;
+import com.example.demo.service.GameReplayService;
 import com.example.demo.service.JwtService;
+import com.example.demo.service.LobbyBroadcastService;
+import com.example.demo.service.MatchmakingService;
+import com.example.demo.websocket.BinaryProtocolInterceptor;
+import com.example.demo.websocket.GameTopicBroker;
+import com.example.demo.websocket.WebSocketSessionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
@@ -24,17 +37,48 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
     private final JwtService jwtService;
+    private final BinaryProtocolInterceptor binaryProtocolInterceptor;
+    private final WebSocketSessionRegistry webSocketSessionRegistry;
+    private final ClusterRoutingInterceptor clusterRoutingInterceptor;
 
-    public WebSocketConfig(JwtService jwtService) {
+    public WebSocketConfig(JwtService jwtService, BinaryProtocolInterceptor binaryProtocolInterceptor,
+                           WebSocketSessionRegistry webSocketSessionRegistry,
+                           ClusterRoutingInterceptor clusterRoutingInterceptor) {
         this.jwtService = jwtService;
+        this.binaryProtocolInterceptor = binaryProtocolInterceptor;
+        this.webSocketSessionRegistry = webSocketSessionRegistry;
+        this.clusterRoutingInterceptor = clusterRoutingInterceptor;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /topic/game/** is served by GameTopicBroker; the simple broker keeps everything else.
+        config.enableSimpleBroker("/topic/pong", "/topic/analysis", LobbyBroadcastService.TOPIC,
+                MatchmakingService.TOPIC_PREFIX);
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Bean
+    public GameTopicBroker gameTopicBroker(@Qualifier("clientInboundChannel") SubscribableChannel clientInboundChannel,
+                                           @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                           @Qualifier("brokerChannel") SubscribableChannel brokerChannel,
+                                           GameReplayService gameReplayService) {
+        GameTopicBroker broker = new GameTopicBroker(clientInboundChannel, clientOutboundChannel, brokerChannel,
+                webSocketSessionRegistry);
+        broker.setResyncSource(gameReplayService);
+        return broker;
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(binaryProtocolInterceptor, clusterRoutingInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(webSocketSessionRegistry);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         logger.info("Registering STOMP endpoints");
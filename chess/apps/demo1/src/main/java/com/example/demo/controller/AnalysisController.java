@@ -0,0 +1,40 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.AnalysisService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequestMapping("/analysis")
+@RestController
+@AllArgsConstructor
+public class AnalysisController {
+    private final AnalysisService analysisService;
+
+    /**
+     * Queues an analysis of a FEN or of an archived game. Updates follow on
+     * {@code /topic/analysis/{id}} as each depth completes.
+     */
+    @PostMapping
+    public ResponseEntity<AnalysisService.AnalysisUpdate> start(@RequestBody AnalysisService.AnalysisRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(analysisService.start(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AnalysisService.AnalysisUpdate> get(@PathVariable String id) {
+        AnalysisService.AnalysisUpdate update = analysisService.get(id);
+        return update == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(update);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String id) {
+        return analysisService.cancel(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
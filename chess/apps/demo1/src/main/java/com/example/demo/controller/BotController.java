@@ -0,0 +1,37 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Game;
+import com.example.demo.model.User;
+import com.example.demo.service.BotService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RequestMapping("/bot")
+@RestController
+@AllArgsConstructor
+public class BotController {
+    private final BotService botService;
+
+    @GetMapping("/levels")
+    public ResponseEntity<List<BotService.Level>> levels() {
+        return ResponseEntity.ok(botService.getLevels());
+    }
+
+    /**
+     * Creates a game of the current user against a bot. The user then joins it over
+     * {@code /app/game.join} like any other game, and the bot's moves arrive on the game's topic.
+     */
+    @PostMapping("/game")
+    public ResponseEntity<Game> createGame(@RequestBody BotService.BotGameRequest request) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(botService.createGame(currentUser, request));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.controller;
+
+import com.example.demo.engine.Board;
+import com.example.demo.service.OpeningExplorerService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequestMapping("/explorer")
+@RestController
+@AllArgsConstructor
+public class ExplorerController {
+    private final OpeningExplorerService openingExplorerService;
+
+    /**
+     * Move statistics for a position from our own finished games; the starting position when
+     * no FEN is given.
+     */
+    @GetMapping
+    public ResponseEntity<OpeningExplorerService.ExplorerPosition> explore(
+            @RequestParam(defaultValue = Board.STARTING_FEN) String fen) {
+        return ResponseEntity.ok(openingExplorerService.explore(fen));
+    }
+}
@@ -1,16 +1,28 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.Game;
+import com.example.demo.service.GameExportService;
+import com.example.demo.service.GameReviewService;
+import com.example.demo.service.GameSearchService;
 import com.example.demo.service.GameService;
+import com.example.demo.service.LobbyService;
 import com.example.demo.service.UserService;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,13 +34,44 @@ public class GameController {
 
     private final GameService gameService;
     private final UserService userService;
+    private final GameExportService gameExportService;
+    private final GameSearchService gameSearchService;
+    private final GameReviewService gameReviewService;
+    private final LobbyService lobbyService;
     private static final Logger log = LoggerFactory.getLogger(GameController.class);
     private static final int ELO_CHANGE = 8;
+    private static final int EXPORT_GZIP_BUFFER = 64 * 1024;
 
+    /**
+     * Games waiting for a second player, newest first, from memory. Pass the returned
+     * {@code next} as {@code before} for the following page. The ETag changes with every
+     * change to the lobby; a poll sending it back in If-None-Match gets 304 until then.
+     */
     @GetMapping("/list")
-    public ResponseEntity<List<Game>> getAvailableGamesToConnect() {
-        List<Game> availableGamesToConnect = gameService.getAvailableGames();
-        return ResponseEntity.ok(availableGamesToConnect);
+    public ResponseEntity<LobbyService.GamePage> getAvailableGamesToConnect(
+            @RequestParam(required = false) Integer before, @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        LobbyService.Snapshot lobby = lobbyService.snapshot();
+        if (request.checkNotModified(lobby.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(lobby.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(lobby.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(lobby.page(before, limit));
+    }
+
+    /**
+     * Archived games that reached a position ({@code fen}) or a material balance
+     * ({@code material}, such as {@code KRPvKR}), newest first. Pass the returned {@code next}
+     * as {@code before} for the following page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<GameSearchService.SearchPage> search(@RequestParam(required = false) String fen,
+                                                               @RequestParam(required = false) String material,
+                                                               @RequestParam(required = false) Integer before,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(gameSearchService.search(fen, material, before, limit));
     }
 
     @GetMapping("/{gameId}")
@@ -37,6 +80,55 @@ public class GameController {
         return ResponseEntity.ok(game);
     }
 
+    @GetMapping(value = "/{gameId}/pgn", produces = "application/x-chess-pgn")
+    public ResponseEntity<String> pgn(@PathVariable String gameId) {
+        String pgn = gameService.getPgn(gameId);
+        return pgn == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(pgn);
+    }
+
+    /**
+     * Engine review of a finished game: per-move evaluations with the engine's move and
+     * inaccuracy, mistake and blunder annotations, and each player's accuracy. Not found
+     * until the background review has reached the game.
+     */
+    @GetMapping("/{gameId}/review")
+    public ResponseEntity<GameReviewService.Review> review(@PathVariable String gameId) {
+        GameReviewService.Review review = gameReviewService.getReview(gameId);
+        return review == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(review);
+    }
+
+    /**
+     * Streams archived games as one PGN file, optionally limited to a player and to games
+     * finished between {@code since} and {@code until} (inclusive dates).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) Long player,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        GameExportService.ExportQuery query = new GameExportService.ExportQuery(player,
+                since == null ? null : since.atStartOfDay(),
+                until == null ? null : until.plusDays(1).atStartOfDay());
+        log.info("Received PGN export request: {}, gzip: {}", query, gzip);
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, EXPORT_GZIP_BUFFER);
+                gameExportService.export(query, compressed);
+                compressed.finish();
+            } else {
+                gameExportService.export(query, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType("application/x-chess-pgn"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"games.pgn" + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
     @DeleteMapping("/{gameId}")
     public ResponseEntity<?> deleteGame(@PathVariable String gameId) {
         log.info("Received DELETE request for game: {}", gameId);
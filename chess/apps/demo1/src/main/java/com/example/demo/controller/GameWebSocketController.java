@@ -1,7 +1,23 @@
 package com.example.demo.controller;
 
+import com.example.demo.engine.Bitboards;
+import com.example.demo.engine.DrawReason;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import com.example.demo.journal.JournalRecord;
+import com.example.demo.journal.MoveJournal;
 import com.example.demo.model.GameMessage;
+import com.example.demo.websocket.BinaryMoveCodec;
+import com.example.demo.service.BotService;
+import com.example.demo.service.ClockService;
+import com.example.demo.service.GameBroadcastService;
+import com.example.demo.service.GameMailboxService;
+import com.example.demo.service.GameService;
 import com.example.demo.service.GameSessionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import org.slf4j.Logger;
@@ -9,213 +25,521 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 
 @AllArgsConstructor
 @Controller
 public class GameWebSocketController {
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketController.class);
 
-    private SimpMessagingTemplate messagingTemplate;
+    private GameBroadcastService gameBroadcastService;
     private GameSessionService gameSessionService;
+    private ClockService clockService;
+    private GameMailboxService gameMailboxService;
+    private GameService gameService;
+    private MoveJournal moveJournal;
+    private ObjectMapper objectMapper;
+    private BotService botService;
     
     @MessageMapping("/game.join")
-    public void joinGame(@Payload GameMessage message) {
+    public void joinGame(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received join request for game: {}, from user: {}", message.getGameId(), message.getUserId());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
-            logger.debug("Game session retrieved/created for game: {}", message.getGameId());
-            
-            session.addPlayer(message.getUserId());
-            logger.debug("Added player: {} to game: {}", message.getUserId(), message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+                logger.debug("Game session retrieved/created for game: {}", message.getGameId());
             
-            messagingTemplate.convertAndSend(
-                    "/topic/game/" + message.getGameId(),
-                    new GameMessage(
-                            message.getGameId(),
-                            message.getUserId(),
-                            GameMessage.MessageType.JOIN,
-                            "User " + message.getUserId() + " joined the game."
-                    )
-            );
-            logger.debug("Sent join notification for player: {} in game: {}", message.getUserId(), message.getGameId());
+                boolean rejoined = session.isPlayerInSession(message.getUserId());
+                if (!gameSessionService.seatPlayer(session, message.getUserId())) {
+                    logger.warn("No seat left for user: {} in game: {}", message.getUserId(), message.getGameId());
+                    return;
+                }
+                if (!rejoined) {
+                    moveJournal.append(JournalRecord.join(message.getGameId(), message.getUserId()));
+                }
+                gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                logger.debug("Added player: {} to game: {}", message.getUserId(), message.getGameId());
+                seatBot(session);
             
-            if (session.isFull()) {
-                logger.info("Game {} is now full and ready to start", message.getGameId());
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
+                gameBroadcastService.broadcast(
+                        session,
                         new GameMessage(
                                 message.getGameId(),
-                                "SYSTEM",
-                                GameMessage.MessageType.START,
-                                "Game is ready to start! All players have joined."
+                                message.getUserId(),
+                                GameMessage.MessageType.JOIN,
+                                "User " + message.getUserId() + " joined the game."
                         )
                 );
-                logger.debug("Sent game start notification for game: {}", message.getGameId());
+                logger.debug("Sent join notification for player: {} in game: {}", message.getUserId(), message.getGameId());
+            
+                if (session.isFull()) {
+                    logger.info("Game {} is now full and ready to start", message.getGameId());
+                    gameBroadcastService.broadcast(
+                            session,
+                            new GameMessage(
+                                    message.getGameId(),
+                                    "SYSTEM",
+                                    GameMessage.MessageType.START,
+                                    "Game is ready to start! All players have joined."
+                            )
+                    );
+                    logger.debug("Sent game start notification for game: {}", message.getGameId());
+                    if (session.isBotToMove()) {
+                        requestBotMove(session);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error processing join request for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing join request for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
     
     @MessageMapping("/game.message")
-    public void handleMessage(@Payload GameMessage message) {
+    public void handleMessage(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received message for game: {}, from user: {}, type: {}", 
             message.getGameId(), message.getUserId(), message.getType());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
             
-            if (session != null && session.isPlayerInSession(message.getUserId())) {
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
-                        message
-                );
-                logger.debug("Broadcast message from player: {} in game: {}, content: {}", 
-                    message.getUserId(), message.getGameId(), message.getContent());
-            } else {
-                logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                if (session != null && session.isPlayerInSession(message.getUserId())) {
+                    gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                    recordDrawMessage(session, message);
+                    gameBroadcastService.broadcast(
+                            session,
+                            message
+                    );
+                    logger.debug("Broadcast message from player: {} in game: {}, content: {}", 
+                        message.getUserId(), message.getGameId(), message.getContent());
+                } else {
+                    logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                }
+            } catch (Exception e) {
+                logger.error("Error processing message for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing message for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
     
     @MessageMapping("/game.playerInfo")
-    public void handlePlayerInfo(@Payload GameMessage message) {
+    public void handlePlayerInfo(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received player info for game: {}, from user: {}", message.getGameId(), message.getUserId());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
             
-            if (session != null && session.isPlayerInSession(message.getUserId())) {
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
-                        message
-                );
-                logger.debug("Broadcast player info from player: {} in game: {}", 
-                    message.getUserId(), message.getGameId());
-            } else {
-                logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                if (session != null && session.isPlayerInSession(message.getUserId())) {
+                    gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                    gameBroadcastService.broadcast(
+                            session,
+                            message
+                    );
+                    logger.debug("Broadcast player info from player: {} in game: {}", 
+                        message.getUserId(), message.getGameId());
+                } else {
+                    logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                }
+            } catch (Exception e) {
+                logger.error("Error processing player info for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing player info for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
     
     @MessageMapping("/game.leave")
     public void leaveGame(@Payload GameMessage message) {
         logger.info("Received leave request for game: {}, from user: {}", message.getGameId(), message.getUserId());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
-            logger.debug("Retrieved game session for game: {}", message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
+                if (session == null) {
+                    logger.warn("No session for game: {}, ignoring leave from user: {}", message.getGameId(), message.getUserId());
+                    return;
+                }
+                logger.debug("Retrieved game session for game: {}", message.getGameId());
             
-            session.removePlayer(message.getUserId());
-            logger.debug("Removed player: {} from game: {}", message.getUserId(), message.getGameId());
+                session.removePlayer(message.getUserId());
+                moveJournal.append(JournalRecord.leave(message.getGameId(), message.getUserId()));
+                logger.debug("Removed player: {} from game: {}", message.getUserId(), message.getGameId());
             
-            messagingTemplate.convertAndSend(
-                    "/topic/game/" + message.getGameId(),
-                    new GameMessage(
-                            message.getGameId(),
-                            message.getUserId(),
-                            GameMessage.MessageType.LEAVE,
-                            "User " + message.getUserId() + " left the game."
-                    )
-            );
-            logger.debug("Sent leave notification for player: {} in game: {}", message.getUserId(), message.getGameId());
+                gameBroadcastService.broadcast(
+                        session,
+                        new GameMessage(
+                                message.getGameId(),
+                                message.getUserId(),
+                                GameMessage.MessageType.LEAVE,
+                                "User " + message.getUserId() + " left the game."
+                        )
+                );
+                logger.debug("Sent leave notification for player: {} in game: {}", message.getUserId(), message.getGameId());
             
-            if (session.getPlayerCount() == 0) {
-                gameSessionService.removeGameSession(message.getGameId());
-                logger.info("Game session {} removed as all players left", message.getGameId());
+                if (session.getPlayerCount() == 0 || (session.getBot() != null && session.getPlayerCount() == 1)) {
+                    gameSessionService.removeGameSession(message.getGameId());
+                    logger.info("Game session {} removed as all players left", message.getGameId());
+                }
+            } catch (Exception e) {
+                logger.error("Error processing leave request for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing leave request for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
     
     @MessageMapping("/game.move")
-    public void handleMove(@Payload GameMessage message) {
+    public void handleMove(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received move for game: {}, from user: {}", message.getGameId(), message.getUserId());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
             
-            if (session != null && session.isPlayerInSession(message.getUserId())) {
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
-                        message
-                );
-                logger.debug("Broadcast move from player: {} in game: {}", 
-                    message.getUserId(), message.getGameId());
-            } else {
-                logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                if (session != null && session.isPlayerInSession(message.getUserId())) {
+                    gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                    JsonNode moveData = objectMapper.readTree(String.valueOf(message.getContent()));
+                    int move = session.applyMove(
+                            message.getUserId(),
+                            moveData.path("from").asText(null),
+                            moveData.path("to").asText(null),
+                            moveData.path("promotion").asText(null)
+                    );
+                    if (move == Move.NONE) {
+                        logger.warn("Rejected illegal move {} from player: {} in game: {}",
+                            message.getContent(), message.getUserId(), message.getGameId());
+                        return;
+                    }
+                    broadcastMove(session, message, moveData instanceof ObjectNode moveObject ? moveObject : null, move);
+                } else {
+                    logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                }
+            } catch (JsonProcessingException e) {
+                logger.warn("Malformed move content from player: {} in game: {}: {}",
+                    message.getUserId(), message.getGameId(), e.getOriginalMessage());
+            } catch (Exception e) {
+                logger.error("Error processing move for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing move for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
+        });
+    }
+
+    @MessageMapping("/game.move.bin")
+    public void handleBinaryMove(@Payload byte[] frame, SimpMessageHeaderAccessor headerAccessor) {
+        if (!BinaryMoveCodec.isValid(frame) || BinaryMoveCodec.type(frame) != BinaryMoveCodec.MOVE) {
+            logger.warn("Rejected malformed binary move frame from session: {}", headerAccessor.getSessionId());
+            return;
+        }
+        int handle = BinaryMoveCodec.handle(frame);
+        GameSessionService.GameSession session = gameSessionService.getGameSessionByHandle(handle);
+        if (session == null) {
+            logger.warn("Unknown game handle: {} from session: {}", handle, headerAccessor.getSessionId());
+            return;
         }
+        String stompSessionId = headerAccessor.getSessionId();
+        gameMailboxService.execute(session.getGameId(), () -> applyBinaryMove(session, stompSessionId, frame));
+    }
+
+    private void applyBinaryMove(GameSessionService.GameSession session, String stompSessionId, byte[] frame) {
+        String userId = session.getConnectedPlayer(stompSessionId);
+        if (userId == null || !session.isPlayerInSession(userId)) {
+            logger.warn("Session {} is not a player in game: {}", stompSessionId, session.getGameId());
+            return;
+        }
+        gameSessionService.bindConnection(session, stompSessionId, userId);
+        
+        try {
+            int sequence = BinaryMoveCodec.sequence(frame);
+            if (sequence != session.getPly() + 1) {
+                logger.warn("Rejected stale binary move {} from player: {} in game: {} at ply {}",
+                    sequence, userId, session.getGameId(), session.getPly());
+                return;
+            }
+            int wireMove = BinaryMoveCodec.wireMove(frame);
+            int move = session.applyMove(
+                    userId,
+                    BinaryMoveCodec.wireFrom(wireMove),
+                    BinaryMoveCodec.wireTo(wireMove),
+                    BinaryMoveCodec.wirePromotionType(wireMove)
+            );
+            if (move == Move.NONE) {
+                logger.warn("Rejected illegal binary move from player: {} in game: {}", userId, session.getGameId());
+                return;
+            }
+            ObjectNode moveData = objectMapper.createObjectNode()
+                    .put("from", Bitboards.squareName(Move.from(move)))
+                    .put("to", Bitboards.squareName(Move.to(move)));
+            if (Move.isPromotion(move)) {
+                moveData.put("promotion", Move.toUci(move).substring(4));
+            }
+            broadcastMove(session, new GameMessage(session.getGameId(), userId, GameMessage.MessageType.MOVE, null),
+                    moveData, move);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing binary move for game: {} and user: {}", session.getGameId(), userId, e);
+        }
+    }
+
+    private void broadcastMove(GameSessionService.GameSession session, GameMessage message,
+                               ObjectNode moveData, int move) throws JsonProcessingException {
+        if (!clockService.press(session.getClock(), session.getLastMoverColor())) {
+            session.takeBackMove();
+            logger.info("Move from player: {} in game: {} arrived after flag-fall",
+                message.getUserId(), message.getGameId());
+            return;
+        }
+        session.recordClock(session.getClock().remainingMillis(session.getLastMoverColor(), System.nanoTime()));
+        if (moveData != null) {
+            moveData.set("clock", objectMapper.valueToTree(clockService.snapshot(session.getClock())));
+            message.setContent(objectMapper.writeValueAsString(moveData));
+        }
+        gameBroadcastService.broadcastMove(session, message, move, session.getPly(), session.getClock());
+        gameSessionService.journalMove(session, move);
+        logger.debug("Broadcast move {} from player: {} in game: {}", 
+            Move.toUci(move), message.getUserId(), message.getGameId());
+        if (session.getDrawReason() != null) {
+            adjudicateDraw(session, session.getDrawReason(), message.getUserId());
+        } else if (session.isBotToMove()) {
+            requestBotMove(session);
+        }
+    }
+
+    /**
+     * Seats the computer opponent of a bot game next to the player who joined it, once per
+     * session.
+     */
+    private void seatBot(GameSessionService.GameSession session) {
+        if (session.getBot() != null) {
+            return;
+        }
+        BotService.Bot bot = botService.botFor(gameService.getGame(session.getGameId()));
+        if (bot == null) {
+            return;
+        }
+        session.setBot(bot);
+        if (!session.isPlayerInSession(bot.userId()) && session.addPlayer(bot.userId(), bot.color())) {
+            moveJournal.append(JournalRecord.join(session.getGameId(), bot.userId()));
+        }
+    }
+
+    private void requestBotMove(GameSessionService.GameSession session) {
+        int ply = session.getPly();
+        botService.requestMove(session, move -> gameMailboxService.execute(session.getGameId(),
+                () -> playBotMove(session, ply, move)));
+    }
+
+    /**
+     * Plays a move the bot found at {@code ply}, unless the game has moved on or ended since.
+     */
+    private void playBotMove(GameSessionService.GameSession session, int ply, int move) {
+        BotService.Bot bot = session.getBot();
+        if (gameSessionService.getGameSession(session.getGameId()) != session || session.getPly() != ply
+                || !session.isBotToMove()) {
+            return;
+        }
+        try {
+            int played = session.applyMove(bot.userId(), Move.from(move), Move.to(move), Move.promotionType(move));
+            if (played == Move.NONE) {
+                logger.warn("Bot in game: {} found illegal move {}", session.getGameId(), Move.toUci(move));
+                return;
+            }
+            ObjectNode moveData = objectMapper.createObjectNode()
+                    .put("from", Bitboards.squareName(Move.from(played)))
+                    .put("to", Bitboards.squareName(Move.to(played)));
+            if (Move.isPromotion(played)) {
+                moveData.put("promotion", Move.toUci(played).substring(4));
+            }
+            broadcastMove(session, new GameMessage(session.getGameId(), bot.userId(), GameMessage.MessageType.MOVE,
+                    null), moveData, played);
+            if (session.isCheckmate() && !session.isOver()) {
+                announceBotMate(session, bot);
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing bot move for game: {}", session.getGameId(), e);
+        }
+    }
+
+    /**
+     * Ends a game the bot has just mated in, sending the GAME_OVER a player's client sends
+     * for its own mating move.
+     */
+    private void announceBotMate(GameSessionService.GameSession session, BotService.Bot bot)
+            throws JsonProcessingException {
+        String gameId = session.getGameId();
+        session.finish();
+        clockService.stop(session.getClock());
+        moveJournal.append(JournalRecord.end(gameId));
+        finishGame(session, bot.color() == Piece.WHITE ? "1-0" : "0-1");
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("result", "win");
+        content.put("playerName", bot.level().name());
+        content.put("isWhitePlayer", bot.color() == Piece.WHITE);
+        gameBroadcastService.broadcast(session, new GameMessage(gameId, bot.userId(),
+                GameMessage.MessageType.GAME_OVER, objectMapper.writeValueAsString(content)));
+        logger.info("Bot won game: {} by checkmate", gameId);
+    }
+
+    private void adjudicateDraw(GameSessionService.GameSession session, DrawReason reason, String lastMoverId)
+            throws JsonProcessingException {
+        String gameId = session.getGameId();
+        clockService.stop(session.getClock());
+        logger.info("Game {} drawn by {}", gameId, reason.getWireName());
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("result", "draw");
+        content.put("reason", reason.getWireName());
+        content.put("lastMover", lastMoverId);
+        content.put("clock", clockService.snapshot(session.getClock()));
+        gameBroadcastService.broadcast(session, new GameMessage(gameId, "SYSTEM",
+                GameMessage.MessageType.GAME_OVER, objectMapper.writeValueAsString(content)));
+        moveJournal.append(JournalRecord.end(gameId));
+        finishGame(session, "1/2-1/2");
+    }
+
+    private void finishGame(GameSessionService.GameSession session, String result) {
+        String gameId = session.getGameId();
+        session.setResult(result);
+        long now = System.nanoTime();
+        long whiteLeft = session.getClock().remainingMillis(Piece.WHITE, now);
+        long blackLeft = session.getClock().remainingMillis(Piece.BLACK, now);
+        CompletableFuture.runAsync(() -> gameService.finishGame(gameId, result, whiteLeft, blackLeft))
+                .exceptionally(e -> {
+                    logger.error("Error persisting result {} for game {}", result, gameId, e);
+                    return null;
+                });
+    }
+
+    /**
+     * Works out the result of a game ended by a player: checkmate on the board, or a
+     * resignation or agreed draw as reported in the message. A draw is agreed only by the
+     * opponent of a player whose offer still stands.
+     *
+     * @return the PGN result, or null if it cannot be told
+     */
+    private String reportedResult(GameSessionService.GameSession session, GameMessage message) {
+        if (session.isCheckmate()) {
+            return session.getLastMoverColor() == Piece.WHITE ? "1-0" : "0-1";
+        }
+        String reported;
+        try {
+            reported = message.getContent() == null ? null
+                    : objectMapper.readTree(message.getContent()).path("result").asText(null);
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable game over content in game: {}", message.getGameId());
+            return null;
+        }
+        if ("draw".equals(reported)) {
+            return session.acceptDraw(message.getUserId()) ? "1/2-1/2" : null;
+        }
+        if ("resign".equals(reported)) {
+            return session.getColor(message.getUserId()) == Piece.WHITE ? "0-1" : "1-0";
+        }
+        return null;
     }
 
     @MessageMapping("/game.gameOver")
-    public void handleGameOver(@Payload GameMessage message) {
+    public void handleGameOver(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received game over for game: {}, from user: {}", message.getGameId(), message.getUserId());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
             
-            if (session != null && session.isPlayerInSession(message.getUserId())) {
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
-                        message
-                );
-                logger.debug("Broadcast game over from player: {} in game: {}", 
-                    message.getUserId(), message.getGameId());
-            } else {
-                logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                if (session != null && session.isPlayerInSession(message.getUserId())) {
+                    gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                    if (session.isOver()) {
+                        logger.warn("Ignoring game over from player: {} in game: {} that has already ended",
+                            message.getUserId(), message.getGameId());
+                        return;
+                    }
+                    String result = reportedResult(session, message);
+                    if (result == null) {
+                        logger.warn("Ignoring game over from player: {} in game: {} with no result to record: {}",
+                            message.getUserId(), message.getGameId(), message.getContent());
+                        return;
+                    }
+                    session.finish();
+                    clockService.stop(session.getClock());
+                    moveJournal.append(JournalRecord.end(message.getGameId()));
+                    finishGame(session, result);
+                    gameBroadcastService.broadcast(
+                            session,
+                            message
+                    );
+                    logger.debug("Broadcast game over from player: {} in game: {}", 
+                        message.getUserId(), message.getGameId());
+                } else {
+                    logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                }
+            } catch (Exception e) {
+                logger.error("Error processing game over for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing game over for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
     
+    /**
+     * Keeps the session's standing draw offer in step with the offers and answers relayed
+     * between the players.
+     */
+    private void recordDrawMessage(GameSessionService.GameSession session, GameMessage message) {
+        if (message.getType() == GameMessage.MessageType.DRAW_OFFER) {
+            session.offerDraw(message.getUserId());
+            return;
+        }
+        if (message.getType() != GameMessage.MessageType.DRAW_RESPONSE) {
+            return;
+        }
+        try {
+            if (message.getContent() == null
+                    || !objectMapper.readTree(message.getContent()).path("accepted").asBoolean()) {
+                session.declineDraw(message.getUserId());
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable draw response in game: {}", message.getGameId());
+        }
+    }
+
     @MessageMapping("/game.drawOffer")
-    public void handleDrawOffer(@Payload GameMessage message) {
+    public void handleDrawOffer(@Payload GameMessage message, SimpMessageHeaderAccessor headerAccessor) {
         logger.info("Received draw offer/response for game: {}, from user: {}, type: {}", 
             message.getGameId(), message.getUserId(), message.getType());
         logger.info("Draw message content: {}", message.getContent());
         
-        try {
-            GameSessionService.GameSession session = gameSessionService.getOrCreateGameSession(message.getGameId());
+        gameMailboxService.execute(message.getGameId(), () -> {
+            try {
+                GameSessionService.GameSession session = gameSessionService.getGameSession(message.getGameId());
             
-            if (session != null && session.isPlayerInSession(message.getUserId())) {
-                messagingTemplate.convertAndSend(
-                        "/topic/game/" + message.getGameId(),
-                        message
-                );
-                logger.debug("Broadcast draw offer/response from player: {} in game: {}", 
-                    message.getUserId(), message.getGameId());
-            } else {
-                logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                if (session != null && session.isPlayerInSession(message.getUserId())) {
+                    gameSessionService.bindConnection(session, headerAccessor.getSessionId(), message.getUserId());
+                    recordDrawMessage(session, message);
+                    gameBroadcastService.broadcast(
+                            session,
+                            message
+                    );
+                    logger.debug("Broadcast draw offer/response from player: {} in game: {}", 
+                        message.getUserId(), message.getGameId());
+                } else {
+                    logger.warn("User {} not found in session for game: {}", message.getUserId(), message.getGameId());
+                }
+            } catch (Exception e) {
+                logger.error("Error processing draw offer/response for game: {} and user: {}", 
+                    message.getGameId(), message.getUserId(), e);
+                throw e;
             }
-        } catch (Exception e) {
-            logger.error("Error processing draw offer/response for game: {} and user: {}", 
-                message.getGameId(), message.getUserId(), e);
-            throw e;
-        }
+        });
     }
 }
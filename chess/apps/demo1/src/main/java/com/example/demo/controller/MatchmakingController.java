@@ -0,0 +1,52 @@
+package com.example.demo.controller;
+
+import com.example.demo.clock.TimeControl;
+import com.example.demo.model.User;
+import com.example.demo.service.MatchmakingService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RequestMapping("/matchmaking")
+@RestController
+@AllArgsConstructor
+public class MatchmakingController {
+    private final MatchmakingService matchmakingService;
+
+    @GetMapping("/time-controls")
+    public ResponseEntity<List<TimeControl>> timeControls() {
+        return ResponseEntity.ok(matchmakingService.getTimeControls());
+    }
+
+    /**
+     * Queues the current user for a game. The game is announced on
+     * {@code /topic/matchmaking/{token}} and by {@link #status}; the user then joins it over
+     * {@code /app/game.join} like any other game.
+     */
+    @PostMapping
+    public ResponseEntity<MatchmakingService.MatchStatus> join(@RequestBody MatchmakingService.MatchRequest request) {
+        return ResponseEntity.ok(matchmakingService.join(currentUser(), request));
+    }
+
+    @GetMapping
+    public ResponseEntity<MatchmakingService.MatchStatus> status() {
+        return ResponseEntity.ok(matchmakingService.status(currentUser().getId()));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<MatchmakingService.MatchStatus> leave() {
+        return ResponseEntity.ok(matchmakingService.leave(currentUser().getId()));
+    }
+
+    private static User currentUser() {
+        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.demo.dto;
 
+import com.example.demo.model.Game;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDateTime;
-
+/**
+ * What the lobby shows of a game: its seats and time control, without clocks, result or moves.
+ */
 @Data
 @Builder
 @AllArgsConstructor
@@ -20,8 +22,21 @@ public class GameDto {
     private Integer whitePlayerElo;
     private String whitePlayerName;
     private String gameId;
-    private LocalDateTime whitePlayerTimeLeft;
-    private LocalDateTime blackPlayerTimeLeft;
-    private String result;
-    private String pgn;
+    private Long baseTimeMillis;
+    private Long incrementMillis;
+
+    public static GameDto of(Game game) {
+        return GameDto.builder()
+                .id(game.getId())
+                .blackPlayerId(game.getBlackPlayerId())
+                .blackPlayerElo(game.getBlackPlayerElo())
+                .blackPlayerName(game.getBlackPlayerName())
+                .whitePlayerId(game.getWhitePlayerId())
+                .whitePlayerElo(game.getWhitePlayerElo())
+                .whitePlayerName(game.getWhitePlayerName())
+                .gameId(game.getGameId())
+                .baseTimeMillis(game.getBaseTimeMillis())
+                .incrementMillis(game.getIncrementMillis())
+                .build();
+    }
 }
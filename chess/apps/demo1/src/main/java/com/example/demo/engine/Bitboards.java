@@ -0,0 +1,126 @@
+package com.example.demo.engine;
+
+/**
+ * Precomputed attack tables and sliding-piece attack generation. Squares are numbered
+ * a1 = 0 .. h8 = 63, so bit {@code n} of a bitboard is square {@code n}.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_4 = RANK_1 << 24;
+    public static final long RANK_5 = RANK_1 << 32;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    // Directions 0-3 move towards higher square numbers, 4-7 towards lower ones.
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    private static final int[] FILE_STEP = {0, 1, 1, -1, 0, -1, -1, 1};
+    private static final int[] RANK_STEP = {1, 0, 1, 1, -1, 0, -1, -1};
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >>> 3;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bit(file + step[0], rank + step[1]);
+            }
+            for (int df = -1; df <= 1; df++) {
+                for (int dr = -1; dr <= 1; dr++) {
+                    if (df != 0 || dr != 0) {
+                        KING_ATTACKS[sq] |= bit(file + df, rank + dr);
+                    }
+                }
+            }
+            PAWN_ATTACKS[Piece.WHITE][sq] = bit(file - 1, rank + 1) | bit(file + 1, rank + 1);
+            PAWN_ATTACKS[Piece.BLACK][sq] = bit(file - 1, rank - 1) | bit(file + 1, rank - 1);
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = 0L;
+                for (int f = file + FILE_STEP[dir], r = rank + RANK_STEP[dir];
+                     f >= 0 && f < 8 && r >= 0 && r < 8;
+                     f += FILE_STEP[dir], r += RANK_STEP[dir]) {
+                    ray |= 1L << (r * 8 + f);
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long bit(int file, int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8 ? 1L << (rank * 8 + file) : 0L;
+    }
+
+    private static long positiveRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    public static long rookAttacks(int sq, long occupied) {
+        return positiveRay(NORTH, sq, occupied) | positiveRay(EAST, sq, occupied)
+                | negativeRay(SOUTH, sq, occupied) | negativeRay(WEST, sq, occupied);
+    }
+
+    public static long bishopAttacks(int sq, long occupied) {
+        return positiveRay(NORTH_EAST, sq, occupied) | positiveRay(NORTH_WEST, sq, occupied)
+                | negativeRay(SOUTH_WEST, sq, occupied) | negativeRay(SOUTH_EAST, sq, occupied);
+    }
+
+    public static long knightAttacks(int sq) {
+        return KNIGHT_ATTACKS[sq];
+    }
+
+    public static long kingAttacks(int sq) {
+        return KING_ATTACKS[sq];
+    }
+
+    public static long pawnAttacks(int color, int sq) {
+        return PAWN_ATTACKS[color][sq];
+    }
+
+    public static int squareIndex(String square) {
+        if (square == null || square.length() != 2) {
+            return -1;
+        }
+        int file = square.charAt(0) - 'a';
+        int rank = square.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return -1;
+        }
+        return rank * 8 + file;
+    }
+
+    public static String squareName(int sq) {
+        return String.valueOf((char) ('a' + (sq & 7))) + (char) ('1' + (sq >>> 3));
+    }
+}
@@ -0,0 +1,487 @@
+package com.example.demo.engine;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard chess position with incremental make/unmake. One instance belongs to one game
+ * and is not thread-safe; all per-move work reuses preallocated arrays so validating a
+ * move does not allocate.
+ * <p>
+ * The {@link Zobrist} hash is updated incrementally and the hash before every move is kept
+ * in a primitive history, which makes repetition checks a short array scan.
+ */
+public class Board {
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    private static final int[] CASTLING_MASK = new int[64];
+    private static final int INITIAL_CAPACITY = 256;
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+    }
+
+    final long[] pieces = new long[Piece.COUNT];
+    final long[] occupancy = new long[2];
+    final int[] squares = new int[64];
+    int sideToMove;
+    int castlingRights;
+    int epSquare;
+    int halfmoveClock;
+    int fullmoveNumber;
+    long hash;
+
+    private int ply;
+    private int[] moveStack = new int[INITIAL_CAPACITY];
+    private long[] stateStack = new long[INITIAL_CAPACITY];
+    private long[] hashStack = new long[INITIAL_CAPACITY];
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+
+    public Board() {
+        setFen(STARTING_FEN);
+    }
+
+    public Board(String fen) {
+        setFen(fen);
+    }
+
+    /**
+     * Copies a position together with its move history, so repetitions still count.
+     */
+    public Board(Board other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        epSquare = other.epSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        ply = other.ply;
+        moveStack = other.moveStack.clone();
+        stateStack = other.stateStack.clone();
+        hashStack = other.hashStack.clone();
+    }
+
+    public void setFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(squares, Piece.NONE);
+        hash = 0;
+
+        int rank = 7;
+        int file = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = Piece.fromFenChar(c);
+                if (piece < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                addPiece(piece, rank * 8 + file);
+                file++;
+            }
+        }
+
+        sideToMove = "b".equals(parts[1]) ? Piece.BLACK : Piece.WHITE;
+        castlingRights = 0;
+        for (char c : parts[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> castlingRights |= WHITE_KINGSIDE;
+                case 'Q' -> castlingRights |= WHITE_QUEENSIDE;
+                case 'k' -> castlingRights |= BLACK_KINGSIDE;
+                case 'q' -> castlingRights |= BLACK_QUEENSIDE;
+                default -> { }
+            }
+        }
+        epSquare = "-".equals(parts[3]) ? -1 : Bitboards.squareIndex(parts[3]);
+        halfmoveClock = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+        fullmoveNumber = parts.length > 5 ? Integer.parseInt(parts[5]) : 1;
+        ply = 0;
+        hash ^= Zobrist.CASTLING[castlingRights] ^ epKey() ^ (sideToMove == Piece.BLACK ? Zobrist.SIDE : 0);
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = squares[rank * 8 + file];
+                if (piece == Piece.NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(Piece.toFenChar(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(sideToMove == Piece.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+            if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        }
+        fen.append(' ').append(epSquare < 0 ? "-" : Bitboards.squareName(epSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEpSquare() {
+        return epSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the moves played since the position was set, oldest first
+     */
+    public int[] getMoves() {
+        return Arrays.copyOf(moveStack, ply);
+    }
+
+    public int pieceAt(int sq) {
+        return squares[sq];
+    }
+
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupancy[Piece.WHITE] | occupancy[Piece.BLACK];
+    }
+
+    public int kingSquare(int color) {
+        return Long.numberOfTrailingZeros(pieces[Piece.of(color, Piece.KING)]);
+    }
+
+    public boolean isSquareAttacked(int sq, int byColor) {
+        long occupied = occupied();
+        long queens = pieces[Piece.of(byColor, Piece.QUEEN)];
+        return (Bitboards.pawnAttacks(byColor ^ 1, sq) & pieces[Piece.of(byColor, Piece.PAWN)]) != 0
+                || (Bitboards.knightAttacks(sq) & pieces[Piece.of(byColor, Piece.KNIGHT)]) != 0
+                || (Bitboards.kingAttacks(sq) & pieces[Piece.of(byColor, Piece.KING)]) != 0
+                || (Bitboards.bishopAttacks(sq, occupied) & (pieces[Piece.of(byColor, Piece.BISHOP)] | queens)) != 0
+                || (Bitboards.rookAttacks(sq, occupied) & (pieces[Piece.of(byColor, Piece.ROOK)] | queens)) != 0;
+    }
+
+    public boolean inCheck() {
+        return isSquareAttacked(kingSquare(sideToMove), sideToMove ^ 1);
+    }
+
+    public boolean hasLegalMove() {
+        return MoveGenerator.hasLegalMove(this, scratch);
+    }
+
+    /**
+     * Counts earlier occurrences of the current position. Only positions since the last
+     * capture or pawn move can repeat, so at most 50 history entries are compared.
+     */
+    public int repetitions() {
+        int count = 0;
+        for (int i = ply - 2, stop = Math.max(0, ply - halfmoveClock); i >= stop; i -= 2) {
+            if (hashStack[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if neither side has mating material: bare kings, a single minor piece,
+     * or only bishops that all stand on squares of one colour
+     */
+    public boolean isInsufficientMaterial() {
+        long heavy = 0;
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            heavy |= pieces[Piece.of(color, Piece.PAWN)] | pieces[Piece.of(color, Piece.ROOK)]
+                    | pieces[Piece.of(color, Piece.QUEEN)];
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        long knights = pieces[Piece.of(Piece.WHITE, Piece.KNIGHT)] | pieces[Piece.of(Piece.BLACK, Piece.KNIGHT)];
+        long bishops = pieces[Piece.of(Piece.WHITE, Piece.BISHOP)] | pieces[Piece.of(Piece.BLACK, Piece.BISHOP)];
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * Checks the draws that need no claim or agreement, in the position after the last move.
+     * Checkmate takes precedence over the fifty-move rule.
+     *
+     * @return the reason the game is drawn, or null if play continues
+     */
+    public DrawReason drawReason() {
+        if (!hasLegalMove()) {
+            return inCheck() ? null : DrawReason.STALEMATE;
+        }
+        if (isInsufficientMaterial()) {
+            return DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) {
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+        if (repetitions() >= 2) {
+            return DrawReason.THREEFOLD_REPETITION;
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the legal move matching the given squares. A missing promotion piece on a
+     * promoting move defaults to a queen, the way the frontend submits them.
+     *
+     * @return the encoded move, or {@link Move#NONE} if no such legal move exists
+     */
+    public int findLegalMove(int from, int to, int promotionType) {
+        if (from < 0 || to < 0 || squares[from] == Piece.NONE || Piece.color(squares[from]) != sideToMove) {
+            return Move.NONE;
+        }
+        int wantedPromotion = promotionType == Piece.NONE ? Piece.QUEEN : promotionType;
+        int count = MoveGenerator.generatePseudoLegal(this, scratch);
+        for (int i = 0; i < count; i++) {
+            int move = scratch[i];
+            if (Move.from(move) != from || Move.to(move) != to) {
+                continue;
+            }
+            if (Move.isPromotion(move) && Move.promotionType(move) != wantedPromotion) {
+                continue;
+            }
+            return isLegal(move) ? move : Move.NONE;
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Checks a pseudo-legal move for the side to move by playing it and testing whether the
+     * mover's king is left attacked.
+     */
+    public boolean isLegal(int move) {
+        int us = sideToMove;
+        makeMove(move);
+        boolean legal = !isSquareAttacked(kingSquare(us), us ^ 1);
+        unmakeMove();
+        return legal;
+    }
+
+    /**
+     * Plays a pseudo-legal move for the side to move. Callers are responsible for legality.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int us = sideToMove;
+        int piece = squares[from];
+        int captured = Piece.NONE;
+        long previousHash = hash;
+        hash ^= Zobrist.CASTLING[castlingRights] ^ epKey();
+
+        if (flags == Move.EN_PASSANT) {
+            int capturedSquare = us == Piece.WHITE ? to - 8 : to + 8;
+            captured = squares[capturedSquare];
+            removePiece(capturedSquare);
+        } else if ((flags & Move.CAPTURE) != 0) {
+            captured = squares[to];
+            removePiece(to);
+        }
+
+        if (ply == moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, ply * 2);
+            stateStack = Arrays.copyOf(stateStack, ply * 2);
+            hashStack = Arrays.copyOf(hashStack, ply * 2);
+        }
+        moveStack[ply] = move;
+        hashStack[ply] = previousHash;
+        stateStack[ply] = (captured + 1L)
+                | ((long) castlingRights << 4)
+                | ((long) (epSquare + 1) << 8)
+                | ((long) halfmoveClock << 16);
+        ply++;
+
+        movePiece(from, to);
+        if ((flags & Move.PROMOTION) != 0) {
+            removePiece(to);
+            addPiece(Piece.of(us, Move.promotionType(move)), to);
+        } else if (flags == Move.KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        epSquare = flags == Move.DOUBLE_PAWN_PUSH ? (from + to) >>> 1 : -1;
+        halfmoveClock = Piece.type(piece) == Piece.PAWN || captured != Piece.NONE ? 0 : halfmoveClock + 1;
+        if (us == Piece.BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = us ^ 1;
+        hash ^= Zobrist.CASTLING[castlingRights] ^ epKey() ^ Zobrist.SIDE;
+    }
+
+    public void unmakeMove() {
+        ply--;
+        int move = moveStack[ply];
+        long state = stateStack[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+
+        sideToMove ^= 1;
+        int us = sideToMove;
+        if (us == Piece.BLACK) {
+            fullmoveNumber--;
+        }
+        int captured = (int) (state & 15) - 1;
+        castlingRights = (int) ((state >>> 4) & 15);
+        epSquare = (int) ((state >>> 8) & 127) - 1;
+        halfmoveClock = (int) (state >>> 16);
+
+        if ((flags & Move.PROMOTION) != 0) {
+            removePiece(to);
+            addPiece(Piece.of(us, Piece.PAWN), to);
+        } else if (flags == Move.KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+        movePiece(to, from);
+
+        if (flags == Move.EN_PASSANT) {
+            addPiece(captured, us == Piece.WHITE ? to - 8 : to + 8);
+        } else if (captured != Piece.NONE) {
+            addPiece(captured, to);
+        }
+        hash = hashStack[ply];
+    }
+
+    /**
+     * Passes the turn, for null-move pruning in {@link Search}. Positions before it do not
+     * count as repetitions of those after it.
+     */
+    public void makeNullMove() {
+        if (ply == moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, ply * 2);
+            stateStack = Arrays.copyOf(stateStack, ply * 2);
+            hashStack = Arrays.copyOf(hashStack, ply * 2);
+        }
+        moveStack[ply] = Move.NONE;
+        hashStack[ply] = hash;
+        stateStack[ply] = ((long) (epSquare + 1) << 8) | ((long) halfmoveClock << 16);
+        ply++;
+        hash ^= epKey();
+        epSquare = -1;
+        halfmoveClock = 0;
+        sideToMove ^= 1;
+        hash ^= Zobrist.SIDE;
+    }
+
+    public void unmakeNullMove() {
+        ply--;
+        long state = stateStack[ply];
+        sideToMove ^= 1;
+        epSquare = (int) ((state >>> 8) & 127) - 1;
+        halfmoveClock = (int) (state >>> 16);
+        hash = hashStack[ply];
+    }
+
+    /**
+     * En passant only changes the position if the side to move has a pawn that could take.
+     */
+    private long epKey() {
+        if (epSquare < 0
+                || (Bitboards.pawnAttacks(sideToMove ^ 1, epSquare) & pieces[Piece.of(sideToMove, Piece.PAWN)]) == 0) {
+            return 0;
+        }
+        return Zobrist.EP_FILE[epSquare & 7];
+    }
+
+    private void addPiece(int piece, int sq) {
+        long bit = 1L << sq;
+        pieces[piece] |= bit;
+        occupancy[Piece.color(piece)] |= bit;
+        squares[sq] = piece;
+        hash ^= Zobrist.pieceSquare(piece, sq);
+    }
+
+    private void removePiece(int sq) {
+        int piece = squares[sq];
+        long bit = 1L << sq;
+        pieces[piece] &= ~bit;
+        occupancy[Piece.color(piece)] &= ~bit;
+        squares[sq] = Piece.NONE;
+        hash ^= Zobrist.pieceSquare(piece, sq);
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = squares[from];
+        long bits = (1L << from) | (1L << to);
+        pieces[piece] ^= bits;
+        occupancy[Piece.color(piece)] ^= bits;
+        squares[from] = Piece.NONE;
+        squares[to] = piece;
+        hash ^= Zobrist.pieceSquare(piece, from) ^ Zobrist.pieceSquare(piece, to);
+    }
+}
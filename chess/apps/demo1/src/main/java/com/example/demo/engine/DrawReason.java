@@ -0,0 +1,22 @@
+package com.example.demo.engine;
+
+/**
+ * Draws the server adjudicates on its own, with the name sent to clients as the GAME_OVER
+ * {@code reason}.
+ */
+public enum DrawReason {
+    STALEMATE("stalemate"),
+    INSUFFICIENT_MATERIAL("insufficient-material"),
+    FIFTY_MOVE_RULE("fifty-move-rule"),
+    THREEFOLD_REPETITION("threefold-repetition");
+
+    private final String wireName;
+
+    DrawReason(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.engine;
+
+/**
+ * Static evaluation for {@link Search}: material plus piece-square tables, with the king
+ * table blended from middlegame to endgame by the material left on the board. Tables are
+ * written as seen from White, rank 8 first.
+ */
+final class Evaluator {
+    static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    private static final int BISHOP_PAIR = 30;
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[][] TABLES = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN};
+
+    private Evaluator() {
+    }
+
+    /**
+     * @return the score in centipawns from the side to move's point of view
+     */
+    static int evaluate(Board board) {
+        int score = 0;
+        int phase = 0;
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            int sign = color == Piece.WHITE ? 1 : -1;
+            // The tables are laid out rank 8 first, which is White's view of the board.
+            int flip = color == Piece.WHITE ? 56 : 0;
+            for (int type = Piece.PAWN; type < Piece.KING; type++) {
+                long bits = board.pieces[Piece.of(color, type)];
+                int[] table = TABLES[type];
+                phase += PHASE_WEIGHTS[type] * Long.bitCount(bits);
+                while (bits != 0) {
+                    int sq = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    score += sign * (PIECE_VALUES[type] + table[sq ^ flip]);
+                }
+            }
+            if (Long.bitCount(board.pieces[Piece.of(color, Piece.BISHOP)]) >= 2) {
+                score += sign * BISHOP_PAIR;
+            }
+        }
+        phase = Math.min(phase, MAX_PHASE);
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            int sq = board.kingSquare(color) ^ (color == Piece.WHITE ? 56 : 0);
+            int king = (KING_MIDDLEGAME[sq] * phase + KING_ENDGAME[sq] * (MAX_PHASE - phase)) / MAX_PHASE;
+            score += color == Piece.WHITE ? king : -king;
+        }
+        return board.sideToMove == Piece.WHITE ? score : -score;
+    }
+
+    /**
+     * @return true if the side to move has a piece other than pawns and the king, below which
+     * passing the turn is too often the best move for null-move pruning
+     */
+    static boolean hasNonPawnMaterial(Board board) {
+        int us = board.sideToMove;
+        return (board.pieces[Piece.of(us, Piece.KNIGHT)] | board.pieces[Piece.of(us, Piece.BISHOP)]
+                | board.pieces[Piece.of(us, Piece.ROOK)] | board.pieces[Piece.of(us, Piece.QUEEN)]) != 0;
+    }
+}
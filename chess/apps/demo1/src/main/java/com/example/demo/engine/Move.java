@@ -0,0 +1,76 @@
+package com.example.demo.engine;
+
+/**
+ * Moves are plain 16-bit ints: bits 0-5 origin square, bits 6-11 target square and
+ * bits 12-15 a flag nibble describing the move kind. Promotions set bit 3 of the flag
+ * and keep the promoted piece (knight..queen) in the low two bits.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final String PROMOTION_CHARS = "nbrq";
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * @return the promoted piece type, or {@link Piece#NONE} for non-promotions
+     */
+    public static int promotionType(int move) {
+        return isPromotion(move) ? Piece.KNIGHT + (flags(move) & 3) : Piece.NONE;
+    }
+
+    /**
+     * Maps a promotion letter as sent by the client ("q", "r", "b", "n") to a piece type.
+     */
+    public static int promotionTypeOf(String promotion) {
+        if (promotion == null || promotion.isEmpty()) {
+            return Piece.NONE;
+        }
+        int index = PROMOTION_CHARS.indexOf(Character.toLowerCase(promotion.charAt(0)));
+        return index < 0 ? Piece.NONE : Piece.KNIGHT + index;
+    }
+
+    public static String toUci(int move) {
+        String uci = Bitboards.squareName(from(move)) + Bitboards.squareName(to(move));
+        return isPromotion(move) ? uci + PROMOTION_CHARS.charAt(flags(move) & 3) : uci;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.engine;
+
+/**
+ * Move generation into caller-supplied int buffers. Pseudo-legal generation covers every
+ * rule except leaving the own king in check; {@link #generateLegal} filters those out with
+ * make/unmake so the buffer is reused in place.
+ */
+public final class MoveGenerator {
+    /** Upper bound on the number of moves in any reachable position (the known maximum is 218). */
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {
+    }
+
+    public static int generateLegal(Board board, int[] moves) {
+        int count = generatePseudoLegal(board, moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (board.isLegal(move)) {
+                moves[legal++] = move;
+            }
+        }
+        return legal;
+    }
+
+    public static boolean hasLegalMove(Board board, int[] scratch) {
+        int count = generatePseudoLegal(board, scratch);
+        for (int i = 0; i < count; i++) {
+            if (board.isLegal(scratch[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static int generatePseudoLegal(Board board, int[] moves) {
+        int us = board.sideToMove;
+        int them = us ^ 1;
+        long own = board.occupancy[us];
+        long enemy = board.occupancy[them];
+        long occupied = own | enemy;
+        long targets = ~own;
+        int count = generatePawnMoves(board, moves, 0, us, enemy, occupied);
+
+        long knights = board.pieces[Piece.of(us, Piece.KNIGHT)];
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(moves, count, from, Bitboards.knightAttacks(from) & targets, enemy);
+        }
+        long bishops = board.pieces[Piece.of(us, Piece.BISHOP)] | board.pieces[Piece.of(us, Piece.QUEEN)];
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            count = addMoves(moves, count, from, Bitboards.bishopAttacks(from, occupied) & targets, enemy);
+        }
+        long rooks = board.pieces[Piece.of(us, Piece.ROOK)] | board.pieces[Piece.of(us, Piece.QUEEN)];
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            count = addMoves(moves, count, from, Bitboards.rookAttacks(from, occupied) & targets, enemy);
+        }
+        int king = board.kingSquare(us);
+        count = addMoves(moves, count, king, Bitboards.kingAttacks(king) & targets, enemy);
+        return generateCastling(board, moves, count, us, occupied);
+    }
+
+    private static int addMoves(int[] moves, int count, int from, long destinations, long enemy) {
+        while (destinations != 0) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            moves[count++] = Move.of(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET);
+        }
+        return count;
+    }
+
+    private static int generatePawnMoves(Board board, int[] moves, int count, int us, long enemy, long occupied) {
+        long pawns = board.pieces[Piece.of(us, Piece.PAWN)];
+        long empty = ~occupied;
+        int forward = us == Piece.WHITE ? 8 : -8;
+        long promotionRank = us == Piece.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+
+        long singles = (us == Piece.WHITE ? pawns << 8 : pawns >>> 8) & empty;
+        long doubles = us == Piece.WHITE
+                ? (singles << 8) & empty & Bitboards.RANK_4
+                : (singles >>> 8) & empty & Bitboards.RANK_5;
+
+        long pushes = singles;
+        while (pushes != 0) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            pushes &= pushes - 1;
+            int from = to - forward;
+            if (((1L << to) & promotionRank) != 0) {
+                count = addPromotions(moves, count, from, to, Move.PROMOTION);
+            } else {
+                moves[count++] = Move.of(from, to, Move.QUIET);
+            }
+        }
+        while (doubles != 0) {
+            int to = Long.numberOfTrailingZeros(doubles);
+            doubles &= doubles - 1;
+            moves[count++] = Move.of(to - 2 * forward, to, Move.DOUBLE_PAWN_PUSH);
+        }
+
+        long epBit = board.epSquare >= 0 ? 1L << board.epSquare : 0L;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long attacks = Bitboards.pawnAttacks(us, from);
+            long captures = attacks & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if (((1L << to) & promotionRank) != 0) {
+                    count = addPromotions(moves, count, from, to, Move.PROMOTION_CAPTURE);
+                } else {
+                    moves[count++] = Move.of(from, to, Move.CAPTURE);
+                }
+            }
+            if ((attacks & epBit) != 0) {
+                moves[count++] = Move.of(from, board.epSquare, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int from, int to, int baseFlags) {
+        for (int promotion = 3; promotion >= 0; promotion--) {
+            moves[count++] = Move.of(from, to, baseFlags | promotion);
+        }
+        return count;
+    }
+
+    private static int generateCastling(Board board, int[] moves, int count, int us, long occupied) {
+        int rights = board.castlingRights;
+        int them = us ^ 1;
+        if (us == Piece.WHITE) {
+            if ((rights & (Board.WHITE_KINGSIDE | Board.WHITE_QUEENSIDE)) == 0 || board.isSquareAttacked(4, them)) {
+                return count;
+            }
+            if ((rights & Board.WHITE_KINGSIDE) != 0 && (occupied & 0x60L) == 0
+                    && !board.isSquareAttacked(5, them) && !board.isSquareAttacked(6, them)) {
+                moves[count++] = Move.of(4, 6, Move.KING_CASTLE);
+            }
+            if ((rights & Board.WHITE_QUEENSIDE) != 0 && (occupied & 0x0EL) == 0
+                    && !board.isSquareAttacked(3, them) && !board.isSquareAttacked(2, them)) {
+                moves[count++] = Move.of(4, 2, Move.QUEEN_CASTLE);
+            }
+        } else {
+            if ((rights & (Board.BLACK_KINGSIDE | Board.BLACK_QUEENSIDE)) == 0 || board.isSquareAttacked(60, them)) {
+                return count;
+            }
+            if ((rights & Board.BLACK_KINGSIDE) != 0 && (occupied & (0x60L << 56)) == 0
+                    && !board.isSquareAttacked(61, them) && !board.isSquareAttacked(62, them)) {
+                moves[count++] = Move.of(60, 62, Move.KING_CASTLE);
+            }
+            if ((rights & Board.BLACK_QUEENSIDE) != 0 && (occupied & (0x0EL << 56)) == 0
+                    && !board.isSquareAttacked(59, them) && !board.isSquareAttacked(58, them)) {
+                moves[count++] = Move.of(60, 58, Move.QUEEN_CASTLE);
+            }
+        }
+        return count;
+    }
+}
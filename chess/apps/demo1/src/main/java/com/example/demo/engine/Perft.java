@@ -0,0 +1,53 @@
+package com.example.demo.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf positions of the legal move tree to a fixed depth, the standard check of a
+ * move generator against published reference counts. Moves are played with make/unmake on
+ * the given board, which is left as it was.
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    public static long perft(Board board, int depth) {
+        return perft(board, depth, new int[Math.max(1, depth)][MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * @return the perft count below each legal move of the root, by UCI move, for finding
+     * the move a wrong total comes from
+     */
+    public static Map<String, Long> divide(Board board, int depth) {
+        int[][] buffers = new int[Math.max(1, depth)][MoveGenerator.MAX_MOVES];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(board, moves);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            counts.put(Move.toUci(moves[i]), depth <= 1 ? 1 : perft(board, depth - 1, buffers));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    private static long perft(Board board, int depth, int[][] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegal(board, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.engine;
+
+/**
+ * Colour, piece type and coloured piece constants. A coloured piece is encoded as
+ * {@code color * 6 + type} so it can index the per-piece bitboards directly.
+ */
+public final class Piece {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NONE = -1;
+    public static final int COUNT = 12;
+
+    private static final String FEN_CHARS = "PNBRQKpnbrqk";
+
+    private Piece() {
+    }
+
+    public static int of(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int color(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int type(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    public static char toFenChar(int piece) {
+        return FEN_CHARS.charAt(piece);
+    }
+
+    public static int fromFenChar(char c) {
+        return FEN_CHARS.indexOf(c);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.demo.engine;
+
+/**
+ * Standard algebraic notation, as used in PGN movetext.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * Renders a legal move in the board's current position, with a check or mate suffix.
+     * The board is left unchanged.
+     */
+    public static String of(Board board, int move) {
+        StringBuilder san = new StringBuilder(8);
+        append(san, board, move);
+        return san.toString();
+    }
+
+    /**
+     * Appends the SAN of a legal move to {@code san}; see {@link #of}.
+     */
+    public static void append(StringBuilder san, Board board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int type = Piece.type(board.pieceAt(from));
+
+        if (flags == Move.KING_CASTLE) {
+            san.append("O-O");
+        } else if (flags == Move.QUEEN_CASTLE) {
+            san.append("O-O-O");
+        } else if (type == Piece.PAWN) {
+            if (Move.isCapture(move)) {
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            san.append(Bitboards.squareName(to));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(PIECE_LETTERS.charAt(Move.promotionType(move)));
+            }
+        } else {
+            san.append(PIECE_LETTERS.charAt(type));
+            appendDisambiguation(san, board, move, board.pieceAt(from));
+            if (Move.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(Bitboards.squareName(to));
+        }
+
+        board.makeMove(move);
+        if (board.inCheck()) {
+            san.append(board.hasLegalMove() ? '+' : '#');
+        }
+        board.unmakeMove();
+    }
+
+    /**
+     * Adds the origin file, rank or both when another piece of the same kind can also
+     * legally reach the target square.
+     */
+    private static void appendDisambiguation(StringBuilder san, Board board, int move, int piece) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long candidates = attacks(Piece.type(piece), to, board.occupied()) & board.pieces(piece) & ~(1L << from);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (; candidates != 0; candidates &= candidates - 1) {
+            int other = Long.numberOfTrailingZeros(candidates);
+            if (!board.isLegal(Move.of(other, to, Move.flags(move)))) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= (other & 7) == (from & 7);
+            sameRank |= (other >>> 3) == (from >>> 3);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            san.append(Bitboards.squareName(from));
+        }
+    }
+
+    /**
+     * Finds the legal move a SAN token denotes in the board's current position. Check,
+     * mate and annotation suffixes are ignored, and castling may be written with zeros.
+     * The board is left unchanged.
+     *
+     * @param scratch move buffer of at least {@link MoveGenerator#MAX_MOVES} entries
+     * @return the move, or {@link Move#NONE} if the token is malformed, illegal or ambiguous
+     */
+    public static int parse(Board board, CharSequence san, int[] scratch) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end < 2) {
+            return Move.NONE;
+        }
+        int wantedFlags = castleFlags(san, end);
+        int type = Piece.PAWN;
+        int promotion = Piece.NONE;
+        int to = -1;
+        int fromFile = -1;
+        int fromRank = -1;
+        if (wantedFlags < 0) {
+            int start = 0;
+            int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+            if (letter >= 0) {
+                type = letter;
+                start = 1;
+            }
+            char last = san.charAt(end - 1);
+            if (type == Piece.PAWN && "NBRQ".indexOf(last) >= 0) {
+                promotion = PIECE_LETTERS.indexOf(last);
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+            if (end - start < 2) {
+                return Move.NONE;
+            }
+            to = square(san.charAt(end - 2), san.charAt(end - 1));
+            if (to < 0) {
+                return Move.NONE;
+            }
+            for (int i = start; i < end - 2; i++) {
+                char c = san.charAt(i);
+                if (c >= 'a' && c <= 'h') {
+                    fromFile = c - 'a';
+                } else if (c >= '1' && c <= '8') {
+                    fromRank = c - '1';
+                } else if (c != 'x' && c != ':') {
+                    return Move.NONE;
+                }
+            }
+        }
+
+        if (wantedFlags < 0 && type != Piece.PAWN) {
+            return findPieceMove(board, type, to, fromFile, fromRank);
+        }
+        int found = Move.NONE;
+        int count = MoveGenerator.generatePseudoLegal(board, scratch);
+        for (int i = 0; i < count; i++) {
+            int move = scratch[i];
+            int from = Move.from(move);
+            if (wantedFlags >= 0) {
+                if (Move.flags(move) != wantedFlags) {
+                    continue;
+                }
+            } else if (Move.to(move) != to || Move.isCastle(move)
+                    || Piece.type(board.pieceAt(from)) != type
+                    || Move.promotionType(move) != promotion
+                    || (fromFile >= 0 && (from & 7) != fromFile)
+                    || (fromRank >= 0 && (from >>> 3) != fromRank)) {
+                continue;
+            }
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Finds a knight, bishop, rook, queen or king move by looking back from the target square
+     * along that piece's attacks, which is much cheaper than generating every move.
+     */
+    private static int findPieceMove(Board board, int type, int to, int fromFile, int fromRank) {
+        int us = board.getSideToMove();
+        int target = board.pieceAt(to);
+        if (target != Piece.NONE && Piece.color(target) == us) {
+            return Move.NONE;
+        }
+        int flags = target == Piece.NONE ? Move.QUIET : Move.CAPTURE;
+        long candidates = attacks(type, to, board.occupied()) & board.pieces(Piece.of(us, type));
+        int found = Move.NONE;
+        for (; candidates != 0; candidates &= candidates - 1) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            if ((fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && (from >>> 3) != fromRank)) {
+                continue;
+            }
+            int move = Move.of(from, to, flags);
+            if (!board.isLegal(move)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * @return the castling flag the token spells, or -1 if it is not a castling move
+     */
+    private static int castleFlags(CharSequence san, int end) {
+        char zero = san.charAt(0);
+        if (zero != 'O' && zero != '0') {
+            return -1;
+        }
+        if (end == 3 && san.charAt(1) == '-' && san.charAt(2) == zero) {
+            return Move.KING_CASTLE;
+        }
+        if (end == 5 && san.charAt(1) == '-' && san.charAt(2) == zero && san.charAt(3) == '-'
+                && san.charAt(4) == zero) {
+            return Move.QUEEN_CASTLE;
+        }
+        return -1;
+    }
+
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return (rank - '1') * 8 + (file - 'a');
+    }
+
+    private static long attacks(int type, int sq, long occupied) {
+        return switch (type) {
+            case Piece.KNIGHT -> Bitboards.knightAttacks(sq);
+            case Piece.BISHOP -> Bitboards.bishopAttacks(sq, occupied);
+            case Piece.ROOK -> Bitboards.rookAttacks(sq, occupied);
+            case Piece.QUEEN -> Bitboards.bishopAttacks(sq, occupied) | Bitboards.rookAttacks(sq, occupied);
+            default -> Bitboards.kingAttacks(sq);
+        };
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.demo.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alpha-beta search with iterative deepening, run Lazy-SMP style: every thread searches the
+ * same root on its own board, and the threads share only a {@link TranspositionTable} and
+ * the budget, so helpers speed up the main thread by filling the table with results it can
+ * reuse. Odd helpers run one ply ahead to spread the threads over different depths.
+ * <p>
+ * Each thread is a principal variation search with null-move pruning, late move reductions,
+ * check extensions and a captures-only quiescence search; moves are ordered by the table
+ * move, most valuable victim, killers and history. Only the main thread reports iterations.
+ * A search instance runs once; {@link #stop} may be called from any thread.
+ */
+public final class Search {
+    public static final int MAX_DEPTH = 64;
+    public static final int MATE = 32000;
+
+    private static final int MAX_PLY = 128;
+    private static final int INFINITY = 32500;
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MIN_DEPTH = 5;
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean stopped;
+    private long deadline;
+    private long maxNodes;
+
+    /**
+     * @param depth deepest iteration to run
+     * @param nodes node budget over all threads
+     * @param millis time budget
+     */
+    public record Limits(int depth, long nodes, long millis) {
+    }
+
+    /**
+     * A completed iteration of the main thread.
+     *
+     * @param score centipawns from the side to move's point of view
+     * @param mate moves to mate, negative if the side to move is being mated, or 0
+     * @param pv the principal variation, starting with the best move
+     */
+    public record Iteration(int depth, int score, int mate, long nodes, long millis, int[] pv) {
+        public int bestMove() {
+            return pv.length == 0 ? Move.NONE : pv[0];
+        }
+    }
+
+    public interface Listener {
+        void onIteration(Iteration iteration);
+    }
+
+    public Search(TranspositionTable table, int threads) {
+        this.table = table;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Searches {@code root} on the calling thread, with helper threads on {@code helpers}. The
+     * executor must be able to start all {@code threads - 1} helpers at once.
+     *
+     * @return the deepest completed iteration; the first one always completes
+     */
+    public Iteration run(Board root, Limits limits, Listener listener, Executor helpers)
+            throws InterruptedException {
+        long started = System.nanoTime();
+        deadline = started + limits.millis() * 1_000_000;
+        maxNodes = limits.nodes();
+        int maxDepth = Math.max(1, Math.min(limits.depth(), MAX_DEPTH));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        if (MoveGenerator.generateLegal(new Board(root), moves) == 0) {
+            return new Iteration(0, root.inCheck() ? -MATE : 0, 0, 0, 0, new int[0]);
+        }
+        table.newSearch();
+
+        CountDownLatch finished = new CountDownLatch(threads - 1);
+        for (int id = 1; id < threads; id++) {
+            Worker helper = new Worker(id, new Board(root));
+            helpers.execute(() -> {
+                try {
+                    helper.iterate(maxDepth, null, started);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        Iteration best;
+        try {
+            best = new Worker(0, new Board(root)).iterate(maxDepth, listener, started);
+        } finally {
+            stopped = true;
+        }
+        finished.await();
+        return best;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    private final class Worker {
+        private final int id;
+        private final Board board;
+        private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[][] scores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+        private final int[] pvLength = new int[MAX_PLY];
+        private final int[][] killers = new int[MAX_PLY][2];
+        private final int[][] history = new int[Piece.COUNT][64];
+        private long localNodes;
+        /** False until the main thread's first iteration is done, so that there is a result. */
+        private boolean mayStop;
+
+        Worker(int id, Board board) {
+            this.id = id;
+            this.board = board;
+            this.mayStop = id != 0;
+        }
+
+        Iteration iterate(int maxDepth, Listener listener, long started) {
+            Iteration best = null;
+            int score = 0;
+            for (int depth = 1 + (id & 1); depth <= maxDepth && !(stopped && mayStop); depth++) {
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (depth >= ASPIRATION_MIN_DEPTH) {
+                    alpha = Math.max(-INFINITY, score - ASPIRATION_WINDOW);
+                    beta = Math.min(INFINITY, score + ASPIRATION_WINDOW);
+                }
+                while (true) {
+                    int result = search(depth, alpha, beta, 0, false);
+                    if (stopped && mayStop) {
+                        break;
+                    }
+                    if (result <= alpha) {
+                        alpha = -INFINITY;
+                    } else if (result >= beta) {
+                        beta = INFINITY;
+                    } else {
+                        score = result;
+                        break;
+                    }
+                }
+                if (stopped && mayStop) {
+                    break;
+                }
+                mayStop = true;
+                if (id == 0) {
+                    best = new Iteration(depth, score, mateIn(score), nodes.get() + localNodes % CHECK_INTERVAL,
+                            (System.nanoTime() - started) / 1_000_000, Arrays.copyOf(pv[0], pvLength[0]));
+                    if (listener != null) {
+                        listener.onIteration(best);
+                    }
+                }
+            }
+            return best;
+        }
+
+        private int search(int depth, int alpha, int beta, int ply, boolean allowNull) {
+            pvLength[ply] = ply;
+            if (ply > 0) {
+                if (board.halfmoveClock >= 100 || board.repetitions() > 0 || board.isInsufficientMaterial()) {
+                    return 0;
+                }
+                alpha = Math.max(alpha, -MATE + ply);
+                beta = Math.min(beta, MATE - ply - 1);
+                if (alpha >= beta) {
+                    return alpha;
+                }
+            }
+            boolean inCheck = board.inCheck();
+            if (inCheck) {
+                depth++;
+            }
+            if (depth <= 0) {
+                return quiescence(alpha, beta, ply);
+            }
+            if (ply >= MAX_PLY - 1) {
+                return Evaluator.evaluate(board);
+            }
+            if (countNode()) {
+                return 0;
+            }
+
+            long hash = board.getHash();
+            long entry = table.probe(hash);
+            int tableMove = Move.NONE;
+            boolean pvNode = beta - alpha > 1;
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            if (!pvNode && !inCheck) {
+                int eval = Evaluator.evaluate(board);
+                if (depth <= 3 && eval - 120 * depth >= beta && Math.abs(beta) < MATE_BOUND) {
+                    return eval;
+                }
+                if (allowNull && depth >= 3 && eval >= beta && Evaluator.hasNonPawnMaterial(board)) {
+                    board.makeNullMove();
+                    int score = -search(depth - 3 - depth / 6, -beta, -beta + 1, ply + 1, false);
+                    board.unmakeNullMove();
+                    if (stopped && mayStop) {
+                        return 0;
+                    }
+                    if (score >= beta) {
+                        return score >= MATE_BOUND ? beta : score;
+                    }
+                }
+            }
+
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int count = MoveGenerator.generatePseudoLegal(board, list);
+            scoreMoves(list, order, count, tableMove, ply);
+            int us = board.sideToMove;
+            int originalAlpha = alpha;
+            int best = -INFINITY;
+            int bestMove = Move.NONE;
+            int legal = 0;
+            for (int i = 0; i < count; i++) {
+                int move = next(list, order, i, count);
+                int piece = board.pieceAt(Move.from(move));
+                board.makeMove(move);
+                if (board.isSquareAttacked(board.kingSquare(us), us ^ 1)) {
+                    board.unmakeMove();
+                    continue;
+                }
+                legal++;
+                boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+                int score;
+                if (legal == 1) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                } else {
+                    int reduction = depth >= 3 && legal > 3 && quiet && !inCheck && !board.inCheck()
+                            ? (legal > 8 ? 2 : 1) : 0;
+                    score = -search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                    if (score > alpha && reduction > 0) {
+                        score = -search(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                    }
+                    if (score > alpha && score < beta) {
+                        score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                    }
+                }
+                board.unmakeMove();
+                if (stopped && mayStop) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        pv[ply][ply] = move;
+                        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                        pvLength[ply] = Math.max(ply + 1, pvLength[ply + 1]);
+                        if (score >= beta) {
+                            if (quiet) {
+                                if (killers[ply][0] != move) {
+                                    killers[ply][1] = killers[ply][0];
+                                    killers[ply][0] = move;
+                                }
+                                history[piece][Move.to(move)] += depth * depth;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (legal == 0) {
+                return inCheck ? -MATE + ply : 0;
+            }
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(hash, bestMove, toTable(best, ply), depth, bound);
+            return best;
+        }
+
+        private int quiescence(int alpha, int beta, int ply) {
+            pvLength[ply] = ply;
+            if (countNode()) {
+                return 0;
+            }
+            int standPat = Evaluator.evaluate(board);
+            if (ply >= MAX_PLY - 1 || standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int count = MoveGenerator.generatePseudoLegal(board, list);
+            int captures = 0;
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                if (Move.isCapture(move) || Move.promotionType(move) == Piece.QUEEN) {
+                    list[captures++] = move;
+                }
+            }
+            scoreMoves(list, order, captures, Move.NONE, ply);
+            int us = board.sideToMove;
+            for (int i = 0; i < captures; i++) {
+                int move = next(list, order, i, captures);
+                if (!Move.isPromotion(move) && standPat + Evaluator.PIECE_VALUES[victim(move)] + 200 <= alpha) {
+                    continue;
+                }
+                board.makeMove(move);
+                if (board.isSquareAttacked(board.kingSquare(us), us ^ 1)) {
+                    board.unmakeMove();
+                    continue;
+                }
+                int score = -quiescence(-beta, -alpha, ply + 1);
+                board.unmakeMove();
+                if (stopped && mayStop) {
+                    return 0;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        private void scoreMoves(int[] list, int[] order, int count, int tableMove, int ply) {
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                int score;
+                if (move == tableMove) {
+                    score = 1_000_000;
+                } else if (Move.isCapture(move)) {
+                    score = 100_000 + 10 * Evaluator.PIECE_VALUES[victim(move)]
+                            - Piece.type(board.pieceAt(Move.from(move)));
+                } else if (Move.promotionType(move) == Piece.QUEEN) {
+                    score = 90_000;
+                } else if (move == killers[ply][0]) {
+                    score = 80_000;
+                } else if (move == killers[ply][1]) {
+                    score = 79_000;
+                } else {
+                    score = Math.min(history[board.pieceAt(Move.from(move))][Move.to(move)], 70_000);
+                }
+                order[i] = score;
+            }
+        }
+
+        /**
+         * Selection sort step: moves the best-scored remaining move to {@code index}.
+         */
+        private int next(int[] list, int[] order, int index, int count) {
+            int best = index;
+            for (int i = index + 1; i < count; i++) {
+                if (order[i] > order[best]) {
+                    best = i;
+                }
+            }
+            int move = list[best];
+            list[best] = list[index];
+            order[best] = order[index];
+            list[index] = move;
+            order[index] = 0;
+            return move;
+        }
+
+        private int victim(int move) {
+            return Move.flags(move) == Move.EN_PASSANT ? Piece.PAWN : Piece.type(board.pieceAt(Move.to(move)));
+        }
+
+        /**
+         * Counts a node and, every {@link #CHECK_INTERVAL} nodes, checks the shared budget.
+         *
+         * @return true if the search should unwind
+         */
+        private boolean countNode() {
+            if (++localNodes % CHECK_INTERVAL == 0) {
+                long total = nodes.addAndGet(CHECK_INTERVAL);
+                if (total >= maxNodes || System.nanoTime() >= deadline) {
+                    stopped = true;
+                }
+            }
+            return stopped && mayStop;
+        }
+    }
+
+    private static int toTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private static int mateIn(int score) {
+        if (score >= MATE_BOUND) {
+            return (MATE - score + 1) / 2;
+        }
+        if (score <= -MATE_BOUND) {
+            return -(MATE + score) / 2;
+        }
+        return 0;
+    }
+}
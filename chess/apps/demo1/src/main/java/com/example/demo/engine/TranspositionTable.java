@@ -0,0 +1,84 @@
+package com.example.demo.engine;
+
+/**
+ * Lock-free transposition table shared by every {@link Search} thread. Each entry is two
+ * longs, the data and the position hash XORed with the data; a reader only accepts an entry
+ * whose two halves still agree, so an entry torn by a concurrent write reads as a miss
+ * instead of as another position's result.
+ * <pre>
+ *  data  bits 0-15 move, 16-31 score, 32-39 depth, 40-41 bound, 42-49 generation
+ * </pre>
+ * One entry per slot; another position's entry is only kept if it is from the current
+ * search generation and deeper than the new one.
+ */
+public final class TranspositionTable {
+    static final int EXACT = 1;
+    static final int LOWER = 2;
+    static final int UPPER = 3;
+
+    private final long[] entries;
+    private final int mask;
+    private volatile int generation;
+
+    public TranspositionTable(int megabytes) {
+        long slots = Math.max(1024, (long) megabytes * 1024 * 1024 / (2 * Long.BYTES));
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 28));
+        this.entries = new long[2 * size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Starts a new search generation, letting its entries replace older ones first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * @return the entry's data, or 0 if the position is not stored
+     */
+    long probe(long hash) {
+        int index = ((int) hash & mask) << 1;
+        long data = entries[index + 1];
+        return (entries[index] ^ data) == hash ? data : 0;
+    }
+
+    void store(long hash, int move, int score, int depth, int bound) {
+        int index = ((int) hash & mask) << 1;
+        long old = entries[index + 1];
+        int current = generation;
+        if ((entries[index] ^ old) != hash && old != 0 && generation(old) == current && depth(old) > depth) {
+            return;
+        }
+        if ((entries[index] ^ old) == hash && move == Move.NONE) {
+            move = move(old);
+        }
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) Math.max(0, Math.min(depth, 255)) << 32
+                | (long) bound << 40
+                | (long) current << 42;
+        entries[index] = hash ^ data;
+        entries[index + 1] = data;
+    }
+
+    static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 42) & 0xFF;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.engine;
+
+/**
+ * Random keys for 64-bit Zobrist position hashing. A position's hash is the XOR of one key
+ * per (piece, square), one for the castling rights, one for the en passant file when a
+ * capture on it is possible, and {@link #SIDE} when black is to move.
+ * <p>
+ * Keys come from a fixed-seed SplitMix64 stream, so hashes are stable across runs and nodes.
+ */
+public final class Zobrist {
+    static final long[] PIECE_SQUARE = new long[Piece.COUNT * 64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EP_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        long state = 0x5EED_C0DE_CAFE_F00DL;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        // Each right gets its own key so rights combine by XOR
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        for (int mask = 1; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    CASTLING[mask] ^= rights[i];
+                }
+            }
+        }
+        for (int i = 0; i < EP_FILE.length; i++) {
+            EP_FILE[i] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        SIDE = splitMix(state + 0x9E3779B97F4A7C15L);
+    }
+
+    private Zobrist() {
+    }
+
+    static long pieceSquare(int piece, int sq) {
+        return PIECE_SQUARE[piece * 64 + sq];
+    }
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
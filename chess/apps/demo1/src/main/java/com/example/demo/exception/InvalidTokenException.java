@@ -1,6 +1,7 @@
 package com.example.demo.exception;
 
-public class InvalidTokenException extends Throwable {
+public class InvalidTokenException extends RuntimeException {
     public InvalidTokenException(String invalidJwtToken, RuntimeException e) {
+        super(invalidJwtToken, e);
     }
 }
@@ -0,0 +1,169 @@
+package com.example.demo.explorer;
+
+import com.example.demo.engine.Move;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Open-addressing table from (position hash, move) to the number of games in which that
+ * move was played from that position, split by result. Keys and counts live in parallel
+ * primitive arrays probed linearly, so a lookup touches no objects and the garbage
+ * collector sees three arrays however many positions are indexed.
+ * <p>
+ * Not thread-safe; callers guard it.
+ */
+public class PositionStatsTable {
+    public static final int WHITE_WINS = 0;
+    public static final int DRAWS = 1;
+    public static final int BLACK_WINS = 2;
+
+    private static final int OUTCOMES = 3;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int SNAPSHOT_MAGIC = 0x45585031;
+
+    private long[] hashes;
+    private int[] moves;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    public PositionStatsTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Sizes the table to hold {@code expectedEntries} without resizing.
+     */
+    public PositionStatsTable(int expectedEntries) {
+        int needed = (int) Math.min(1 << 30, expectedEntries * 4L / 3 + 1);
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long hash, int move, int outcome) {
+        int slot = slot(hash, move);
+        if (moves[slot] == Move.NONE) {
+            hashes[slot] = hash;
+            moves[slot] = move;
+            if (++size > (mask + 1) * 3L / 4) {
+                resize();
+                slot = slot(hash, move);
+            }
+        }
+        counts[slot * OUTCOMES + outcome]++;
+    }
+
+    /**
+     * Copies the counts of a (position, move) pair into {@code out}, indexed by outcome.
+     *
+     * @return false, leaving {@code out} untouched, if the move was never played there
+     */
+    public boolean get(long hash, int move, int[] out) {
+        int slot = slot(hash, move);
+        if (moves[slot] == Move.NONE) {
+            return false;
+        }
+        System.arraycopy(counts, slot * OUTCOMES, out, 0, OUTCOMES);
+        return true;
+    }
+
+    public PositionStatsTable copy() {
+        PositionStatsTable copy = new PositionStatsTable(MIN_CAPACITY);
+        copy.hashes = hashes.clone();
+        copy.moves = moves.clone();
+        copy.counts = counts.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    public void writeTo(DataOutputStream out, int maxPlies) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(maxPlies);
+        out.writeInt(size);
+        for (int slot = 0; slot <= mask; slot++) {
+            if (moves[slot] != Move.NONE) {
+                out.writeLong(hashes[slot]);
+                out.writeShort(moves[slot]);
+                for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                    out.writeInt(counts[slot * OUTCOMES + outcome]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeTo}.
+     *
+     * @return the table, or null if the snapshot was taken with a different ply limit
+     * @throws IOException if the data is not a snapshot or is cut short
+     */
+    public static PositionStatsTable readFrom(DataInputStream in, int maxPlies) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a position stats snapshot");
+        }
+        if (in.readInt() != maxPlies) {
+            return null;
+        }
+        int entries = in.readInt();
+        PositionStatsTable table = new PositionStatsTable(entries);
+        int[] entryCounts = new int[OUTCOMES];
+        for (int i = 0; i < entries; i++) {
+            long hash = in.readLong();
+            int move = in.readUnsignedShort();
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                entryCounts[outcome] = in.readInt();
+            }
+            int slot = table.slot(hash, move);
+            table.hashes[slot] = hash;
+            table.moves[slot] = move;
+            System.arraycopy(entryCounts, 0, table.counts, slot * OUTCOMES, OUTCOMES);
+            table.size++;
+        }
+        return table;
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it belongs
+     */
+    private int slot(long hash, int move) {
+        long mixed = (hash ^ move * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        int slot = (int) (mixed >>> 32) & mask;
+        while (moves[slot] != Move.NONE && (hashes[slot] != hash || moves[slot] != move)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        moves = new int[capacity];
+        counts = new int[capacity * OUTCOMES];
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        int[] oldMoves = moves;
+        int[] oldCounts = counts;
+        allocate((mask + 1) * 2);
+        for (int old = 0; old < oldMoves.length; old++) {
+            if (oldMoves[old] != Move.NONE) {
+                int slot = slot(oldHashes[old], oldMoves[old]);
+                hashes[slot] = oldHashes[old];
+                moves[slot] = oldMoves[old];
+                System.arraycopy(oldCounts, old * OUTCOMES, counts, slot * OUTCOMES, OUTCOMES);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PositionStatsTable[size=" + size + ", capacity=" + (mask + 1) + "]";
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.journal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry of the {@link MoveJournal}. Which fields are set depends on the type:
+ * <ul>
+ *   <li>JOIN, LEAVE: {@code userId} is the player;</li>
+ *   <li>MOVE: {@code userId} is the mover, {@code moves} holds the one move, followed by the
+ *   clock stamp taken after it and the message sequence it was broadcast with;</li>
+ *   <li>STATE: the whole game, with {@code userId} the last mover and {@code moves} every
+ *   move from the starting position;</li>
+ *   <li>END: only {@code gameId}.</li>
+ * </ul>
+ * Moves are {@link com.example.demo.engine.Move} encodings.
+ */
+public record JournalRecord(Type type, String gameId, String userId, List<String> players, int[] moves,
+                            long whiteMillis, long blackMillis, int runningColor, long seq) {
+    private static final int[] NO_MOVES = new int[0];
+
+    public enum Type {
+        JOIN,
+        LEAVE,
+        MOVE,
+        STATE,
+        END
+    }
+
+    public static JournalRecord join(String gameId, String userId) {
+        return new JournalRecord(Type.JOIN, gameId, userId, List.of(), NO_MOVES, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord leave(String gameId, String userId) {
+        return new JournalRecord(Type.LEAVE, gameId, userId, List.of(), NO_MOVES, 0, 0, 0, 0);
+    }
+
+    public static JournalRecord move(String gameId, String userId, int move, long whiteMillis, long blackMillis,
+                                     int runningColor, long seq) {
+        return new JournalRecord(Type.MOVE, gameId, userId, List.of(), new int[]{move},
+                whiteMillis, blackMillis, runningColor, seq);
+    }
+
+    public static JournalRecord state(String gameId, List<String> players, String lastMoverId, int[] moves,
+                                      long whiteMillis, long blackMillis, int runningColor, long seq) {
+        return new JournalRecord(Type.STATE, gameId, lastMoverId, List.copyOf(players), moves,
+                whiteMillis, blackMillis, runningColor, seq);
+    }
+
+    public static JournalRecord end(String gameId) {
+        return new JournalRecord(Type.END, gameId, null, List.of(), NO_MOVES, 0, 0, 0, 0);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(gameId);
+        switch (type) {
+            case JOIN, LEAVE -> out.writeUTF(userId);
+            case MOVE -> {
+                out.writeUTF(userId);
+                out.writeInt(moves[0]);
+                writeClock(out);
+            }
+            case STATE -> {
+                out.writeUTF(userId == null ? "" : userId);
+                out.writeShort(players.size());
+                for (String player : players) {
+                    out.writeUTF(player);
+                }
+                out.writeInt(moves.length);
+                for (int move : moves) {
+                    out.writeInt(move);
+                }
+                writeClock(out);
+            }
+            case END -> { }
+        }
+    }
+
+    static JournalRecord readFrom(DataInputStream in) throws IOException {
+        int typeIndex = in.readUnsignedByte();
+        Type[] types = Type.values();
+        if (typeIndex >= types.length) {
+            throw new IOException("Unknown journal record type " + typeIndex);
+        }
+        Type type = types[typeIndex];
+        String gameId = in.readUTF();
+        return switch (type) {
+            case JOIN -> join(gameId, in.readUTF());
+            case LEAVE -> leave(gameId, in.readUTF());
+            case MOVE -> move(gameId, in.readUTF(), in.readInt(), in.readLong(), in.readLong(), in.readByte(),
+                    in.readLong());
+            case STATE -> {
+                String lastMoverId = in.readUTF();
+                int playerCount = in.readUnsignedShort();
+                List<String> players = new ArrayList<>(playerCount);
+                for (int i = 0; i < playerCount; i++) {
+                    players.add(in.readUTF());
+                }
+                int[] moves = new int[in.readInt()];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = in.readInt();
+                }
+                yield state(gameId, players, lastMoverId.isEmpty() ? null : lastMoverId, moves,
+                        in.readLong(), in.readLong(), in.readByte(), in.readLong());
+            }
+            case END -> end(gameId);
+        };
+    }
+
+    private void writeClock(DataOutputStream out) throws IOException {
+        out.writeLong(whiteMillis);
+        out.writeLong(blackMillis);
+        out.writeByte(runningColor);
+        out.writeLong(seq);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the {@link MoveJournal}. After an 8-byte header,
+ * records are laid out back to back as {@code length, crc32c, payload}; the zero-filled
+ * remainder of the file reads as length 0, which ends the segment. A record whose length
+ * runs past the file or whose checksum does not match is a torn write and also ends it.
+ * <p>
+ * Only the journal's writer thread touches an open segment.
+ */
+class JournalSegment {
+    private static final int MAGIC = 0x43574A31; // "CWJ1"
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_OVERHEAD = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    /** Live games with records in this segment; it can be deleted once this is empty. */
+    final Set<String> games = new HashSet<>();
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path path, int sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+        buffer.putInt(MAGIC).putInt(sizeBytes);
+        return new JournalSegment(path, channel, buffer);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return false if the record does not fit in the space left
+     */
+    boolean append(byte[] payload) {
+        if (buffer.remaining() < payload.length + RECORD_OVERHEAD) {
+            return false;
+        }
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        return true;
+    }
+
+    static boolean fits(byte[] payload, int sizeBytes) {
+        return payload.length + RECORD_OVERHEAD <= sizeBytes - HEADER_BYTES;
+    }
+
+    /**
+     * Flushes everything appended so far to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Reads every intact record of a segment file in order.
+     *
+     * @return false if the segment ended in a torn or unreadable record
+     */
+    static boolean read(Path path, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return false;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+            buffer.getInt();
+            CRC32C crc = new CRC32C();
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                int length = buffer.getInt();
+                if (length == 0) {
+                    return true;
+                }
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    return false;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return false;
+                }
+                consumer.accept(JournalRecord.readFrom(new DataInputStream(new ByteArrayInputStream(payload))));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.demo.journal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of live games, so they survive a restart or crash. Joins, leaves, every
+ * accepted move with its clock stamp, and game ends are written to fixed-size memory-mapped
+ * {@link JournalSegment}s under {@code game.journal.dir}.
+ * <p>
+ * {@link #append} only enqueues, so mailbox threads never wait on the disk. A single writer
+ * thread drains whatever has queued up, copies it into the mapped segment and syncs it with
+ * one {@code force()} per batch (group commit), so under load many moves share one sync.
+ * <p>
+ * A segment is deleted as soon as every game with records in it has ended. On startup
+ * {@link #open} replays the segments, writes one STATE record per live game into a fresh
+ * segment and deletes the old ones.
+ * <p>
+ * Metrics: {@code game.journal.queue.depth} and {@code game.journal.segments} (gauges) and
+ * {@code game.journal.commit} (timer per group commit).
+ */
+@Slf4j
+@Service
+public class MoveJournal {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BATCH = 4096;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final BlockingQueue<JournalRecord> queue = new LinkedBlockingQueue<>();
+    private final Timer commits;
+    private final Thread writer = new Thread(this::run, "move-journal");
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(256);
+    private final DataOutputStream encoder = new DataOutputStream(encoded);
+    private final Deque<JournalSegment> sealed = new ArrayDeque<>();
+    private final Set<String> liveGames = new HashSet<>();
+    private JournalSegment active;
+    private long nextSegment = 1;
+    private volatile int segmentCount;
+    private volatile boolean running;
+
+    public MoveJournal(@Value("${game.journal.enabled:true}") boolean enabled,
+                       @Value("${game.journal.dir:data/journal}") String directory,
+                       @Value("${game.journal.segment-bytes:16777216}") int segmentBytes,
+                       @Value("${game.journal.fsync:true}") boolean fsync,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.writer.setDaemon(true);
+        Gauge.builder("game.journal.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("game.journal.segments", this, journal -> journal.segmentCount).register(meterRegistry);
+        this.commits = Timer.builder("game.journal.commit").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a record for the writer thread. Never blocks.
+     */
+    public void append(JournalRecord record) {
+        if (enabled) {
+            queue.add(record);
+        }
+    }
+
+    /**
+     * Replays the journal left by the previous run, compacts it to one STATE record per live
+     * game and starts the writer. Records appended before this are kept and written after.
+     *
+     * @return the state of every game that had not ended
+     */
+    public synchronized List<JournalRecord> open() throws IOException {
+        if (!enabled || running) {
+            return List.of();
+        }
+        Files.createDirectories(directory);
+        List<Path> previous;
+        try (Stream<Path> files = Files.list(directory)) {
+            previous = files.filter(MoveJournal::isSegment).sorted().toList();
+        }
+        Map<String, RecoveredGame> games = new LinkedHashMap<>();
+        for (Path segment : previous) {
+            if (!JournalSegment.read(segment, record -> replay(games, record))) {
+                log.warn("Journal segment {} ends in a torn record; later records are ignored", segment);
+            }
+            nextSegment = Math.max(nextSegment, indexOf(segment) + 1);
+        }
+
+        roll();
+        List<JournalRecord> recovered = new ArrayList<>();
+        for (RecoveredGame game : games.values()) {
+            if (!game.players.isEmpty()) {
+                JournalRecord state = game.toRecord();
+                write(state);
+                recovered.add(state);
+            }
+        }
+        active.force();
+        for (Path segment : previous) {
+            Files.delete(segment);
+        }
+
+        running = true;
+        writer.start();
+        log.info("Move journal opened in {}: {} live games recovered from {} segments",
+                directory.toAbsolutePath(), recovered.size(), previous.size());
+        return recovered;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        active.force();
+        if (liveGames.isEmpty()) {
+            active.delete();
+        } else {
+            active.close();
+        }
+        for (JournalSegment segment : sealed) {
+            segment.close();
+        }
+    }
+
+    private void run() {
+        List<JournalRecord> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                JournalRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                long started = System.nanoTime();
+                for (JournalRecord record : batch) {
+                    write(record);
+                }
+                if (fsync) {
+                    active.force();
+                }
+                commits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Error writing {} records to the move journal", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(JournalRecord record) throws IOException {
+        encoded.reset();
+        record.writeTo(encoder);
+        byte[] payload = encoded.toByteArray();
+        if (!JournalSegment.fits(payload, segmentBytes)) {
+            log.error("Journal record {} for game {} is {} bytes, too large for a segment",
+                    record.type(), record.gameId(), payload.length);
+            return;
+        }
+        if (!active.append(payload)) {
+            roll();
+            active.append(payload);
+        }
+        if (record.type() == JournalRecord.Type.END) {
+            ended(record.gameId());
+        } else {
+            active.games.add(record.gameId());
+            liveGames.add(record.gameId());
+        }
+    }
+
+    private void ended(String gameId) throws IOException {
+        if (!liveGames.remove(gameId)) {
+            return;
+        }
+        active.games.remove(gameId);
+        Iterator<JournalSegment> segments = sealed.iterator();
+        while (segments.hasNext()) {
+            JournalSegment segment = segments.next();
+            if (segment.games.remove(gameId) && segment.games.isEmpty()) {
+                segment.delete();
+                segments.remove();
+            }
+        }
+        segmentCount = sealed.size() + 1;
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.force();
+            if (active.games.isEmpty()) {
+                active.delete();
+            } else {
+                sealed.add(active);
+            }
+        }
+        active = JournalSegment.create(directory.resolve(
+                String.format("%s%016d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX)), segmentBytes);
+        segmentCount = sealed.size() + 1;
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void replay(Map<String, RecoveredGame> games, JournalRecord record) {
+        String gameId = record.gameId();
+        switch (record.type()) {
+            case JOIN -> games.computeIfAbsent(gameId, RecoveredGame::new).players.add(record.userId());
+            case LEAVE -> {
+                RecoveredGame game = games.get(gameId);
+                if (game != null) {
+                    game.players.remove(record.userId());
+                }
+            }
+            case MOVE -> games.computeIfAbsent(gameId, RecoveredGame::new).apply(record);
+            case STATE -> {
+                RecoveredGame game = new RecoveredGame(gameId);
+                game.players.addAll(record.players());
+                game.moves = record.moves();
+                game.moveCount = record.moves().length;
+                game.apply(record);
+                games.put(gameId, game);
+            }
+            case END -> games.remove(gameId);
+        }
+    }
+
+    private static final class RecoveredGame {
+        private final String gameId;
+        private final Set<String> players = new LinkedHashSet<>();
+        private int[] moves = new int[64];
+        private int moveCount;
+        private String lastMoverId;
+        private long whiteMillis;
+        private long blackMillis;
+        private int runningColor;
+        private long seq;
+
+        RecoveredGame(String gameId) {
+            this.gameId = gameId;
+        }
+
+        void apply(JournalRecord record) {
+            if (record.type() == JournalRecord.Type.MOVE) {
+                if (moveCount == moves.length) {
+                    moves = Arrays.copyOf(moves, moveCount * 2);
+                }
+                moves[moveCount++] = record.moves()[0];
+            }
+            lastMoverId = record.userId();
+            whiteMillis = record.whiteMillis();
+            blackMillis = record.blackMillis();
+            runningColor = record.runningColor();
+            seq = record.seq();
+        }
+
+        JournalRecord toRecord() {
+            return JournalRecord.state(gameId, List.copyOf(players), lastMoverId, Arrays.copyOf(moves, moveCount),
+                    whiteMillis, blackMillis, runningColor, seq);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.matchmaking;
+
+import com.example.demo.clock.TimeControl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Players waiting for a rated game, one pool per time control. Each pool splits the ratings
+ * into buckets of {@link #BUCKET_WIDTH} points, each with its own lock-free queue, so players
+ * joining from request threads never contend with each other or with the matcher.
+ * <p>
+ * Only the thread calling {@link #match} reads the queues. A round walks every pool's buckets
+ * from the lowest rating up: players in the same bucket are paired first come first served,
+ * and the one left over in a bucket is offered to the one left over below it, the nearest
+ * rating still waiting. Two players are paired when their ratings are within the window of
+ * either of them, which starts at {@code initialWindow} points and widens by
+ * {@code widenPerSecond} for every second waited, up to {@code maxWindow}; the window never
+ * drops below a bucket's width, so players in one bucket always suit each other. A round
+ * costs the same however many players wait, plus the pairs it makes.
+ */
+public class MatchQueue<T> {
+    public static final int BUCKET_WIDTH = 25;
+    public static final int MAX_RATING = 4000;
+    private static final int BUCKETS = MAX_RATING / BUCKET_WIDTH + 1;
+
+    /**
+     * Called on the matcher thread for every pair made.
+     */
+    public interface PairHandler<T> {
+        void pair(Ticket<T> first, Ticket<T> second);
+    }
+
+    /**
+     * One player's place in a queue. {@code first} in a pair is the one who waited longer.
+     */
+    public static final class Ticket<T> {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int MATCHED = 2;
+        /** Held by the matcher while it claims the other player of a pair. */
+        private static final int RESERVED = 3;
+
+        private final T player;
+        private final int rating;
+        private final TimeControl timeControl;
+        private final long enqueuedNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Ticket(T player, int rating, TimeControl timeControl, long enqueuedNanos) {
+            this.player = player;
+            this.rating = rating;
+            this.timeControl = timeControl;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        public T player() {
+            return player;
+        }
+
+        public int rating() {
+            return rating;
+        }
+
+        public TimeControl timeControl() {
+            return timeControl;
+        }
+
+        public long enqueuedNanos() {
+            return enqueuedNanos;
+        }
+
+        public boolean isWaiting() {
+            return state.get() == WAITING;
+        }
+    }
+
+    /**
+     * @param held the one player taken off each bucket's queue and not yet paired; only
+     *             touched by the matcher
+     */
+    private record Pool<T>(Queue<Ticket<T>>[] queues, Ticket<T>[] held) {
+        @SuppressWarnings("unchecked")
+        Pool() {
+            this(new Queue[BUCKETS], new Ticket[BUCKETS]);
+            for (int i = 0; i < BUCKETS; i++) {
+                queues[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+
+    private final Map<TimeControl, Pool<T>> pools = new HashMap<>();
+    private final long initialWindow;
+    private final long widenPerSecond;
+    private final long maxWindow;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public MatchQueue(List<TimeControl> timeControls, int initialWindow, int widenPerSecond, int maxWindow) {
+        timeControls.forEach(timeControl -> pools.put(timeControl, new Pool<>()));
+        this.initialWindow = Math.max(initialWindow, BUCKET_WIDTH);
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = Math.max(maxWindow, this.initialWindow);
+    }
+
+    /**
+     * Queues a player. Safe to call from any thread.
+     *
+     * @throws IllegalArgumentException if there is no pool for the time control
+     */
+    public Ticket<T> enqueue(T player, int rating, TimeControl timeControl, long nowNanos) {
+        Pool<T> pool = pools.get(timeControl);
+        if (pool == null) {
+            throw new IllegalArgumentException("No matchmaking for time control " + timeControl);
+        }
+        Ticket<T> ticket = new Ticket<>(player, rating, timeControl, nowNanos);
+        waiting.incrementAndGet();
+        pool.queues()[bucket(rating)].add(ticket);
+        return ticket;
+    }
+
+    /**
+     * Takes a player out of the queue. Safe to call from any thread.
+     *
+     * @return false if the player was already paired or cancelled
+     */
+    public boolean cancel(Ticket<T> ticket) {
+        int state;
+        while ((state = ticket.state.get()) == Ticket.RESERVED) {
+            Thread.onSpinWait();
+        }
+        if (state == Ticket.WAITING && ticket.state.compareAndSet(Ticket.WAITING, Ticket.CANCELLED)) {
+            waiting.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return players waiting, across all pools
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Pairs every player who can be paired now. Call from one thread only.
+     *
+     * @return the number of pairs made
+     */
+    public int match(long nowNanos, PairHandler<T> handler) {
+        int pairs = 0;
+        for (Pool<T> pool : pools.values()) {
+            pairs += match(pool, nowNanos, handler);
+        }
+        return pairs;
+    }
+
+    private int match(Pool<T> pool, long nowNanos, PairHandler<T> handler) {
+        int pairs = 0;
+        Ticket<T> below = null;
+        int belowBucket = -1;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            Ticket<T> ticket = next(pool, bucket);
+            while (ticket != null) {
+                Ticket<T> other = next(pool, bucket);
+                if (other == null) {
+                    break;
+                }
+                if (pair(ticket, other, handler)) {
+                    pairs++;
+                    ticket = next(pool, bucket);
+                } else if (!ticket.isWaiting()) {
+                    ticket = other;
+                }
+            }
+            if (ticket == null) {
+                continue;
+            }
+            if (below != null && below.isWaiting() && acceptable(below, ticket, nowNanos)
+                    && pair(below, ticket, handler)) {
+                pool.held()[belowBucket] = null;
+                pairs++;
+                below = null;
+                continue;
+            }
+            pool.held()[bucket] = ticket;
+            below = ticket;
+            belowBucket = bucket;
+        }
+        return pairs;
+    }
+
+    /**
+     * @return the oldest player still waiting in the bucket, taken off its queue, or null
+     */
+    private static <T> Ticket<T> next(Pool<T> pool, int bucket) {
+        Ticket<T> ticket = pool.held()[bucket];
+        pool.held()[bucket] = null;
+        if (ticket != null && ticket.isWaiting()) {
+            return ticket;
+        }
+        Queue<Ticket<T>> queue = pool.queues()[bucket];
+        while ((ticket = queue.poll()) != null) {
+            if (ticket.isWaiting()) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return false if either player cancelled in the meantime; the other one is still waiting
+     */
+    private boolean pair(Ticket<T> first, Ticket<T> second, PairHandler<T> handler) {
+        if (!first.state.compareAndSet(Ticket.WAITING, Ticket.RESERVED)) {
+            return false;
+        }
+        if (!second.state.compareAndSet(Ticket.WAITING, Ticket.MATCHED)) {
+            first.state.set(Ticket.WAITING);
+            return false;
+        }
+        first.state.set(Ticket.MATCHED);
+        waiting.addAndGet(-2);
+        if (first.enqueuedNanos <= second.enqueuedNanos) {
+            handler.pair(first, second);
+        } else {
+            handler.pair(second, first);
+        }
+        return true;
+    }
+
+    private boolean acceptable(Ticket<T> first, Ticket<T> second, long nowNanos) {
+        long window = Math.max(window(first, nowNanos), window(second, nowNanos));
+        return Math.abs(first.rating - second.rating) <= window;
+    }
+
+    /**
+     * @return how far from its rating the player accepts an opponent after waiting until now
+     */
+    public long window(Ticket<T> ticket, long nowNanos) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(Math.max(0, nowNanos - ticket.enqueuedNanos));
+        return Math.min(maxWindow, initialWindow + widenPerSecond * waitedSeconds);
+    }
+
+    private static int bucket(int rating) {
+        return Math.clamp(rating, 0, MAX_RATING) / BUCKET_WIDTH;
+    }
+}
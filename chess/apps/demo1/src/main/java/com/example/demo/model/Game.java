@@ -11,13 +11,16 @@ import java.util.Collection;
 import java.util.List;
 
 
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
 @Getter
 @Setter
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        @Index(name = "idx_games_white_player", columnList = "whitePlayerId, id"),
+        @Index(name = "idx_games_black_player", columnList = "blackPlayerId, id")
+})
 public class Game {
 
     @Id
@@ -35,11 +38,13 @@ public class Game {
     @Column(nullable = false, unique = true)
     private String gameId;
 
-    private LocalDateTime whitePlayerTimeLeft;
-    private LocalDateTime blackPlayerTimeleft;
+    private Long baseTimeMillis;
+    private Long incrementMillis;
+
+    private Long whitePlayerTimeLeftMillis;
+    private Long blackPlayerTimeLeftMillis;
 
     private String result;
 
-    @Column(name = "PGN")
-    private String pgn;
+    private LocalDateTime finishedAt;
 }
\ No newline at end of file
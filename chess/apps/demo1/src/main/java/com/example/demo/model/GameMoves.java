@@ -0,0 +1,24 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Packed move list of a finished game, see {@link com.example.demo.persistence.MoveListCodec}.
+ * Kept out of {@link Game} so game listings never read it.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "game_moves")
+public class GameMoves {
+
+    @Id
+    private String gameId;
+
+    @Column(nullable = false, length = 65535)
+    private byte[] moves;
+}
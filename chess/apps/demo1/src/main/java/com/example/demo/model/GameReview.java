@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Engine review of a finished game, see {@link com.example.demo.service.GameReviewService}.
+ * {@code evaluations} packs four bytes per position from the start to the final one: the
+ * score for the side to move and the engine's best move, both as big-endian shorts.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "game_reviews", indexes = {
+        @Index(name = "idx_game_reviews_white_player", columnList = "whitePlayerId"),
+        @Index(name = "idx_game_reviews_black_player", columnList = "blackPlayerId")
+})
+public class GameReview {
+
+    @Id
+    private String gameId;
+
+    private Long whitePlayerId;
+    private Long blackPlayerId;
+
+    private int depth;
+
+    private Double whiteAccuracy;
+    private Double blackAccuracy;
+    private Integer whiteAverageLoss;
+    private Integer blackAverageLoss;
+
+    private boolean flagged;
+
+    @Column(nullable = false, length = 65535)
+    private byte[] evaluations;
+
+    private LocalDateTime reviewedAt;
+}
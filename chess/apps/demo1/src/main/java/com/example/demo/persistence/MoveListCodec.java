@@ -0,0 +1,94 @@
+package com.example.demo.persistence;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Packed move list stored for finished games, about 2-3 bytes per move.
+ * <pre>
+ *  varint   move count
+ *  1 byte   flags: bit 0 set when clock deltas follow the moves
+ *  2 bytes  per move: the engine move, big-endian
+ *  varint   per move (clocks only): zigzag change of the mover's remaining time since
+ *           their previous move, in centiseconds; both sides start at the base time
+ * </pre>
+ */
+public final class MoveListCodec {
+    private static final int CLOCKS = 1;
+
+    /**
+     * @param moves        engine moves, oldest first
+     * @param clockMillis  remaining time of each move's mover right after it, or null
+     */
+    public record MoveList(int[] moves, long[] clockMillis) {
+        public boolean hasClocks() {
+            return clockMillis != null;
+        }
+    }
+
+    private MoveListCodec() {
+    }
+
+    public static byte[] encode(int[] moves, long[] clockMillis, long baseMillis) {
+        boolean clocks = clockMillis != null && clockMillis.length == moves.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(moves.length * 3 + 4);
+        writeVarint(out, moves.length);
+        out.write(clocks ? CLOCKS : 0);
+        for (int move : moves) {
+            out.write(move >>> 8);
+            out.write(move);
+        }
+        if (clocks) {
+            long[] previous = {baseMillis / 10, baseMillis / 10};
+            for (int ply = 0; ply < moves.length; ply++) {
+                long centis = clockMillis[ply] / 10;
+                long delta = previous[ply & 1] - centis;
+                previous[ply & 1] = centis;
+                writeVarint(out, (delta << 1) ^ (delta >> 63));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static MoveList decode(byte[] data, long baseMillis) {
+        int[] position = {0};
+        int count = (int) readVarint(data, position);
+        boolean clocks = (data[position[0]++] & CLOCKS) != 0;
+        int[] moves = new int[count];
+        for (int ply = 0; ply < count; ply++) {
+            int offset = position[0];
+            moves[ply] = (data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF);
+            position[0] += 2;
+        }
+        if (!clocks) {
+            return new MoveList(moves, null);
+        }
+        long[] clockMillis = new long[count];
+        long[] previous = {baseMillis / 10, baseMillis / 10};
+        for (int ply = 0; ply < count; ply++) {
+            long zigzag = readVarint(data, position);
+            long centis = previous[ply & 1] - ((zigzag >>> 1) ^ -(zigzag & 1));
+            previous[ply & 1] = centis;
+            clockMillis[ply] = centis * 10;
+        }
+        return new MoveList(moves, clockMillis);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.Game;
+import com.example.demo.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind buffer for game rows, archived move lists and ratings. Mutations are
+ * recorded in memory, keyed by row, so repeated updates to the same game or user coalesce
+ * into one pending write. A
+ * single flusher thread writes everything pending as JDBC batches in one transaction every
+ * {@code game.persistence.flush-interval-millis}, or sooner once
+ * {@code game.persistence.batch-size} rows are pending.
+ * <p>
+ * When a batch fails its rows are written one by one, each in its own transaction, so one bad
+ * row does not hold back the others. A row that fails on its own while others are written, or
+ * that violates a constraint, is retried on later flushes and dropped with an error log after
+ * {@code game.persistence.max-row-attempts}; if no row can be written the database is taken to
+ * be down and everything just stays pending.
+ * <p>
+ * Pending rows stay visible until their write has committed: readers go through
+ * {@link #readGame}, {@link #pendingGames} and {@link #overlayUser}, so a game read
+ * right after it was created or joined sees its latest state.
+ * <p>
+ * Metrics: {@code persistence.pending} (gauge), {@code persistence.flush} (timer per
+ * flush), {@code persistence.flush.batch.size} (summary, tagged by entity) and
+ * {@code persistence.dropped} (counter of rows given up on, tagged by entity).
+ */
+@Slf4j
+@Service
+public class WriteBehindStore {
+    private static final String GAME_COLUMNS = "black_player_id, black_player_elo, black_player_name, "
+            + "white_player_id, white_player_elo, white_player_name, base_time_millis, increment_millis, "
+            + "white_player_time_left_millis, black_player_time_left_millis, result, finished_at";
+    private static final String INSERT_GAME = "INSERT INTO games (" + GAME_COLUMNS + ", game_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_GAME = "UPDATE games SET black_player_id = ?, black_player_elo = ?, "
+            + "black_player_name = ?, white_player_id = ?, white_player_elo = ?, white_player_name = ?, "
+            + "base_time_millis = ?, increment_millis = ?, white_player_time_left_millis = ?, "
+            + "black_player_time_left_millis = ?, result = ?, finished_at = ? WHERE game_id = ?";
+    private static final String DELETE_GAME = "DELETE FROM games WHERE game_id = ?";
+    private static final String DELETE_MOVES = "DELETE FROM game_moves WHERE game_id = ?";
+    private static final String INSERT_MOVES = "INSERT INTO game_moves (game_id, moves) VALUES (?, ?)";
+    private static final String UPDATE_ELO = "UPDATE users SET elo_rating = ? WHERE id = ?";
+    private static final int[] GAME_TYPES = {
+            Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.INTEGER, Types.VARCHAR,
+            Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR
+    };
+    private static final int[] GAME_ID_TYPES = {Types.VARCHAR};
+    private static final int[] MOVES_TYPES = {Types.VARCHAR, Types.VARBINARY};
+    private static final int[] ELO_TYPES = {Types.INTEGER, Types.BIGINT};
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    enum Op { INSERT, UPDATE, DELETE }
+
+    /**
+     * One coalesced write. Replaced, never mutated, so the flusher can tell by identity
+     * whether a row changed while its write was in flight.
+     */
+    private record Pending<T>(Op op, T value) {
+    }
+
+    /**
+     * One pending row written on its own after its batch failed. {@code clear} takes it off
+     * the pending maps if it was not rewritten in the meantime.
+     */
+    private record Row(String entity, Object key, Runnable write, Runnable clear) {
+        String id() {
+            return entity + ":" + key;
+        }
+    }
+
+    private final Map<String, Pending<Game>> games = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> moveLists = new ConcurrentHashMap<>();
+    private final Map<Long, Pending<Integer>> ratings = new ConcurrentHashMap<>();
+    /** Failed attempts of rows that failed on their own; only touched by the flusher. */
+    private final Map<String, Integer> rowFailures = new HashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final int maxRowAttempts;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Timer flushes;
+    private final DistributionSummary gameBatches;
+    private final DistributionSummary ratingBatches;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${game.persistence.flush-interval-millis:250}") long flushIntervalMillis,
+                            @Value("${game.persistence.batch-size:500}") int batchSize,
+                            @Value("${game.persistence.max-row-attempts:5}") int maxRowAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.batchSize = batchSize;
+        this.maxRowAttempts = maxRowAttempts;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("persistence.pending", this, WriteBehindStore::pendingCount).register(meterRegistry);
+        this.flushes = Timer.builder("persistence.flush").register(meterRegistry);
+        this.gameBatches = DistributionSummary.builder("persistence.flush.batch.size").tag("entity", "game")
+                .register(meterRegistry);
+        this.ratingBatches = DistributionSummary.builder("persistence.flush.batch.size").tag("entity", "user")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Write-behind flusher did not stop in time");
+        }
+        flushQuietly();
+    }
+
+    public int pendingCount() {
+        return games.size() + moveLists.size() + ratings.size();
+    }
+
+    /**
+     * Queues an insert of a game that is not in the database yet.
+     */
+    public void createGame(Game game) {
+        games.put(game.getGameId(), new Pending<>(Op.INSERT, copy(game)));
+        flushIfFull();
+    }
+
+    /**
+     * Queues the latest state of an existing game. A game still waiting for its insert stays
+     * an insert, carrying the new state.
+     */
+    public void updateGame(Game game) {
+        games.compute(game.getGameId(), (gameId, pending) ->
+                new Pending<>(pending != null && pending.op() == Op.INSERT ? Op.INSERT : Op.UPDATE, copy(game)));
+        flushIfFull();
+    }
+
+    public void deleteGame(String gameId) {
+        games.put(gameId, new Pending<>(Op.DELETE, null));
+        moveLists.remove(gameId);
+        flushIfFull();
+    }
+
+    /**
+     * Queues the packed move list of a finished game, replacing any stored one.
+     */
+    public void saveMoves(String gameId, byte[] moves) {
+        moveLists.put(gameId, moves);
+        flushIfFull();
+    }
+
+    /**
+     * @return the pending move list of {@code gameId}, or what {@code stored} reads from the
+     * database if none is pending
+     */
+    public byte[] readMoves(String gameId, Supplier<byte[]> stored) {
+        byte[] pending = moveLists.get(gameId);
+        return pending != null ? pending : stored.get();
+    }
+
+    /**
+     * @return the pending state of {@code gameId}, null if it is pending deletion, or what
+     * {@code stored} reads from the database if nothing is pending
+     */
+    public Game readGame(String gameId, Supplier<Game> stored) {
+        Pending<Game> pending = games.get(gameId);
+        if (pending == null) {
+            return stored.get();
+        }
+        return pending.op() == Op.DELETE ? null : copy(pending.value());
+    }
+
+    /**
+     * @return the latest pending state of each game with a queued write, by game id, null for
+     * a pending delete. Games not inserted yet have no id.
+     */
+    public Map<String, Game> pendingGames() {
+        Map<String, Game> pending = new HashMap<>();
+        games.forEach((gameId, write) -> pending.put(gameId, write.op() == Op.DELETE ? null : copy(write.value())));
+        return pending;
+    }
+
+    /**
+     * Atomically replaces a user's rating with {@code update} applied to the latest known
+     * one: the pending rating if there is one, otherwise {@code stored}, which is only read
+     * when nothing is pending.
+     *
+     * @return the new rating, or null if {@code stored} found no rating
+     */
+    public Integer updateElo(long userId, Supplier<Integer> stored, IntUnaryOperator update) {
+        Pending<Integer> updated = ratings.compute(userId, (id, pending) -> {
+            Integer current = pending != null ? pending.value() : stored.get();
+            return current == null ? null : new Pending<>(Op.UPDATE, update.applyAsInt(current));
+        });
+        if (updated == null) {
+            return null;
+        }
+        flushIfFull();
+        return updated.value();
+    }
+
+    public User overlayUser(User user) {
+        Pending<Integer> pending = user.getId() == null ? null : ratings.get(user.getId());
+        if (pending != null) {
+            user.setElo_rating(pending.value());
+        }
+        return user;
+    }
+
+    private void flushIfFull() {
+        if (pendingCount() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, {} rows stay pending", pendingCount(), e);
+        }
+    }
+
+    /**
+     * Writes everything pending in one transaction, or row by row if that fails. Runs on the
+     * flusher thread only, so at most one flush is in flight.
+     */
+    void flush() {
+        if (games.isEmpty() && moveLists.isEmpty() && ratings.isEmpty()) {
+            return;
+        }
+        Map<String, Pending<Game>> gameWrites = new LinkedHashMap<>(games);
+        Map<String, byte[]> moveListWrites = new LinkedHashMap<>(moveLists);
+        Map<Long, Pending<Integer>> ratingWrites = new LinkedHashMap<>(ratings);
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        gameWrites.forEach((gameId, pending) -> {
+            switch (pending.op()) {
+                case INSERT -> inserts.add(gameRow(pending.value()));
+                case UPDATE -> updates.add(gameRow(pending.value()));
+                case DELETE -> deletes.add(new Object[]{gameId});
+            }
+        });
+        List<Object[]> movesReplaced = new ArrayList<>(moveListWrites.size() + deletes.size());
+        List<Object[]> moveRows = new ArrayList<>(moveListWrites.size());
+        moveListWrites.forEach((gameId, moves) -> {
+            movesReplaced.add(new Object[]{gameId});
+            moveRows.add(new Object[]{gameId, moves});
+        });
+        movesReplaced.addAll(deletes);
+        List<Object[]> elos = new ArrayList<>(ratingWrites.size());
+        ratingWrites.forEach((userId, pending) -> elos.add(new Object[]{pending.value(), userId}));
+
+        try {
+            flushes.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                batch(INSERT_GAME, inserts, GAME_TYPES);
+                batch(UPDATE_GAME, updates, GAME_TYPES);
+                batch(DELETE_GAME, deletes, GAME_ID_TYPES);
+                batch(DELETE_MOVES, movesReplaced, GAME_ID_TYPES);
+                batch(INSERT_MOVES, moveRows, MOVES_TYPES);
+                batch(UPDATE_ELO, elos, ELO_TYPES);
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Write-behind batch of {} rows failed, writing them one by one",
+                    gameWrites.size() + moveListWrites.size() + ratingWrites.size(), e);
+            flushRowByRow(rows(gameWrites, moveListWrites, ratingWrites));
+            return;
+        }
+        gameBatches.record(gameWrites.size() + moveListWrites.size());
+        ratingBatches.record(ratingWrites.size());
+        rowFailures.clear();
+
+        gameWrites.forEach(this::clearGame);
+        moveListWrites.forEach((gameId, moves) -> moveLists.remove(gameId, moves));
+        ratingWrites.forEach((userId, pending) -> ratings.remove(userId, pending));
+    }
+
+    /**
+     * Rows rewritten during the flush stay pending, so they are only removed if unchanged; an
+     * insert that just landed turns into an update of the row it created.
+     */
+    private void clearGame(String gameId, Pending<Game> flushed) {
+        games.computeIfPresent(gameId, (id, current) -> {
+            if (current == flushed) {
+                return null;
+            }
+            return flushed.op() == Op.INSERT && current.op() == Op.INSERT
+                    ? new Pending<>(Op.UPDATE, current.value())
+                    : current;
+        });
+    }
+
+    private List<Row> rows(Map<String, Pending<Game>> gameWrites, Map<String, byte[]> moveListWrites,
+                           Map<Long, Pending<Integer>> ratingWrites) {
+        List<Row> rows = new ArrayList<>();
+        gameWrites.forEach((gameId, pending) -> rows.add(new Row("game", gameId, () -> {
+            switch (pending.op()) {
+                case INSERT -> jdbcTemplate.update(INSERT_GAME, gameRow(pending.value()), GAME_TYPES);
+                case UPDATE -> jdbcTemplate.update(UPDATE_GAME, gameRow(pending.value()), GAME_TYPES);
+                case DELETE -> {
+                    jdbcTemplate.update(DELETE_GAME, new Object[]{gameId}, GAME_ID_TYPES);
+                    jdbcTemplate.update(DELETE_MOVES, new Object[]{gameId}, GAME_ID_TYPES);
+                }
+            }
+        }, () -> clearGame(gameId, pending))));
+        moveListWrites.forEach((gameId, moves) -> rows.add(new Row("moves", gameId, () -> {
+            jdbcTemplate.update(DELETE_MOVES, new Object[]{gameId}, GAME_ID_TYPES);
+            jdbcTemplate.update(INSERT_MOVES, new Object[]{gameId, moves}, MOVES_TYPES);
+        }, () -> moveLists.remove(gameId, moves))));
+        ratingWrites.forEach((userId, pending) -> rows.add(new Row("user", userId,
+                () -> jdbcTemplate.update(UPDATE_ELO, new Object[]{pending.value(), userId}, ELO_TYPES),
+                () -> ratings.remove(userId, pending))));
+        return rows;
+    }
+
+    /**
+     * Writes each row in its own transaction. Rows that fail stay pending; see the class
+     * comment for when one is given up on.
+     */
+    private void flushRowByRow(List<Row> rows) {
+        Map<Row, RuntimeException> failed = new LinkedHashMap<>();
+        for (Row row : rows) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> row.write().run());
+                row.clear().run();
+                rowFailures.remove(row.id());
+            } catch (RuntimeException e) {
+                failed.put(row, e);
+            }
+        }
+        boolean othersWritten = failed.size() < rows.size();
+        failed.forEach((row, e) -> {
+            if (!othersWritten && !(e instanceof DataIntegrityViolationException)) {
+                return;
+            }
+            int attempts = rowFailures.merge(row.id(), 1, Integer::sum);
+            if (attempts < maxRowAttempts) {
+                log.warn("Write of {} {} failed ({} of {} attempts): {}", row.entity(), row.key(), attempts,
+                        maxRowAttempts, e.getMessage());
+                return;
+            }
+            rowFailures.remove(row.id());
+            row.clear().run();
+            meterRegistry.counter("persistence.dropped", "entity", row.entity()).increment();
+            log.error("Dropping write of {} {} after {} failed attempts", row.entity(), row.key(), attempts, e);
+        });
+        if (!failed.isEmpty()) {
+            log.warn("Write-behind wrote {} of {} rows one by one, {} stay pending", rows.size() - failed.size(),
+                    rows.size(), pendingCount());
+        }
+    }
+
+    private void batch(String sql, List<Object[]> rows, int[] types) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows, types);
+        }
+    }
+
+    private static Object[] gameRow(Game game) {
+        return new Object[]{
+                game.getBlackPlayerId(), game.getBlackPlayerElo(), game.getBlackPlayerName(),
+                game.getWhitePlayerId(), game.getWhitePlayerElo(), game.getWhitePlayerName(),
+                game.getBaseTimeMillis(), game.getIncrementMillis(),
+                game.getWhitePlayerTimeLeftMillis(), game.getBlackPlayerTimeLeftMillis(),
+                game.getResult(), game.getFinishedAt() == null ? null : Timestamp.valueOf(game.getFinishedAt()),
+                game.getGameId()
+        };
+    }
+
+    private static Game copy(Game game) {
+        return game.toBuilder().build();
+    }
+}
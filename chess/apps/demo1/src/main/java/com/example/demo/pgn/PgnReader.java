@@ -0,0 +1,242 @@
+package com.example.demo.pgn;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.MoveGenerator;
+import com.example.demo.engine.San;
+import com.example.demo.persistence.MoveListCodec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the text of a single PGN game: its tag pairs and mainline movetext. Each SAN move
+ * is replayed on a board, so a game that parses is legal from the standard starting
+ * position. Comments, variations and NAGs are skipped, except {@code [%clk]} comments,
+ * which are kept when every move has one.
+ * <p>
+ * Instances reuse their board and buffers between games and are not thread-safe.
+ */
+public class PgnReader {
+    private static final String CLOCK_COMMENT = "[%clk ";
+    private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2", "*"};
+
+    private final Board board = new Board();
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+    private final StringBuilder token = new StringBuilder(16);
+    private int[] moves = new int[256];
+    private long[] clocks = new long[256];
+
+    /**
+     * @param tags     tag pairs by name
+     * @param result   the Result tag, or the movetext terminator when the tag is missing
+     * @param moveList mainline moves, with clocks when every move carried one
+     */
+    public record PgnGame(Map<String, String> tags, String result, MoveListCodec.MoveList moveList) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the game is malformed, has an illegal move or does
+     *                                  not start from the standard position
+     */
+    public PgnGame read(String text) {
+        Map<String, String> tags = new HashMap<>();
+        int pos = readTags(text, tags);
+        if (tags.containsKey("FEN") || "1".equals(tags.get("SetUp"))) {
+            throw new IllegalArgumentException("custom starting position");
+        }
+        String variant = tags.get("Variant");
+        if (variant != null && !variant.equalsIgnoreCase("standard")) {
+            throw new IllegalArgumentException("variant " + variant);
+        }
+
+        board.setFen(Board.STARTING_FEN);
+        int ply = 0;
+        int clocked = 0;
+        String terminator = null;
+        int length = text.length();
+        while (pos < length && terminator == null) {
+            char c = text.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '{') {
+                int close = indexOf(text, '}', pos);
+                if (ply > 0 && clocked == ply - 1 && readClock(text, pos + 1, close, ply - 1)) {
+                    clocked++;
+                }
+                pos = close + 1;
+            } else if (c == ';' || c == '%') {
+                pos = indexOf(text, '\n', pos);
+            } else if (c == '(') {
+                pos = skipVariation(text, pos);
+            } else if (c == ')') {
+                throw new IllegalArgumentException("unbalanced ) at offset " + pos);
+            } else if (c == '$') {
+                pos = skipToken(text, pos + 1);
+            } else {
+                int end = skipToken(text, pos);
+                token.setLength(0);
+                token.append(text, pos, end);
+                pos = end;
+                terminator = terminator(token);
+                if (terminator == null && stripMoveNumber(token) && !token.isEmpty()) {
+                    int move = San.parse(board, token, scratch);
+                    if (move == Move.NONE) {
+                        throw new IllegalArgumentException("illegal move " + token + " at ply " + (ply + 1));
+                    }
+                    board.makeMove(move);
+                    if (ply == moves.length) {
+                        moves = Arrays.copyOf(moves, ply * 2);
+                        clocks = Arrays.copyOf(clocks, ply * 2);
+                    }
+                    moves[ply++] = move;
+                }
+            }
+        }
+
+        String result = tags.getOrDefault("Result", terminator);
+        long[] clockMillis = ply > 0 && clocked == ply ? Arrays.copyOf(clocks, ply) : null;
+        return new PgnGame(tags, result, new MoveListCodec.MoveList(Arrays.copyOf(moves, ply), clockMillis));
+    }
+
+    /**
+     * @return the offset just past the tag section
+     */
+    private static int readTags(String text, Map<String, String> tags) {
+        int pos = 0;
+        int length = text.length();
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (c != '[') {
+                return pos;
+            }
+            int nameEnd = pos + 1;
+            while (nameEnd < length && !Character.isWhitespace(text.charAt(nameEnd)) && text.charAt(nameEnd) != '"') {
+                nameEnd++;
+            }
+            int quote = indexOf(text, '"', nameEnd);
+            StringBuilder value = new StringBuilder();
+            int i = quote + 1;
+            for (; i < length && text.charAt(i) != '"'; i++) {
+                char v = text.charAt(i);
+                if (v == '\\' && i + 1 < length) {
+                    v = text.charAt(++i);
+                }
+                value.append(v);
+            }
+            int close = indexOf(text, ']', i);
+            if (quote >= length || i >= length || close >= length) {
+                throw new IllegalArgumentException("malformed tag at offset " + pos);
+            }
+            tags.put(text.substring(pos + 1, nameEnd), value.toString());
+            pos = close + 1;
+        }
+        return pos;
+    }
+
+    /**
+     * Reads the {@code [%clk h:mm:ss(.f)]} command in a comment, if any, into the clock
+     * slot of the given ply.
+     */
+    private boolean readClock(String text, int from, int to, int ply) {
+        int start = text.indexOf(CLOCK_COMMENT, from);
+        if (start < 0 || start >= to) {
+            return false;
+        }
+        long seconds = 0;
+        long field = 0;
+        long fractionMillis = 0;
+        int fractionScale = -1;
+        for (int i = start + CLOCK_COMMENT.length(); i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fractionScale < 0) {
+                    field = field * 10 + (c - '0');
+                } else if (fractionScale > 0) {
+                    fractionMillis += (c - '0') * fractionScale;
+                    fractionScale /= 10;
+                }
+            } else if (c == ':' && fractionScale < 0) {
+                seconds = (seconds + field) * 60;
+                field = 0;
+            } else if (c == '.' && fractionScale < 0) {
+                fractionScale = 100;
+            } else {
+                break;
+            }
+        }
+        clocks[ply] = (seconds + field) * 1000 + fractionMillis;
+        return true;
+    }
+
+    private static String terminator(StringBuilder token) {
+        for (String result : RESULTS) {
+            if (result.contentEquals(token)) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drops a leading move number ("12." or "12...") from the token.
+     *
+     * @return false if the token was only a move number
+     */
+    private static boolean stripMoveNumber(StringBuilder token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == token.length() || token.charAt(i) != '.') {
+            return true;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        token.delete(0, i);
+        return !token.isEmpty();
+    }
+
+    private static int skipVariation(String text, int pos) {
+        int depth = 0;
+        int length = text.length();
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == '{') {
+                pos = indexOf(text, '}', pos);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return pos + 1;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipToken(String text, int pos) {
+        int length = text.length();
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '$') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return the index of {@code c} at or after {@code from}, or the text length if absent
+     */
+    private static int indexOf(String text, char c, int from) {
+        int index = text.indexOf(c, from);
+        return index < 0 ? text.length() : index;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.pgn;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.San;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Renders a stored game as PGN: the seven tag roster plus ratings and time control, then
+ * SAN movetext wrapped at 80 columns, with {@code [%clk]} comments when clocks were kept.
+ * <p>
+ * Instances reuse their board and buffers between games and are not thread-safe.
+ */
+public class PgnWriter {
+    private static final int LINE_WIDTH = 80;
+    private static final String UNKNOWN_RESULT = "*";
+
+    private final Board board = new Board();
+    private final StringBuilder token = new StringBuilder(32);
+
+    public String write(Game game, MoveListCodec.MoveList moveList) {
+        StringBuilder pgn = new StringBuilder(512 + moveList.moves().length * 12);
+        append(game, moveList, pgn);
+        return pgn.toString();
+    }
+
+    public void append(Game game, MoveListCodec.MoveList moveList, StringBuilder pgn) {
+        String result = game.getResult() != null ? game.getResult() : UNKNOWN_RESULT;
+        tag(pgn, "Event", "?");
+        tag(pgn, "Site", "?");
+        tag(pgn, "Date", date(game.getFinishedAt()));
+        tag(pgn, "Round", "-");
+        tag(pgn, "White", orUnknown(game.getWhitePlayerName()));
+        tag(pgn, "Black", orUnknown(game.getBlackPlayerName()));
+        tag(pgn, "Result", result);
+        if (game.getWhitePlayerElo() != null) {
+            tag(pgn, "WhiteElo", game.getWhitePlayerElo().toString());
+        }
+        if (game.getBlackPlayerElo() != null) {
+            tag(pgn, "BlackElo", game.getBlackPlayerElo().toString());
+        }
+        if (game.getBaseTimeMillis() != null) {
+            long incrementMillis = game.getIncrementMillis() == null ? 0 : game.getIncrementMillis();
+            tag(pgn, "TimeControl", game.getBaseTimeMillis() / 1000 + "+" + incrementMillis / 1000);
+        }
+        pgn.append('\n');
+
+        board.setFen(Board.STARTING_FEN);
+        int[] moves = moveList.moves();
+        int lineStart = pgn.length();
+        for (int ply = 0; ply < moves.length; ply++) {
+            if ((ply & 1) == 0) {
+                token.setLength(0);
+                token.append(ply / 2 + 1).append('.');
+                lineStart = appendToken(pgn, lineStart);
+            }
+            token.setLength(0);
+            San.append(token, board, moves[ply]);
+            lineStart = appendToken(pgn, lineStart);
+            if (moveList.hasClocks()) {
+                token.setLength(0);
+                appendClock(token.append("{[%clk "), moveList.clockMillis()[ply]).append("]}");
+                lineStart = appendToken(pgn, lineStart);
+            }
+            board.makeMove(moves[ply]);
+        }
+        token.setLength(0);
+        token.append(result);
+        appendToken(pgn, lineStart);
+        pgn.append("\n\n");
+    }
+
+    private static void tag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                pgn.append('\\');
+            }
+            pgn.append(c);
+        }
+        pgn.append("\"]\n");
+    }
+
+    /**
+     * Appends {@link #token}, breaking the line before it if it would not fit.
+     *
+     * @return the offset where the current line starts
+     */
+    private int appendToken(StringBuilder pgn, int lineStart) {
+        int lineLength = pgn.length() - lineStart;
+        if (lineLength > 0 && lineLength + 1 + token.length() > LINE_WIDTH) {
+            pgn.append('\n');
+            lineStart = pgn.length();
+        } else if (lineLength > 0) {
+            pgn.append(' ');
+        }
+        pgn.append(token);
+        return lineStart;
+    }
+
+    private static StringBuilder appendClock(StringBuilder out, long millis) {
+        long tenths = millis / 100;
+        out.append(tenths / 36000).append(':');
+        twoDigits(out, tenths / 600 % 60).append(':');
+        twoDigits(out, tenths / 10 % 60);
+        return tenths % 10 == 0 ? out : out.append('.').append(tenths % 10);
+    }
+
+    private static StringBuilder twoDigits(StringBuilder out, long value) {
+        return (value < 10 ? out.append('0') : out).append(value);
+    }
+
+    private static String date(LocalDateTime finishedAt) {
+        if (finishedAt == null) {
+            return "????.??.??";
+        }
+        StringBuilder date = new StringBuilder(10).append(finishedAt.getYear()).append('.');
+        twoDigits(date, finishedAt.getMonthValue()).append('.');
+        return twoDigits(date, finishedAt.getDayOfMonth()).toString();
+    }
+
+    private static String orUnknown(String value) {
+        return value != null ? value : "?";
+    }
+}
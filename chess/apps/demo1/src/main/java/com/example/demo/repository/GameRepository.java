@@ -1,8 +1,12 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.GameDto;
 import com.example.demo.model.Game;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +14,27 @@ import java.util.Optional;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Integer> {
+    String SELECT_GAME_DTO = "SELECT new com.example.demo.dto.GameDto(g.id, g.blackPlayerId, g.blackPlayerElo, "
+            + "g.blackPlayerName, g.whitePlayerId, g.whitePlayerElo, g.whitePlayerName, g.gameId, "
+            + "g.baseTimeMillis, g.incrementMillis) FROM Game g ";
+
     List<Game> findByWhitePlayerIdIsNullOrBlackPlayerIdIsNull();
+    Optional<Game> findByGameId(String gameId);
+    List<Game> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    /**
+     * Unfinished games waiting for a black player below {@code before}, newest first, read
+     * through the (blackPlayerId, id) index.
+     */
+    @Query(SELECT_GAME_DTO + "WHERE g.blackPlayerId IS NULL AND g.whitePlayerId IS NOT NULL AND g.result IS NULL "
+            + "AND g.id < :before ORDER BY g.id DESC")
+    List<GameDto> findOpenBlackSeats(@Param("before") int before, Limit limit);
+
+    /**
+     * Unfinished games waiting for a white player below {@code before}, newest first, read
+     * through the (whitePlayerId, id) index.
+     */
+    @Query(SELECT_GAME_DTO + "WHERE g.whitePlayerId IS NULL AND g.blackPlayerId IS NOT NULL AND g.result IS NULL "
+            + "AND g.id < :before ORDER BY g.id DESC")
+    List<GameDto> findOpenWhiteSeats(@Param("before") int before, Limit limit);
 }
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.GameReview;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GameReviewRepository extends JpaRepository<GameReview, String> {
+}
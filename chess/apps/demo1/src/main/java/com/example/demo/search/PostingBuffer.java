@@ -0,0 +1,147 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Growable, unsorted (key, game id) pairs: recently indexed games that are not in a segment
+ * yet, or a rebuild chunk being assembled. Not thread-safe.
+ */
+public final class PostingBuffer {
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private long[] keys;
+    private int[] ids;
+    private int size;
+
+    public PostingBuffer(int initialCapacity) {
+        keys = new long[Math.max(16, initialCapacity)];
+        ids = new int[keys.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long key, int id) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        keys[size] = key;
+        ids[size++] = id;
+    }
+
+    /**
+     * @return the ids paired with {@code key}, ascending and distinct
+     */
+    public int[] lookup(long key) {
+        int[] found = new int[8];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = ids[i];
+            }
+        }
+        Arrays.sort(found, 0, count);
+        return Arrays.copyOf(found, distinct(found, count));
+    }
+
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Writes the pairs out as a segment. The buffer itself is left untouched, so it can still
+     * be searched meanwhile.
+     */
+    public PostingSegment writeSegment(Path target) throws IOException {
+        long[] keys = Arrays.copyOf(this.keys, size);
+        int[] ids = Arrays.copyOf(this.ids, size);
+        sort(keys, ids);
+        SegmentWriter writer = new SegmentWriter(target);
+        try {
+            int[] run = new int[16];
+            for (int start = 0; start < size; ) {
+                long key = keys[start];
+                int end = start + 1;
+                while (end < size && keys[end] == key) {
+                    end++;
+                }
+                int count = end - start;
+                if (count > run.length) {
+                    run = new int[Integer.highestOneBit(count) << 1];
+                }
+                System.arraycopy(ids, start, run, 0, count);
+                Arrays.sort(run, 0, count);
+                writer.add(key, run, distinct(run, count));
+                start = end;
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * LSD radix sort by key, 16 bits per pass, with the sign bit flipped so the order is
+     * that of signed longs. Passes where every key has the same digit are skipped.
+     */
+    private static void sort(long[] keys, int[] ids) {
+        int size = keys.length;
+        if (size == 0) {
+            return;
+        }
+        long[] keyScratch = new long[size];
+        int[] idScratch = new int[size];
+        int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[digit(keys[i], shift) + 1]++;
+            }
+            if (counts[digit(keys[0], shift) + 1] == size) {
+                continue;
+            }
+            for (int d = 0; d < RADIX; d++) {
+                counts[d + 1] += counts[d];
+            }
+            for (int i = 0; i < size; i++) {
+                int slot = counts[digit(keys[i], shift)]++;
+                keyScratch[slot] = keys[i];
+                idScratch[slot] = ids[i];
+            }
+            System.arraycopy(keyScratch, 0, keys, 0, size);
+            System.arraycopy(idScratch, 0, ids, 0, size);
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Drops repeats from the first {@code count} sorted entries in place.
+     *
+     * @return the number of distinct entries
+     */
+    static int distinct(int[] sorted, int count) {
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct;
+    }
+}
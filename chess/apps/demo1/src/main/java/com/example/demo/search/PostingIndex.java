@@ -0,0 +1,302 @@
+package com.example.demo.search;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted index from 64-bit keys to the ids of the games they occur in: a list of
+ * {@link PostingSegment}s in a directory, plus a {@link PostingBuffer} of pairs added since
+ * the last {@link #flush}. Adding a pair twice is harmless, as lookups and merges drop
+ * repeated ids.
+ * <p>
+ * {@link #add} and {@link #lookup} may be called from any thread. Flushes, compactions and
+ * rebuilds change the segment list and must come from one thread at a time.
+ */
+@Slf4j
+public final class PostingIndex {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String PART_SUFFIX = ".part";
+    private static final int INITIAL_BUFFER_PAIRS = 1 << 12;
+
+    private final Path directory;
+    private final String name;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile List<PostingSegment> segments;
+    private PostingBuffer buffer = new PostingBuffer(INITIAL_BUFFER_PAIRS);
+    /**
+     * The buffer being written out by {@link #flush}, still searched until its segment is in
+     * the list.
+     */
+    private PostingBuffer flushing;
+
+    private PostingIndex(Path directory, String name, List<PostingSegment> segments) {
+        this.directory = directory;
+        this.name = name;
+        this.segments = List.copyOf(segments);
+    }
+
+    /**
+     * Opens the index called {@code name} in {@code directory}, removing files left by an
+     * interrupted flush, merge or rebuild.
+     */
+    public static PostingIndex open(Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-*")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+                    paths.add(file);
+                } else {
+                    Files.delete(file);
+                }
+            }
+        }
+        paths.sort(Comparator.comparingLong(PostingIndex::sequence));
+        List<PostingSegment> segments = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            segments.add(PostingSegment.open(path));
+        }
+        PostingIndex index = new PostingIndex(directory, name, segments);
+        index.nextSequence.set(paths.isEmpty() ? 1 : sequence(paths.get(paths.size() - 1)) + 1);
+        return index;
+    }
+
+    public synchronized void add(long key, int id) {
+        buffer.add(key, id);
+    }
+
+    public synchronized int bufferedPairs() {
+        return buffer.size();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long sizeBytes() {
+        return segments.stream().mapToLong(PostingSegment::sizeBytes).sum();
+    }
+
+    /**
+     * @return the ids of the games the key occurs in, ascending and distinct
+     */
+    public int[] lookup(long key) {
+        List<int[]> lists = new ArrayList<>();
+        for (PostingSegment segment : segments) {
+            int index = segment.find(key);
+            if (index >= 0) {
+                lists.add(segment.postings(index));
+            }
+        }
+        synchronized (this) {
+            lists.add(buffer.lookup(key));
+            if (flushing != null) {
+                lists.add(flushing.lookup(key));
+            }
+        }
+        return union(lists);
+    }
+
+    /**
+     * Writes the buffered pairs out as a new segment.
+     */
+    public void flush() throws IOException {
+        PostingBuffer full;
+        synchronized (this) {
+            if (buffer.size() == 0) {
+                return;
+            }
+            full = buffer;
+            flushing = full;
+            buffer = new PostingBuffer(INITIAL_BUFFER_PAIRS);
+        }
+        PostingSegment segment;
+        try {
+            segment = full.writeSegment(newSegmentPath(SEGMENT_SUFFIX));
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                for (int i = 0; i < full.size(); i++) {
+                    buffer.add(full.keyAt(i), full.idAt(i));
+                }
+                flushing = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            segments = append(segments, segment);
+            flushing = null;
+        }
+    }
+
+    /**
+     * Merges all segments into one once there are more than {@code maxSegments}.
+     */
+    public void compact(int maxSegments) throws IOException {
+        List<PostingSegment> current = segments;
+        if (current.size() <= maxSegments) {
+            return;
+        }
+        PostingSegment merged = merge(current, newSegmentPath(SEGMENT_SUFFIX));
+        swap(current, merged);
+        log.info("Compacted {} {} segments into {}", current.size(), name, merged);
+    }
+
+    /**
+     * @return a path for a rebuild part, which {@link #replace} later merges in; parts left by
+     * an interrupted rebuild are removed when the index is next opened
+     */
+    public Path newPartPath() {
+        return newSegmentPath(PART_SUFFIX);
+    }
+
+    /**
+     * Replaces the given segments, typically every segment present when a rebuild started,
+     * with the merge of the rebuilt parts. Segments flushed since stay.
+     */
+    public void replace(List<PostingSegment> replaced, List<PostingSegment> parts) throws IOException {
+        PostingSegment merged = merge(parts, newSegmentPath(SEGMENT_SUFFIX));
+        swap(replaced, merged);
+        delete(parts);
+    }
+
+    public List<PostingSegment> segments() {
+        return segments;
+    }
+
+    private void swap(List<PostingSegment> replaced, PostingSegment merged) {
+        synchronized (this) {
+            List<PostingSegment> kept = new ArrayList<>(segments);
+            kept.removeAll(replaced);
+            kept.add(0, merged);
+            segments = List.copyOf(kept);
+        }
+        delete(replaced);
+    }
+
+    /**
+     * K-way merge of segments into one, uniting the posting lists of keys found in several.
+     * The sources are kept in a binary heap ordered by their next key.
+     */
+    static PostingSegment merge(List<PostingSegment> sources, Path target) throws IOException {
+        PostingSegment[] heap = new PostingSegment[sources.size()];
+        int[] cursors = new int[heap.length];
+        int size = 0;
+        for (PostingSegment source : sources) {
+            if (source.keyCount() > 0) {
+                heap[size++] = source;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, cursors, size, i);
+        }
+        List<int[]> lists = new ArrayList<>(heap.length);
+        SegmentWriter writer = new SegmentWriter(target);
+        try {
+            while (size > 0) {
+                long key = heap[0].keyAt(cursors[0]);
+                lists.clear();
+                while (size > 0 && heap[0].keyAt(cursors[0]) == key) {
+                    lists.add(heap[0].postings(cursors[0]++));
+                    if (cursors[0] == heap[0].keyCount()) {
+                        size--;
+                        heap[0] = heap[size];
+                        cursors[0] = cursors[size];
+                    }
+                    siftDown(heap, cursors, size, 0);
+                }
+                int[] ids = union(lists);
+                writer.add(key, ids, ids.length);
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    private static void siftDown(PostingSegment[] heap, int[] cursors, int size, int index) {
+        PostingSegment segment = heap[index];
+        int cursor = cursors[index];
+        long key = size > index ? segment.keyAt(cursor) : 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].keyAt(cursors[child + 1]) < heap[child].keyAt(cursors[child])) {
+                child++;
+            }
+            if (heap[child].keyAt(cursors[child]) >= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            cursors[index] = cursors[child];
+            index = child;
+        }
+        heap[index] = segment;
+        cursors[index] = cursor;
+    }
+
+    /**
+     * @param lists ascending, distinct id lists
+     * @return their union, ascending and distinct
+     */
+    static int[] union(List<int[]> lists) {
+        int[] result = null;
+        for (int[] list : lists) {
+            if (list.length == 0) {
+                continue;
+            }
+            if (result == null) {
+                result = list;
+                continue;
+            }
+            int[] merged = new int[result.length + list.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < result.length || j < list.length) {
+                int next = j == list.length || (i < result.length && result[i] <= list[j]) ? result[i++] : list[j++];
+                if (count == 0 || merged[count - 1] != next) {
+                    merged[count++] = next;
+                }
+            }
+            result = count == merged.length ? merged : Arrays.copyOf(merged, count);
+        }
+        return result == null ? new int[0] : result;
+    }
+
+    private Path newSegmentPath(String suffix) {
+        return directory.resolve(String.format("%s-%08d%s", name, nextSequence.getAndIncrement(), suffix));
+    }
+
+    private static long sequence(Path path) {
+        String file = path.getFileName().toString();
+        return Long.parseLong(file.substring(file.lastIndexOf('-') + 1, file.indexOf('.')));
+    }
+
+    private static List<PostingSegment> append(List<PostingSegment> segments, PostingSegment segment) {
+        List<PostingSegment> appended = new ArrayList<>(segments);
+        appended.add(segment);
+        return List.copyOf(appended);
+    }
+
+    private void delete(List<PostingSegment> old) {
+        for (PostingSegment segment : old) {
+            try {
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.warn("Could not delete {} segment {}", name, segment.path(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable, memory-mapped run of posting lists: sorted 64-bit keys, each with the sorted
+ * ids of the games it occurs in. Lookups binary-search the key section and decode one list,
+ * so a segment costs page cache rather than heap.
+ * <pre>
+ *  header    magic, version (ints), key count, postings bytes (longs)
+ *  keys      key count longs, ascending
+ *  offsets   key count + 1 ints into the postings section
+ *  postings  per key: varint id count, then the ids as varint deltas (the first from 0)
+ * </pre>
+ * Written by {@link SegmentWriter}. Safe for concurrent readers.
+ */
+public final class PostingSegment {
+    static final int MAGIC = 0x50535447;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    private final Path path;
+    private final int keyCount;
+    private final long sizeBytes;
+    private final LongBuffer keys;
+    private final IntBuffer offsets;
+    private final ByteBuffer postings;
+
+    private PostingSegment(Path path, int keyCount, long sizeBytes, LongBuffer keys, IntBuffer offsets,
+                           ByteBuffer postings) {
+        this.path = path;
+        this.keyCount = keyCount;
+        this.sizeBytes = sizeBytes;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    public static PostingSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a posting segment: " + path);
+            }
+            long keyCount = header.getLong();
+            long postingsBytes = header.getLong();
+            long keysBytes = keyCount * Long.BYTES;
+            long offsetsBytes = (keyCount + 1) * Integer.BYTES;
+            long size = HEADER_BYTES + keysBytes + offsetsBytes + postingsBytes;
+            if (channel.size() != size) {
+                throw new IOException("Truncated posting segment: " + path);
+            }
+            MappedByteBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, keysBytes);
+            MappedByteBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + keysBytes,
+                    offsetsBytes);
+            MappedByteBuffer postings = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_BYTES + keysBytes + offsetsBytes, postingsBytes);
+            return new PostingSegment(path, (int) keyCount, size, keys.asLongBuffer(), offsets.asIntBuffer(),
+                    postings);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int keyCount() {
+        return keyCount;
+    }
+
+    public long sizeBytes() {
+        return sizeBytes;
+    }
+
+    long keyAt(int index) {
+        return keys.get(index);
+    }
+
+    /**
+     * @return the index of the key, or -1 if it has no postings here
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = keyCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keys.get(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the game ids of the key at {@code index}, ascending
+     */
+    public int[] postings(int index) {
+        int position = offsets.get(index);
+        long countAndPosition = readVarint(postings, position);
+        int count = (int) (countAndPosition >>> 32);
+        position = (int) countAndPosition;
+        int[] ids = new int[count];
+        int id = 0;
+        for (int i = 0; i < count; i++) {
+            long deltaAndPosition = readVarint(postings, position);
+            id += (int) (deltaAndPosition >>> 32);
+            position = (int) deltaAndPosition;
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Reads an unsigned 32-bit varint at an absolute position, leaving the buffer untouched.
+     *
+     * @return the value in the high half and the position after it in the low half
+     */
+    private static long readVarint(ByteBuffer buffer, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (long) value << 32 | position;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName() + "[keys=" + keyCount + ", bytes=" + sizeBytes + "]";
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams posting lists, in ascending key order, into a new {@link PostingSegment}. Each
+ * section goes to its own temporary file so that nothing but the current list is held in
+ * memory; {@link #finish} joins them and moves the segment into place atomically, and
+ * {@link #abort} discards them.
+ */
+public final class SegmentWriter {
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long MAX_SECTION_BYTES = Integer.MAX_VALUE;
+
+    private final Path target;
+    private final Path keysFile;
+    private final Path offsetsFile;
+    private final Path postingsFile;
+    private final DataOutputStream keys;
+    private final DataOutputStream offsets;
+    private final OutputStream postings;
+    private long keyCount;
+    private long postingsBytes;
+    private long lastKey;
+    private boolean closed;
+
+    public SegmentWriter(Path target) throws IOException {
+        this.target = target;
+        this.keysFile = sibling(target, ".keys");
+        this.offsetsFile = sibling(target, ".offsets");
+        this.postingsFile = sibling(target, ".postings");
+        this.keys = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(keysFile), BUFFER_BYTES));
+        this.offsets = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(offsetsFile), BUFFER_BYTES));
+        this.postings = new BufferedOutputStream(Files.newOutputStream(postingsFile), BUFFER_BYTES);
+    }
+
+    /**
+     * @param ids the first {@code count} entries are the key's game ids, ascending and distinct
+     */
+    public void add(long key, int[] ids, int count) throws IOException {
+        if (keyCount > 0 && key <= lastKey) {
+            throw new IllegalArgumentException("Keys must be added in ascending order");
+        }
+        lastKey = key;
+        keys.writeLong(key);
+        offsets.writeInt((int) postingsBytes);
+        postingsBytes += writeVarint(postings, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            postingsBytes += writeVarint(postings, ids[i] - previous);
+            previous = ids[i];
+        }
+        keyCount++;
+        if (postingsBytes > MAX_SECTION_BYTES || keyCount * Long.BYTES > MAX_SECTION_BYTES) {
+            throw new IOException("Posting segment " + target + " is too large");
+        }
+    }
+
+    public long keyCount() {
+        return keyCount;
+    }
+
+    public PostingSegment finish() throws IOException {
+        offsets.writeInt((int) postingsBytes);
+        close();
+        Path temp = sibling(target, ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(PostingSegment.HEADER_BYTES)
+                    .putInt(PostingSegment.MAGIC)
+                    .putInt(PostingSegment.VERSION)
+                    .putLong(keyCount)
+                    .putLong(postingsBytes)
+                    .flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (Path section : new Path[]{keysFile, offsetsFile, postingsFile}) {
+                try (FileChannel in = FileChannel.open(section, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long done = 0; done < size; ) {
+                        done += in.transferTo(done, size - done, out);
+                    }
+                }
+            }
+            out.force(false);
+        } finally {
+            deleteSections();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return PostingSegment.open(target);
+    }
+
+    private void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (keys; offsets; postings) {
+            keys.flush();
+        }
+    }
+
+    /**
+     * Removes the partial files of a segment that will not be finished.
+     */
+    public void abort() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // the files are removed below either way
+        }
+        deleteSections();
+    }
+
+    private void deleteSections() {
+        for (Path section : new Path[]{keysFile, offsetsFile, postingsFile}) {
+            try {
+                Files.deleteIfExists(section);
+            } catch (IOException ignored) {
+                // leftover temporaries are removed when the index directory is opened
+            }
+        }
+    }
+
+    private static Path sibling(Path target, String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+
+    private static int writeVarint(OutputStream out, int value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+            bytes++;
+        }
+        out.write(value);
+        return bytes;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.demo.service;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import com.example.demo.engine.San;
+import com.example.demo.engine.Search;
+import com.example.demo.engine.TranspositionTable;
+import com.example.demo.persistence.MoveListCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computer analysis of a position, run by {@link Search} and streamed to
+ * {@code /topic/analysis/{id}} after every completed depth.
+ * <p>
+ * Analyses run on a fixed pool of {@code game.analysis.threads} low-priority threads, by
+ * default half the cores, so the rest stay free for game traffic however many analyses are
+ * asked for. Each analysis takes {@code game.analysis.search-threads} of them for its Lazy-SMP
+ * search; requests wait in a queue of {@code game.analysis.max-queued} until enough threads
+ * are free, and are turned away once it is full. Every analysis is bounded by a node and a
+ * time budget, capped by {@code game.analysis.max-nodes} and {@code max-millis}, and all of
+ * them share one transposition table of {@code game.analysis.hash-mb}.
+ */
+@Slf4j
+@Service
+public class AnalysisService {
+    public static final String TOPIC_PREFIX = "/topic/analysis/";
+
+    private static final int RETAINED_ANALYSES = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final GameService gameService;
+    private final TranspositionTable table;
+    private final int searchThreads;
+    private final long defaultNodes;
+    private final long maxNodes;
+    private final long defaultMillis;
+    private final long maxMillis;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore freeWorkers;
+    private final BlockingQueue<Analysis> queue;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "analysis-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Analysis> analyses = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Analysis> eldest) {
+                    return size() > RETAINED_ANALYSES && eldest.getValue().status.isFinal();
+                }
+            });
+    private final Counter rejected;
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, CANCELLED, FAILED;
+
+        boolean isFinal() {
+            return this == DONE || this == CANCELLED || this == FAILED;
+        }
+    }
+
+    /**
+     * @param fen analyse this position, or
+     * @param gameId the position of an archived game after {@code ply} moves, by default its last
+     * @param nodes node budget, or null for the default
+     * @param millis time budget, or null for the default
+     * @param depth deepest iteration, or null for no limit
+     */
+    public record AnalysisRequest(String fen, String gameId, Integer ply, Long nodes, Long millis, Integer depth) {
+    }
+
+    /**
+     * The state of an analysis after its latest completed depth. Scores are in centipawns and
+     * mates in moves, both from White's point of view; {@code mate} is null unless there is a
+     * forced mate, and 0 if the side to move is already mated.
+     */
+    public record AnalysisUpdate(String id, String fen, Status status, int depth, int score, Integer mate,
+                                 long nodes, long nps, long millis, String bestMove, List<String> pv,
+                                 List<String> pvSan) {
+    }
+
+    private final class Analysis {
+        final String id = UUID.randomUUID().toString();
+        final Board board;
+        final Search.Limits limits;
+        final Search search = new Search(table, searchThreads);
+        volatile Status status = Status.QUEUED;
+        volatile AnalysisUpdate latest;
+
+        Analysis(Board board, Search.Limits limits) {
+            this.board = board;
+            this.limits = limits;
+            this.latest = update(this, null);
+        }
+    }
+
+    public AnalysisService(SimpMessagingTemplate messagingTemplate, GameService gameService,
+                           MeterRegistry meterRegistry,
+                           @Value("${game.analysis.threads:0}") int threads,
+                           @Value("${game.analysis.search-threads:2}") int searchThreads,
+                           @Value("${game.analysis.hash-mb:64}") int hashMegabytes,
+                           @Value("${game.analysis.max-queued:32}") int maxQueued,
+                           @Value("${game.analysis.default-nodes:5000000}") long defaultNodes,
+                           @Value("${game.analysis.max-nodes:50000000}") long maxNodes,
+                           @Value("${game.analysis.default-millis:3000}") long defaultMillis,
+                           @Value("${game.analysis.max-millis:15000}") long maxMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.gameService = gameService;
+        int poolThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.searchThreads = Math.max(1, Math.min(searchThreads, poolThreads));
+        this.table = new TranspositionTable(hashMegabytes);
+        this.defaultNodes = defaultNodes;
+        this.maxNodes = maxNodes;
+        this.defaultMillis = defaultMillis;
+        this.maxMillis = maxMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolThreads, poolThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "analysis-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.freeWorkers = new Semaphore(poolThreads);
+        this.queue = new ArrayBlockingQueue<>(maxQueued);
+        this.rejected = Counter.builder("analysis.rejected").register(meterRegistry);
+        Gauge.builder("analysis.queued", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("analysis.running", workers, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        dispatcher.execute(this::dispatch);
+        log.info("Started {} analysis threads, {} per search", poolThreads, this.searchThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        synchronized (analyses) {
+            for (Analysis analysis : analyses.values()) {
+                analysis.search.stop();
+            }
+        }
+        workers.shutdownNow();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Analysis threads did not stop in time");
+        }
+    }
+
+    /**
+     * Queues an analysis. Subscribe to {@link #TOPIC_PREFIX}{@code {id}} for its updates, or
+     * poll {@link #get}.
+     *
+     * @return the queued state, carrying the analysis id
+     * @throws IllegalArgumentException if the position cannot be read
+     * @throws IllegalStateException if too many analyses are waiting
+     */
+    public AnalysisUpdate start(AnalysisRequest request) {
+        Board board = position(request);
+        Search.Limits limits = new Search.Limits(
+                request.depth() != null ? request.depth() : Search.MAX_DEPTH,
+                Math.min(request.nodes() != null ? request.nodes() : defaultNodes, maxNodes),
+                Math.min(request.millis() != null ? request.millis() : defaultMillis, maxMillis));
+        Analysis analysis = new Analysis(board, limits);
+        analyses.put(analysis.id, analysis);
+        if (!queue.offer(analysis)) {
+            analyses.remove(analysis.id);
+            rejected.increment();
+            throw new IllegalStateException("Too many analyses are waiting, try again later");
+        }
+        return analysis.latest;
+    }
+
+    /**
+     * @return the latest state of an analysis, or null if it is unknown or long finished
+     */
+    public AnalysisUpdate get(String id) {
+        Analysis analysis = analyses.get(id);
+        return analysis == null ? null : analysis.latest;
+    }
+
+    /**
+     * Stops an analysis, which then reports its deepest completed iteration as done.
+     *
+     * @return false if the analysis is unknown
+     */
+    public boolean cancel(String id) {
+        Analysis analysis = analyses.get(id);
+        if (analysis == null) {
+            return false;
+        }
+        if (queue.remove(analysis)) {
+            analysis.status = Status.CANCELLED;
+            publish(analysis, update(analysis, null));
+        }
+        analysis.search.stop();
+        return true;
+    }
+
+    /**
+     * Hands queued analyses to the workers in order, each once enough workers are free for
+     * its search threads, so that a started search never waits for a thread.
+     */
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Analysis analysis = queue.take();
+                freeWorkers.acquire(searchThreads);
+                try {
+                    workers.execute(() -> run(analysis));
+                } catch (RuntimeException e) {
+                    freeWorkers.release(searchThreads);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Analysis analysis) {
+        try {
+            analysis.status = Status.RUNNING;
+            Search.Iteration result = analysis.search.run(analysis.board, analysis.limits,
+                    iteration -> publish(analysis, update(analysis, iteration)), workers);
+            analysis.status = Status.DONE;
+            publish(analysis, update(analysis, result));
+            log.debug("Analysis {} finished at depth {} after {} nodes", analysis.id, result.depth(),
+                    result.nodes());
+        } catch (InterruptedException e) {
+            analysis.status = Status.CANCELLED;
+            publish(analysis, update(analysis, null));
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            analysis.status = Status.FAILED;
+            publish(analysis, update(analysis, null));
+            log.error("Error analysing {}", analysis.board.toFen(), e);
+        } finally {
+            freeWorkers.release(searchThreads);
+        }
+    }
+
+    private void publish(Analysis analysis, AnalysisUpdate update) {
+        analysis.latest = update;
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + analysis.id, update);
+    }
+
+    /**
+     * @param iteration the latest completed iteration, or null to keep the last one reported
+     */
+    private static AnalysisUpdate update(Analysis analysis, Search.Iteration iteration) {
+        String fen = analysis.board.toFen();
+        if (iteration == null) {
+            AnalysisUpdate last = analysis.latest;
+            return last == null
+                    ? new AnalysisUpdate(analysis.id, fen, analysis.status, 0, 0, null, 0, 0, 0, null, List.of(),
+                    List.of())
+                    : new AnalysisUpdate(last.id(), fen, analysis.status, last.depth(), last.score(), last.mate(),
+                    last.nodes(), last.nps(), last.millis(), last.bestMove(), last.pv(), last.pvSan());
+        }
+        int sign = analysis.board.getSideToMove() == Piece.WHITE ? 1 : -1;
+        List<String> pv = new ArrayList<>(iteration.pv().length);
+        List<String> pvSan = new ArrayList<>(iteration.pv().length);
+        Board line = new Board(analysis.board);
+        for (int move : iteration.pv()) {
+            pv.add(Move.toUci(move));
+            pvSan.add(San.of(line, move));
+            line.makeMove(move);
+        }
+        long nps = iteration.millis() > 0 ? iteration.nodes() * 1000 / iteration.millis() : 0;
+        Integer mate = iteration.mate() != 0 ? sign * iteration.mate()
+                : iteration.depth() == 0 && analysis.board.inCheck() ? 0 : null;
+        return new AnalysisUpdate(analysis.id, fen, analysis.status, iteration.depth(), sign * iteration.score(),
+                mate, iteration.nodes(), nps, iteration.millis(), pv.isEmpty() ? null : pv.get(0), pv, pvSan);
+    }
+
+    private Board position(AnalysisRequest request) {
+        if ((request.fen() == null) == (request.gameId() == null)) {
+            throw new IllegalArgumentException("Analyse either a FEN or a game");
+        }
+        if (request.fen() != null) {
+            return new Board(request.fen());
+        }
+        MoveListCodec.MoveList moveList = gameService.getMoveList(request.gameId());
+        if (moveList == null) {
+            throw new IllegalArgumentException("No archived moves for game " + request.gameId());
+        }
+        int[] moves = moveList.moves();
+        int plies = request.ply() == null ? moves.length : request.ply();
+        if (plies < 0 || plies > moves.length) {
+            throw new IllegalArgumentException("Game " + request.gameId() + " has " + moves.length + " plies");
+        }
+        Board board = new Board();
+        for (int ply = 0; ply < plies; ply++) {
+            board.makeMove(moves[ply]);
+        }
+        return board;
+    }
+}
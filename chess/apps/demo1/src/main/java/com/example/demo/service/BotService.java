@@ -0,0 +1,252 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.clock.TimeControl;
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.MoveGenerator;
+import com.example.demo.engine.Piece;
+import com.example.demo.engine.Search;
+import com.example.demo.engine.TranspositionTable;
+import com.example.demo.model.Game;
+import com.example.demo.model.User;
+import com.example.demo.model.WaitingRoom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Computer opponents. A bot is seated in a game like a second player, with a negative player
+ * id naming its level, and its moves are played through the same path as a human's.
+ * <p>
+ * Bot moves are searched on a fixed pool of {@code game.bot.threads} low-priority threads
+ * with one first-in first-out queue. A game has at most one move waiting, and every move is
+ * bounded by its level's node budget and by the time it can afford on its clock, so the
+ * threads go round the waiting games in turn and no game holds a thread for long, however
+ * many are being played. Time spent in the queue runs on the bot's clock like a human's
+ * thinking time, which is counted against its budget. All bots share one transposition table
+ * of {@code game.bot.hash-mb}.
+ * <p>
+ * Weaker levels search every legal move to a shallow depth and add random noise of up to
+ * {@code noise} centipawns to each score before picking the best, so they miss more the
+ * closer moves are; the strongest levels play the search's best move.
+ */
+@Slf4j
+@Service
+public class BotService {
+    /** Moves a bot expects still to play on its clock when sharing out its remaining time. */
+    private static final int MOVES_TO_GO = 30;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * @param depth deepest iteration searched, per legal move for levels with noise
+     * @param nodes node budget per move
+     * @param maxMillis longest think per move, however much time is on the clock
+     * @param noise standard deviation in centipawns added to each move's score, or 0
+     * @param rating nominal rating shown for the bot
+     */
+    public record Level(int level, int depth, long nodes, long maxMillis, int noise, int rating) {
+        public long playerId() {
+            return -level;
+        }
+
+        public String name() {
+            return "Computer (level " + level + ")";
+        }
+    }
+
+    /**
+     * @param userId the bot's player id in the game session
+     */
+    public record Bot(String userId, int color, Level level) {
+    }
+
+    /**
+     * @param level strength, one of {@link #getLevels}
+     * @param color the human's colour: "white", "black", or null for a random one
+     * @param baseMillis starting time on each clock, or null for the default time control
+     */
+    public record BotGameRequest(Integer level, String color, Long baseMillis, Long incrementMillis) {
+    }
+
+    private static final List<Level> LEVELS = List.of(
+            new Level(1, 1, 2_000, 50, 250, 600),
+            new Level(2, 1, 5_000, 100, 150, 800),
+            new Level(3, 2, 15_000, 150, 90, 1000),
+            new Level(4, 2, 40_000, 250, 50, 1200),
+            new Level(5, 3, 100_000, 400, 25, 1400),
+            new Level(6, 6, 150_000, 600, 0, 1600),
+            new Level(7, 10, 500_000, 1200, 0, 1800),
+            new Level(8, Search.MAX_DEPTH, 1_500_000, 2500, 0, 2000));
+
+    private final GameService gameService;
+    private final TranspositionTable table;
+    private final ThreadPoolExecutor workers;
+    private final Counter moves;
+
+    public BotService(GameService gameService, MeterRegistry meterRegistry,
+                      @Value("${game.bot.threads:0}") int threads,
+                      @Value("${game.bot.hash-mb:32}") int hashMegabytes) {
+        this.gameService = gameService;
+        int poolThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.table = new TranspositionTable(hashMegabytes);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolThreads, poolThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "bot-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.moves = Counter.builder("bot.moves").register(meterRegistry);
+        Gauge.builder("bot.queued", workers, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("bot.running", workers, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        log.info("Started {} bot threads", poolThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdownNow();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Bot threads did not stop in time");
+        }
+    }
+
+    public List<Level> getLevels() {
+        return LEVELS;
+    }
+
+    /**
+     * Creates a game of {@code user} against a bot. The bot takes its seat when the user joins.
+     *
+     * @throws IllegalArgumentException if the level, colour or time control is not valid
+     */
+    public Game createGame(User user, BotGameRequest request) {
+        Level level = level(request.level() == null ? 1 : request.level());
+        boolean userIsWhite;
+        if (request.color() == null || request.color().equals("random")) {
+            userIsWhite = ThreadLocalRandom.current().nextBoolean();
+        } else if (request.color().equals("white") || request.color().equals("black")) {
+            userIsWhite = request.color().equals("white");
+        } else {
+            throw new IllegalArgumentException("Unknown colour " + request.color());
+        }
+        TimeControl timeControl = TimeControl.DEFAULT;
+        if (request.baseMillis() != null) {
+            long increment = request.incrementMillis() == null ? 0 : request.incrementMillis();
+            if (request.baseMillis() <= 0 || increment < 0) {
+                throw new IllegalArgumentException("Invalid time control");
+            }
+            timeControl = new TimeControl(request.baseMillis(), increment);
+        }
+        Game game = gameService.createBotGame(user, WaitingRoom.generateGameCode(), userIsWhite,
+                level.playerId(), level.name(), level.rating(), timeControl);
+        log.info("Created game {} of user {} against bot level {}", game.getGameId(), user.getId(), level.level());
+        return game;
+    }
+
+    /**
+     * @return the bot playing in a game, or null if both players are people
+     */
+    public Bot botFor(Game game) {
+        if (game == null) {
+            return null;
+        }
+        if (isBot(game.getWhitePlayerId())) {
+            return bot(game.getWhitePlayerId(), Piece.WHITE);
+        }
+        if (isBot(game.getBlackPlayerId())) {
+            return bot(game.getBlackPlayerId(), Piece.BLACK);
+        }
+        return null;
+    }
+
+    /**
+     * Searches the bot's move in the session's current position and hands it to
+     * {@code onMove} on a bot thread. Call on the game's mailbox thread when it is the bot's
+     * turn; the caller checks that the position has not moved on before playing the move.
+     */
+    public void requestMove(GameSessionService.GameSession session, IntConsumer onMove) {
+        Bot bot = session.getBot();
+        Board board = session.copyBoard();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkMillis(bot, session.getClock()));
+        workers.execute(() -> {
+            try {
+                int move = think(board, bot.level(), deadline);
+                moves.increment();
+                if (move != Move.NONE) {
+                    onMove.accept(move);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error searching bot move in game {} at {}", session.getGameId(), board.toFen(), e);
+            }
+        });
+    }
+
+    /**
+     * @return the move the bot plays, or {@link Move#NONE} if it has none
+     */
+    int think(Board board, Level level, long deadlineNanos) throws InterruptedException {
+        if (level.noise() == 0) {
+            long millis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+            return new Search(table, 1).run(board, new Search.Limits(level.depth(), level.nodes(), millis), null, null)
+                    .bestMove();
+        }
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(new Board(board), legal);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int best = Move.NONE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            Board child = new Board(board);
+            child.makeMove(legal[i]);
+            long millis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()) / (count - i));
+            Search.Iteration reply = new Search(table, 1)
+                    .run(child, new Search.Limits(level.depth(), level.nodes() / count, millis), null, null);
+            double score = -reply.score() + random.nextGaussian() * level.noise();
+            if (score > bestScore) {
+                bestScore = score;
+                best = legal[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the bot's share of its remaining time for one move, capped by its level
+     */
+    static long thinkMillis(Bot bot, GameClock clock) {
+        long remaining = clock.remainingMillis(bot.color(), System.nanoTime());
+        long share = remaining / MOVES_TO_GO + clock.getTimeControl().incrementMillis() * 3 / 4;
+        return Math.min(Math.min(share, remaining / 4), bot.level().maxMillis());
+    }
+
+    static Level level(int level) {
+        if (level < 1 || level > LEVELS.size()) {
+            throw new IllegalArgumentException("Bot levels are 1 to " + LEVELS.size());
+        }
+        return LEVELS.get(level - 1);
+    }
+
+    private static boolean isBot(Long playerId) {
+        return playerId != null && playerId < 0 && -playerId <= LEVELS.size();
+    }
+
+    private static Bot bot(long playerId, int color) {
+        return new Bot(String.valueOf(playerId), color, level((int) -playerId));
+    }
+}
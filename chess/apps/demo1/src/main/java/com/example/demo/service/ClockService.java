@@ -0,0 +1,175 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.clock.TimeControl;
+import com.example.demo.clock.TimingWheel;
+import com.example.demo.engine.Piece;
+import com.example.demo.journal.JournalRecord;
+import com.example.demo.journal.MoveJournal;
+import com.example.demo.model.GameMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authoritative game clocks. Flag-fall for every running clock is detected by a single
+ * thread driving a {@link TimingWheel}, instead of one scheduled task per game. Expired
+ * deadlines are handed to the game's mailbox so they are ordered with that game's moves.
+ */
+@Slf4j
+@Service
+public class ClockService {
+    private static final long TICK_MILLIS = 10;
+
+    private final GameBroadcastService gameBroadcastService;
+    private final GameMailboxService gameMailboxService;
+    private final GameService gameService;
+    private final MoveJournal moveJournal;
+    private final ObjectMapper objectMapper;
+    private final TimingWheel wheel = new TimingWheel(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS), System.nanoTime());
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClockService(GameBroadcastService gameBroadcastService, GameMailboxService gameMailboxService,
+                        GameService gameService, MoveJournal moveJournal, ObjectMapper objectMapper) {
+        this.gameBroadcastService = gameBroadcastService;
+        this.gameMailboxService = gameMailboxService;
+        this.gameService = gameService;
+        this.moveJournal = moveJournal;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    public GameClock createClock(String gameId, TimeControl timeControl) {
+        return new GameClock(gameId, timeControl, this::onDeadline);
+    }
+
+    /**
+     * Presses the clock for the side that just moved.
+     *
+     * @return false if the mover had already run out of time; GAME_OVER has then been sent
+     */
+    public boolean press(GameClock clock, int moverColor) {
+        long deadline = clock.press(moverColor, System.nanoTime());
+        if (deadline < 0) {
+            wheel.cancel(clock.getFlagTimeout());
+            if (clock.reportFlag()) {
+                flagFell(clock, clock.getFlaggedColor());
+            }
+            return false;
+        }
+        wheel.schedule(clock.getFlagTimeout(), deadline);
+        return true;
+    }
+
+    /**
+     * Restores a clock handed over from another node and re-arms its flag deadline.
+     */
+    public void resume(GameClock clock, long whiteMillis, long blackMillis, int runningColor, int flaggedColor) {
+        clock.restore(whiteMillis, blackMillis, runningColor, flaggedColor, System.nanoTime());
+        long deadline = clock.deadlineNanos();
+        if (deadline >= 0) {
+            wheel.schedule(clock.getFlagTimeout(), deadline);
+        }
+    }
+
+    public void stop(GameClock clock) {
+        clock.stop(System.nanoTime());
+        wheel.cancel(clock.getFlagTimeout());
+    }
+
+    /**
+     * Clock state as broadcast to clients: remaining milliseconds per side and the side whose
+     * clock is running.
+     */
+    public Map<String, Object> snapshot(GameClock clock) {
+        long now = System.nanoTime();
+        int running = clock.getRunningColor();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("white", clock.remainingMillis(Piece.WHITE, now));
+        snapshot.put("black", clock.remainingMillis(Piece.BLACK, now));
+        snapshot.put("running", running == Piece.NONE ? null : colorName(running));
+        return snapshot;
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(System.nanoTime());
+        } catch (Exception e) {
+            log.error("Error advancing game clock wheel", e);
+        }
+    }
+
+    private void onDeadline(GameClock clock) {
+        gameMailboxService.execute(clock.getGameId(), () -> checkFlag(clock));
+    }
+
+    private void checkFlag(GameClock clock) {
+        int flagged = clock.checkFlag(System.nanoTime());
+        if (flagged != Piece.NONE) {
+            if (clock.reportFlag()) {
+                flagFell(clock, flagged);
+            }
+            return;
+        }
+        long deadline = clock.deadlineNanos();
+        if (deadline >= 0) {
+            wheel.schedule(clock.getFlagTimeout(), deadline);
+        }
+    }
+
+    private void flagFell(GameClock clock, int loser) {
+        String gameId = clock.getGameId();
+        long now = System.nanoTime();
+        long whiteLeft = clock.remainingMillis(Piece.WHITE, now);
+        long blackLeft = clock.remainingMillis(Piece.BLACK, now);
+        log.info("Game {}: {} ran out of time", gameId, colorName(loser));
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("result", "timeout");
+        content.put("reason", "timeout");
+        content.put("winner", colorName(loser ^ 1));
+        content.put("loser", colorName(loser));
+        content.put("clock", snapshot(clock));
+        try {
+            gameBroadcastService.broadcast(gameId, new GameMessage(gameId, "SYSTEM",
+                    GameMessage.MessageType.GAME_OVER, objectMapper.writeValueAsString(content)));
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing flag-fall for game {}", gameId, e);
+        }
+        moveJournal.append(JournalRecord.end(gameId));
+
+        String result = loser == Piece.WHITE ? "0-1" : "1-0";
+        CompletableFuture.runAsync(() -> gameService.finishGame(gameId, result, whiteLeft, blackLeft))
+                .exceptionally(e -> {
+                    log.error("Error persisting flag-fall for game {}", gameId, e);
+                    return null;
+                });
+    }
+
+    private static String colorName(int color) {
+        return color == Piece.WHITE ? "white" : "black";
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.engine.Piece;
+import com.example.demo.model.GameMessage;
+import com.example.demo.websocket.BinaryMoveCodec;
+import com.example.demo.websocket.BinaryProtocolInterceptor;
+import com.example.demo.websocket.GameTopicBroker;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single place where game traffic is published to {@code /topic/game/{gameId}}. Subscribers
+ * that negotiated the binary protocol get the same stream on the {@code /bin} destination,
+ * with moves encoded by {@link BinaryMoveCodec}. Moves and results are also handed to
+ * {@link SpectatorService} for the coalesced {@code /watch} channel.
+ * <p>
+ * Every message is numbered by {@link GameReplayService} and carries the number in the
+ * {@code game-seq} header, which a reconnecting client sends back to catch up.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class GameBroadcastService {
+    public static final String GAME_HANDLE_HEADER = "game-handle";
+    public static final String GAME_SEQ_HEADER = "game-seq";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final GameTopicBroker gameTopicBroker;
+    private final SpectatorService spectatorService;
+    private final GameReplayService gameReplayService;
+
+    public static String gameTopic(String gameId) {
+        return "/topic/game/" + gameId;
+    }
+
+    private static String binaryTopic(String gameId) {
+        return gameTopic(gameId) + BinaryProtocolInterceptor.BINARY_SUFFIX;
+    }
+
+    public void broadcast(String gameId, GameMessage message) {
+        publish(gameId, message, null, Map.of());
+    }
+
+    public void broadcast(GameSessionService.GameSession session, GameMessage message) {
+        publish(session.getGameId(), message, null, handleHeader(session));
+    }
+
+    /**
+     * Publishes an accepted move: JSON subscribers get {@code message}, binary subscribers a
+     * {@link BinaryMoveCodec#MOVE_WITH_CLOCK} frame.
+     */
+    public void broadcastMove(GameSessionService.GameSession session, GameMessage message,
+                              int move, int ply, GameClock clock) {
+        String gameId = session.getGameId();
+        SpectatorService.SpectatorUpdate state = spectatorService.onMove(session, move, clock);
+        Map<String, String> headers = handleHeader(session);
+        publishSequenced(gameId, message, state, (json, seq) -> {
+            Map<String, String> sequenced = withSeq(headers, seq);
+            sendJson(gameTopic(gameId), json, sequenced);
+            if (gameTopicBroker.hasSubscribers(binaryTopic(gameId))) {
+                long now = System.nanoTime();
+                byte[] frame = BinaryMoveCodec.encodeMoveWithClock(
+                        session.getHandle(),
+                        ply,
+                        BinaryMoveCodec.toWireMove(move),
+                        clock.remainingMillis(Piece.WHITE, now),
+                        clock.remainingMillis(Piece.BLACK, now),
+                        clock.getRunningColor()
+                );
+                send(binaryTopic(gameId), frame,
+                        MimeTypeUtils.APPLICATION_OCTET_STREAM, sequenced);
+            }
+        });
+    }
+
+    private void publish(String gameId, GameMessage message, Object state, Map<String, String> headers) {
+        if (message.getType() == GameMessage.MessageType.GAME_OVER) {
+            state = spectatorService.onGameOver(gameId, message.getContent());
+        }
+        publishSequenced(gameId, message, state, (json, seq) -> {
+            Map<String, String> sequenced = withSeq(headers, seq);
+            sendJson(gameTopic(gameId), json, sequenced);
+            if (gameTopicBroker.hasSubscribers(binaryTopic(gameId))) {
+                sendJson(binaryTopic(gameId), json, sequenced);
+            }
+        });
+    }
+
+    private void publishSequenced(String gameId, GameMessage message, Object state,
+                                  GameReplayService.Publisher publisher) {
+        try {
+            gameReplayService.publish(gameId, message, state, publisher);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing {} message for game {}", message.getType(), gameId, e);
+        }
+    }
+
+    private void sendJson(String destination, byte[] json, Map<String, String> headers) {
+        send(destination, json, MimeTypeUtils.APPLICATION_JSON, headers);
+    }
+
+    private void send(String destination, byte[] payload, MimeType contentType, Map<String, String> headers) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        headers.forEach(accessor::setNativeHeader);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    private static Map<String, String> withSeq(Map<String, String> headers, long seq) {
+        Map<String, String> sequenced = new HashMap<>(headers);
+        sequenced.put(GAME_SEQ_HEADER, Long.toString(seq));
+        return sequenced;
+    }
+
+    private static Map<String, String> handleHeader(GameSessionService.GameSession session) {
+        return Map.of(GAME_HANDLE_HEADER, String.valueOf(session.getHandle()));
+    }
+}
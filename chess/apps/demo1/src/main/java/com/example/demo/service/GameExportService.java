@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.TimeControl;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+import com.example.demo.pgn.PgnWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk PGN export of archived games. Games are read in keyset pages of
+ * {@code game.export.page-size} rows ordered by id, and each game is rendered and written
+ * out before the next is read, so memory use does not grow with the size of the export.
+ * <p>
+ * Reads the database directly: games finished within the last write-behind flush interval
+ * may not be included yet.
+ */
+@Slf4j
+@Service
+public class GameExportService {
+    private static final String SELECT_PAGE = "SELECT g.id, g.game_id, g.white_player_name, g.white_player_elo, "
+            + "g.black_player_name, g.black_player_elo, g.base_time_millis, g.increment_millis, g.result, "
+            + "g.finished_at, m.moves FROM games g JOIN game_moves m ON m.game_id = g.game_id WHERE g.id > ?";
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int pageSize;
+
+    /**
+     * @param playerId only games this user played, or null for all
+     * @param since    only games finished at or after this, or null
+     * @param until    only games finished before this, or null
+     */
+    public record ExportQuery(Long playerId, LocalDateTime since, LocalDateTime until) {
+    }
+
+    public GameExportService(JdbcTemplate jdbcTemplate, @Value("${game.export.page-size:1000}") int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes every matching game to {@code out} as UTF-8 PGN, oldest first.
+     *
+     * @return the number of games written
+     */
+    public long export(ExportQuery query, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        PgnWriter pgnWriter = new PgnWriter();
+        StringBuilder pgn = new StringBuilder(4096);
+        String sql = pageSql(query);
+        long exported = 0;
+        int[] lastId = {0};
+        int[] pageCount = {0};
+        try {
+            do {
+                pageCount[0] = 0;
+                jdbcTemplate.query(sql, (ResultSet row) -> {
+                    lastId[0] = row.getInt("id");
+                    pageCount[0]++;
+                    pgn.setLength(0);
+                    pgnWriter.append(toGame(row), decodeMoves(row), pgn);
+                    try {
+                        writer.append(pgn);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, pageArgs(query, lastId[0]));
+                exported += pageCount[0];
+            } while (pageCount[0] == pageSize);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} games for {} in {} ms", exported, query, (System.nanoTime() - started) / 1_000_000);
+        return exported;
+    }
+
+    private String pageSql(ExportQuery query) {
+        StringBuilder sql = new StringBuilder(SELECT_PAGE);
+        if (query.playerId() != null) {
+            sql.append(" AND (g.white_player_id = ? OR g.black_player_id = ?)");
+        }
+        if (query.since() != null) {
+            sql.append(" AND g.finished_at >= ?");
+        }
+        if (query.until() != null) {
+            sql.append(" AND g.finished_at < ?");
+        }
+        return sql.append(" ORDER BY g.id LIMIT ").append(pageSize).toString();
+    }
+
+    private static Object[] pageArgs(ExportQuery query, int afterId) {
+        List<Object> args = new ArrayList<>(5);
+        args.add(afterId);
+        if (query.playerId() != null) {
+            args.add(query.playerId());
+            args.add(query.playerId());
+        }
+        if (query.since() != null) {
+            args.add(Timestamp.valueOf(query.since()));
+        }
+        if (query.until() != null) {
+            args.add(Timestamp.valueOf(query.until()));
+        }
+        return args.toArray();
+    }
+
+    private static Game toGame(ResultSet row) throws SQLException {
+        Timestamp finishedAt = row.getTimestamp("finished_at");
+        return Game.builder()
+                .gameId(row.getString("game_id"))
+                .whitePlayerName(row.getString("white_player_name"))
+                .whitePlayerElo(row.getObject("white_player_elo", Integer.class))
+                .blackPlayerName(row.getString("black_player_name"))
+                .blackPlayerElo(row.getObject("black_player_elo", Integer.class))
+                .baseTimeMillis(row.getObject("base_time_millis", Long.class))
+                .incrementMillis(row.getObject("increment_millis", Long.class))
+                .result(row.getString("result"))
+                .finishedAt(finishedAt == null ? null : finishedAt.toLocalDateTime())
+                .build();
+    }
+
+    private static MoveListCodec.MoveList decodeMoves(ResultSet row) throws SQLException {
+        long baseMillis = row.getLong("base_time_millis");
+        if (row.wasNull()) {
+            baseMillis = TimeControl.DEFAULT.baseMillis();
+        }
+        return MoveListCodec.decode(row.getBytes("moves"), baseMillis);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs game-scoped work on a fixed set of single-threaded mailboxes selected by gameId hash.
+ * Everything submitted for one game executes on the same thread in submission order, so
+ * {@link GameSessionService.GameSession} state is only ever mutated by one thread and needs
+ * no locking.
+ * <p>
+ * Metrics per shard: {@code game.mailbox.queue.depth} (gauge) and {@code game.mailbox.latency}
+ * (timer, from submission to completion).
+ */
+@Slf4j
+@Service
+public class GameMailboxService {
+    private final ThreadPoolExecutor[] mailboxes;
+    private final Timer[] latencies;
+
+    public GameMailboxService(MeterRegistry meterRegistry, @Value("${game.mailbox.shards:0}") int shards) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        mailboxes = new ThreadPoolExecutor[count];
+        latencies = new Timer[count];
+        for (int i = 0; i < count; i++) {
+            String name = "game-mailbox-" + i;
+            BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+            mailboxes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            String shard = String.valueOf(i);
+            Gauge.builder("game.mailbox.queue.depth", queue, BlockingQueue::size)
+                    .tag("shard", shard)
+                    .register(meterRegistry);
+            latencies[i] = Timer.builder("game.mailbox.latency")
+                    .tag("shard", shard)
+                    .register(meterRegistry);
+        }
+        log.info("Started {} game mailboxes", count);
+    }
+
+    public void execute(String gameId, Runnable task) {
+        int shard = shardOf(gameId);
+        long submitted = System.nanoTime();
+        mailboxes[shard].execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("Error in mailbox task for game: {}", gameId, e);
+            } finally {
+                latencies[shard].record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public int getShardCount() {
+        return mailboxes.length;
+    }
+
+    int shardOf(String gameId) {
+        int hash = gameId == null ? 0 : gameId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), mailboxes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor mailbox : mailboxes) {
+            mailbox.shutdown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+/**
+ * Bounded history of the serialized messages broadcast for one game, numbered by a sequence
+ * that starts at 1 and never repeats. The oldest entries are evicted when either the message
+ * or the byte limit would be exceeded. Not thread-safe; {@link GameReplayService} guards each
+ * ring with its monitor.
+ */
+final class GameMessageRing {
+    private final byte[][] entries;
+    private final int maxBytes;
+    private long firstSeq = 1;
+    private long nextSeq = 1;
+    private int bytes;
+    private byte[] snapshot;
+
+    GameMessageRing(int capacity, int maxBytes) {
+        this.entries = new byte[Math.max(1, capacity)][];
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the sequence number assigned to {@code message}
+     */
+    long append(byte[] message) {
+        if (message.length > maxBytes) {
+            clear();
+            firstSeq = ++nextSeq;
+            return nextSeq - 1;
+        }
+        while (size() == entries.length || bytes + message.length > maxBytes) {
+            evictOldest();
+        }
+        long seq = nextSeq++;
+        entries[slot(seq)] = message;
+        bytes += message.length;
+        return seq;
+    }
+
+    /**
+     * Continues numbering after {@code lastSeq}, for a game whose earlier messages were
+     * sequenced elsewhere. Only valid on an empty ring.
+     */
+    void resumeAfter(long lastSeq) {
+        firstSeq = lastSeq + 1;
+        nextSeq = lastSeq + 1;
+    }
+
+    /**
+     * @return the serialized message with this sequence, or null if it is not retained
+     */
+    byte[] get(long seq) {
+        return seq >= firstSeq && seq < nextSeq ? entries[slot(seq)] : null;
+    }
+
+    /**
+     * @return true if every message after {@code lastSeq} is still retained
+     */
+    boolean covers(long lastSeq) {
+        return lastSeq >= firstSeq - 1 && lastSeq <= lastSeq();
+    }
+
+    long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    int size() {
+        return (int) (nextSeq - firstSeq);
+    }
+
+    int bytes() {
+        return bytes;
+    }
+
+    byte[] getSnapshot() {
+        return snapshot;
+    }
+
+    void setSnapshot(byte[] snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    private void evictOldest() {
+        int slot = slot(firstSeq);
+        bytes -= entries[slot].length;
+        entries[slot] = null;
+        firstSeq++;
+    }
+
+    private void clear() {
+        while (size() > 0) {
+            evictOldest();
+        }
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % entries.length);
+    }
+}
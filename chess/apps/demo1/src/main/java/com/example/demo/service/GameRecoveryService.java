@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import com.example.demo.engine.Piece;
+import com.example.demo.journal.JournalRecord;
+import com.example.demo.journal.MoveJournal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Restores the games left in the {@link MoveJournal} by the previous run, once the server is
+ * ready. Each game gets its players, position, clocks and message sequence back, so players
+ * who reconnect resync to where they were; the clock of the side to move restarts from its
+ * recorded time, and downtime is not charged. Games nobody comes back to are reaped like any
+ * other orphaned session.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class GameRecoveryService {
+    private final MoveJournal moveJournal;
+    private final GameSessionService gameSessionService;
+    private final GameMailboxService gameMailboxService;
+    private final ClockService clockService;
+    private final SpectatorService spectatorService;
+    private final GameReplayService gameReplayService;
+    private final ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recover() throws IOException {
+        for (JournalRecord game : moveJournal.open()) {
+            gameMailboxService.execute(game.gameId(), () -> restore(game));
+        }
+    }
+
+    private void restore(JournalRecord game) {
+        String gameId = game.gameId();
+        int[] moves = game.moves();
+        GameSessionService.GameSession session = gameSessionService.restoreGameSession(gameId, game.players(),
+                Map.of(), game.userId(), moves, null);
+        byte[] snapshot = null;
+        if (moves.length > 0) {
+            clockService.resume(session.getClock(), game.whiteMillis(), game.blackMillis(), game.runningColor(),
+                    Piece.NONE);
+            try {
+                snapshot = objectMapper.writeValueAsBytes(
+                        spectatorService.onMove(session, moves[moves.length - 1], session.getClock()));
+            } catch (JsonProcessingException e) {
+                log.error("Error serializing the recovered state of game {}", gameId, e);
+            }
+        }
+        gameReplayService.restore(gameId, game.seq(), snapshot);
+        log.info("Recovered game {} with players {} at ply {}", gameId, game.players(), moves.length);
+    }
+}
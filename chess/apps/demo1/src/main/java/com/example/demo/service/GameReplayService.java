@@ -0,0 +1,175 @@
+package com.example.demo.service;
+
+import com.example.demo.model.GameMessage;
+import com.example.demo.websocket.BinaryProtocolInterceptor;
+import com.example.demo.websocket.GameTopicBroker;
+import com.example.demo.websocket.ResyncSource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sequences everything broadcast on a game's player channel and keeps the recent history in
+ * a bounded {@link GameMessageRing}, so a client that reconnects can resubscribe with the last
+ * sequence it saw and get exactly what it missed in one frame:
+ * <pre>
+ * {"type":"RESYNC","gameId":..,"fromSeq":..,"toSeq":..,"messages":[{"seq":..,"message":{..}},..]}
+ * </pre>
+ * or, when the gap is older than the ring, the current state of the game:
+ * <pre>
+ * {"type":"SNAPSHOT","gameId":..,"seq":..,"snapshot":{..}}
+ * </pre>
+ * Publishing and resync for one game hold the ring's monitor, so a resubscribing client sees
+ * the catch-up frame strictly before any newer live message.
+ */
+@Slf4j
+@Service
+public class GameReplayService implements ResyncSource {
+    private final ObjectMapper objectMapper;
+    private final int bufferMessages;
+    private final int bufferBytes;
+    private final Map<String, GameMessageRing> rings = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Publisher {
+        void publish(byte[] json, long seq);
+    }
+
+    public GameReplayService(ObjectMapper objectMapper,
+                             @Value("${game.resync.buffer-messages:128}") int bufferMessages,
+                             @Value("${game.resync.buffer-bytes:65536}") int bufferBytes) {
+        this.objectMapper = objectMapper;
+        this.bufferMessages = bufferMessages;
+        this.bufferBytes = bufferBytes;
+    }
+
+    /**
+     * Serializes {@code message} once, assigns it the game's next sequence and hands both to
+     * {@code publisher} for the live broadcast.
+     *
+     * @param snapshot new state of the game for clients too far behind, or null if unchanged
+     */
+    public void publish(String gameId, GameMessage message, Object snapshot, Publisher publisher)
+            throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(message);
+        byte[] snapshotJson = snapshot == null ? null : objectMapper.writeValueAsBytes(snapshot);
+        GameMessageRing ring = rings.computeIfAbsent(gameId, id -> new GameMessageRing(bufferMessages, bufferBytes));
+        synchronized (ring) {
+            long seq = ring.append(json);
+            if (snapshotJson != null) {
+                ring.setSnapshot(snapshotJson);
+            }
+            publisher.publish(json, seq);
+        }
+    }
+
+    public void remove(String gameId) {
+        rings.remove(gameId);
+    }
+
+    /**
+     * @return the last sequence published for {@code gameId}, or 0 if none
+     */
+    public long lastSeq(String gameId) {
+        GameMessageRing ring = rings.get(gameId);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            return ring.lastSeq();
+        }
+    }
+
+    public byte[] snapshot(String gameId) {
+        GameMessageRing ring = rings.get(gameId);
+        if (ring == null) {
+            return null;
+        }
+        synchronized (ring) {
+            return ring.getSnapshot();
+        }
+    }
+
+    /**
+     * Takes over the numbering of a game moved here from another node, so its clients'
+     * sequences stay valid. Messages from before the move are not retained; a client that
+     * missed any of them gets the snapshot.
+     */
+    public void restore(String gameId, long lastSeq, byte[] snapshot) {
+        GameMessageRing ring = new GameMessageRing(bufferMessages, bufferBytes);
+        ring.resumeAfter(lastSeq);
+        ring.setSnapshot(snapshot);
+        rings.put(gameId, ring);
+    }
+
+    @Override
+    public void resync(String destination, long lastSeq, Runnable register, Consumer<byte[]> reply) {
+        String gameId = gameIdOf(destination);
+        GameMessageRing ring = gameId == null ? null : rings.get(gameId);
+        if (ring == null) {
+            register.run();
+            return;
+        }
+        synchronized (ring) {
+            register.run();
+            if (lastSeq == ring.lastSeq()) {
+                return;
+            }
+            reply.accept(ring.covers(lastSeq) ? suffix(gameId, ring, lastSeq) : snapshot(gameId, ring));
+        }
+        log.debug("Resynced {} from seq {} to {}", destination, lastSeq, ring.lastSeq());
+    }
+
+    private byte[] suffix(String gameId, GameMessageRing ring, long lastSeq) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ring.bytes() + 128);
+        write(out, "{\"type\":\"RESYNC\",\"gameId\":" + quote(gameId)
+                + ",\"fromSeq\":" + (lastSeq + 1) + ",\"toSeq\":" + ring.lastSeq() + ",\"messages\":[");
+        for (long seq = lastSeq + 1; seq <= ring.lastSeq(); seq++) {
+            write(out, (seq > lastSeq + 1 ? "," : "") + "{\"seq\":" + seq + ",\"message\":");
+            out.writeBytes(ring.get(seq));
+            out.write('}');
+        }
+        write(out, "]}");
+        return out.toByteArray();
+    }
+
+    private byte[] snapshot(String gameId, GameMessageRing ring) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        write(out, "{\"type\":\"SNAPSHOT\",\"gameId\":" + quote(gameId) + ",\"seq\":" + ring.lastSeq() + ",\"snapshot\":");
+        byte[] snapshot = ring.getSnapshot();
+        out.writeBytes(snapshot == null ? "null".getBytes(StandardCharsets.US_ASCII) : snapshot);
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static String gameIdOf(String destination) {
+        if (destination == null || !destination.startsWith(GameTopicBroker.DESTINATION_PREFIX)) {
+            return null;
+        }
+        String gameId = destination.substring(GameTopicBroker.DESTINATION_PREFIX.length());
+        if (gameId.endsWith(BinaryProtocolInterceptor.BINARY_SUFFIX)) {
+            gameId = gameId.substring(0, gameId.length() - BinaryProtocolInterceptor.BINARY_SUFFIX.length());
+        }
+        return gameId.isEmpty() || gameId.indexOf('/') >= 0 ? null : gameId;
+    }
+
+    private String quote(String value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
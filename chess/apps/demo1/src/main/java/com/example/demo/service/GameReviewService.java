@@ -0,0 +1,585 @@
+package com.example.demo.service;
+
+import com.example.demo.cluster.ClusterService;
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import com.example.demo.engine.San;
+import com.example.demo.engine.Search;
+import com.example.demo.engine.TranspositionTable;
+import com.example.demo.model.Game;
+import com.example.demo.model.GameReview;
+import com.example.demo.persistence.MoveListCodec;
+import com.example.demo.repository.GameMovesRepository;
+import com.example.demo.repository.GameRepository;
+import com.example.demo.repository.GameReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Engine review of finished games: every position is searched to {@code game.review.depth},
+ * and each move is scored by how much it lost against the engine's choice, as centipawns and
+ * as a drop in winning chances, from which come per-player accuracy and inaccuracy, mistake
+ * and blunder annotations. A player whose accuracy over enough moves reaches
+ * {@code game.review.flag-accuracy} has the review flagged for a fair-play look.
+ * <p>
+ * The {@code game-review} thread works through the archive in pages of games by row id,
+ * fanning the finished ones out over a fork-join pool of {@code game.review.threads} engine
+ * workers, and saves the reviews before recording how far it got in
+ * {@code game.review.cursor-file}; a restart carries on from there. Rows are committed out of
+ * id order by concurrent writers such as the PGN import, so an id missing from a page is
+ * looked up again with every page until it shows up or has been missing for a minute, and
+ * the cursor stays short of it until then. Games finished live are queued by {@link #addGame}
+ * and taken before the next page, as their ids may be behind the cursor. Once the archive is
+ * done it is looked at again every {@code poll-millis}.
+ * <p>
+ * In a cluster every node walks the whole archive but reviews only the games the
+ * {@link ClusterService} ring assigns it, so each game is reviewed once; games finished live
+ * are queued on the node that owned them.
+ * <p>
+ * Reviews only use idle CPU: before each position a worker checks how busy the machine is
+ * without the review threads, sampled at most once a second, and waits while that is above
+ * {@code game.review.pause-above-load}.
+ */
+@Slf4j
+@Service
+public class GameReviewService {
+    private static final long LOAD_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PAUSE_MILLIS = 500;
+    /** How long an id missing from the archive may still be committed by a running writer. */
+    private static final long GAP_SETTLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /** Searches are bounded by depth; this only stops one that runs away. */
+    private static final long SEARCH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    /** Scores are capped here before conversion to winning chances, as lichess does. */
+    private static final int MAX_CENTIPAWNS = 1000;
+    private static final int MATE_BOUND = Search.MATE - 2 * Search.MAX_DEPTH;
+    private static final double INACCURACY = 5;
+    private static final double MISTAKE = 10;
+    private static final double BLUNDER = 15;
+
+    private final GameRepository gameRepository;
+    private final GameMovesRepository gameMovesRepository;
+    private final GameReviewRepository gameReviewRepository;
+    private final GameService gameService;
+    /** Looked up lazily: the cluster depends on the sessions, which depend on this service. */
+    private final ObjectProvider<ClusterService> clusterService;
+    private final boolean enabled;
+    private final int depth;
+    private final int pageSize;
+    private final long pollMillis;
+    private final double pauseAboveLoad;
+    private final double flagAccuracy;
+    private final int flagMinMoves;
+    private final Path cursorFile;
+    private final TranspositionTable table;
+    private final ForkJoinPool workers;
+    private final ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-review");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<PendingGame> pending = new ConcurrentLinkedQueue<>();
+    private final Set<Search> running = ConcurrentHashMap.newKeySet();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private final AtomicLong reviewCpuNanos = new AtomicLong();
+    private final Counter reviewed;
+    private final Counter flagged;
+    private final Counter pauses;
+    /** Ids missing below {@link #scanned}, with when they were first missed. */
+    private final TreeMap<Integer, Long> gaps = new TreeMap<>();
+    private volatile int cursor;
+    private int scanned;
+    private volatile double gamesPerMinute;
+    private long lastSampleNanos = System.nanoTime();
+    private long lastReviewCpuNanos;
+    private boolean busy;
+
+    /**
+     * @param averageLoss mean centipawns lost per move
+     */
+    public record PlayerSummary(double accuracy, int averageLoss, int moves, int inaccuracies, int mistakes,
+                                int blunders) {
+    }
+
+    /**
+     * @param score centipawns from White's point of view after the move
+     * @param mate moves to mate from White's point of view after the move, or null
+     * @param best the engine's move in the position before, in SAN
+     * @param loss centipawns lost against the engine's move
+     * @param judgement "inaccuracy", "mistake", "blunder", or null
+     */
+    public record MoveAnnotation(int ply, String san, int score, Integer mate, String best, int loss,
+                                 double accuracy, String judgement) {
+    }
+
+    public record Review(String gameId, int depth, boolean flagged, PlayerSummary white, PlayerSummary black,
+                         List<MoveAnnotation> moves, LocalDateTime reviewedAt) {
+    }
+
+    private record PendingGame(String gameId, int[] moves) {
+    }
+
+    private record ReviewInput(String gameId, Long whitePlayerId, Long blackPlayerId, int[] moves) {
+    }
+
+    public GameReviewService(GameRepository gameRepository, GameMovesRepository gameMovesRepository,
+                             GameReviewRepository gameReviewRepository, GameService gameService,
+                             ObjectProvider<ClusterService> clusterService, MeterRegistry meterRegistry,
+                             @Value("${game.review.enabled:true}") boolean enabled,
+                             @Value("${game.review.depth:8}") int depth,
+                             @Value("${game.review.threads:1}") int threads,
+                             @Value("${game.review.hash-mb:16}") int hashMegabytes,
+                             @Value("${game.review.page-size:100}") int pageSize,
+                             @Value("${game.review.poll-millis:60000}") long pollMillis,
+                             @Value("${game.review.pause-above-load:0.5}") double pauseAboveLoad,
+                             @Value("${game.review.flag-accuracy:95}") double flagAccuracy,
+                             @Value("${game.review.flag-min-moves:20}") int flagMinMoves,
+                             @Value("${game.review.cursor-file:data/review/cursor}") String cursorFile) {
+        this.gameRepository = gameRepository;
+        this.gameMovesRepository = gameMovesRepository;
+        this.gameReviewRepository = gameReviewRepository;
+        this.gameService = gameService;
+        this.clusterService = clusterService;
+        this.enabled = enabled;
+        this.depth = Math.max(1, Math.min(depth, Search.MAX_DEPTH));
+        this.pageSize = pageSize;
+        this.pollMillis = pollMillis;
+        this.pauseAboveLoad = pauseAboveLoad;
+        this.flagAccuracy = flagAccuracy;
+        this.flagMinMoves = flagMinMoves;
+        this.cursorFile = Path.of(cursorFile);
+        this.table = new TranspositionTable(hashMegabytes);
+        this.workers = new ForkJoinPool(Math.max(1, threads), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("review-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+        this.reviewed = Counter.builder("review.games").register(meterRegistry);
+        this.flagged = Counter.builder("review.flagged").register(meterRegistry);
+        this.pauses = Counter.builder("review.pauses").register(meterRegistry);
+        Gauge.builder("review.games-per-minute", this, service -> service.gamesPerMinute).register(meterRegistry);
+        Gauge.builder("review.pending", pending, Queue::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        cursor = Files.exists(cursorFile) ? Integer.parseInt(Files.readString(cursorFile).trim()) : 0;
+        scanned = cursor;
+        log.info("Reviewing finished games after id {} at depth {} on {} threads", cursor, depth,
+                workers.getParallelism());
+        driver.scheduleWithFixedDelay(this::drain, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        driver.shutdownNow();
+        running.forEach(Search::stop);
+        workers.shutdownNow();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Review threads did not stop in time");
+        }
+    }
+
+    /**
+     * Queues a game finished live for review ahead of the archive.
+     */
+    public void addGame(String gameId, int[] moves) {
+        if (enabled && moves.length > 0) {
+            pending.add(new PendingGame(gameId, moves.clone()));
+        }
+    }
+
+    /**
+     * @return the review of a game, or null if it has not been reviewed yet
+     */
+    public Review getReview(String gameId) {
+        GameReview review = gameReviewRepository.findById(gameId).orElse(null);
+        MoveListCodec.MoveList moveList = review == null ? null : gameService.getMoveList(gameId);
+        if (moveList == null) {
+            return null;
+        }
+        int[] moves = moveList.moves();
+        byte[] evaluations = review.getEvaluations();
+        List<MoveAnnotation> annotations = new ArrayList<>(moves.length);
+        Board board = new Board();
+        for (int ply = 0; ply < moves.length; ply++) {
+            int best = bestMove(evaluations, ply);
+            String bestSan = best == Move.NONE || !board.isLegal(best) ? null : San.of(board, best);
+            String san = San.of(board, moves[ply]);
+            board.makeMove(moves[ply]);
+            int after = score(evaluations, ply + 1);
+            int sign = board.getSideToMove() == Piece.WHITE ? 1 : -1;
+            double drop = winningChancesLost(evaluations, moves, ply);
+            Integer mate = Math.abs(after) >= MATE_BOUND ? sign * mateIn(after) : null;
+            annotations.add(new MoveAnnotation(ply + 1, san, sign * centipawns(after), mate, bestSan,
+                    loss(evaluations, moves, ply), accuracy(drop), judgement(drop)));
+        }
+        PlayerSummary[] summaries = summarize(evaluations, moves);
+        return new Review(gameId, review.getDepth(), review.isFlagged(), summaries[Piece.WHITE],
+                summaries[Piece.BLACK], annotations, review.getReviewedAt());
+    }
+
+    /**
+     * Reviews live games first, then the archive page by page, until both are done.
+     */
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<ReviewInput> batch = pendingBatch();
+                if (batch.isEmpty()) {
+                    List<Game> games = nextPage();
+                    if (games.isEmpty()) {
+                        settleCursor();
+                        return;
+                    }
+                    batch = archivedInputs(games);
+                }
+                reviewBatch(batch);
+                settleCursor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException | IOException | ExecutionException e) {
+            log.error("Error reviewing games after id {}, retrying in {} ms", cursor, pollMillis, e);
+        }
+    }
+
+    private List<ReviewInput> pendingBatch() {
+        List<ReviewInput> batch = new ArrayList<>();
+        PendingGame game;
+        while (batch.size() < pageSize && (game = pending.poll()) != null) {
+            Game row = gameService.getGame(game.gameId());
+            if (row != null) {
+                batch.add(new ReviewInput(game.gameId(), row.getWhitePlayerId(), row.getBlackPlayerId(), game.moves()));
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * @return the games that turned up for missing ids, then the next page after {@link #scanned}
+     */
+    private List<Game> nextPage() {
+        List<Game> games = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            gameRepository.findAllById(gaps.keySet()).forEach(game -> {
+                gaps.remove(game.getId());
+                games.add(game);
+            });
+        }
+        List<Game> page = gameRepository.findByIdGreaterThanOrderByIdAsc(scanned, Limit.of(pageSize));
+        long now = System.nanoTime();
+        for (Game game : page) {
+            for (int id = scanned + 1; id < game.getId(); id++) {
+                gaps.put(id, now);
+            }
+            scanned = game.getId();
+        }
+        games.addAll(page);
+        return games;
+    }
+
+    /**
+     * Gives up on ids missing for longer than a write takes and records the cursor just short
+     * of the first one still expected.
+     */
+    private void settleCursor() throws IOException {
+        long now = System.nanoTime();
+        gaps.values().removeIf(missedAt -> now - missedAt >= GAP_SETTLE_NANOS);
+        int settled = gaps.isEmpty() ? scanned : gaps.firstKey() - 1;
+        if (settled != cursor) {
+            cursor = settled;
+            writeCursor();
+        }
+    }
+
+    /**
+     * @return the finished games of a page that have archived moves and no review yet
+     */
+    private List<ReviewInput> archivedInputs(List<Game> page) {
+        ClusterService cluster = clusterService.getIfAvailable();
+        List<Game> games = cluster == null ? page
+                : page.stream().filter(game -> cluster.isLocal(game.getGameId())).toList();
+        if (games.isEmpty()) {
+            return List.of();
+        }
+        List<String> gameIds = games.stream().map(Game::getGameId).toList();
+        Set<String> done = new HashSet<>();
+        gameReviewRepository.findAllById(gameIds).forEach(review -> done.add(review.getGameId()));
+        Map<String, byte[]> moves = new HashMap<>();
+        gameMovesRepository.findAllById(gameIds).forEach(row -> moves.put(row.getGameId(), row.getMoves()));
+        List<ReviewInput> inputs = new ArrayList<>(games.size());
+        for (Game game : games) {
+            byte[] packed = moves.get(game.getGameId());
+            if (game.getResult() != null && packed != null && !done.contains(game.getGameId())) {
+                inputs.add(new ReviewInput(game.getGameId(), game.getWhitePlayerId(), game.getBlackPlayerId(),
+                        MoveListCodec.decode(packed, 0).moves()));
+            }
+        }
+        return inputs;
+    }
+
+    private void reviewBatch(List<ReviewInput> batch) throws InterruptedException, ExecutionException {
+        long started = System.nanoTime();
+        List<ForkJoinTask<GameReview>> tasks = new ArrayList<>(batch.size());
+        for (ReviewInput input : batch) {
+            tasks.add(workers.submit(() -> review(input)));
+        }
+        List<GameReview> reviews = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<GameReview> task : tasks) {
+            GameReview review = task.get();
+            if (review != null) {
+                reviews.add(review);
+            }
+        }
+        gameReviewRepository.saveAll(reviews);
+        reviewed.increment(reviews.size());
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        gamesPerMinute = reviews.size() * 60_000.0 / millis;
+        if (!reviews.isEmpty()) {
+            log.info("Reviewed {} games in {} ms, {} games/minute", reviews.size(), millis,
+                    String.format("%.1f", gamesPerMinute));
+        }
+    }
+
+    /**
+     * @return the review, or null if the game has no moves
+     */
+    private GameReview review(ReviewInput input) throws InterruptedException {
+        int[] moves = input.moves();
+        if (moves.length == 0) {
+            return null;
+        }
+        byte[] evaluations = new byte[(moves.length + 1) * 4];
+        Board board = new Board();
+        Search.Limits limits = new Search.Limits(depth, Long.MAX_VALUE, SEARCH_MILLIS);
+        for (int ply = 0; ; ply++) {
+            awaitIdleCpu();
+            long cpuStarted = threadBean.getCurrentThreadCpuTime();
+            Search search = new Search(table, 1);
+            running.add(search);
+            Search.Iteration iteration;
+            try {
+                iteration = search.run(board, limits, null, null);
+            } finally {
+                running.remove(search);
+            }
+            reviewCpuNanos.addAndGet(threadBean.getCurrentThreadCpuTime() - cpuStarted);
+            put(evaluations, ply, iteration.score(), iteration.bestMove());
+            if (ply == moves.length) {
+                break;
+            }
+            board.makeMove(moves[ply]);
+        }
+
+        PlayerSummary[] summaries = summarize(evaluations, moves);
+        boolean suspicious = false;
+        for (PlayerSummary summary : summaries) {
+            suspicious |= summary.moves() >= flagMinMoves && summary.accuracy() >= flagAccuracy;
+        }
+        if (suspicious) {
+            flagged.increment();
+            log.warn("Game {} flagged for review: accuracy white {} black {}", input.gameId(),
+                    summaries[Piece.WHITE].accuracy(), summaries[Piece.BLACK].accuracy());
+        }
+        return GameReview.builder()
+                .gameId(input.gameId())
+                .whitePlayerId(input.whitePlayerId())
+                .blackPlayerId(input.blackPlayerId())
+                .depth(depth)
+                .whiteAccuracy(summaries[Piece.WHITE].accuracy())
+                .blackAccuracy(summaries[Piece.BLACK].accuracy())
+                .whiteAverageLoss(summaries[Piece.WHITE].averageLoss())
+                .blackAverageLoss(summaries[Piece.BLACK].averageLoss())
+                .flagged(suspicious)
+                .evaluations(evaluations)
+                .reviewedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Waits while the machine is busy with work other than reviews.
+     */
+    private void awaitIdleCpu() throws InterruptedException {
+        boolean paused = false;
+        while (machineBusy()) {
+            if (!paused) {
+                pauses.increment();
+                paused = true;
+            }
+            Thread.sleep(PAUSE_MILLIS);
+        }
+    }
+
+    /**
+     * @return true if the share of the CPU used outside the review threads over the last
+     * sample was above {@code pause-above-load}
+     */
+    private synchronized boolean machineBusy() {
+        long now = System.nanoTime();
+        if (now - lastSampleNanos < LOAD_SAMPLE_NANOS
+                || !(osBean instanceof com.sun.management.OperatingSystemMXBean os)) {
+            return busy;
+        }
+        double load = os.getCpuLoad();
+        long reviewCpu = reviewCpuNanos.get();
+        double reviewShare = (double) (reviewCpu - lastReviewCpuNanos) / ((now - lastSampleNanos) * cores);
+        lastSampleNanos = now;
+        lastReviewCpuNanos = reviewCpu;
+        busy = load >= 0 && load - reviewShare > pauseAboveLoad;
+        return busy;
+    }
+
+    private void writeCursor() throws IOException {
+        Path parent = cursorFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "cursor", ".tmp");
+        Files.writeString(temp, Integer.toString(cursor));
+        Files.move(temp, cursorFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static PlayerSummary[] summarize(byte[] evaluations, int[] moves) {
+        double[] accuracy = new double[2];
+        long[] loss = new long[2];
+        int[] count = new int[2];
+        int[][] judgements = new int[2][3];
+        for (int ply = 0; ply < moves.length; ply++) {
+            int color = ply & 1;
+            double drop = winningChancesLost(evaluations, moves, ply);
+            accuracy[color] += accuracy(drop);
+            loss[color] += loss(evaluations, moves, ply);
+            count[color]++;
+            if (drop >= BLUNDER) {
+                judgements[color][2]++;
+            } else if (drop >= MISTAKE) {
+                judgements[color][1]++;
+            } else if (drop >= INACCURACY) {
+                judgements[color][0]++;
+            }
+        }
+        PlayerSummary[] summaries = new PlayerSummary[2];
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            int moveCount = Math.max(1, count[color]);
+            summaries[color] = new PlayerSummary(Math.round(accuracy[color] / moveCount * 10) / 10.0,
+                    (int) (loss[color] / moveCount), count[color], judgements[color][0], judgements[color][1],
+                    judgements[color][2]);
+        }
+        return summaries;
+    }
+
+    /**
+     * @return centipawns the move at {@code ply} lost against the engine's move, from the
+     * mover's point of view; the engine's own move loses nothing
+     */
+    private static int loss(byte[] evaluations, int[] moves, int ply) {
+        if (moves[ply] == bestMove(evaluations, ply)) {
+            return 0;
+        }
+        int before = centipawns(score(evaluations, ply));
+        int after = -centipawns(score(evaluations, ply + 1));
+        return Math.max(0, before - after);
+    }
+
+    private static double winningChancesLost(byte[] evaluations, int[] moves, int ply) {
+        if (moves[ply] == bestMove(evaluations, ply)) {
+            return 0;
+        }
+        double before = winPercent(centipawns(score(evaluations, ply)));
+        double after = winPercent(-centipawns(score(evaluations, ply + 1)));
+        return Math.max(0, before - after);
+    }
+
+    /**
+     * @return the chance of winning, 0 to 100, for a side with this score
+     */
+    private static double winPercent(int centipawns) {
+        return 50 + 50 * (2 / (1 + Math.exp(-0.00368208 * centipawns)) - 1);
+    }
+
+    /**
+     * @return the accuracy, 0 to 100, of a move that lost {@code drop} points of winning chances
+     */
+    private static double accuracy(double drop) {
+        return Math.max(0, Math.min(100, 103.1668 * Math.exp(-0.04354 * drop) - 3.1669));
+    }
+
+    private static String judgement(double drop) {
+        return drop >= BLUNDER ? "blunder" : drop >= MISTAKE ? "mistake" : drop >= INACCURACY ? "inaccuracy" : null;
+    }
+
+    private static int centipawns(int score) {
+        return Math.max(-MAX_CENTIPAWNS, Math.min(MAX_CENTIPAWNS, score));
+    }
+
+    /**
+     * @return moves to mate for the side to move of a mate score, negative if it is being
+     * mated, or 0 if it already is
+     */
+    private static int mateIn(int score) {
+        int moves = (Search.MATE - Math.abs(score) + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    private static void put(byte[] evaluations, int position, int score, int move) {
+        int offset = position * 4;
+        evaluations[offset] = (byte) (score >> 8);
+        evaluations[offset + 1] = (byte) score;
+        evaluations[offset + 2] = (byte) (move >> 8);
+        evaluations[offset + 3] = (byte) move;
+    }
+
+    private static int score(byte[] evaluations, int position) {
+        int offset = position * 4;
+        return (short) ((evaluations[offset] & 0xFF) << 8 | (evaluations[offset + 1] & 0xFF));
+    }
+
+    private static int bestMove(byte[] evaluations, int position) {
+        int offset = position * 4;
+        return (evaluations[offset + 2] & 0xFF) << 8 | (evaluations[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.demo.service;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Piece;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+import com.example.demo.repository.GameRepository;
+import com.example.demo.search.PostingBuffer;
+import com.example.demo.search.PostingIndex;
+import com.example.demo.search.PostingSegment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Finds archived games by position: every position a game passed through, and its material
+ * signature, is an entry in a {@link PostingIndex} under {@code game.search.dir}, so a search
+ * is a lookup there plus one page of game rows.
+ * <p>
+ * Finished games are queued by {@link #addGame} and indexed on the {@code game-search}
+ * thread once their row ids can be read, a second or so later. When the indexes are empty
+ * on startup, or {@code game.search.rebuild-on-startup} is set, they are rebuilt from the
+ * archive in parallel chunks of game ids while new games keep being added.
+ */
+@Slf4j
+@Service
+public class GameSearchService {
+    private static final String SELECT_IDS = "SELECT game_id, id FROM games WHERE game_id IN (%s)";
+    private static final String SELECT_MAX_ID = "SELECT MAX(id) FROM games";
+    private static final String SELECT_CHUNK = "SELECT g.id, m.moves FROM games g "
+            + "JOIN game_moves m ON m.game_id = g.game_id WHERE g.id > ? AND g.id <= ?";
+    private static final int RESOLVE_BATCH = 500;
+    private static final int MAX_RESOLVE_ATTEMPTS = 60;
+    private static final long DRAIN_INTERVAL_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MATERIAL_BITS = 4;
+    private static final String MATERIAL_LETTERS = "PNBRQ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GameRepository gameRepository;
+    private final Path directory;
+    private final int bufferPairs;
+    private final long flushIntervalMillis;
+    private final int maxSegments;
+    private final boolean rebuildOnStartup;
+    private final int rebuildChunkGames;
+    private final int rebuildThreads;
+    private final Queue<PendingGame> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private PostingIndex positions;
+    private PostingIndex material;
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Games newest first, with {@code next} the cursor for the following page, or null after
+     * the last one.
+     */
+    public record SearchPage(long total, List<Game> games, Integer next) {
+    }
+
+    private record PendingGame(String gameId, int[] moves, int attempts) {
+    }
+
+    /**
+     * Where the keys of a game go: a live index, or a rebuild chunk.
+     */
+    private interface KeySink {
+        void add(long key, int id);
+    }
+
+    public GameSearchService(JdbcTemplate jdbcTemplate, GameRepository gameRepository,
+                             @Value("${game.search.dir:data/search}") String directory,
+                             @Value("${game.search.buffer-pairs:262144}") int bufferPairs,
+                             @Value("${game.search.flush-interval-millis:60000}") long flushIntervalMillis,
+                             @Value("${game.search.max-segments:8}") int maxSegments,
+                             @Value("${game.search.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                             @Value("${game.search.rebuild-chunk-games:20000}") int rebuildChunkGames,
+                             @Value("${game.search.rebuild-threads:0}") int rebuildThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gameRepository = gameRepository;
+        this.directory = Path.of(directory);
+        this.bufferPairs = bufferPairs;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxSegments = maxSegments;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildChunkGames = rebuildChunkGames;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        positions = PostingIndex.open(directory, "positions");
+        material = PostingIndex.open(directory, "material");
+        if (rebuildOnStartup || positions.segmentCount() == 0) {
+            indexer.execute(this::rebuild);
+        }
+        indexer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        indexer.shutdownNow();
+        if (!indexer.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Game search thread did not stop in time");
+            return;
+        }
+        if (positions != null) {
+            drain();
+            flush();
+        }
+    }
+
+    /**
+     * Queues a finished game for indexing. Its row must be written, or about to be.
+     */
+    public void addGame(String gameId, int[] moves) {
+        pending.add(new PendingGame(gameId, moves, 0));
+    }
+
+    /**
+     * Searches by exact position or by material, such as {@code KQRvKR}; exactly one of the
+     * two must be given.
+     *
+     * @param before only games with a lower id, for paging; null for the first page
+     * @throws IllegalArgumentException if the FEN or the material cannot be read
+     */
+    public SearchPage search(String fen, String material, Integer before, int limit) {
+        if ((fen == null) == (material == null)) {
+            throw new IllegalArgumentException("Search by either a position or material");
+        }
+        if (positions == null) {
+            throw new IllegalStateException("Game search is not ready");
+        }
+        int[] ids = fen != null ? positions.lookup(new Board(fen).getHash())
+                : this.material.lookup(parseMaterial(material));
+        int end = before == null ? ids.length : lowerBound(ids, before);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int start = Math.max(0, end - size);
+        List<Integer> page = new ArrayList<>(end - start);
+        for (int i = end - 1; i >= start; i--) {
+            page.add(ids[i]);
+        }
+        List<Game> games = new ArrayList<>(gameRepository.findAllById(page));
+        games.sort(Comparator.comparing(Game::getId).reversed());
+        return new SearchPage(ids.length, games, start > 0 ? ids[start] : null);
+    }
+
+    private void drain() {
+        try {
+            List<PendingGame> batch = new ArrayList<>(RESOLVE_BATCH);
+            int queued = pending.size();
+            for (int i = 0; i < queued; i++) {
+                PendingGame game = pending.poll();
+                if (game == null) {
+                    break;
+                }
+                batch.add(game);
+                if (batch.size() == RESOLVE_BATCH) {
+                    index(batch);
+                    batch.clear();
+                }
+            }
+            index(batch);
+            if (positions.bufferedPairs() >= bufferPairs
+                    || System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis)) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error indexing games for search", e);
+        }
+    }
+
+    private void index(List<PendingGame> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> rowIds = new HashMap<>();
+        try {
+            jdbcTemplate.query(String.format(SELECT_IDS, String.join(",", Collections.nCopies(batch.size(), "?"))),
+                    row -> {
+                        rowIds.put(row.getString("game_id"), row.getInt("id"));
+                    }, batch.stream().map(PendingGame::gameId).toArray());
+        } catch (DataAccessException e) {
+            pending.addAll(batch);
+            throw e;
+        }
+        for (PendingGame game : batch) {
+            Integer id = rowIds.get(game.gameId());
+            if (id != null) {
+                add(positions::add, material::add, id, game.moves());
+            } else if (game.attempts() + 1 < MAX_RESOLVE_ATTEMPTS) {
+                pending.add(new PendingGame(game.gameId(), game.moves(), game.attempts() + 1));
+            } else {
+                log.warn("Game {} was never written, leaving it out of search", game.gameId());
+            }
+        }
+    }
+
+    private void flush() {
+        lastFlush = System.nanoTime();
+        for (PostingIndex index : List.of(positions, material)) {
+            try {
+                index.flush();
+                index.compact(maxSegments);
+            } catch (IOException e) {
+                log.error("Error writing game search segment to {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds both indexes from the archive. Each chunk of game ids is read and written out
+     * as a part on its own thread; the parts are then merged into one segment per index,
+     * which replaces those present when the rebuild began.
+     */
+    private void rebuild() {
+        long started = System.nanoTime();
+        List<PostingSegment> oldPositions = positions.segments();
+        List<PostingSegment> oldMaterial = material.segments();
+        Integer maxId = jdbcTemplate.queryForObject(SELECT_MAX_ID, Integer.class);
+        int chunks = maxId == null ? 0 : (maxId + rebuildChunkGames - 1) / rebuildChunkGames;
+        List<PostingSegment[]> parts = Collections.synchronizedList(new ArrayList<>());
+        ForkJoinPool pool = new ForkJoinPool(rebuildThreads);
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk ->
+                    parts.add(rebuildChunk(chunk * rebuildChunkGames, (chunk + 1) * rebuildChunkGames)))).get();
+            List<PostingSegment> positionParts = new ArrayList<>(parts.size());
+            List<PostingSegment> materialParts = new ArrayList<>(parts.size());
+            for (PostingSegment[] part : parts) {
+                positionParts.add(part[0]);
+                materialParts.add(part[1]);
+            }
+            positions.replace(oldPositions, positionParts);
+            material.replace(oldMaterial, materialParts);
+            log.info("Game search rebuilt over {} games in {} ms: {} positions, {} bytes", maxId == null ? 0 : maxId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    positions.segments().get(0).keyCount(), positions.sizeBytes() + material.sizeBytes());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error rebuilding game search in {}", directory, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private PostingSegment[] rebuildChunk(int fromId, int toId) {
+        PostingBuffer chunkPositions = new PostingBuffer(rebuildChunkGames * 64);
+        PostingBuffer chunkMaterial = new PostingBuffer(rebuildChunkGames * 8);
+        jdbcTemplate.query(SELECT_CHUNK, row -> {
+            add(chunkPositions::add, chunkMaterial::add, row.getInt("id"),
+                    MoveListCodec.decode(row.getBytes("moves"), 0).moves());
+        }, fromId, toId);
+        try {
+            return new PostingSegment[]{
+                    chunkPositions.writeSegment(positions.newPartPath()),
+                    chunkMaterial.writeSegment(material.newPartPath())
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void add(KeySink positions, KeySink material, int id, int[] moves) {
+        long[][] keys = keys(moves);
+        for (long key : keys[0]) {
+            positions.add(key, id);
+        }
+        for (long key : keys[1]) {
+            material.add(key, id);
+        }
+    }
+
+    /**
+     * @return the distinct position hashes and the distinct material signatures of a game,
+     * from the starting position on
+     */
+    private static long[][] keys(int[] moves) {
+        long[] hashes = new long[moves.length + 1];
+        long[] signatures = new long[moves.length + 1];
+        Board board = new Board();
+        for (int ply = 0; ; ply++) {
+            hashes[ply] = board.getHash();
+            signatures[ply] = signature(board);
+            if (ply == moves.length) {
+                break;
+            }
+            board.makeMove(moves[ply]);
+        }
+        return new long[][]{distinct(hashes), distinct(signatures)};
+    }
+
+    private static long[] distinct(long[] keys) {
+        Arrays.sort(keys);
+        int count = 0;
+        for (long key : keys) {
+            if (count == 0 || keys[count - 1] != key) {
+                keys[count++] = key;
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Packs the number of pawns, knights, bishops, rooks and queens of each side into four
+     * bits apiece, white in the low half.
+     */
+    private static long signature(Board board) {
+        long signature = 0;
+        for (int color = Piece.WHITE; color <= Piece.BLACK; color++) {
+            for (int type = Piece.PAWN; type < Piece.KING; type++) {
+                int count = Long.bitCount(board.pieces(Piece.of(color, type)));
+                signature |= (long) count << (MATERIAL_BITS * (color * MATERIAL_LETTERS.length() + type));
+            }
+        }
+        return signature;
+    }
+
+    static long parseMaterial(String text) {
+        int split = text.toUpperCase().indexOf('V');
+        if (split < 0) {
+            throw new IllegalArgumentException("Material must look like KQRvKR: " + text);
+        }
+        int[] counts = new int[2 * MATERIAL_LETTERS.length()];
+        for (int i = 0; i < text.length(); i++) {
+            char letter = Character.toUpperCase(text.charAt(i));
+            if (i == split || letter == 'K') {
+                continue;
+            }
+            int type = MATERIAL_LETTERS.indexOf(letter);
+            if (type < 0) {
+                throw new IllegalArgumentException("Unknown piece '" + text.charAt(i) + "' in material " + text);
+            }
+            counts[(i < split ? Piece.WHITE : Piece.BLACK) * MATERIAL_LETTERS.length() + type]++;
+        }
+        long signature = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] >= 1 << MATERIAL_BITS) {
+                throw new IllegalArgumentException("Too many pieces in material " + text);
+            }
+            signature |= (long) counts[i] << (MATERIAL_BITS * i);
+        }
+        return signature;
+    }
+
+    /**
+     * @return the index of the first id not below {@code id}
+     */
+    private static int lowerBound(int[] ids, int id) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,42 +1,37 @@
 package com.example.demo.service;
 
+import com.example.demo.clock.TimeControl;
 import com.example.demo.model.Game;
+import com.example.demo.model.GameMoves;
 import com.example.demo.model.User;
+import com.example.demo.persistence.MoveListCodec;
+import com.example.demo.persistence.WriteBehindStore;
+import com.example.demo.pgn.PgnWriter;
+import com.example.demo.repository.GameMovesRepository;
 import com.example.demo.repository.GameRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
+/**
+ * Game rows and archived move lists. Writes go through {@link WriteBehindStore}, which
+ * batches them to the database off the request thread; reads apply its pending writes on
+ * top of what is stored.
+ */
 @Slf4j
 @Service
 @AllArgsConstructor
 public class GameService {
     private final GameRepository gameRepository;
-
-    public List<Game> getUnstartedGames() {
-        return gameRepository.findAll().stream()
-                .filter(game -> game.getWhitePlayerId() == null || game.getBlackPlayerId() == null)
-                .collect(Collectors.toList());
-    }
-
-    public List<Game> getStartedGames() {
-        return gameRepository.findAll().stream()
-                .filter(game -> game.getWhitePlayerId() != null && game.getBlackPlayerId() != null)
-                .collect(Collectors.toList());
-    }
-
-    public List<Game> getGames() {
-        return gameRepository.findAll();
-    }
+    private final GameMovesRepository gameMovesRepository;
+    private final WriteBehindStore writeBehindStore;
+    private final LobbyService lobbyService;
 
     public Game getGame(String gameId) {
-        return gameRepository.findAll().stream()
-                .filter(game -> game.getGameId().equals(gameId))
-                .findFirst()
-                .orElse(null);
+        return writeBehindStore.readGame(gameId, () -> gameRepository.findByGameId(gameId).orElse(null));
     }
 
     public Game createGame(User gameDto, String gameCode) {
@@ -48,24 +43,117 @@ public class GameService {
                 .blackPlayerName(null)
                 .blackPlayerId(null)
                 .gameId(gameCode)
-                .pgn(null)
+                .baseTimeMillis(TimeControl.DEFAULT.baseMillis())
+                .incrementMillis(TimeControl.DEFAULT.incrementMillis())
+                .result(null)
+                .build();
+        writeBehindStore.createGame(game);
+        lobbyService.update(game);
+        return game;
+    }
+
+    /**
+     * Creates a game of {@code user} against a computer opponent, with both seats taken.
+     */
+    public Game createBotGame(User user, String gameCode, boolean userIsWhite, long botId, String botName,
+                              int botElo, TimeControl timeControl) {
+        Long userId = Long.valueOf(user.getId());
+        Game game = Game.builder()
+                .whitePlayerId(userIsWhite ? userId : botId)
+                .whitePlayerName(userIsWhite ? user.getUsername() : botName)
+                .whitePlayerElo(userIsWhite ? user.getElo_rating() : botElo)
+                .blackPlayerId(userIsWhite ? botId : userId)
+                .blackPlayerName(userIsWhite ? botName : user.getUsername())
+                .blackPlayerElo(userIsWhite ? botElo : user.getElo_rating())
+                .gameId(gameCode)
+                .baseTimeMillis(timeControl.baseMillis())
+                .incrementMillis(timeControl.incrementMillis())
                 .result(null)
                 .build();
-        return gameRepository.save(game);
+        writeBehindStore.createGame(game);
+        return game;
+    }
+
+    /**
+     * Creates a game of two players paired by {@link MatchmakingService}, with both seats taken.
+     */
+    public Game createMatchedGame(User white, User black, String gameCode, TimeControl timeControl) {
+        Game game = Game.builder()
+                .whitePlayerId(Long.valueOf(white.getId()))
+                .whitePlayerName(white.getUsername())
+                .whitePlayerElo(white.getElo_rating())
+                .blackPlayerId(Long.valueOf(black.getId()))
+                .blackPlayerName(black.getUsername())
+                .blackPlayerElo(black.getElo_rating())
+                .gameId(gameCode)
+                .baseTimeMillis(timeControl.baseMillis())
+                .incrementMillis(timeControl.incrementMillis())
+                .result(null)
+                .build();
+        writeBehindStore.createGame(game);
+        return game;
     }
 
     public void deleteGame(String gameId) {
         log.info("Deleting game: {}", gameId);
-        gameRepository.findAll().stream()
-                .filter(game -> game.getGameId().equals(gameId))
-                .findFirst()
-                .ifPresent(game -> gameRepository.delete(game));
+        writeBehindStore.deleteGame(gameId);
+        lobbyService.remove(gameId);
+    }
+
+    public TimeControl getTimeControl(String gameId) {
+        return Optional.ofNullable(getGame(gameId))
+                .filter(game -> game.getBaseTimeMillis() != null)
+                .map(game -> new TimeControl(game.getBaseTimeMillis(),
+                        game.getIncrementMillis() == null ? 0 : game.getIncrementMillis()))
+                .orElse(TimeControl.DEFAULT);
+    }
+
+    public void finishGame(String gameId, String result, long whiteTimeLeftMillis, long blackTimeLeftMillis) {
+        Optional.ofNullable(getGame(gameId)).ifPresent(game -> {
+            game.setResult(result);
+            game.setWhitePlayerTimeLeftMillis(whiteTimeLeftMillis);
+            game.setBlackPlayerTimeLeftMillis(blackTimeLeftMillis);
+            game.setFinishedAt(LocalDateTime.now());
+            writeBehindStore.updateGame(game);
+            lobbyService.update(game);
+            log.info("Game {} finished with result {}", gameId, result);
+        });
+    }
+
+    /**
+     * Stores the packed move list of a finished game, see {@link MoveListCodec}.
+     */
+    public void archiveMoves(String gameId, byte[] moves) {
+        writeBehindStore.saveMoves(gameId, moves);
     }
 
-    public List<Game> getAvailableGames() {
-        return  gameRepository.findAll().stream()
-                .filter(game -> (game.getWhitePlayerId() == null) ^ (game.getBlackPlayerId() == null))
-                .collect(Collectors.toList());
+    /**
+     * Renders an archived game as PGN. Only this and {@link #getMoveList} read the move list.
+     *
+     * @return the PGN, or null if the game or its move list is unknown
+     */
+    public String getPgn(String gameId) {
+        Game game = getGame(gameId);
+        MoveListCodec.MoveList moves = game == null ? null : getMoveList(game);
+        return moves == null ? null : new PgnWriter().write(game, moves);
+    }
+
+    /**
+     * @return the archived moves of a game, or null if the game or its move list is unknown
+     */
+    public MoveListCodec.MoveList getMoveList(String gameId) {
+        Game game = getGame(gameId);
+        return game == null ? null : getMoveList(game);
+    }
+
+    private MoveListCodec.MoveList getMoveList(Game game) {
+        byte[] moves = writeBehindStore.readMoves(game.getGameId(),
+                () -> gameMovesRepository.findById(game.getGameId()).map(GameMoves::getMoves).orElse(null));
+        if (moves == null) {
+            return null;
+        }
+        return MoveListCodec.decode(moves, game.getBaseTimeMillis() != null
+                ? game.getBaseTimeMillis() : TimeControl.DEFAULT.baseMillis());
     }
 
     public Game joinGame(String gameId, Long blackPlayerId, Integer blackPlayerElo, String blackPlayerName) {
@@ -80,6 +168,8 @@ public class GameService {
         game.setBlackPlayerName(blackPlayerName);
         
         log.info("Game {} updated with black player: {}", gameId, blackPlayerName);
-        return gameRepository.save(game);
+        writeBehindStore.updateGame(game);
+        lobbyService.update(game);
+        return game;
     }
 }
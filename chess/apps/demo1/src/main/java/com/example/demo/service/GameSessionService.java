@@ -1,40 +1,421 @@
 package com.example.demo.service;
 
+import com.example.demo.clock.GameClock;
+import com.example.demo.engine.Bitboards;
+import com.example.demo.engine.Board;
+import com.example.demo.engine.DrawReason;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import com.example.demo.journal.JournalRecord;
+import com.example.demo.journal.MoveJournal;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
 
+/**
+ * Owns the live {@link GameSession}s. Sessions are created by joins only and are tied to the
+ * STOMP sessions of their players: a disconnect unbinds the connection, and a sweeper reaps
+ * sessions that have had no connection for {@code game.session.orphan-grace-millis} or no
+ * player message at all for {@code game.session.idle-timeout-millis}.
+ * <p>
+ * Metrics: {@code game.sessions.live} and {@code game.sessions.orphaned} (gauges) and
+ * {@code game.sessions.reaped} (counter, tagged by reason).
+ */
+@Slf4j
 @Service
 public class GameSessionService {
+    private static final Pattern GAME_CODE = Pattern.compile("\\p{XDigit}{4}-\\p{XDigit}{4}");
+
     private final Map<String, GameSession> activeSessions = new ConcurrentHashMap<>();
+    private final Map<Integer, GameSession> sessionsByHandle = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> gamesByConnection = new ConcurrentHashMap<>();
+    private final AtomicInteger orphaned = new AtomicInteger();
+    private final ClockService clockService;
+    private final GameService gameService;
+    private final OpeningExplorerService openingExplorerService;
+    private final GameSearchService gameSearchService;
+    private final GameReviewService gameReviewService;
+    private final SpectatorService spectatorService;
+    private final GameReplayService gameReplayService;
+    private final GameMailboxService gameMailboxService;
+    private final MoveJournal moveJournal;
+    private final long orphanGraceNanos;
+    private final long idleTimeoutNanos;
+    private final long sweepIntervalMillis;
+    private final Counter reapedOrphaned;
+    private final Counter reapedIdle;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GameSessionService(ClockService clockService, GameService gameService,
+                              OpeningExplorerService openingExplorerService, GameSearchService gameSearchService,
+                              GameReviewService gameReviewService, SpectatorService spectatorService,
+                              GameReplayService gameReplayService, GameMailboxService gameMailboxService,
+                              MoveJournal moveJournal, MeterRegistry meterRegistry,
+                              @Value("${game.session.orphan-grace-millis:120000}") long orphanGraceMillis,
+                              @Value("${game.session.idle-timeout-millis:3600000}") long idleTimeoutMillis,
+                              @Value("${game.session.sweep-interval-millis:30000}") long sweepIntervalMillis) {
+        this.clockService = clockService;
+        this.gameService = gameService;
+        this.openingExplorerService = openingExplorerService;
+        this.gameSearchService = gameSearchService;
+        this.gameReviewService = gameReviewService;
+        this.spectatorService = spectatorService;
+        this.gameReplayService = gameReplayService;
+        this.gameMailboxService = gameMailboxService;
+        this.moveJournal = moveJournal;
+        this.orphanGraceNanos = TimeUnit.MILLISECONDS.toNanos(orphanGraceMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.sweepIntervalMillis = sweepIntervalMillis;
+        Gauge.builder("game.sessions.live", activeSessions, Map::size).register(meterRegistry);
+        Gauge.builder("game.sessions.orphaned", orphaned, AtomicInteger::get).register(meterRegistry);
+        this.reapedOrphaned = Counter.builder("game.sessions.reaped").tag("reason", "orphaned").register(meterRegistry);
+        this.reapedIdle = Counter.builder("game.sessions.reaped").tag("reason", "idle").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
     
     public GameSession getOrCreateGameSession(String gameId) {
-        return activeSessions.computeIfAbsent(gameId, GameSession::new);
+        return activeSessions.computeIfAbsent(gameId, id -> {
+            GameSession session = new GameSession(id, handleOf(id),
+                    clockService.createClock(id, gameService.getTimeControl(id)));
+            GameSession clash = sessionsByHandle.putIfAbsent(session.getHandle(), session);
+            if (clash != null) {
+                log.warn("Game {} has the same handle as game {}, binary moves reach only the latter", id,
+                        clash.getGameId());
+            }
+            return session;
+        });
+    }
+
+    /**
+     * @return the live session for {@code gameId}, or null if this node has none
+     */
+    public GameSession getGameSession(String gameId) {
+        return activeSessions.get(gameId);
+    }
+
+    public Set<String> getActiveGameIds() {
+        return Set.copyOf(activeSessions.keySet());
+    }
+
+    /**
+     * The compact 32-bit handle of a game in the binary move protocol. A game code, e.g.
+     * {@code 1A2B-3C4D}, is eight hex digits, which make a handle unique across the cluster and
+     * the same on whichever node owns the game. Other ids fall back to their hash.
+     */
+    public static int handleOf(String gameId) {
+        if (GAME_CODE.matcher(gameId).matches()) {
+            return Integer.parseUnsignedInt(gameId.substring(0, 4) + gameId.substring(5), 16);
+        }
+        return gameId.hashCode();
+    }
+
+    /**
+     * Resolves the compact 32-bit handle used by the binary move protocol.
+     */
+    public GameSession getGameSessionByHandle(int handle) {
+        return sessionsByHandle.get(handle);
+    }
+
+    /**
+     * Records that {@code userId} is playing over {@code stompSessionId} and marks the game
+     * active. Called on the game's mailbox for every player message, so a client that
+     * reconnected under a new STOMP session is re-bound by its next message.
+     */
+    public void bindConnection(GameSession session, String stompSessionId, String userId) {
+        session.touch();
+        if (stompSessionId == null || userId.equals(session.getConnectedPlayer(stompSessionId))) {
+            return;
+        }
+        session.bindConnection(stompSessionId, userId);
+        gamesByConnection.compute(stompSessionId, (id, games) -> {
+            Set<String> bound = games != null ? games : ConcurrentHashMap.newKeySet();
+            bound.add(session.getGameId());
+            return bound;
+        });
+    }
+
+    /**
+     * Replaces the state of {@code gameId}'s session, creating it if needed, with state handed
+     * over from another node.
+     *
+     * @param players the seated players, white first, as from {@link GameSession#getPlayers}
+     * @param clocks the clock after each move, as from {@link GameSession#getClockHistory}, or null
+     */
+    public GameSession restoreGameSession(String gameId, List<String> players, Map<String, String> connections,
+                                          String lastMoverId, int[] moves, long[] clocks) {
+        GameSession session = getOrCreateGameSession(gameId);
+        Map<String, Integer> seats = new HashMap<>();
+        for (String userId : players) {
+            int color = seatFor(gameId, userId, seats::containsValue);
+            if (color != Piece.NONE) {
+                seats.put(userId, color);
+            }
+        }
+        session.restore(seats, Map.of(), lastMoverId, moves, clocks);
+        connections.forEach((stompSessionId, userId) -> bindConnection(session, stompSessionId, userId));
+        return session;
+    }
+
+    /**
+     * Journals an accepted move with the clock stamp after it and the sequence it was
+     * broadcast with. Called on the game's mailbox after the broadcast.
+     */
+    public void journalMove(GameSession session, int move) {
+        GameClock clock = session.getClock();
+        long now = System.nanoTime();
+        moveJournal.append(JournalRecord.move(session.getGameId(), session.getLastMoverId(), move,
+                clock.remainingMillis(Piece.WHITE, now), clock.remainingMillis(Piece.BLACK, now),
+                clock.getRunningColor(), gameReplayService.lastSeq(session.getGameId())));
+    }
+
+    /**
+     * Journals the whole state of a session, e.g. one that was handed over from another node.
+     * A finished game is journaled as ended, so it is not recovered.
+     */
+    public void journalState(GameSession session) {
+        if (session.isOver()) {
+            moveJournal.append(JournalRecord.end(session.getGameId()));
+            return;
+        }
+        GameClock clock = session.getClock();
+        long now = System.nanoTime();
+        moveJournal.append(JournalRecord.state(session.getGameId(), session.getPlayers(), session.getLastMoverId(),
+                session.getMoves(), clock.remainingMillis(Piece.WHITE, now), clock.remainingMillis(Piece.BLACK, now),
+                clock.getRunningColor(), gameReplayService.lastSeq(session.getGameId())));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    /**
+     * Unbinds a closed STOMP session from every game it played in. The orphan grace period of
+     * a game left without connections counts from here.
+     */
+    public void disconnect(String stompSessionId) {
+        Set<String> games = stompSessionId == null ? null : gamesByConnection.remove(stompSessionId);
+        if (games == null) {
+            return;
+        }
+        for (String gameId : games) {
+            gameMailboxService.execute(gameId, () -> {
+                GameSession session = activeSessions.get(gameId);
+                if (session != null) {
+                    session.unbindConnection(stompSessionId);
+                    session.touch();
+                }
+            });
+        }
+    }
+
+    /**
+     * Disconnects every bound STOMP session whose id starts with {@code prefix}.
+     */
+    public void disconnectAll(String prefix) {
+        for (String stompSessionId : Set.copyOf(gamesByConnection.keySet())) {
+            if (stompSessionId.startsWith(prefix)) {
+                disconnect(stompSessionId);
+            }
+        }
+    }
+
+    void sweep() {
+        long now = System.nanoTime();
+        int orphans = 0;
+        for (GameSession session : activeSessions.values()) {
+            boolean orphan = !session.hasConnections();
+            if (orphan) {
+                orphans++;
+            }
+            if (session.isReapable(now, orphanGraceNanos, idleTimeoutNanos)) {
+                gameMailboxService.execute(session.getGameId(), () -> reap(session));
+            }
+        }
+        orphaned.set(orphans);
+    }
+
+    private void reap(GameSession session) {
+        String gameId = session.getGameId();
+        boolean orphan = !session.hasConnections();
+        if (activeSessions.get(gameId) != session
+                || !session.isReapable(System.nanoTime(), orphanGraceNanos, idleTimeoutNanos)) {
+            return;
+        }
+        removeGameSession(gameId);
+        (orphan ? reapedOrphaned : reapedIdle).increment();
+        log.info("Reaped {} game session {} with players {}", orphan ? "orphaned" : "idle", gameId,
+                session.getPlayers());
     }
     
     public void removeGameSession(String gameId) {
-        activeSessions.remove(gameId);
+        removeGameSession(gameId, true);
+    }
+
+    /**
+     * Drops a session handed over to another node without archiving it; the new owner
+     * archives the game when it removes it in turn.
+     */
+    public void releaseGameSession(String gameId) {
+        removeGameSession(gameId, false);
+    }
+
+    private void removeGameSession(String gameId, boolean archive) {
+        GameSession session = activeSessions.remove(gameId);
+        if (session != null) {
+            sessionsByHandle.remove(session.getHandle(), session);
+            clockService.stop(session.getClock());
+            spectatorService.remove(gameId);
+            gameReplayService.remove(gameId);
+            moveJournal.append(JournalRecord.end(gameId));
+            if (archive && session.isOver() && session.getPly() > 0) {
+                openingExplorerService.addGame(gameId, session.getMoves(), session.getResult());
+                gameService.archiveMoves(gameId, session.packMoves());
+                gameSearchService.addGame(gameId, session.getMoves());
+                gameReviewService.addGame(gameId, session.getMoves());
+            }
+            for (String stompSessionId : session.getConnections().keySet()) {
+                gamesByConnection.computeIfPresent(stompSessionId, (id, games) -> {
+                    games.remove(gameId);
+                    return games.isEmpty() ? null : games;
+                });
+            }
+        }
     }
     
     public boolean isGameReady(String gameId) {
         GameSession session = activeSessions.get(gameId);
         return session != null && session.isFull();
     }
+
+    /**
+     * Seats {@code userId} at the colour the game's row gives them. A player the row does not
+     * name gets a seat the row leaves empty, white first, which seats both players of a game
+     * that has no row in join order.
+     *
+     * @return whether the player is seated; false if no seat is left for them
+     */
+    public boolean seatPlayer(GameSession session, String userId) {
+        return session.addPlayer(userId, seatFor(session.getGameId(), userId, session::isSeatTaken));
+    }
+
+    private int seatFor(String gameId, String userId, IntPredicate taken) {
+        Game game = gameService.getGame(gameId);
+        if (game != null && userId.equals(String.valueOf(game.getWhitePlayerId()))) {
+            return Piece.WHITE;
+        }
+        if (game != null && userId.equals(String.valueOf(game.getBlackPlayerId()))) {
+            return Piece.BLACK;
+        }
+        if ((game == null || game.getWhitePlayerId() == null) && !taken.test(Piece.WHITE)) {
+            return Piece.WHITE;
+        }
+        if ((game == null || game.getBlackPlayerId() == null) && !taken.test(Piece.BLACK)) {
+            return Piece.BLACK;
+        }
+        return Piece.NONE;
+    }
     
+    /**
+     * Live state of one game. Mutations happen on the game's {@link GameMailboxService} thread;
+     * the player map stays concurrent because lobby code reads it from other threads.
+     */
     public static class GameSession {
         private final String gameId;
-        private final Map<String, String> players = new ConcurrentHashMap<>();
+        private final int handle;
+        /** Colour of each seated player. */
+        private final Map<String, Integer> players = new ConcurrentHashMap<>();
+        private final Map<String, String> connections = new ConcurrentHashMap<>();
         private static final int MAX_PLAYERS = 2;
+        private final Board board = new Board();
+        private final GameClock clock;
+        private long[] clockHistory = new long[64];
+        private boolean clockHistoryKept = true;
+        private String lastMoverId;
+        private String previousMoverId;
+        private BotService.Bot bot;
+        /** Player whose draw offer the opponent has not yet answered, or null. */
+        private String drawOfferedBy;
+        private DrawReason drawReason;
+        private boolean over;
+        private String result;
+        private volatile long lastActivityNanos = System.nanoTime();
         
-        public GameSession(String gameId) {
+        public GameSession(String gameId, int handle, GameClock clock) {
             this.gameId = gameId;
+            this.handle = handle;
+            this.clock = clock;
+        }
+
+        public String getGameId() {
+            return gameId;
+        }
+
+        public int getHandle() {
+            return handle;
         }
         
-        public void addPlayer(String userId) {
-            if (players.size() < MAX_PLAYERS) {
-                players.put(userId, userId);
+        /**
+         * Seats a player at {@code color}, unless another player already holds it. A player
+         * already seated keeps their seat.
+         *
+         * @return whether the player is seated
+         */
+        public boolean addPlayer(String userId, int color) {
+            if (players.containsKey(userId)) {
+                return true;
             }
+            if (color == Piece.NONE || players.size() >= MAX_PLAYERS || players.containsValue(color)) {
+                return false;
+            }
+            players.put(userId, color);
+            return true;
+        }
+
+        /**
+         * @return the colour the player is seated at, or {@link Piece#NONE}
+         */
+        public int getColor(String userId) {
+            return players.getOrDefault(userId, Piece.NONE);
+        }
+
+        public boolean isSeatTaken(int color) {
+            return players.containsValue(color);
         }
         
         public void removePlayer(String userId) {
@@ -52,5 +433,282 @@ public class GameSessionService {
         public boolean isPlayerInSession(String userId) {
             return players.containsKey(userId);
         }
+
+        /**
+         * @return the seated players, white first
+         */
+        public List<String> getPlayers() {
+            return players.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        public Map<String, String> getConnections() {
+            return Map.copyOf(connections);
+        }
+
+        public String getLastMoverId() {
+            return lastMoverId;
+        }
+
+        /**
+         * @return the computer opponent seated in this game, or null
+         */
+        public BotService.Bot getBot() {
+            return bot;
+        }
+
+        public void setBot(BotService.Bot bot) {
+            this.bot = bot;
+        }
+
+        /**
+         * @return true if a bot is seated and it is its turn in a game still being played
+         */
+        public boolean isBotToMove() {
+            return bot != null && isFull() && !isOver() && board.getSideToMove() == bot.color();
+        }
+
+        public int[] getMoves() {
+            return board.getMoves();
+        }
+
+        /**
+         * Replaces the players and position with state handed over from another node.
+         * {@code moves} are trusted and replayed from the starting position. The game is over
+         * only if the position is drawn; a game that ended otherwise is ended again with
+         * {@link #finish} and {@link #setResult}.
+         *
+         * @param players colour of each player
+         * @param clocks the clock after each move, or null if they were not all recorded
+         */
+        public void restore(Map<String, Integer> players, Map<String, String> connections, String lastMoverId,
+                            int[] moves, long[] clocks) {
+            this.players.clear();
+            players.forEach(this::addPlayer);
+            this.connections.clear();
+            this.connections.putAll(connections);
+            this.lastMoverId = lastMoverId;
+            board.setFen(Board.STARTING_FEN);
+            for (int move : moves) {
+                board.makeMove(move);
+            }
+            drawReason = moves.length > 0 ? board.drawReason() : null;
+            over = drawReason != null;
+            result = null;
+            drawOfferedBy = null;
+            clockHistoryKept = moves.length == 0 || (clocks != null && clocks.length == moves.length);
+            if (clocks != null && clockHistoryKept) {
+                clockHistory = Arrays.copyOf(clocks, Math.max(clocks.length, 64));
+            }
+        }
+
+        public void bindConnection(String stompSessionId, String userId) {
+            if (stompSessionId != null) {
+                connections.put(stompSessionId, userId);
+            }
+        }
+
+        public void unbindConnection(String stompSessionId) {
+            connections.remove(stompSessionId);
+        }
+
+        public boolean hasConnections() {
+            return !connections.isEmpty();
+        }
+
+        void touch() {
+            lastActivityNanos = System.nanoTime();
+        }
+
+        /**
+         * @return true if the game has had no connection for {@code orphanGraceNanos}, or no
+         * player message for {@code idleTimeoutNanos}
+         */
+        boolean isReapable(long nowNanos, long orphanGraceNanos, long idleTimeoutNanos) {
+            long idle = nowNanos - lastActivityNanos;
+            return idle > idleTimeoutNanos || (connections.isEmpty() && idle > orphanGraceNanos);
+        }
+
+        /**
+         * @return the player who joined over the given STOMP session, or null
+         */
+        public String getConnectedPlayer(String stompSessionId) {
+            return stompSessionId == null ? null : connections.get(stompSessionId);
+        }
+
+        /**
+         * Validates a move against the server-side position and plays it if legal. Only the
+         * player seated at the side to move may move, and only once both seats are taken.
+         *
+         * @param userId The player submitting the move
+         * @param from Origin square in algebraic notation, e.g. "e2"
+         * @param to Target square in algebraic notation, e.g. "e4"
+         * @param promotion Promotion piece letter ("q", "r", "b", "n") or null
+         * @return the encoded move if it was legal and has been played, {@link Move#NONE} otherwise
+         */
+        public int applyMove(String userId, String from, String to, String promotion) {
+            return applyMove(userId, Bitboards.squareIndex(from), Bitboards.squareIndex(to),
+                    Move.promotionTypeOf(promotion));
+        }
+
+        public int applyMove(String userId, int from, int to, int promotionType) {
+            if (!isFull() || getColor(userId) != board.getSideToMove() || isOver()) {
+                return Move.NONE;
+            }
+            int move = board.findLegalMove(from, to, promotionType);
+            if (move != Move.NONE) {
+                board.makeMove(move);
+                previousMoverId = lastMoverId;
+                lastMoverId = userId;
+                drawReason = board.drawReason();
+                over = drawReason != null;
+                if (drawOfferedBy != null && !drawOfferedBy.equals(userId)) {
+                    drawOfferedBy = null;
+                }
+            }
+            return move;
+        }
+
+        /**
+         * Records a draw offer. It stands until the opponent answers it or makes a move.
+         *
+         * @return false if the game is over or the player is not seated
+         */
+        public boolean offerDraw(String userId) {
+            if (isOver() || !isPlayerInSession(userId)) {
+                return false;
+            }
+            drawOfferedBy = userId;
+            return true;
+        }
+
+        /**
+         * Withdraws the opponent's offer, if any, on {@code userId} declining it.
+         */
+        public void declineDraw(String userId) {
+            if (drawOfferedBy != null && !drawOfferedBy.equals(userId)) {
+                drawOfferedBy = null;
+            }
+        }
+
+        /**
+         * Accepts the opponent's standing draw offer.
+         *
+         * @return false if the opponent has no draw offer standing
+         */
+        public boolean acceptDraw(String userId) {
+            if (drawOfferedBy == null || drawOfferedBy.equals(userId) || !isPlayerInSession(userId)) {
+                return false;
+            }
+            drawOfferedBy = null;
+            return true;
+        }
+
+        /**
+         * Takes back the move {@link #applyMove} just played, e.g. one that arrived after the
+         * mover's flag fell, before it is broadcast or recorded anywhere.
+         */
+        public void takeBackMove() {
+            board.unmakeMove();
+            lastMoverId = previousMoverId;
+            drawReason = null;
+            over = false;
+        }
+
+        /**
+         * @return the draw the last move produced, or null; the game is then over
+         */
+        public DrawReason getDrawReason() {
+            return drawReason;
+        }
+
+        /**
+         * Ends the game on a result reported by a player, e.g. resignation or agreed draw.
+         */
+        public void finish() {
+            over = true;
+        }
+
+        public boolean isOver() {
+            return over || clock.hasFlagged();
+        }
+
+        /**
+         * Records the result the game ended with, for the opening explorer.
+         */
+        public void setResult(String result) {
+            this.result = result;
+        }
+
+        /**
+         * @return the recorded result, the flag fall's if a clock ran out, or null
+         */
+        public String getResult() {
+            if (result == null && clock.hasFlagged()) {
+                return clock.getFlaggedColor() == Piece.WHITE ? "0-1" : "1-0";
+            }
+            return result;
+        }
+
+        /**
+         * @return number of half-moves played so far
+         */
+        public int getPly() {
+            return board.getPly();
+        }
+
+        public int getLastMoverColor() {
+            return board.getSideToMove() ^ 1;
+        }
+
+        public boolean isCheckmate() {
+            return board.inCheck() && !board.hasLegalMove();
+        }
+
+        /**
+         * Records the mover's remaining time after the last move, for the archived move list.
+         */
+        public void recordClock(long remainingMillis) {
+            int ply = board.getPly();
+            if (ply > clockHistory.length) {
+                clockHistory = Arrays.copyOf(clockHistory, clockHistory.length * 2);
+            }
+            clockHistory[ply - 1] = remainingMillis;
+        }
+
+        /**
+         * @return the mover's remaining time after each move, or null if not every move's was
+         * recorded on this node
+         */
+        public long[] getClockHistory() {
+            return clockHistoryKept ? Arrays.copyOf(clockHistory, board.getPly()) : null;
+        }
+
+        /**
+         * Packs the moves, with clocks if every move's was recorded on this node, for
+         * {@link GameService#archiveMoves}.
+         */
+        public byte[] packMoves() {
+            int[] moves = board.getMoves();
+            long[] clocks = clockHistoryKept ? Arrays.copyOf(clockHistory, moves.length) : null;
+            return MoveListCodec.encode(moves, clocks, clock.getTimeControl().baseMillis());
+        }
+
+        public GameClock getClock() {
+            return clock;
+        }
+
+        public String getFen() {
+            return board.toFen();
+        }
+
+        /**
+         * @return a copy of the position, with its history, for searching off the mailbox thread
+         */
+        public Board copyBoard() {
+            return new Board(board);
+        }
     }
 }
\ No newline at end of file
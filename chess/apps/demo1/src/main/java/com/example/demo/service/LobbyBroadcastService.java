@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.GameDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the lobby to {@code /topic/lobby}, so clients no longer poll {@code /game/list}. A new
+ * subscriber is sent a {@link LobbySnapshot} of every open game on its subscription alone;
+ * after that everyone on the topic gets one {@link LobbyDiff} per
+ * {@code game.lobby.push-interval-millis} in which the lobby changed, with every game added,
+ * filled or removed in the interval coalesced into it.
+ * <p>
+ * Both carry the {@link LobbyService} version they bring the client to, and a diff also the
+ * version it applies to. A client that sees a diff not starting from its own version missed
+ * one, and resubscribes for a new snapshot. Each node pushes its own lobby, which converges
+ * with the other nodes' on every reload.
+ */
+@Slf4j
+@Service
+public class LobbyBroadcastService {
+    public static final String TOPIC = "/topic/lobby";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Every open game, newest first, as of {@code version}.
+     */
+    public record LobbySnapshot(String type, long version, List<GameDto> games) {
+        LobbySnapshot(LobbyService.Snapshot snapshot) {
+            this("snapshot", snapshot.version(), snapshot.games());
+        }
+    }
+
+    /**
+     * Changes taking a client at {@code fromVersion} to {@code version}. {@code added} holds
+     * games new to the lobby or changed, newest first; {@code filled} games had their second
+     * seat taken and {@code removed} ones left the lobby for any other reason.
+     */
+    public record LobbyDiff(String type, long fromVersion, long version, List<GameDto> added,
+                            List<String> filled, List<String> removed) {
+    }
+
+    private record Subscription(String sessionId, String subscriptionId) {
+    }
+
+    private final LobbyService lobbyService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final long pushIntervalMillis;
+    private final Queue<Subscription> subscribed = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService pusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter diffs;
+    private final Counter snapshots;
+    /** Last lobby sent to the topic; only touched on the push thread. */
+    private LobbyService.Snapshot published;
+
+    public LobbyBroadcastService(LobbyService lobbyService, SimpMessagingTemplate messagingTemplate,
+                                 @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                 ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${game.lobby.push-interval-millis:200}") long pushIntervalMillis) {
+        this.lobbyService = lobbyService;
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.pushIntervalMillis = pushIntervalMillis;
+        this.published = lobbyService.snapshot();
+        this.diffs = Counter.builder("lobby.push.diffs").register(meterRegistry);
+        this.snapshots = Counter.builder("lobby.push.snapshots").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pusher.scheduleWithFixedDelay(this::tick, pushIntervalMillis, pushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pusher.shutdownNow();
+        if (!pusher.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Lobby push thread did not stop in time");
+        }
+    }
+
+    /**
+     * A new subscriber gets the snapshot on the next tick, after any diff still to be sent.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (TOPIC.equals(accessor.getDestination())) {
+            subscribed.add(new Subscription(accessor.getSessionId(), accessor.getSubscriptionId()));
+        }
+    }
+
+    void tick() {
+        try {
+            LobbyService.Snapshot current = lobbyService.snapshot();
+            if (current.version() != published.version()) {
+                messagingTemplate.convertAndSend(TOPIC, diff(published, current, lobbyService.takeFilled()));
+                diffs.increment();
+                published = current;
+            }
+            Subscription subscription;
+            byte[] snapshot = null;
+            while ((subscription = subscribed.poll()) != null) {
+                if (snapshot == null) {
+                    snapshot = objectMapper.writeValueAsBytes(new LobbySnapshot(published));
+                }
+                sendSnapshot(subscription, snapshot);
+                snapshots.increment();
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing the lobby", e);
+        } catch (Exception e) {
+            log.error("Error pushing the lobby", e);
+        }
+    }
+
+    static LobbyDiff diff(LobbyService.Snapshot from, LobbyService.Snapshot to, Set<String> filled) {
+        Map<String, GameDto> before = new HashMap<>();
+        from.games().forEach(game -> before.put(game.getGameId(), game));
+        List<GameDto> added = new ArrayList<>();
+        for (GameDto game : to.games()) {
+            if (!game.equals(before.remove(game.getGameId()))) {
+                added.add(game);
+            }
+        }
+        List<String> filledGames = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String gameId : before.keySet()) {
+            (filled.contains(gameId) ? filledGames : removed).add(gameId);
+        }
+        return new LobbyDiff("diff", from.version(), to.version(), added, filledGames, removed);
+    }
+
+    private void sendSnapshot(Subscription subscription, byte[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(subscription.sessionId());
+        headers.setSubscriptionId(subscription.subscriptionId());
+        headers.setDestination(TOPIC);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+}
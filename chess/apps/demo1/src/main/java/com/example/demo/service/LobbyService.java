@@ -0,0 +1,256 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.GameDto;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.WriteBehindStore;
+import com.example.demo.repository.GameRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Games waiting for a second player, held in memory so the lobby is served without touching
+ * the database. {@link GameService} and {@link WaitingRoomService} report every game created,
+ * joined, finished, deleted or closed here, and each change bumps the lobby's version.
+ * Readers get an immutable {@link Snapshot}, newest game first, whose ETag is that version.
+ * <p>
+ * The index is loaded from the database at startup and reloaded every
+ * {@code game.lobby.refresh-millis}, which picks up games created or joined on other cluster
+ * nodes and anything changed outside the reported paths. A game reported here while a
+ * reload was reading keeps its reported state.
+ */
+@Slf4j
+@Service
+public class LobbyService {
+    private static final int LOAD_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Games newest first, with {@code next} the cursor for the following page, or null after
+     * the last one.
+     */
+    public record GamePage(List<GameDto> games, Integer next) {
+    }
+
+    /**
+     * @param seq order the game joined the lobby in, the paging cursor
+     */
+    private record Entry(int seq, GameDto game) {
+    }
+
+    /**
+     * The lobby at one version, newest game first.
+     */
+    public record Snapshot(long version, String etag, List<Entry> entries) {
+        public List<GameDto> games() {
+            return entries.stream().map(Entry::game).toList();
+        }
+
+        /**
+         * @param before only games listed after the one {@code next} pointed at; null for the
+         *               first page
+         */
+        public GamePage page(Integer before, int limit) {
+            int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            int start = 0;
+            while (before != null && start < entries.size() && entries.get(start).seq() >= before) {
+                start++;
+            }
+            int end = Math.min(entries.size(), start + size);
+            List<GameDto> games = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                games.add(entries.get(i).game());
+            }
+            return new GamePage(games, end < entries.size() ? entries.get(end - 1).seq() : null);
+        }
+    }
+
+    private final GameRepository gameRepository;
+    private final WriteBehindStore writeBehindStore;
+    private final long refreshMillis;
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Open games by game id; guarded by this. */
+    private final Map<String, Entry> games = new HashMap<>();
+    /** Version of the last reported change to each game since the last reload; guarded by this. */
+    private final Map<String, Long> reported = new HashMap<>();
+    /** Games taken off the lobby because their second seat was taken; guarded by this. */
+    private final Set<String> filled = new HashSet<>();
+    private long version;
+    private int nextSeq;
+    private volatile Snapshot snapshot;
+
+    public LobbyService(GameRepository gameRepository, WriteBehindStore writeBehindStore,
+                        MeterRegistry meterRegistry,
+                        @Value("${game.lobby.refresh-millis:30000}") long refreshMillis) {
+        this.gameRepository = gameRepository;
+        this.writeBehindStore = writeBehindStore;
+        this.refreshMillis = refreshMillis;
+        this.snapshot = new Snapshot(0, etag(0), List.of());
+        Gauge.builder("lobby.games", this, lobby -> lobby.snapshot.entries().size()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::reload, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        refresher.shutdownNow();
+        if (!refresher.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Lobby refresh thread did not stop in time");
+        }
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Lists the game if it has exactly one seat taken, or takes it off the lobby otherwise.
+     */
+    public synchronized void update(Game game) {
+        reported.put(game.getGameId(), version + 1);
+        boolean open = isOpen(game);
+        if (apply(game.getGameId(), open ? GameDto.of(game) : null)) {
+            if (game.getWhitePlayerId() != null && game.getBlackPlayerId() != null) {
+                filled.add(game.getGameId());
+            }
+            publish();
+        }
+    }
+
+    public synchronized void remove(String gameId) {
+        reported.put(gameId, version + 1);
+        if (apply(gameId, null)) {
+            publish();
+        }
+    }
+
+    /**
+     * @return the games taken off the lobby because both seats were taken since the last call
+     */
+    public synchronized Set<String> takeFilled() {
+        Set<String> taken = Set.copyOf(filled);
+        filled.clear();
+        return taken;
+    }
+
+    /**
+     * Replaces the index with the open games in the database and the write-behind buffer,
+     * except for games reported since the reload started.
+     */
+    void reload() {
+        long started;
+        synchronized (this) {
+            started = version;
+        }
+        try {
+            List<GameDto> stored = new ArrayList<>(readOpenSeats(before ->
+                    gameRepository.findOpenBlackSeats(before, Limit.of(LOAD_PAGE_SIZE))));
+            stored.addAll(readOpenSeats(before ->
+                    gameRepository.findOpenWhiteSeats(before, Limit.of(LOAD_PAGE_SIZE))));
+            stored.sort(Comparator.comparing(GameDto::getId));
+            Map<String, GameDto> ordered = new LinkedHashMap<>();
+            stored.forEach(game -> ordered.put(game.getGameId(), game));
+            writeBehindStore.pendingGames().forEach((gameId, game) ->
+                    ordered.put(gameId, game != null && isOpen(game) ? GameDto.of(game) : null));
+            synchronized (this) {
+                boolean changed = false;
+                for (String gameId : new ArrayList<>(games.keySet())) {
+                    if (!ordered.containsKey(gameId) && reported.getOrDefault(gameId, 0L) <= started) {
+                        changed |= apply(gameId, null);
+                    }
+                }
+                for (Map.Entry<String, GameDto> game : ordered.entrySet()) {
+                    if (reported.getOrDefault(game.getKey(), 0L) <= started) {
+                        changed |= apply(game.getKey(), game.getValue());
+                    }
+                }
+                reported.values().removeIf(reportedAt -> reportedAt <= started);
+                if (changed) {
+                    publish();
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("Error reloading the lobby, retrying in {} ms", refreshMillis, e);
+        }
+    }
+
+    private List<GameDto> readOpenSeats(IntFunction<List<GameDto>> pageBefore) {
+        List<GameDto> games = new ArrayList<>();
+        int before = Integer.MAX_VALUE;
+        List<GameDto> page;
+        do {
+            page = pageBefore.apply(before);
+            games.addAll(page);
+            if (!page.isEmpty()) {
+                before = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return games;
+    }
+
+    /**
+     * Lists {@code game} under {@code gameId}, keeping its place if already listed, or takes
+     * the game off the lobby if null.
+     *
+     * @return whether the lobby changed
+     */
+    private boolean apply(String gameId, GameDto game) {
+        Entry current = games.get(gameId);
+        if (game == null) {
+            return games.remove(gameId) != null;
+        }
+        if (current != null && current.game().equals(game)) {
+            return false;
+        }
+        games.put(gameId, new Entry(current != null ? current.seq() : nextSeq++, game));
+        return true;
+    }
+
+    private void publish() {
+        version++;
+        List<Entry> entries = new ArrayList<>(games.values());
+        entries.sort(Comparator.comparingInt(Entry::seq).reversed());
+        snapshot = new Snapshot(version, etag(version), List.copyOf(entries));
+    }
+
+    private String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * @return true for an unfinished game with exactly one seat taken
+     */
+    static boolean isOpen(Game game) {
+        return game.getResult() == null && (game.getWhitePlayerId() == null) ^ (game.getBlackPlayerId() == null);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.TimeControl;
+import com.example.demo.matchmaking.MatchQueue;
+import com.example.demo.model.Game;
+import com.example.demo.model.User;
+import com.example.demo.model.WaitingRoom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Automatic pairing of players looking for a game, per time control, by rating. Players are
+ * queued in a {@link MatchQueue} and paired by a single {@code matchmaker} thread, which runs a
+ * round as soon as anyone joins and every {@code game.matchmaking.round-millis} while players
+ * wait, since their rating windows widen with time. The matcher creates the game itself, with
+ * a random player on white, and both players learn of it on
+ * {@code /topic/matchmaking/{token}} or by asking for their status.
+ * <p>
+ * Each node pairs the players queued on it.
+ */
+@Slf4j
+@Service
+public class MatchmakingService {
+    public static final String TOPIC_PREFIX = "/topic/matchmaking/";
+    public static final List<TimeControl> TIME_CONTROLS = List.of(
+            TimeControl.ofMinutes(1, 0),
+            TimeControl.ofMinutes(3, 0),
+            TimeControl.ofMinutes(3, 2),
+            TimeControl.ofMinutes(5, 0),
+            TimeControl.ofMinutes(10, 0),
+            TimeControl.ofMinutes(10, 5),
+            TimeControl.ofMinutes(15, 10),
+            TimeControl.ofMinutes(30, 0));
+    /** Rating of players who have none yet, as given at registration. */
+    private static final int DEFAULT_RATING = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * @param baseMillis starting time on each clock, or null for the default time control
+     */
+    public record MatchRequest(Long baseMillis, Long incrementMillis) {
+    }
+
+    /**
+     * @param state "waiting", "matched", "failed" when the game could not be created, or "none"
+     *              when the player is not queued
+     * @param token names the player's {@code /topic/matchmaking/} destination
+     * @param color the player's colour once matched
+     */
+    public record MatchStatus(String state, String token, String timeControl, String gameId, String color) {
+        static final MatchStatus NONE = new MatchStatus("none", null, null, null, null);
+
+        boolean isMatched() {
+            return "matched".equals(state);
+        }
+    }
+
+    private static final class Seeker {
+        private final User user;
+        private final String token = UUID.randomUUID().toString();
+        private volatile MatchQueue.Ticket<Seeker> ticket;
+        /** The game once matched, or the failure to create it. */
+        private volatile MatchStatus match;
+
+        private Seeker(User user) {
+            this.user = user;
+        }
+    }
+
+    private final GameService gameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long roundNanos;
+    private final MatchQueue<Seeker> queue;
+    private final Map<Long, Seeker> seekers = new ConcurrentHashMap<>();
+    private final Thread matcher;
+    private final Counter games;
+    private final Timer waits;
+
+    public MatchmakingService(GameService gameService, SimpMessagingTemplate messagingTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${game.matchmaking.initial-window:50}") int initialWindow,
+                              @Value("${game.matchmaking.widen-per-second:10}") int widenPerSecond,
+                              @Value("${game.matchmaking.max-window:400}") int maxWindow,
+                              @Value("${game.matchmaking.round-millis:100}") long roundMillis) {
+        this.gameService = gameService;
+        this.messagingTemplate = messagingTemplate;
+        this.roundNanos = TimeUnit.MILLISECONDS.toNanos(roundMillis);
+        this.queue = new MatchQueue<>(TIME_CONTROLS, initialWindow, widenPerSecond, maxWindow);
+        this.matcher = new Thread(this::run, "matchmaker");
+        this.matcher.setDaemon(true);
+        this.games = Counter.builder("matchmaking.games").register(meterRegistry);
+        this.waits = Timer.builder("matchmaking.wait").register(meterRegistry);
+        Gauge.builder("matchmaking.waiting", queue, MatchQueue::waiting).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        matcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        matcher.interrupt();
+        matcher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (matcher.isAlive()) {
+            log.warn("Matchmaker thread did not stop in time");
+        }
+    }
+
+    public List<TimeControl> getTimeControls() {
+        return TIME_CONTROLS;
+    }
+
+    /**
+     * Queues {@code user} for a game, in place of any earlier request of theirs that has not
+     * been paired yet. A user already matched is given their game instead.
+     *
+     * @throws IllegalArgumentException if the time control is not one of {@link #TIME_CONTROLS}
+     */
+    public MatchStatus join(User user, MatchRequest request) {
+        long incrementMillis = request.incrementMillis() == null ? 0 : request.incrementMillis();
+        TimeControl timeControl = request.baseMillis() == null ? TimeControl.DEFAULT
+                : new TimeControl(request.baseMillis(), incrementMillis);
+        if (!TIME_CONTROLS.contains(timeControl)) {
+            throw new IllegalArgumentException("No matchmaking for time control " + timeControl);
+        }
+        int rating = user.getElo_rating() == null ? DEFAULT_RATING : user.getElo_rating();
+        // Serialized per user, and the earlier ticket cancelled first, so the matcher can never
+        // hold two tickets of one user and pair them with themselves
+        Seeker seeker = seekers.compute(user.getId(), (userId, previous) -> {
+            MatchStatus match = previous == null ? null : previous.match;
+            if (previous != null && (match == null ? !queue.cancel(previous.ticket) : match.isMatched())) {
+                // Already paired: the game is reported rather than replaced by a new request
+                return previous;
+            }
+            Seeker next = new Seeker(user);
+            next.ticket = queue.enqueue(next, rating, timeControl, System.nanoTime());
+            log.info("User {} rated {} looking for a {} game", userId, rating, timeControl);
+            return next;
+        });
+        LockSupport.unpark(matcher);
+        MatchStatus match = seeker.match;
+        return match != null ? match : waiting(seeker);
+    }
+
+    /**
+     * @return the user's request, with the game once matched; a match is reported only once
+     */
+    public MatchStatus status(long userId) {
+        Seeker seeker = seekers.get(userId);
+        if (seeker == null) {
+            return MatchStatus.NONE;
+        }
+        MatchStatus match = seeker.match;
+        if (match == null) {
+            return waiting(seeker);
+        }
+        seekers.remove(userId, seeker);
+        return match;
+    }
+
+    /**
+     * Takes the user out of the queue.
+     *
+     * @return the game if the user was matched before leaving
+     */
+    public MatchStatus leave(long userId) {
+        Seeker seeker = seekers.remove(userId);
+        if (seeker == null || queue.cancel(seeker.ticket)) {
+            return MatchStatus.NONE;
+        }
+        return seeker.match != null ? seeker.match : MatchStatus.NONE;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                queue.match(System.nanoTime(), this::startGame);
+            } catch (RuntimeException e) {
+                log.error("Error in matchmaking round", e);
+            }
+            LockSupport.parkNanos(roundNanos);
+        }
+    }
+
+    private void startGame(MatchQueue.Ticket<Seeker> first, MatchQueue.Ticket<Seeker> second) {
+        boolean firstIsWhite = ThreadLocalRandom.current().nextBoolean();
+        MatchQueue.Ticket<Seeker> whiteTicket = firstIsWhite ? first : second;
+        MatchQueue.Ticket<Seeker> blackTicket = firstIsWhite ? second : first;
+        Seeker white = whiteTicket.player();
+        Seeker black = blackTicket.player();
+        TimeControl timeControl = first.timeControl();
+        try {
+            Game game = gameService.createMatchedGame(white.user, black.user, WaitingRoom.generateGameCode(),
+                    timeControl);
+            games.increment();
+            waits.record(System.nanoTime() - first.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            matched(white, game, "white", timeControl);
+            matched(black, game, "black", timeControl);
+            log.info("Matched users {} ({}) and {} ({}) in game {}", white.user.getId(), whiteTicket.rating(),
+                    black.user.getId(), blackTicket.rating(), game.getGameId());
+        } catch (RuntimeException e) {
+            log.error("Error creating game for users {} and {}", white.user.getId(), black.user.getId(), e);
+            failed(white, timeControl);
+            failed(black, timeControl);
+        }
+    }
+
+    private void matched(Seeker seeker, Game game, String color, TimeControl timeControl) {
+        seeker.match = new MatchStatus("matched", seeker.token, timeControl.toString(), game.getGameId(), color);
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + seeker.token, seeker.match);
+    }
+
+    private void failed(Seeker seeker, TimeControl timeControl) {
+        seeker.match = new MatchStatus("failed", seeker.token, timeControl.toString(), null, null);
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + seeker.token, seeker.match);
+    }
+
+    private static MatchStatus waiting(Seeker seeker) {
+        return new MatchStatus("waiting", seeker.token, seeker.ticket.timeControl().toString(), null, null);
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.demo.service;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.MoveGenerator;
+import com.example.demo.engine.San;
+import com.example.demo.explorer.PositionStatsTable;
+import com.example.demo.persistence.MoveListCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Opening explorer over our own finished games: for any position, how often each move was
+ * played from it and how those games ended. Every finished game adds one count per ply, up
+ * to {@code game.explorer.max-plies}, to a {@link PositionStatsTable} keyed by Zobrist hash,
+ * so a query costs one probe per legal move and never reads the games table.
+ * <p>
+ * The table is snapshotted to {@code game.explorer.snapshot-file} when it has changed, every
+ * {@code game.explorer.snapshot-interval-millis} and on shutdown. Startup loads the snapshot,
+ * or rebuilds it from the archive when there is none; delete the file to force a rebuild.
+ * Games finished after the last snapshot of a node that crashed are missing until then.
+ * <p>
+ * Games must be added before their moves are written, so that a rebuild running at the same
+ * time either reads a game or has it held back here, never both.
+ */
+@Slf4j
+@Service
+public class OpeningExplorerService {
+    private static final String SELECT_PAGE = "SELECT g.id, g.game_id, g.result, m.moves FROM games g "
+            + "JOIN game_moves m ON m.game_id = g.game_id WHERE g.id > ? AND g.result IS NOT NULL "
+            + "ORDER BY g.id LIMIT ?";
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int SNAPSHOT_BUFFER_BYTES = 1 << 20;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxPlies;
+    private final Path snapshotFile;
+    private final long snapshotIntervalMillis;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "explorer-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private PositionStatsTable table = new PositionStatsTable();
+    /**
+     * Games finished while the table is being loaded or rebuilt, by game id; null once it is
+     * ready.
+     */
+    private Map<String, HeldGame> heldBack = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * Totals over the listed moves, which are sorted most played first.
+     */
+    public record ExplorerPosition(String fen, long white, long draws, long black, List<MoveStats> moves) {
+    }
+
+    public record MoveStats(String uci, String san, int white, int draws, int black) {
+        public int total() {
+            return white + draws + black;
+        }
+    }
+
+    private record HeldGame(long[] hashes, int[] moves, int outcome) {
+    }
+
+    public OpeningExplorerService(JdbcTemplate jdbcTemplate,
+                                  @Value("${game.explorer.max-plies:40}") int maxPlies,
+                                  @Value("${game.explorer.snapshot-file:data/explorer/positions.bin}") String snapshotFile,
+                                  @Value("${game.explorer.snapshot-interval-millis:300000}") long snapshotIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxPlies = maxPlies;
+        this.snapshotFile = Path.of(snapshotFile);
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        snapshots.execute(this::loadOrRebuild);
+        snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMillis, snapshotIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        snapshots.shutdownNow();
+        if (!snapshots.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            log.warn("Explorer snapshot thread did not stop in time");
+        }
+        snapshotQuietly();
+    }
+
+    /**
+     * Counts a finished game. Results other than 1-0, 0-1 and 1/2-1/2 are ignored.
+     */
+    public void addGame(String gameId, int[] moves, String result) {
+        int outcome = outcome(result);
+        if (outcome < 0 || moves.length == 0) {
+            return;
+        }
+        long[] hashes = hashes(moves);
+        lock.writeLock().lock();
+        try {
+            if (heldBack != null) {
+                heldBack.put(gameId, new HeldGame(hashes, moves, outcome));
+            } else {
+                add(table, hashes, moves, outcome);
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the FEN cannot be read
+     */
+    public ExplorerPosition explore(String fen) {
+        Board board = new Board(fen);
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(board, legal);
+        long hash = board.getHash();
+        int[] played = new int[count];
+        int[][] stats = new int[count][3];
+        int found = 0;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (table.get(hash, legal[i], stats[found])) {
+                    played[found++] = legal[i];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<MoveStats> moves = new ArrayList<>(found);
+        long white = 0;
+        long draws = 0;
+        long black = 0;
+        for (int i = 0; i < found; i++) {
+            int[] counts = stats[i];
+            moves.add(new MoveStats(Move.toUci(played[i]), San.of(board, played[i]),
+                    counts[PositionStatsTable.WHITE_WINS], counts[PositionStatsTable.DRAWS],
+                    counts[PositionStatsTable.BLACK_WINS]));
+            white += counts[PositionStatsTable.WHITE_WINS];
+            draws += counts[PositionStatsTable.DRAWS];
+            black += counts[PositionStatsTable.BLACK_WINS];
+        }
+        moves.sort(Comparator.comparingInt(MoveStats::total).reversed());
+        return new ExplorerPosition(board.toFen(), white, draws, black, moves);
+    }
+
+    private void loadOrRebuild() {
+        long started = System.nanoTime();
+        PositionStatsTable loaded = Files.exists(snapshotFile) ? load() : null;
+        boolean rebuilt = loaded == null;
+        if (rebuilt) {
+            loaded = rebuild();
+        }
+        lock.writeLock().lock();
+        try {
+            for (HeldGame game : heldBack.values()) {
+                add(loaded, game.hashes(), game.moves(), game.outcome());
+            }
+            table = loaded;
+            heldBack = null;
+            dirty = rebuilt || dirty;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Opening explorer {} with {} entries in {} ms", rebuilt ? "rebuilt" : "loaded", loaded.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        if (rebuilt) {
+            snapshotQuietly();
+        }
+    }
+
+    private PositionStatsTable load() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile), SNAPSHOT_BUFFER_BYTES))) {
+            PositionStatsTable loaded = PositionStatsTable.readFrom(in, maxPlies);
+            if (loaded == null) {
+                log.info("Explorer snapshot {} was taken with another ply limit, rebuilding", snapshotFile);
+            }
+            return loaded;
+        } catch (IOException e) {
+            log.warn("Could not read explorer snapshot {}, rebuilding", snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replays every archived game with a result into a fresh table, in keyset pages. Games
+     * held back meanwhile that the scan also reads are dropped from the held set.
+     */
+    private PositionStatsTable rebuild() {
+        PositionStatsTable rebuilt = new PositionStatsTable();
+        int[] lastId = {0};
+        int[] pageCount = {0};
+        do {
+            pageCount[0] = 0;
+            jdbcTemplate.query(SELECT_PAGE, row -> {
+                lastId[0] = row.getInt("id");
+                pageCount[0]++;
+                int outcome = outcome(row.getString("result"));
+                if (outcome < 0) {
+                    return;
+                }
+                heldBack.remove(row.getString("game_id"));
+                int[] moves = MoveListCodec.decode(row.getBytes("moves"), 0).moves();
+                add(rebuilt, hashes(moves), moves, outcome);
+            }, lastId[0], REBUILD_PAGE_SIZE);
+        } while (pageCount[0] == REBUILD_PAGE_SIZE);
+        return rebuilt;
+    }
+
+    private void snapshotQuietly() {
+        PositionStatsTable copy;
+        lock.readLock().lock();
+        try {
+            if (!dirty || heldBack != null) {
+                return;
+            }
+            copy = table.copy();
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), SNAPSHOT_BUFFER_BYTES))) {
+                copy.writeTo(out, maxPlies);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote explorer snapshot with {} entries", copy.size());
+        } catch (IOException e) {
+            dirty = true;
+            log.error("Error writing explorer snapshot {}", snapshotFile, e);
+        }
+    }
+
+    private long[] hashes(int[] moves) {
+        int plies = Math.min(moves.length, maxPlies);
+        long[] hashes = new long[plies];
+        Board board = new Board();
+        for (int ply = 0; ply < plies; ply++) {
+            hashes[ply] = board.getHash();
+            board.makeMove(moves[ply]);
+        }
+        return hashes;
+    }
+
+    private static void add(PositionStatsTable table, long[] hashes, int[] moves, int outcome) {
+        for (int ply = 0; ply < hashes.length; ply++) {
+            table.add(hashes[ply], moves[ply], outcome);
+        }
+    }
+
+    private static int outcome(String result) {
+        if (result == null) {
+            return -1;
+        }
+        return switch (result) {
+            case "1-0" -> PositionStatsTable.WHITE_WINS;
+            case "1/2-1/2" -> PositionStatsTable.DRAWS;
+            case "0-1" -> PositionStatsTable.BLACK_WINS;
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.TimeControl;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+import com.example.demo.pgn.PgnReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulk import of PGN files into the games archive. The calling thread splits the file into
+ * games and hands them out in batches of {@code game.import.batch-games}; batches are parsed
+ * and validated in parallel on a fork-join pool, then written by
+ * {@code game.import.writer-threads} writers as JDBC batches, one transaction per batch. At
+ * most {@code game.import.max-pending-batches} batches are between the reader and their
+ * commit, so a slow database stalls the reader instead of filling the heap.
+ * <p>
+ * Players are matched to users by exact username; other names are stored without an id.
+ * Imported games are counted in the opening explorer like games played here.
+ * Games that do not parse, contain an illegal move or start from a custom position are
+ * counted and skipped. Runs once at startup when {@code game.import.file} is set.
+ */
+@Slf4j
+@Service
+public class PgnImportService {
+    private static final String INSERT_GAME = "INSERT INTO games (game_id, white_player_id, white_player_elo, "
+            + "white_player_name, black_player_id, black_player_elo, black_player_name, base_time_millis, "
+            + "increment_millis, result, finished_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MOVES = "INSERT INTO game_moves (game_id, moves) VALUES (?, ?)";
+    private static final int[] GAME_TYPES = {
+            Types.VARCHAR, Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.INTEGER, Types.VARCHAR,
+            Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP
+    };
+    private static final int[] MOVES_TYPES = {Types.VARCHAR, Types.VARBINARY};
+    private static final int READ_BUFFER_CHARS = 1 << 20;
+    private static final int LOGGED_ERRORS = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OpeningExplorerService openingExplorerService;
+    private final GameSearchService gameSearchService;
+    private final String file;
+    private final int batchGames;
+    private final int parallelism;
+    private final int writerThreads;
+    private final int maxPendingBatches;
+    private final long progressIntervalMillis;
+    private final Counter importedGames;
+    private final Counter failedGames;
+
+    /**
+     * Outcome of one import.
+     *
+     * @param read     games found in the file
+     * @param imported games written to the archive
+     * @param failed   games skipped as invalid
+     */
+    public record ImportReport(long read, long imported, long failed, long millis) {
+    }
+
+    /**
+     * A validated game ready to be written.
+     */
+    private record ImportedGame(Game game, int[] moves, byte[] packedMoves) {
+    }
+
+    private static final class Progress {
+        final LongAdder read = new LongAdder();
+        final LongAdder imported = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final AtomicInteger loggedErrors = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final long started = System.nanoTime();
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+    }
+
+    public PgnImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            OpeningExplorerService openingExplorerService, GameSearchService gameSearchService,
+                            MeterRegistry meterRegistry,
+                            @Value("${game.import.file:}") String file,
+                            @Value("${game.import.batch-games:500}") int batchGames,
+                            @Value("${game.import.parallelism:0}") int parallelism,
+                            @Value("${game.import.writer-threads:2}") int writerThreads,
+                            @Value("${game.import.max-pending-batches:16}") int maxPendingBatches,
+                            @Value("${game.import.progress-interval-millis:5000}") long progressIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.openingExplorerService = openingExplorerService;
+        this.gameSearchService = gameSearchService;
+        this.file = file;
+        this.batchGames = batchGames;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.writerThreads = writerThreads;
+        this.maxPendingBatches = maxPendingBatches;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.importedGames = Counter.builder("import.games").tag("outcome", "imported").register(meterRegistry);
+        this.failedGames = Counter.builder("import.games").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() throws IOException, InterruptedException {
+        if (!file.isBlank()) {
+            importFile(Path.of(file));
+        }
+    }
+
+    public ImportReport importFile(Path path) throws IOException, InterruptedException {
+        log.info("Importing games from {}", path);
+        Map<String, Long> userIds = loadUserIds();
+        Progress progress = new Progress();
+        Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+        ForkJoinPool parsers = new ForkJoinPool(parallelism);
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, named("pgn-import-writer"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(named("pgn-import-progress"));
+        reporter.scheduleAtFixedRate(() -> logProgress(progress), progressIntervalMillis, progressIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), READ_BUFFER_CHARS)) {
+            List<String> batch = new ArrayList<>(batchGames);
+            StringBuilder game = new StringBuilder(2048);
+            boolean inMovetext = false;
+            String line;
+            while ((line = reader.readLine()) != null && progress.failure.get() == null) {
+                boolean tag = line.startsWith("[");
+                if (tag && inMovetext) {
+                    batch.add(game.toString());
+                    game.setLength(0);
+                    inMovetext = false;
+                    if (batch.size() == batchGames) {
+                        submit(batch, userIds, progress, pendingBatches, parsers, writers);
+                        batch = new ArrayList<>(batchGames);
+                    }
+                }
+                inMovetext |= !tag && !line.isBlank();
+                game.append(line).append('\n');
+            }
+            if (inMovetext) {
+                batch.add(game.toString());
+            }
+            if (!batch.isEmpty() && progress.failure.get() == null) {
+                submit(batch, userIds, progress, pendingBatches, parsers, writers);
+            }
+            pendingBatches.acquire(maxPendingBatches);
+        } finally {
+            parsers.shutdownNow();
+            writers.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        if (progress.failure.get() != null) {
+            throw new IllegalStateException("Import of " + path + " aborted", progress.failure.get());
+        }
+        ImportReport report = new ImportReport(progress.read.sum(), progress.imported.sum(), progress.failed.sum(),
+                progress.elapsedMillis());
+        log.info("Imported {} of {} games from {} in {} ms ({} failed, {} games/s)", report.imported(), report.read(),
+                path, report.millis(), report.failed(), report.read() * 1000 / Math.max(1, report.millis()));
+        return report;
+    }
+
+    /**
+     * Parses a batch on the fork-join pool and writes it on a writer thread, holding one
+     * pending-batch permit until the write has committed or failed.
+     */
+    private void submit(List<String> batch, Map<String, Long> userIds, Progress progress, Semaphore pendingBatches,
+                        ForkJoinPool parsers, ExecutorService writers) throws InterruptedException {
+        pendingBatches.acquire();
+        long firstGame = progress.read.sum();
+        progress.read.add(batch.size());
+        CompletableFuture.supplyAsync(() -> parse(batch, firstGame, userIds, progress), parsers)
+                .thenAcceptAsync(games -> write(games, progress), writers)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        progress.failure.compareAndSet(null, e.getCause() != null ? e.getCause() : e);
+                    }
+                    pendingBatches.release();
+                });
+    }
+
+    private List<ImportedGame> parse(List<String> batch, long firstGame, Map<String, Long> userIds,
+                                     Progress progress) {
+        PgnReader reader = new PgnReader();
+        List<ImportedGame> games = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                PgnReader.PgnGame pgn = reader.read(batch.get(i));
+                Game game = toGame(pgn, userIds);
+                long baseMillis = game.getBaseTimeMillis() != null
+                        ? game.getBaseTimeMillis() : TimeControl.DEFAULT.baseMillis();
+                MoveListCodec.MoveList moveList = pgn.moveList();
+                games.add(new ImportedGame(game, moveList.moves(),
+                        MoveListCodec.encode(moveList.moves(), moveList.clockMillis(), baseMillis)));
+            } catch (RuntimeException e) {
+                progress.failed.increment();
+                failedGames.increment();
+                if (progress.loggedErrors.incrementAndGet() <= LOGGED_ERRORS) {
+                    log.warn("Skipping game {}: {}", firstGame + i + 1, e.getMessage());
+                }
+            }
+        }
+        return games;
+    }
+
+    private void write(List<ImportedGame> games, Progress progress) {
+        if (games.isEmpty()) {
+            return;
+        }
+        List<Object[]> gameRows = new ArrayList<>(games.size());
+        List<Object[]> moveRows = new ArrayList<>(games.size());
+        for (ImportedGame imported : games) {
+            Game game = imported.game();
+            gameRows.add(new Object[]{
+                    game.getGameId(), game.getWhitePlayerId(), game.getWhitePlayerElo(), game.getWhitePlayerName(),
+                    game.getBlackPlayerId(), game.getBlackPlayerElo(), game.getBlackPlayerName(),
+                    game.getBaseTimeMillis(), game.getIncrementMillis(), game.getResult(),
+                    game.getFinishedAt() == null ? null : Timestamp.valueOf(game.getFinishedAt())
+            });
+            moveRows.add(new Object[]{game.getGameId(), imported.packedMoves()});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_GAME, gameRows, GAME_TYPES);
+            jdbcTemplate.batchUpdate(INSERT_MOVES, moveRows, MOVES_TYPES);
+        });
+        // Indexed only once committed, so a failed batch leaves no trace in the explorer or search
+        for (ImportedGame imported : games) {
+            Game game = imported.game();
+            openingExplorerService.addGame(game.getGameId(), imported.moves(), game.getResult());
+            gameSearchService.addGame(game.getGameId(), imported.moves());
+        }
+        progress.imported.add(games.size());
+        importedGames.increment(games.size());
+    }
+
+    private static Game toGame(PgnReader.PgnGame pgn, Map<String, Long> userIds) {
+        Map<String, String> tags = pgn.tags();
+        String white = player(tags.get("White"));
+        String black = player(tags.get("Black"));
+        TimeControl timeControl = timeControl(tags.get("TimeControl"));
+        return Game.builder()
+                .gameId(UUID.randomUUID().toString())
+                .whitePlayerId(white == null ? null : userIds.get(white))
+                .whitePlayerName(white)
+                .whitePlayerElo(rating(tags.get("WhiteElo")))
+                .blackPlayerId(black == null ? null : userIds.get(black))
+                .blackPlayerName(black)
+                .blackPlayerElo(rating(tags.get("BlackElo")))
+                .baseTimeMillis(timeControl == null ? null : timeControl.baseMillis())
+                .incrementMillis(timeControl == null ? null : timeControl.incrementMillis())
+                .result("*".equals(pgn.result()) ? null : pgn.result())
+                .finishedAt(date(tags.getOrDefault("UTCDate", tags.get("Date"))))
+                .build();
+    }
+
+    private Map<String, Long> loadUserIds() {
+        Map<String, Long> userIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users",
+                row -> {
+                    userIds.put(row.getString("username"), row.getLong("id"));
+                });
+        return userIds;
+    }
+
+    private void logProgress(Progress progress) {
+        long read = progress.read.sum();
+        log.info("Import progress: {} games read, {} imported, {} failed, {} games/s", read,
+                progress.imported.sum(), progress.failed.sum(), read * 1000 / Math.max(1, progress.elapsedMillis()));
+    }
+
+    private static String player(String name) {
+        return name == null || name.isBlank() || name.equals("?") ? null : name;
+    }
+
+    private static Integer rating(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a "seconds+increment" TimeControl tag; other forms (moves per period, "-", "?")
+     * have no base time.
+     */
+    private static TimeControl timeControl(String value) {
+        if (value == null) {
+            return null;
+        }
+        int plus = value.indexOf('+');
+        try {
+            long base = Long.parseLong(plus < 0 ? value : value.substring(0, plus));
+            long increment = plus < 0 ? 0 : Long.parseLong(value.substring(plus + 1));
+            return new TimeControl(TimeUnit.SECONDS.toMillis(base), TimeUnit.SECONDS.toMillis(increment));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * PGN dates are "yyyy.mm.dd" with "??" for unknown parts; games keep only full dates.
+     */
+    private static LocalDateTime date(String value) {
+        if (value == null || value.length() != 10 || value.indexOf('?') >= 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(Integer.parseInt(value.substring(0, 4)), Integer.parseInt(value.substring(5, 7)),
+                    Integer.parseInt(value.substring(8, 10))).atStartOfDay();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory named(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
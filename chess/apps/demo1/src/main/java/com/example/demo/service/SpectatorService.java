@@ -0,0 +1,222 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import com.example.demo.websocket.GameTopicBroker;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spectator channel {@code /topic/game/{gameId}/watch}. Players' moves only record the latest
+ * state of the game and mark it dirty; a separate fan-out thread publishes one coalesced
+ * {@link SpectatorUpdate} per dirty game per tick, with the socket writes done by small writer
+ * pools (slow connections get their own). Each update carries the full state, so a spectator
+ * whose previous write has not finished is skipped and simply catches up on a later tick, and
+ * neither the player path nor other spectators wait on a slow connection.
+ */
+@Slf4j
+@Service
+public class SpectatorService {
+    public static final String WATCH_SUFFIX = "/watch";
+
+    private final GameTopicBroker gameTopicBroker;
+    private final ObjectMapper objectMapper;
+    private final long tickMillis;
+    private final Map<String, SpectatorUpdate> latest = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService fanout = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spectator-fanout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService writers;
+    private final ExecutorService slowWriters;
+
+    /**
+     * Latest state of a game as seen by spectators. {@code version} increases with every
+     * change, so a client can ignore an update it has already applied.
+     */
+    public record SpectatorUpdate(String gameId, long version, int ply, String fen, String lastMove,
+                                  Clock clock, String result) {
+    }
+
+    public record Clock(long white, long black, String running) {
+    }
+
+    public SpectatorService(GameTopicBroker gameTopicBroker, ObjectMapper objectMapper,
+                            @Value("${game.spectator.tick-millis:100}") long tickMillis,
+                            @Value("${game.spectator.writer-threads:0}") int writerThreads) {
+        this.gameTopicBroker = gameTopicBroker;
+        this.objectMapper = objectMapper;
+        this.tickMillis = tickMillis;
+        // Socket writes block on slow peers rather than burn CPU, so don't size by cores alone.
+        int threads = writerThreads > 0 ? writerThreads : Math.max(4, Runtime.getRuntime().availableProcessors());
+        this.writers = newWriterPool("spectator-writer-", threads);
+        this.slowWriters = newWriterPool("spectator-slow-writer-", threads);
+    }
+
+    private static ExecutorService newWriterPool(String namePrefix, int threads) {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static String watchTopic(String gameId) {
+        return GameBroadcastService.gameTopic(gameId) + WATCH_SUFFIX;
+    }
+
+    @PostConstruct
+    public void start() {
+        fanout.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdownNow();
+        writers.shutdownNow();
+        slowWriters.shutdownNow();
+    }
+
+    /**
+     * Records an accepted move. Called on the game's mailbox thread.
+     *
+     * @return the new state of the game
+     */
+    public SpectatorUpdate onMove(GameSessionService.GameSession session, int move, GameClock clock) {
+        String gameId = session.getGameId();
+        SpectatorUpdate previous = latest.get(gameId);
+        SpectatorUpdate update = new SpectatorUpdate(gameId, versionAfter(previous), session.getPly(),
+                session.getFen(), Move.toUci(move), clockOf(clock), previous == null ? null : previous.result());
+        latest.put(gameId, update);
+        dirty.add(gameId);
+        return update;
+    }
+
+    /**
+     * Records the end of a game; {@code result} is the GAME_OVER content sent to players.
+     *
+     * @return the new state of the game
+     */
+    public SpectatorUpdate onGameOver(String gameId, String result) {
+        SpectatorUpdate previous = latest.get(gameId);
+        SpectatorUpdate update = previous == null
+                ? new SpectatorUpdate(gameId, 1, 0, null, null, null, result)
+                : new SpectatorUpdate(gameId, previous.version() + 1, previous.ply(), previous.fen(),
+                        previous.lastMove(), previous.clock(), result);
+        latest.put(gameId, update);
+        dirty.add(gameId);
+        return update;
+    }
+
+    /**
+     * @return the latest state of the game, or null if nothing was recorded
+     */
+    public SpectatorUpdate latest(String gameId) {
+        return latest.get(gameId);
+    }
+
+    /**
+     * Adopts state recorded on another node, unless a newer version is already known here.
+     */
+    public void restore(SpectatorUpdate update) {
+        latest.merge(update.gameId(), update, (current, added) -> added.version() > current.version() ? added : current);
+        dirty.add(update.gameId());
+    }
+
+    /**
+     * Passes on an update already coalesced by the node that owns the game to the spectators
+     * connected here.
+     */
+    public void publishRelayed(String topic, byte[] update) {
+        if (gameTopicBroker.subscriberCount(topic) > 0) {
+            gameTopicBroker.publishLatest(topic, update, MimeTypeUtils.APPLICATION_JSON, writers, slowWriters);
+        }
+    }
+
+    public void remove(String gameId) {
+        latest.remove(gameId);
+        dirty.remove(gameId);
+    }
+
+    /**
+     * A new spectator gets the current state on the next tick.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        if (destination == null || !destination.startsWith(GameTopicBroker.DESTINATION_PREFIX)
+                || !destination.endsWith(WATCH_SUFFIX)) {
+            return;
+        }
+        String gameId = destination.substring(GameTopicBroker.DESTINATION_PREFIX.length(),
+                destination.length() - WATCH_SUFFIX.length());
+        if (latest.containsKey(gameId)) {
+            dirty.add(gameId);
+        }
+    }
+
+    void tick() {
+        List<String> retry = new ArrayList<>();
+        Iterator<String> games = dirty.iterator();
+        while (games.hasNext()) {
+            String gameId = games.next();
+            games.remove();
+            SpectatorUpdate update = latest.get(gameId);
+            String topic = watchTopic(gameId);
+            if (update == null || !gameTopicBroker.hasSubscribers(topic)) {
+                continue;
+            }
+            try {
+                int skipped = gameTopicBroker.publishLatest(topic, objectMapper.writeValueAsBytes(update),
+                        MimeTypeUtils.APPLICATION_JSON, writers, slowWriters);
+                if (skipped > 0) {
+                    retry.add(gameId);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Error serializing spectator update for game {}", gameId, e);
+            } catch (Exception e) {
+                log.error("Error publishing spectator update for game {}", gameId, e);
+            }
+        }
+        dirty.addAll(retry);
+    }
+
+    private static long versionAfter(SpectatorUpdate previous) {
+        return previous == null ? 1 : previous.version() + 1;
+    }
+
+    private static Clock clockOf(GameClock clock) {
+        long now = System.nanoTime();
+        int running = clock.getRunningColor();
+        return new Clock(
+                clock.remainingMillis(Piece.WHITE, now),
+                clock.remainingMillis(Piece.BLACK, now),
+                running == Piece.NONE ? null : running == Piece.WHITE ? "white" : "black"
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.model.User;
+import com.example.demo.persistence.WriteBehindStore;
 import com.example.demo.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,15 +9,16 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class UserService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
+    private final WriteBehindStore writeBehindStore;
     
-    public UserService(UserRepository userRepository, EmailService emailService) {
+    public UserService(UserRepository userRepository, EmailService emailService, WriteBehindStore writeBehindStore) {
         this.userRepository = userRepository;
+        this.writeBehindStore = writeBehindStore;
     }
 
     public List<User> allUsers() {
@@ -34,21 +36,17 @@ public class UserService {
      */
     public boolean updateElo(String userId, int eloChange) {
         try {
-            Optional<User> userOpt = userRepository.findById(Long.valueOf(userId));
+            long id = Long.parseLong(userId);
+            Integer newElo = writeBehindStore.updateElo(id,
+                    () -> userRepository.findById(id).map(User::getElo_rating).orElse(null),
+                    elo -> Math.max(0, elo + eloChange)); // Prevent negative ELO
             
-            if (userOpt.isEmpty()) {
+            if (newElo == null) {
                 log.warn("Attempted to update ELO for non-existent user: {}", userId);
                 return false;
             }
             
-            User user = userOpt.get();
-            int currentElo = user.getElo_rating();
-            int newElo = Math.max(0, currentElo + eloChange); // Prevent negative ELO
-            
-            log.info("Updating ELO for user {}: {} -> {}", userId, currentElo, newElo);
-            
-            user.setElo_rating(newElo);
-            userRepository.save(user);
+            log.info("Updated ELO for user {} by {} to {}", userId, eloChange, newElo);
             
             return true;
         } catch (Exception e) {
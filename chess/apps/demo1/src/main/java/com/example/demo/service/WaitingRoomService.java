@@ -11,9 +11,11 @@ import java.util.Optional;
 @Service
 public class WaitingRoomService {
     private final WaitingRoomRepository waitingRoomRepository;
+    private final LobbyService lobbyService;
 
-    public WaitingRoomService(WaitingRoomRepository waitingRoomRepository) {
+    public WaitingRoomService(WaitingRoomRepository waitingRoomRepository, LobbyService lobbyService) {
         this.waitingRoomRepository = waitingRoomRepository;
+        this.lobbyService = lobbyService;
     }
 
     public WaitingRoom createWaitingRoom(User host) {
@@ -46,6 +48,7 @@ public class WaitingRoomService {
         waitingRoomRepository.findById(waitingRoomId).ifPresent(room -> {
             room.setActive(false);
             waitingRoomRepository.save(room);
+            lobbyService.remove(room.getGameCode());
         });
     }
 }
@@ -0,0 +1,160 @@
+package com.example.demo.websocket;
+
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+
+/**
+ * Compact big-endian encoding of move and clock traffic for STOMP binary frames.
+ * <pre>
+ *  offset  size  field
+ *  0       1     frame type (MOVE, MOVE_WITH_CLOCK, CLOCK)
+ *  1       4     game handle
+ *  5       4     sequence: ply number of the move (1 = white's first move)
+ *  9       2     wire move: from | to &lt;&lt; 6 | promotion &lt;&lt; 12 (0 none, 1 knight .. 4 queen)
+ *  11      4     white milliseconds left   (clock frames only)
+ *  15      4     black milliseconds left   (clock frames only)
+ *  19      1     running side: 0 white, 1 black, 0xFF stopped
+ * </pre>
+ * CLOCK frames carry no move; their clock block starts at offset 9.
+ */
+public final class BinaryMoveCodec {
+    public static final byte MOVE = 1;
+    public static final byte MOVE_WITH_CLOCK = 2;
+    public static final byte CLOCK = 3;
+
+    public static final int MOVE_FRAME_LENGTH = 11;
+    public static final int MOVE_WITH_CLOCK_FRAME_LENGTH = 20;
+    public static final int CLOCK_FRAME_LENGTH = 18;
+
+    private static final int NOT_RUNNING = 0xFF;
+
+    private BinaryMoveCodec() {
+    }
+
+    public static int toWireMove(int move) {
+        int promotion = Move.promotionType(move);
+        int promotionCode = promotion == Piece.NONE ? 0 : promotion - Piece.KNIGHT + 1;
+        return Move.from(move) | (Move.to(move) << 6) | (promotionCode << 12);
+    }
+
+    public static int wireFrom(int wireMove) {
+        return wireMove & 63;
+    }
+
+    public static int wireTo(int wireMove) {
+        return (wireMove >>> 6) & 63;
+    }
+
+    /**
+     * @return the promoted piece type, or {@link Piece#NONE}
+     */
+    public static int wirePromotionType(int wireMove) {
+        int promotionCode = (wireMove >>> 12) & 7;
+        return promotionCode == 0 ? Piece.NONE : Piece.KNIGHT + promotionCode - 1;
+    }
+
+    public static byte[] encodeMove(int handle, int sequence, int wireMove) {
+        byte[] frame = new byte[MOVE_FRAME_LENGTH];
+        writeHeader(frame, MOVE, handle, sequence);
+        writeShort(frame, 9, wireMove);
+        return frame;
+    }
+
+    public static byte[] encodeMoveWithClock(int handle, int sequence, int wireMove,
+                                             long whiteMillis, long blackMillis, int runningColor) {
+        byte[] frame = new byte[MOVE_WITH_CLOCK_FRAME_LENGTH];
+        writeHeader(frame, MOVE_WITH_CLOCK, handle, sequence);
+        writeShort(frame, 9, wireMove);
+        writeClock(frame, 11, whiteMillis, blackMillis, runningColor);
+        return frame;
+    }
+
+    public static byte[] encodeClock(int handle, int sequence, long whiteMillis, long blackMillis, int runningColor) {
+        byte[] frame = new byte[CLOCK_FRAME_LENGTH];
+        writeHeader(frame, CLOCK, handle, sequence);
+        writeClock(frame, 9, whiteMillis, blackMillis, runningColor);
+        return frame;
+    }
+
+    /**
+     * @return true if the buffer is long enough for the frame type it announces
+     */
+    public static boolean isValid(byte[] frame) {
+        if (frame == null || frame.length < 1) {
+            return false;
+        }
+        return switch (frame[0]) {
+            case MOVE -> frame.length >= MOVE_FRAME_LENGTH;
+            case MOVE_WITH_CLOCK -> frame.length >= MOVE_WITH_CLOCK_FRAME_LENGTH;
+            case CLOCK -> frame.length >= CLOCK_FRAME_LENGTH;
+            default -> false;
+        };
+    }
+
+    public static int type(byte[] frame) {
+        return frame[0];
+    }
+
+    public static int handle(byte[] frame) {
+        return readInt(frame, 1);
+    }
+
+    public static int sequence(byte[] frame) {
+        return readInt(frame, 5);
+    }
+
+    public static int wireMove(byte[] frame) {
+        return ((frame[9] & 0xFF) << 8) | (frame[10] & 0xFF);
+    }
+
+    public static long whiteMillis(byte[] frame) {
+        return readInt(frame, clockOffset(frame)) & 0xFFFFFFFFL;
+    }
+
+    public static long blackMillis(byte[] frame) {
+        return readInt(frame, clockOffset(frame) + 4) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return the running colour, or {@link Piece#NONE} if the clock is stopped
+     */
+    public static int runningColor(byte[] frame) {
+        int running = frame[clockOffset(frame) + 8] & 0xFF;
+        return running == NOT_RUNNING ? Piece.NONE : running;
+    }
+
+    private static int clockOffset(byte[] frame) {
+        return frame[0] == CLOCK ? 9 : 11;
+    }
+
+    private static void writeHeader(byte[] frame, byte type, int handle, int sequence) {
+        frame[0] = type;
+        writeInt(frame, 1, handle);
+        writeInt(frame, 5, sequence);
+    }
+
+    private static void writeClock(byte[] frame, int offset, long whiteMillis, long blackMillis, int runningColor) {
+        writeInt(frame, offset, (int) Math.min(whiteMillis, 0xFFFFFFFFL));
+        writeInt(frame, offset + 4, (int) Math.min(blackMillis, 0xFFFFFFFFL));
+        frame[offset + 8] = (byte) (runningColor == Piece.NONE ? NOT_RUNNING : runningColor);
+    }
+
+    private static void writeShort(byte[] frame, int offset, int value) {
+        frame[offset] = (byte) (value >>> 8);
+        frame[offset + 1] = (byte) value;
+    }
+
+    private static void writeInt(byte[] frame, int offset, int value) {
+        frame[offset] = (byte) (value >>> 24);
+        frame[offset + 1] = (byte) (value >>> 16);
+        frame[offset + 2] = (byte) (value >>> 8);
+        frame[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] frame, int offset) {
+        return ((frame[offset] & 0xFF) << 24)
+                | ((frame[offset + 1] & 0xFF) << 16)
+                | ((frame[offset + 2] & 0xFF) << 8)
+                | (frame[offset + 3] & 0xFF);
+    }
+}
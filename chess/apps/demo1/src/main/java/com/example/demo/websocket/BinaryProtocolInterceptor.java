@@ -0,0 +1,78 @@
+package com.example.demo.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Per-connection negotiation of the binary move protocol. A client that sends
+ * {@code move-encoding: binary} in its CONNECT frame has its subscriptions to
+ * {@code /topic/game/{gameId}} moved to {@code /topic/game/{gameId}/bin}, where moves and
+ * clocks arrive as {@link BinaryMoveCodec} frames and everything else stays JSON. Clients
+ * that don't ask keep receiving plain JSON, and so do SockJS clients, whose transports only
+ * carry text.
+ */
+@Slf4j
+@Component
+public class BinaryProtocolInterceptor implements ChannelInterceptor {
+    public static final String MOVE_ENCODING_HEADER = "move-encoding";
+    public static final String BINARY_ENCODING = "binary";
+    public static final String BINARY_SUFFIX = "/bin";
+
+    private static final String GAME_TOPIC_PREFIX = "/topic/game/";
+    private static final String SESSION_ATTRIBUTE = "moveEncoding";
+
+    private final WebSocketSessionRegistry sessions;
+
+    public BinaryProtocolInterceptor(WebSocketSessionRegistry sessions) {
+        this.sessions = sessions;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            String encoding = accessor.getFirstNativeHeader(MOVE_ENCODING_HEADER);
+            Map<String, Object> attributes = accessor.getSessionAttributes();
+            if (BINARY_ENCODING.equalsIgnoreCase(encoding) && attributes != null) {
+                if (!sessions.supportsBinary(accessor.getSessionId())) {
+                    log.debug("Session {} asked for binary move encoding over SockJS, keeping JSON",
+                            accessor.getSessionId());
+                } else {
+                    attributes.put(SESSION_ATTRIBUTE, BINARY_ENCODING);
+                    log.debug("Session {} negotiated binary move encoding", accessor.getSessionId());
+                }
+            }
+        } else if (command == StompCommand.SUBSCRIBE) {
+            String gameId = gameIdOf(accessor.getDestination());
+            if (gameId != null && isBinarySession(accessor)) {
+                accessor.setDestination(GAME_TOPIC_PREFIX + gameId + BINARY_SUFFIX);
+            }
+        }
+        return message;
+    }
+
+    private static boolean isBinarySession(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        return attributes != null && BINARY_ENCODING.equals(attributes.get(SESSION_ATTRIBUTE));
+    }
+
+    private static String gameIdOf(String destination) {
+        if (destination == null || !destination.startsWith(GAME_TOPIC_PREFIX)) {
+            return null;
+        }
+        String gameId = destination.substring(GAME_TOPIC_PREFIX.length());
+        return gameId.isEmpty() || gameId.indexOf('/') >= 0 ? null : gameId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.websocket;
+
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carries {@link GameTopicBroker} publishes to other nodes that may hold subscribers for the
+ * same destination.
+ */
+public interface BrokerRelay {
+
+    /**
+     * @return true if publishes may have subscribers beyond this node
+     */
+    boolean isActive();
+
+    /**
+     * @param latest true for {@link GameTopicBroker#publishLatest} updates, which supersede
+     *               each other, false for messages every subscriber must get in order
+     */
+    void relay(String destination, byte[] body, MimeType contentType, Map<String, List<String>> nativeHeaders,
+               boolean latest);
+}
@@ -0,0 +1,388 @@
+package com.example.demo.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process broker for {@code /topic/game/**}, used instead of the simple broker for game
+ * traffic. Subscriptions are indexed by exact destination in a sharded map, so a publish is a
+ * single lookup instead of a scan over every subscription, and the STOMP frame for a publish
+ * is encoded once per subscription id: the {@code subscription} line is the only one that
+ * differs between subscribers, and clients mostly number their subscriptions alike, so
+ * subscribers with the same id share one frame. Frames are written straight to the sessions
+ * held by {@link WebSocketSessionRegistry}.
+ * <p>
+ * SockJS sessions only carry text, so binary bodies are sent to them base64-encoded, with the
+ * {@value #TRANSFER_ENCODING_HEADER} header set to {@code base64}.
+ * <p>
+ * Only server-side publishes (from the broker channel) are delivered; clients cannot SEND to
+ * game topics.
+ * <p>
+ * A client resubscribing after a reconnect can send the last sequence it saw in the
+ * {@value #LAST_SEQ_HEADER} header; the {@link ResyncSource} then answers with a single
+ * {@value #RESYNC_HEADER} frame holding what it missed, before any newer message.
+ * <p>
+ * When a {@link BrokerRelay} is set, publishes are also handed to it for subscribers on other
+ * nodes, and frames relayed from other nodes come in through {@link #deliverRelayed}.
+ */
+@Slf4j
+public class GameTopicBroker extends AbstractBrokerMessageHandler {
+    public static final String DESTINATION_PREFIX = "/topic/game/";
+    public static final String LAST_SEQ_HEADER = "last-seq";
+    public static final String RESYNC_HEADER = "game-resync";
+    public static final String TRANSFER_ENCODING_HEADER = "transfer-encoding";
+
+    private static final int SHARDS = 64;
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private final WebSocketSessionRegistry sessions;
+    private final Map<String, Subscriber[]>[] shards;
+    private final Map<String, Map<String, String>> destinationsBySession = new ConcurrentHashMap<>();
+    private final AtomicLong publishSequence = new AtomicLong();
+    private ResyncSource resyncSource;
+    private volatile BrokerRelay relay;
+
+    /**
+     * {@code head} is the pre-encoded {@code MESSAGE\nsubscription:<id>\nmessage-id:} prefix.
+     */
+    private record Subscriber(String sessionId, String subscriptionId, byte[] head) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public GameTopicBroker(SubscribableChannel clientInboundChannel, MessageChannel clientOutboundChannel,
+                           SubscribableChannel brokerChannel, WebSocketSessionRegistry sessions) {
+        super(clientInboundChannel, clientOutboundChannel, brokerChannel, List.of(DESTINATION_PREFIX));
+        this.sessions = sessions;
+        this.shards = new Map[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    public void setResyncSource(ResyncSource resyncSource) {
+        this.resyncSource = resyncSource;
+    }
+
+    public void setRelay(BrokerRelay relay) {
+        this.relay = relay;
+    }
+
+    @Override
+    protected void startInternal() {
+        publishBrokerAvailableEvent();
+    }
+
+    @Override
+    protected void stopInternal() {
+        publishBrokerUnavailableEvent();
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        if (type == SimpMessageType.MESSAGE) {
+            if (!checkDestinationPrefix(destination)) {
+                return;
+            }
+            if (sessionId != null) {
+                log.warn("Dropping client SEND from session {} to broker destination {}", sessionId, destination);
+                return;
+            }
+            publish(destination, message);
+        } else if (type == SimpMessageType.SUBSCRIBE) {
+            if (checkDestinationPrefix(destination)) {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                Long lastSeq = lastSeqOf(message);
+                if (lastSeq != null && resyncSource != null && sessionId != null && subscriptionId != null) {
+                    resyncSource.resync(destination, lastSeq,
+                            () -> subscribe(sessionId, subscriptionId, destination),
+                            body -> sendResync(sessionId, subscriptionId, destination, body));
+                } else {
+                    subscribe(sessionId, subscriptionId, destination);
+                }
+            }
+        } else if (type == SimpMessageType.UNSUBSCRIBE) {
+            unsubscribe(sessionId, SimpMessageHeaderAccessor.getSubscriptionId(headers));
+        } else if (type == SimpMessageType.DISCONNECT) {
+            Map<String, String> subscriptions = destinationsBySession.remove(sessionId);
+            if (subscriptions != null) {
+                subscriptions.forEach((subscriptionId, dest) -> removeSubscriber(dest, sessionId, subscriptionId));
+            }
+        }
+    }
+
+    public int subscriberCount(String destination) {
+        Subscriber[] subscribers = shardOf(destination).get(destination);
+        return subscribers == null ? 0 : subscribers.length;
+    }
+
+    /**
+     * @return true if a publish to {@code destination} may reach anyone, here or on another node
+     */
+    public boolean hasSubscribers(String destination) {
+        BrokerRelay currentRelay = relay;
+        return subscriberCount(destination) > 0 || (currentRelay != null && currentRelay.isActive());
+    }
+
+    void subscribe(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        String previous = destinationsBySession
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            removeSubscriber(previous, sessionId, subscriptionId);
+        }
+        Subscriber subscriber = new Subscriber(sessionId, subscriptionId, encodeHead(subscriptionId));
+        shardOf(destination).merge(destination, new Subscriber[]{subscriber}, (current, added) -> {
+            Subscriber[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = added[0];
+            return grown;
+        });
+    }
+
+    void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessionId == null ? null : destinationsBySession.get(sessionId);
+        if (subscriptions == null || subscriptionId == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            removeSubscriber(destination, sessionId, subscriptionId);
+        }
+    }
+
+    private void removeSubscriber(String destination, String sessionId, String subscriptionId) {
+        shardOf(destination).computeIfPresent(destination, (dest, current) -> {
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].sessionId().equals(sessionId) && current[i].subscriptionId().equals(subscriptionId)) {
+                    if (current.length == 1) {
+                        return null;
+                    }
+                    Subscriber[] shrunk = new Subscriber[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    return shrunk;
+                }
+            }
+            return current;
+        });
+    }
+
+    private void publish(String destination, Message<?> message) {
+        Object payload = message.getPayload();
+        byte[] body;
+        if (payload instanceof byte[] bytes) {
+            body = bytes;
+        } else if (payload instanceof String text) {
+            body = text.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.warn("Dropping non-serialized payload {} for {}", payload.getClass().getSimpleName(), destination);
+            return;
+        }
+        MimeType contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        Map<String, List<String>> nativeHeaders = nativeHeadersOf(message);
+        fanOut(destination, body, contentType, nativeHeaders, null, null);
+        BrokerRelay currentRelay = relay;
+        if (currentRelay != null) {
+            currentRelay.relay(destination, body, contentType, nativeHeaders, false);
+        }
+    }
+
+    /**
+     * Delivers a publish relayed from another node to the subscribers on this one.
+     */
+    public void deliverRelayed(String destination, byte[] body, MimeType contentType,
+                               Map<String, List<String>> nativeHeaders) {
+        fanOut(destination, body, contentType, nativeHeaders, null, null);
+    }
+
+    /**
+     * Publishes a full-state update where each frame supersedes the previous one. Writes run on
+     * {@code writer} (or {@code slowWriter} for sessions known to be slow), and subscribers
+     * whose session is still busy with an earlier frame are skipped rather than queued.
+     *
+     * @return number of subscribers skipped; they need the next update to catch up
+     * @see WebSocketSessionRegistry#sendLatest
+     */
+    public int publishLatest(String destination, byte[] body, MimeType contentType,
+                             Executor writer, Executor slowWriter) {
+        int skipped = fanOut(destination, body, contentType, Map.of(), writer, slowWriter);
+        BrokerRelay currentRelay = relay;
+        if (currentRelay != null) {
+            currentRelay.relay(destination, body, contentType, Map.of(), true);
+        }
+        return skipped;
+    }
+
+    /**
+     * Writes synchronously when {@code latestWriter} is null, otherwise hands each frame to the
+     * writers with skip-if-busy semantics. The publish's number is the {@code message-id} of
+     * every frame, which is unique within each session.
+     */
+    private int fanOut(String destination, byte[] body, MimeType contentType,
+                       Map<String, List<String>> nativeHeaders, Executor latestWriter, Executor slowWriter) {
+        Subscriber[] subscribers = shardOf(destination).getOrDefault(destination, NO_SUBSCRIBERS);
+        if (subscribers.length == 0) {
+            return 0;
+        }
+        boolean binary = contentType != null
+                && MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(contentType);
+        byte[] tail = encodeTail(destination, contentType, nativeHeaders, body);
+        byte[] textTail = binary ? encodeTail(destination, contentType, withBase64(nativeHeaders),
+                Base64.getEncoder().encode(body)) : tail;
+        byte[] publishId = Long.toString(publishSequence.incrementAndGet()).getBytes(StandardCharsets.US_ASCII);
+        Map<String, byte[]> binaryFrames = new HashMap<>();
+        Map<String, TextMessage> textFrames = new HashMap<>();
+
+        int skipped = 0;
+        for (Subscriber subscriber : subscribers) {
+            WebSocketMessage<?> wsMessage;
+            if (binary && sessions.supportsBinary(subscriber.sessionId())) {
+                // Each message wraps the shared frame in a buffer of its own, whose position the write moves
+                wsMessage = new BinaryMessage(binaryFrames.computeIfAbsent(subscriber.subscriptionId(),
+                        id -> concat(subscriber.head(), publishId, tail)));
+            } else {
+                wsMessage = textFrames.computeIfAbsent(subscriber.subscriptionId(),
+                        id -> new TextMessage(concat(subscriber.head(), publishId, textTail)));
+            }
+            if (latestWriter == null) {
+                sessions.send(subscriber.sessionId(), wsMessage);
+            } else if (!sessions.sendLatest(subscriber.sessionId(), wsMessage, latestWriter, slowWriter)) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private void sendResync(String sessionId, String subscriptionId, String destination, byte[] body) {
+        byte[] tail = encodeTail(destination, MimeTypeUtils.APPLICATION_JSON,
+                Map.of(RESYNC_HEADER, List.of("true")), body);
+        byte[] publishId = Long.toString(publishSequence.incrementAndGet()).getBytes(StandardCharsets.US_ASCII);
+        sessions.send(sessionId, new TextMessage(concat(encodeHead(subscriptionId), publishId, tail)));
+    }
+
+    private static Long lastSeqOf(Message<?> message) {
+        List<String> values = nativeHeadersOf(message).get(LAST_SEQ_HEADER);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(values.get(0));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, List<String>> withBase64(Map<String, List<String>> nativeHeaders) {
+        Map<String, List<String>> headers = new LinkedHashMap<>(nativeHeaders);
+        headers.put(TRANSFER_ENCODING_HEADER, List.of("base64"));
+        return headers;
+    }
+
+    private Map<String, Subscriber[]> shardOf(String destination) {
+        int hash = destination.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> nativeHeadersOf(Message<?> message) {
+        Object nativeHeaders = message.getHeaders().get(SimpMessageHeaderAccessor.NATIVE_HEADERS);
+        return nativeHeaders instanceof Map ? (Map<String, List<String>>) nativeHeaders : Map.of();
+    }
+
+    private static byte[] encodeHead(String subscriptionId) {
+        return ("MESSAGE\nsubscription:" + escape(subscriptionId) + "\nmessage-id:")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Everything after the message-id value: the shared headers, the blank line, the body and
+     * the NUL terminator.
+     */
+    private static byte[] encodeTail(String destination, MimeType contentType,
+                                     Map<String, List<String>> nativeHeaders, byte[] body) {
+        StringBuilder headers = new StringBuilder(128);
+        headers.append('\n');
+        headers.append("destination:").append(escape(destination)).append('\n');
+        if (contentType != null) {
+            headers.append("content-type:").append(escape(contentType.toString())).append('\n');
+        }
+        headers.append("content-length:").append(body.length).append('\n');
+        nativeHeaders.forEach((name, values) -> {
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                headers.append(escape(name)).append(':').append(escape(value)).append('\n');
+            }
+        });
+        headers.append('\n');
+        byte[] headerBytes = headers.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(headerBytes.length + body.length + 1);
+        out.writeBytes(headerBytes);
+        out.writeBytes(body);
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf(':') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case ':' -> escaped.append("\\c");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Supplies catch-up frames for clients that resubscribe with {@link GameTopicBroker#LAST_SEQ_HEADER}.
+ */
+public interface ResyncSource {
+
+    /**
+     * Registers a subscriber that last saw {@code lastSeq} on {@code destination} and sends it
+     * what it missed. {@code register} and {@code reply} must both run while publishes to the
+     * destination are held off, so the reply can't overlap or trail the live stream.
+     *
+     * @param reply receives the JSON body of the catch-up frame; not called if nothing was missed
+     */
+    void resync(String destination, long lastSeq, Runnable register, Consumer<byte[]> reply);
+}
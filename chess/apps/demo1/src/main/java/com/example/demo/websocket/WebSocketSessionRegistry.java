@@ -0,0 +1,141 @@
+package com.example.demo.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.sockjs.transport.session.AbstractSockJsSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks open WebSocket sessions by id so {@link GameTopicBroker} can write pre-encoded STOMP
+ * frames directly. Each session is wrapped in a {@link ConcurrentWebSocketSessionDecorator}
+ * before Spring's STOMP handler sees it, so direct writes and Spring's own writes are
+ * serialized through the same decorator.
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry implements WebSocketHandlerDecoratorFactory {
+    private static final int SEND_TIME_LIMIT_MILLIS = 10 * 1000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 512 * 1024;
+    private static final long SLOW_WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    private record Entry(ConcurrentWebSocketSessionDecorator session, boolean sockJs,
+                         AtomicBoolean writing, AtomicBoolean slow) {
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(register(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public WebSocketSession register(WebSocketSession session) {
+        ConcurrentWebSocketSessionDecorator concurrent = new ConcurrentWebSocketSessionDecorator(
+                session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_SIZE_LIMIT);
+        sessions.put(session.getId(), new Entry(concurrent, session instanceof AbstractSockJsSession, new AtomicBoolean(), new AtomicBoolean()));
+        return concurrent;
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * @return whether the session can receive binary WebSocket messages (SockJS is text only)
+     */
+    public boolean supportsBinary(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null && !entry.sockJs();
+    }
+
+    /**
+     * Hands a superseding frame to {@code writer} unless the session is still busy with an
+     * earlier one: a write of ours is pending or in progress, or frames are buffered in the
+     * session. A session whose last write took longer than 10 ms is served by
+     * {@code slowWriter} instead, so slow connections cannot hold up the writer threads of fast
+     * ones; it moves back once a write is quick again. A session stuck in one write for longer
+     * than the send time limit is closed.
+     *
+     * @return false if the frame was skipped because the session is busy
+     */
+    public boolean sendLatest(String sessionId, WebSocketMessage<?> message, Executor writer, Executor slowWriter) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return true;
+        }
+        ConcurrentWebSocketSessionDecorator session = entry.session();
+        if (session.getTimeSinceSendStarted() > SEND_TIME_LIMIT_MILLIS) {
+            log.warn("Closing session {} stuck in send for {} ms", sessionId, session.getTimeSinceSendStarted());
+            sessions.remove(sessionId);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close session {}: {}", sessionId, e.getMessage());
+            }
+            return true;
+        }
+        if (session.getBufferSize() > 0 || !entry.writing().compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            (entry.slow().get() ? slowWriter : writer).execute(() -> {
+                long started = System.nanoTime();
+                try {
+                    send(sessionId, message);
+                } finally {
+                    entry.slow().set(System.nanoTime() - started > SLOW_WRITE_NANOS);
+                    entry.writing().set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.writing().set(false);
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the session is gone or the write failed
+     */
+    public boolean send(String sessionId, WebSocketMessage<?> message) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null || !entry.session().isOpen()) {
+            return false;
+        }
+        try {
+            entry.session().sendMessage(message);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to session {}: {}", sessionId, e.getMessage());
+            return false;
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
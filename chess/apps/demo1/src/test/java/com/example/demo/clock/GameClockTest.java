@@ -0,0 +1,42 @@
+package com.example.demo.clock;
+
+import com.example.demo.engine.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flag fall in {@link GameClock}, noticed by a late press or by the deadline.
+ */
+class GameClockTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final GameClock clock = new GameClock("game", new TimeControl(1000, 0), ignored -> { });
+
+    @Test
+    void aFlagFallIsReportedOnce() {
+        clock.press(Piece.WHITE, 0);
+        assertFalse(clock.reportFlag());
+
+        assertEquals(-1, clock.press(Piece.BLACK, 2 * SECOND));
+        assertTrue(clock.reportFlag());
+        assertEquals(Piece.BLACK, clock.checkFlag(3 * SECOND));
+        assertFalse(clock.reportFlag());
+        assertEquals(-1, clock.press(Piece.BLACK, 4 * SECOND));
+        assertFalse(clock.reportFlag());
+    }
+
+    @Test
+    void theDeadlineAndALatePressShareOneReport() {
+        clock.press(Piece.WHITE, 0);
+
+        assertEquals(Piece.BLACK, clock.checkFlag(SECOND));
+        assertTrue(clock.reportFlag());
+        assertEquals(-1, clock.press(Piece.BLACK, 2 * SECOND));
+        assertFalse(clock.reportFlag());
+    }
+}
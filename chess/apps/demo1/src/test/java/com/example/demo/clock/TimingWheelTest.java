@@ -0,0 +1,139 @@
+package com.example.demo.clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Expiry, cascading and cancellation in {@link TimingWheel}, driven with a fake clock.
+ */
+class TimingWheelTest {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final TimingWheel wheel = new TimingWheel(TICK, 0);
+    private final List<String> fired = new ArrayList<>();
+
+    private TimingWheel.Timeout timeout(String name) {
+        return new TimingWheel.Timeout(() -> fired.add(name));
+    }
+
+    @Test
+    void firesOnTheTickOfItsDeadlineAndNotBefore() {
+        wheel.schedule(timeout("a"), 5 * TICK);
+
+        wheel.advance(4 * TICK);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(5 * TICK);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsDeadlinesBetweenTicksUp() {
+        wheel.schedule(timeout("a"), 5 * TICK + 1);
+
+        wheel.advance(5 * TICK);
+        assertEquals(List.of(), fired);
+        wheel.advance(6 * TICK);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void deadlineAlreadyPassedFiresOnTheNextTick() {
+        wheel.advance(100 * TICK);
+        wheel.schedule(timeout("late"), 50 * TICK);
+
+        wheel.advance(100 * TICK);
+        assertEquals(List.of(), fired);
+        wheel.advance(101 * TICK);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void cascadesFromEveryLevelOnTime() {
+        long[] deadlines = {63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 262_145, 300_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(timeout(Long.toString(deadline)), deadline * TICK);
+        }
+        wheel.advance(0);
+        assertEquals(deadlines.length, wheel.size());
+
+        for (long deadline : deadlines) {
+            wheel.advance((deadline - 1) * TICK);
+            assertFalse(fired.contains(Long.toString(deadline)), deadline + " fired early");
+            wheel.advance(deadline * TICK);
+            assertEquals(Long.toString(deadline), fired.getLast(), deadline + " did not fire on its tick");
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBeyondTheTopLevelIsParkedAndReplaced() {
+        long span = 1L << 24;
+        wheel.schedule(timeout("far"), (span + 100) * TICK);
+
+        wheel.advance((span - 1) * TICK);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+        wheel.advance((span + 99) * TICK);
+        assertEquals(List.of(), fired);
+        wheel.advance((span + 100) * TICK);
+        assertEquals(List.of("far"), fired);
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        TimingWheel.Timeout near = timeout("near");
+        TimingWheel.Timeout far = timeout("far");
+        wheel.schedule(near, 3 * TICK);
+        wheel.schedule(far, 5000 * TICK);
+        wheel.advance(TICK);
+
+        wheel.cancel(near);
+        wheel.cancel(far);
+        wheel.advance(6000 * TICK);
+        assertEquals(List.of(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void reschedulesBeforeATickAreCoalesced() {
+        TimingWheel.Timeout clock = timeout("clock");
+        wheel.schedule(clock, 10 * TICK);
+        wheel.schedule(clock, 20 * TICK);
+        wheel.schedule(clock, 30 * TICK);
+        assertEquals(1, wheel.pendingCount());
+
+        wheel.advance(29 * TICK);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+        wheel.advance(30 * TICK);
+        assertEquals(List.of("clock"), fired);
+    }
+
+    @Test
+    void rescheduledAfterPlacementMovesToTheNewDeadline() {
+        TimingWheel.Timeout clock = timeout("clock");
+        wheel.schedule(clock, 10 * TICK);
+        wheel.advance(TICK);
+        wheel.schedule(clock, 5000 * TICK);
+
+        wheel.advance(4999 * TICK);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+        wheel.advance(5000 * TICK);
+        assertEquals(List.of("clock"), fired);
+
+        wheel.schedule(clock, 5002 * TICK);
+        wheel.advance(5002 * TICK);
+        assertEquals(List.of("clock", "clock"), fired);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.cluster;
+
+import com.example.demo.Demo1Application;
+import com.example.demo.service.GameSessionService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several complete application contexts in this JVM, each on its own HTTP port and
+ * cluster port on loopback, all joined through the first node. Lets horizontal scaling be
+ * tested without external brokers or processes.
+ */
+class ClusterHarness implements AutoCloseable {
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    static ClusterHarness start(int count) {
+        ClusterHarness harness = new ClusterHarness();
+        try {
+            for (int i = 0; i < count; i++) {
+                String seeds = i == 0 ? "" : "127.0.0.1:" + harness.cluster(0).getLocalNode().port();
+                harness.nodes.add(new SpringApplicationBuilder(Demo1Application.class).run(
+                        "--server.port=0",
+                        "--game.cluster.enabled=true",
+                        "--game.cluster.node-id=" + nodeId(i),
+                        "--game.cluster.port=0",
+                        "--game.cluster.seeds=" + seeds,
+                        "--game.cluster.heartbeat-millis=100",
+                        "--game.cluster.failure-timeout-millis=2000",
+                        "--game.journal.dir=" + Files.createTempDirectory("journal-" + nodeId(i)),
+                        "--game.explorer.snapshot-file="
+                                + Files.createTempDirectory("explorer-" + nodeId(i)).resolve("positions.bin"),
+                        "--game.search.dir=" + Files.createTempDirectory("search-" + nodeId(i)),
+                        "--game.review.cursor-file="
+                                + Files.createTempDirectory("review-" + nodeId(i)).resolve("cursor")));
+            }
+        } catch (IOException e) {
+            harness.close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            harness.close();
+            throw e;
+        }
+        return harness;
+    }
+
+    static String nodeId(int index) {
+        return "node-" + index;
+    }
+
+    ClusterService cluster(int index) {
+        return nodes.get(index).getBean(ClusterService.class);
+    }
+
+    int httpPort(int index) {
+        return ((ServletWebServerApplicationContext) nodes.get(index)).getWebServer().getPort();
+    }
+
+    /**
+     * Waits until every running node routes over exactly {@code expected} members.
+     */
+    void awaitMembers(int expected, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            boolean converged = nodes.stream()
+                    .filter(ConfigurableApplicationContext::isActive)
+                    .allMatch(node -> node.getBean(ClusterService.class).getMembers().size() == expected);
+            if (converged) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Cluster did not converge on " + expected + " members");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Waits until a running node holds the session of {@code gameId}, e.g. after a handoff.
+     */
+    void awaitGame(String gameId, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (nodes.stream()
+                .filter(ConfigurableApplicationContext::isActive)
+                .noneMatch(node -> node.getBean(GameSessionService.class).getGameSession(gameId) != null)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("No node holds game " + gameId);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Stops one node gracefully, as a rolling restart would.
+     */
+    void stop(int index) {
+        nodes.get(index).close();
+    }
+
+    @Override
+    public void close() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.cluster;
+
+import com.example.demo.model.GameMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ClusterRoutingTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void playersOnDifferentNodesPlayThroughTheOwnerAndKeepPlayingAfterItLeaves() throws Exception {
+        try (ClusterHarness cluster = ClusterHarness.start(3)) {
+            cluster.awaitMembers(3, TIMEOUT);
+            String gameId = gameOwnedBy(cluster.cluster(0), ClusterHarness.nodeId(2));
+
+            Player white = Player.connect(cluster.httpPort(0), gameId, "white");
+            Player black = Player.connect(cluster.httpPort(1), gameId, "black");
+            // The game has no row, so seats go in join order
+            white.send("/app/game.join", GameMessage.MessageType.JOIN, "");
+            white.await(GameMessage.MessageType.JOIN, "white");
+            black.send("/app/game.join", GameMessage.MessageType.JOIN, "");
+            white.await(GameMessage.MessageType.START, null);
+            black.await(GameMessage.MessageType.START, null);
+
+            white.move("e2", "e4");
+            black.await(GameMessage.MessageType.MOVE, "\"e4\"");
+            black.move("e7", "e5");
+            white.await(GameMessage.MessageType.MOVE, "\"e5\"");
+
+            cluster.stop(2);
+            cluster.awaitMembers(2, TIMEOUT);
+            cluster.awaitGame(gameId, TIMEOUT);
+
+            // Only legal if the new owner got the position and whose turn it is
+            white.move("g1", "f3");
+            black.await(GameMessage.MessageType.MOVE, "\"f3\"");
+            white.await(GameMessage.MessageType.MOVE, "\"f3\"");
+        }
+    }
+
+    private static String gameOwnedBy(ClusterService cluster, String nodeId) {
+        for (int i = 0; ; i++) {
+            String gameId = "cluster-game-" + i;
+            if (nodeId.equals(cluster.ownerOf(gameId))) {
+                return gameId;
+            }
+        }
+    }
+
+    /**
+     * A player connected to one node over STOMP, subscribed to the game topic.
+     */
+    private record Player(StompSession session, String gameId, String userId, BlockingQueue<GameMessage> received) {
+
+        static Player connect(int port, String gameId, String userId) throws Exception {
+            WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+            client.setMessageConverter(new MappingJackson2MessageConverter());
+            StompSession session = client.connectAsync("ws://127.0.0.1:" + port + "/game-ws",
+                    new StompSessionHandlerAdapter() { }).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            BlockingQueue<GameMessage> received = new LinkedBlockingQueue<>();
+            session.subscribe("/topic/game/" + gameId, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return GameMessage.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    received.add((GameMessage) payload);
+                }
+            });
+            // SUBSCRIBE and the first SEND may be handled concurrently by the inbound channel
+            Thread.sleep(300);
+            return new Player(session, gameId, userId, received);
+        }
+
+        void send(String destination, GameMessage.MessageType type, String content) {
+            session.send(destination, new GameMessage(gameId, userId, type, content));
+        }
+
+        void move(String from, String to) {
+            send("/app/game.move", GameMessage.MessageType.MOVE, "{\"from\":\"" + from + "\",\"to\":\"" + to + "\"}");
+        }
+
+        /**
+         * Waits for a message of {@code type} whose content contains {@code contentFragment}.
+         */
+        void await(GameMessage.MessageType type, String contentFragment) throws InterruptedException {
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            GameMessage message;
+            do {
+                message = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } while (message != null && (message.getType() != type
+                    || (contentFragment != null && !String.valueOf(message.getContent()).contains(contentFragment))));
+            assertNotNull(message, userId + " never received " + type + " " + contentFragment);
+        }
+    }
+}
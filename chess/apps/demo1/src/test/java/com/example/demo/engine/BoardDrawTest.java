@@ -0,0 +1,119 @@
+package com.example.demo.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The draws {@link Board#drawReason} adjudicates after a move.
+ */
+class BoardDrawTest {
+
+    private static void play(Board board, String... moves) {
+        for (String uci : moves) {
+            int move = board.findLegalMove(Bitboards.squareIndex(uci.substring(0, 2)),
+                    Bitboards.squareIndex(uci.substring(2, 4)),
+                    Move.promotionTypeOf(uci.length() > 4 ? uci.substring(4) : null));
+            assertNotEquals(Move.NONE, move, uci);
+            board.makeMove(move);
+        }
+    }
+
+    @Test
+    void thirdOccurrenceOfAPositionIsADraw() {
+        Board board = new Board();
+        play(board, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertNull(board.drawReason());
+        play(board, "g1f3", "g8f6", "f3g1");
+        assertNull(board.drawReason());
+
+        play(board, "f6g8");
+        assertEquals(DrawReason.THREEFOLD_REPETITION, board.drawReason());
+    }
+
+    @Test
+    void repetitionsBeforeAPawnMoveDoNotCount() {
+        Board board = new Board();
+        play(board, "g1f3", "g8f6", "f3g1", "f6g8", "e2e4", "e7e5");
+        play(board, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6");
+        assertNull(board.drawReason());
+
+        play(board, "f3g1", "f6g8");
+        assertEquals(DrawReason.THREEFOLD_REPETITION, board.drawReason());
+    }
+
+    @Test
+    void positionsWithDifferentCastlingRightsAreNotRepetitions() {
+        Board board = new Board("4k3/8/8/8/8/8/8/4K2R w K - 0 1");
+        play(board, "h1h2", "e8d8", "h2h1", "d8e8", "h1h2", "e8d8", "h2h1", "d8e8");
+        assertNull(board.drawReason());
+
+        play(board, "h1h2", "e8d8", "h2h1", "d8e8");
+        assertEquals(DrawReason.THREEFOLD_REPETITION, board.drawReason());
+    }
+
+    @Test
+    void hundredthQuietPlyIsADraw() {
+        Board board = new Board("4k3/8/8/8/8/8/8/R3K3 w - - 98 80");
+        play(board, "a1a2");
+        assertNull(board.drawReason());
+
+        play(board, "e8d8");
+        assertEquals(DrawReason.FIFTY_MOVE_RULE, board.drawReason());
+    }
+
+    @Test
+    void captureOrPawnMoveResetsTheFiftyMoveCount() {
+        Board capture = new Board("4k3/8/8/8/8/8/r7/R3K3 w - - 99 80");
+        play(capture, "a1a2");
+        assertNull(capture.drawReason());
+        assertEquals(0, capture.getHalfmoveClock());
+
+        Board pawn = new Board("4k3/8/8/8/8/8/P7/R3K3 w - - 99 80");
+        play(pawn, "a2a3");
+        assertNull(pawn.drawReason());
+    }
+
+    @Test
+    void mateOnTheHundredthPlyIsNotADraw() {
+        Board board = new Board("k7/8/1K6/8/8/8/8/7R w - - 99 80");
+        play(board, "h1h8");
+
+        assertTrue(board.inCheck());
+        assertFalse(board.hasLegalMove());
+        assertNull(board.drawReason());
+    }
+
+    @Test
+    void captureLeavingNoMatingMaterialIsADraw() {
+        Board board = new Board("4k3/8/8/8/8/8/3r4/3BK3 w - - 0 1");
+        play(board, "e1d2");
+
+        assertEquals(DrawReason.INSUFFICIENT_MATERIAL, board.drawReason());
+    }
+
+    @Test
+    void insufficientMaterial() {
+        assertTrue(new Board("4k3/8/8/8/8/8/8/4K3 w - - 0 1").isInsufficientMaterial());
+        assertTrue(new Board("4k3/8/8/8/8/8/8/4KN2 w - - 0 1").isInsufficientMaterial());
+        assertTrue(new Board("4k3/8/8/8/8/8/8/2B1K3 w - - 0 1").isInsufficientMaterial());
+        assertTrue(new Board("2b1k3/8/8/8/8/8/8/3BK3 w - - 0 1").isInsufficientMaterial());
+
+        assertFalse(new Board("3bk3/8/8/8/8/8/8/3BK3 w - - 0 1").isInsufficientMaterial());
+        assertFalse(new Board("4k3/8/8/8/8/8/8/3NKN2 w - - 0 1").isInsufficientMaterial());
+        assertFalse(new Board("4kn2/8/8/8/8/8/8/3BK3 w - - 0 1").isInsufficientMaterial());
+        assertFalse(new Board("4k3/8/8/8/8/8/7P/4K3 w - - 0 1").isInsufficientMaterial());
+    }
+
+    @Test
+    void stalemate() {
+        Board board = new Board("k7/8/2Q5/8/8/8/8/K7 w - - 0 1");
+        play(board, "c6b6");
+
+        assertEquals(DrawReason.STALEMATE, board.drawReason());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.engine;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Move generation against the reference perft counts of the Chess Programming Wiki positions.
+ * The deeper counts, about a billion positions in all, run only with {@code -Dperft.deep=true}.
+ */
+class PerftTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_4_MIRRORED = "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @CsvSource({
+            "start, 1, 20",
+            "start, 2, 400",
+            "start, 3, 8902",
+            "start, 4, 197281",
+            "start, 5, 4865609",
+            "kiwipete, 1, 48",
+            "kiwipete, 2, 2039",
+            "kiwipete, 3, 97862",
+            "kiwipete, 4, 4085603",
+            "position3, 1, 14",
+            "position3, 2, 191",
+            "position3, 3, 2812",
+            "position3, 4, 43238",
+            "position3, 5, 674624",
+            "position4, 1, 6",
+            "position4, 2, 264",
+            "position4, 3, 9467",
+            "position4, 4, 422333",
+            "position4mirrored, 4, 422333",
+            "position5, 1, 44",
+            "position5, 2, 1486",
+            "position5, 3, 62379",
+            "position5, 4, 2103487",
+            "position6, 1, 46",
+            "position6, 2, 2079",
+            "position6, 3, 89890",
+            "position6, 4, 3894594"
+    })
+    void perft(String position, int depth, long expected) {
+        assertPerft(position, depth, expected);
+    }
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @EnabledIfSystemProperty(named = "perft.deep", matches = "true")
+    @CsvSource({
+            "start, 6, 119060324",
+            "kiwipete, 5, 193690690",
+            "position3, 6, 11030083",
+            "position3, 7, 178633661",
+            "position4, 5, 15833292",
+            "position4mirrored, 5, 15833292",
+            "position5, 5, 89941194",
+            "position6, 5, 164075551"
+    })
+    void perftDeep(String position, int depth, long expected) {
+        assertPerft(position, depth, expected);
+    }
+
+    private static void assertPerft(String position, int depth, long expected) {
+        Board board = new Board(fen(position));
+        String before = board.toFen();
+        assertEquals(expected, Perft.perft(board, depth), () -> Perft.divide(new Board(fen(position)), depth).toString());
+        assertEquals(before, board.toFen());
+    }
+
+    private static String fen(String position) {
+        return switch (position) {
+            case "start" -> START;
+            case "kiwipete" -> KIWIPETE;
+            case "position3" -> POSITION_3;
+            case "position4" -> POSITION_4;
+            case "position4mirrored" -> POSITION_4_MIRRORED;
+            case "position5" -> POSITION_5;
+            case "position6" -> POSITION_6;
+            default -> throw new IllegalArgumentException(position);
+        };
+    }
+}
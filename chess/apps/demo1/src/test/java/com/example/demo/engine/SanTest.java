@@ -0,0 +1,92 @@
+package com.example.demo.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * SAN written by {@link San#of} and read back by {@link San#parse}.
+ */
+class SanTest {
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+
+    private static int move(Board board, String uci) {
+        int move = board.findLegalMove(Bitboards.squareIndex(uci.substring(0, 2)),
+                Bitboards.squareIndex(uci.substring(2, 4)),
+                Move.promotionTypeOf(uci.length() > 4 ? uci.substring(4) : null));
+        assertNotEquals(Move.NONE, move, uci);
+        return move;
+    }
+
+    private void assertSan(String fen, String uci, String san) {
+        Board board = new Board(fen);
+        int move = move(board, uci);
+        assertEquals(san, San.of(board, move));
+        assertEquals(move, San.parse(board, san, scratch), san);
+        assertEquals(fen, board.toFen());
+    }
+
+    @Test
+    void disambiguatesByFile() {
+        assertSan("4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1", "b1d2", "Nbd2");
+    }
+
+    @Test
+    void disambiguatesByRank() {
+        assertSan("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1", "a1a3", "R1a3");
+    }
+
+    @Test
+    void disambiguatesByFileAndRank() {
+        assertSan("2k5/8/8/8/4Q2Q/8/8/K6Q w - - 0 1", "h4e1", "Qh4e1");
+    }
+
+    @Test
+    void aPinnedPieceDoesNotNeedDisambiguating() {
+        assertSan("4k3/8/8/b7/8/2N5/8/4K1N1 w - - 0 1", "g1e2", "Ne2");
+    }
+
+    @Test
+    void promotionWithCheck() {
+        assertSan("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7a8q", "a8=Q+");
+    }
+
+    @Test
+    void capturingUnderpromotion() {
+        assertSan("3rk3/4P3/8/8/8/8/8/4K3 w - - 0 1", "e7d8n", "exd8=N");
+    }
+
+    @Test
+    void enPassant() {
+        assertSan("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6", "exd6");
+    }
+
+    @Test
+    void castling() {
+        assertSan("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1", "O-O");
+        assertSan("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", "e8c8", "O-O-O");
+        Board board = new Board("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals(move(board, "e1g1"), San.parse(board, "0-0", scratch));
+    }
+
+    @Test
+    void checkAndMateSuffixes() {
+        Board board = new Board();
+        for (String uci : new String[]{"e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6"}) {
+            board.makeMove(move(board, uci));
+        }
+        assertEquals("Qxf7#", San.of(board, move(board, "h5f7")));
+        assertEquals("Bxf7+", San.of(board, move(board, "c4f7")));
+        assertEquals("Qxe5+", San.of(board, move(board, "h5e5")));
+        assertEquals(move(board, "h5f7"), San.parse(board, "Qxf7#", scratch));
+    }
+
+    @Test
+    void ambiguousOrIllegalTokensAreRejected() {
+        Board board = new Board("4k3/8/8/8/8/5N2/8/1N2K3 w - - 0 1");
+        assertEquals(Move.NONE, San.parse(board, "Nd2", scratch));
+        assertEquals(Move.NONE, San.parse(board, "Nd5", scratch));
+        assertEquals(Move.NONE, San.parse(board, "e4", scratch));
+    }
+}
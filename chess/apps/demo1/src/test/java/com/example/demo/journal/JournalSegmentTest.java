@@ -0,0 +1,145 @@
+package com.example.demo.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Record encoding and the on-disk layout of a {@link JournalSegment}, torn writes included.
+ */
+class JournalSegmentTest {
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_OVERHEAD = 8;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static JournalRecord decode(byte[] payload) throws IOException {
+        return JournalRecord.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    private static void overwrite(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static List<JournalRecord> readAll(Path path, boolean intact) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(intact, JournalSegment.read(path, records::add));
+        return records;
+    }
+
+    @Test
+    void everyRecordTypeSurvivesEncoding() throws IOException {
+        JournalRecord move = decode(encode(JournalRecord.move("g", "w", 1234, 59_000, 60_000, 1, 7)));
+        assertEquals(JournalRecord.Type.MOVE, move.type());
+        assertEquals("w", move.userId());
+        assertArrayEquals(new int[]{1234}, move.moves());
+        assertEquals(59_000, move.whiteMillis());
+        assertEquals(60_000, move.blackMillis());
+        assertEquals(1, move.runningColor());
+        assertEquals(7, move.seq());
+
+        JournalRecord state = decode(encode(JournalRecord.state("g", List.of("w", "b"), "b", new int[]{1, 2, 3},
+                1000, 2000, 0, 42)));
+        assertEquals(JournalRecord.Type.STATE, state.type());
+        assertEquals(List.of("w", "b"), state.players());
+        assertEquals("b", state.userId());
+        assertArrayEquals(new int[]{1, 2, 3}, state.moves());
+        assertEquals(1000, state.whiteMillis());
+        assertEquals(2000, state.blackMillis());
+        assertEquals(42, state.seq());
+
+        assertNull(decode(encode(JournalRecord.state("g", List.of("w"), null, new int[0], 0, 0, 0, 0))).userId());
+        assertEquals(JournalRecord.join("g", "w"), decode(encode(JournalRecord.join("g", "w"))));
+        assertEquals(JournalRecord.leave("g", "b"), decode(encode(JournalRecord.leave("g", "b"))));
+        JournalRecord end = decode(encode(JournalRecord.end("g")));
+        assertEquals(JournalRecord.Type.END, end.type());
+        assertEquals("g", end.gameId());
+    }
+
+    @Test
+    void readsBackWhatWasAppendedAndStopsAtTheZeroFill() throws IOException {
+        Path path = dir.resolve("segment");
+        JournalSegment segment = JournalSegment.create(path, 1024);
+        assertTrue(segment.append(encode(JournalRecord.join("g", "w"))));
+        assertTrue(segment.append(encode(JournalRecord.move("g", "w", 99, 1, 2, 1, 3))));
+        segment.force();
+        segment.close();
+
+        List<JournalRecord> records = readAll(path, true);
+        assertEquals(2, records.size());
+        assertEquals(JournalRecord.Type.JOIN, records.get(0).type());
+        assertArrayEquals(new int[]{99}, records.get(1).moves());
+    }
+
+    @Test
+    void appendRefusesARecordThatDoesNotFit() throws IOException {
+        byte[] payload = encode(JournalRecord.join("g", "w"));
+        int sizeBytes = HEADER_BYTES + RECORD_OVERHEAD + payload.length;
+        assertTrue(JournalSegment.fits(payload, sizeBytes));
+        assertFalse(JournalSegment.fits(payload, sizeBytes - 1));
+
+        JournalSegment segment = JournalSegment.create(dir.resolve("segment"), sizeBytes);
+        assertTrue(segment.append(payload));
+        assertFalse(segment.append(payload));
+        segment.close();
+    }
+
+    @Test
+    void aRecordWithABadChecksumEndsTheSegment() throws IOException {
+        Path path = dir.resolve("segment");
+        byte[] first = encode(JournalRecord.join("g", "w"));
+        JournalSegment segment = JournalSegment.create(path, 1024);
+        segment.append(first);
+        segment.append(encode(JournalRecord.move("g", "w", 99, 1, 2, 1, 3)));
+        segment.append(encode(JournalRecord.join("g", "b")));
+        segment.force();
+        segment.close();
+
+        long secondPayload = HEADER_BYTES + RECORD_OVERHEAD + first.length + RECORD_OVERHEAD;
+        overwrite(path, secondPayload + 4, ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}));
+
+        List<JournalRecord> records = readAll(path, false);
+        assertEquals(List.of(JournalRecord.join("g", "w")), records);
+    }
+
+    @Test
+    void aRecordRunningPastTheFileEndsTheSegment() throws IOException {
+        Path path = dir.resolve("segment");
+        byte[] first = encode(JournalRecord.join("g", "w"));
+        JournalSegment segment = JournalSegment.create(path, 256);
+        segment.append(first);
+        segment.append(encode(JournalRecord.join("g", "b")));
+        segment.force();
+        segment.close();
+
+        overwrite(path, HEADER_BYTES + RECORD_OVERHEAD + first.length, ByteBuffer.allocate(4).putInt(0, 4096));
+
+        assertEquals(List.of(JournalRecord.join("g", "w")), readAll(path, false));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery, compaction and segment deletion in {@link MoveJournal}, across restarts in a
+ * temporary directory.
+ */
+class MoveJournalTest {
+    /** Room for a handful of MOVE records per segment. */
+    private static final int SMALL_SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path dir;
+
+    private MoveJournal newJournal(int segmentBytes) {
+        return new MoveJournal(true, dir.toString(), segmentBytes, false, new SimpleMeterRegistry());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<JournalRecord> read(Path segment) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        JournalSegment.read(segment, records::add);
+        return records;
+    }
+
+    private static void play(MoveJournal journal, String gameId, int fromMove, int toMove) {
+        for (int move = fromMove; move < toMove; move++) {
+            String mover = move % 2 == 0 ? "w" : "b";
+            journal.append(JournalRecord.move(gameId, mover, move, 60_000 - move, 60_000 - 2 * move,
+                    move % 2 == 0 ? 1 : 0, move + 1));
+        }
+    }
+
+    @Test
+    void aLiveGameComesBackAfterARestart() throws Exception {
+        MoveJournal journal = newJournal(1 << 16);
+        assertEquals(List.of(), journal.open());
+        journal.append(JournalRecord.join("g", "w"));
+        journal.append(JournalRecord.join("g", "b"));
+        play(journal, "g", 0, 5);
+        journal.shutdown();
+
+        List<JournalRecord> recovered = newJournal(1 << 16).open();
+
+        assertEquals(1, recovered.size());
+        JournalRecord state = recovered.getFirst();
+        assertEquals(JournalRecord.Type.STATE, state.type());
+        assertEquals("g", state.gameId());
+        assertEquals(List.of("w", "b"), state.players());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, state.moves());
+        assertEquals("w", state.userId());
+        assertEquals(60_000 - 4, state.whiteMillis());
+        assertEquals(60_000 - 8, state.blackMillis());
+        assertEquals(1, state.runningColor());
+        assertEquals(5, state.seq());
+    }
+
+    @Test
+    void openCompactsToOneStatePerLiveGame() throws Exception {
+        MoveJournal journal = newJournal(SMALL_SEGMENT_BYTES);
+        journal.open();
+        journal.append(JournalRecord.join("live", "w"));
+        journal.append(JournalRecord.join("over", "w"));
+        play(journal, "live", 0, 20);
+        journal.append(JournalRecord.join("left", "w"));
+        journal.append(JournalRecord.leave("left", "w"));
+        journal.append(JournalRecord.end("over"));
+        journal.shutdown();
+        assertTrue(segments().size() > 1);
+
+        MoveJournal reopened = newJournal(SMALL_SEGMENT_BYTES);
+        assertEquals(List.of("live"), reopened.open().stream().map(JournalRecord::gameId).toList());
+        reopened.shutdown();
+
+        List<Path> compacted = segments();
+        assertEquals(1, compacted.size());
+        List<JournalRecord> records = read(compacted.getFirst());
+        assertEquals(1, records.size());
+        assertEquals(JournalRecord.Type.STATE, records.getFirst().type());
+        assertEquals(20, records.getFirst().moves().length);
+    }
+
+    @Test
+    void movesAfterAStateAreReplayedOntoIt() throws Exception {
+        MoveJournal first = newJournal(1 << 16);
+        first.open();
+        first.append(JournalRecord.join("g", "w"));
+        first.append(JournalRecord.join("g", "b"));
+        play(first, "g", 0, 3);
+        first.shutdown();
+
+        MoveJournal second = newJournal(1 << 16);
+        second.open();
+        play(second, "g", 3, 6);
+        second.append(JournalRecord.leave("g", "b"));
+        second.shutdown();
+
+        List<JournalRecord> recovered = newJournal(1 << 16).open();
+
+        assertEquals(1, recovered.size());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, recovered.getFirst().moves());
+        assertEquals(List.of("w"), recovered.getFirst().players());
+        assertEquals("b", recovered.getFirst().userId());
+        assertEquals(6, recovered.getFirst().seq());
+    }
+
+    @Test
+    void segmentsAreDeletedOnceEveryGameInThemHasEnded() throws Exception {
+        MoveJournal journal = newJournal(SMALL_SEGMENT_BYTES);
+        journal.open();
+        journal.append(JournalRecord.join("a", "w"));
+        play(journal, "a", 0, 30);
+        journal.append(JournalRecord.join("b", "w"));
+        journal.append(JournalRecord.end("a"));
+        journal.shutdown();
+
+        List<Path> left = segments();
+        assertEquals(1, left.size());
+        assertTrue(read(left.getFirst()).stream().anyMatch(record -> record.gameId().equals("b")));
+        assertEquals(List.of("b"), newJournal(SMALL_SEGMENT_BYTES).open().stream().map(JournalRecord::gameId).toList());
+    }
+
+    @Test
+    void nothingIsLeftOnceEveryGameHasEnded() throws Exception {
+        MoveJournal journal = newJournal(SMALL_SEGMENT_BYTES);
+        journal.open();
+        journal.append(JournalRecord.join("a", "w"));
+        journal.append(JournalRecord.join("b", "w"));
+        play(journal, "a", 0, 10);
+        play(journal, "b", 0, 10);
+        journal.append(JournalRecord.end("b"));
+        journal.append(JournalRecord.end("a"));
+        journal.shutdown();
+
+        assertEquals(List.of(), segments());
+    }
+
+    @Test
+    void recoveryStopsAtATornRecord() throws Exception {
+        MoveJournal journal = newJournal(1 << 16);
+        journal.open();
+        journal.append(JournalRecord.join("g", "w"));
+        play(journal, "g", 0, 2);
+        journal.shutdown();
+
+        Path segment = segments().getFirst();
+        int records = read(segment).size();
+        assertEquals(3, records);
+        // Zero the checksum of the last record, as if the crash came before it was written
+        long last = 8;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            for (int i = 0; i < records - 1; i++) {
+                channel.read(length.clear(), last);
+                last += 8 + length.getInt(0);
+            }
+            channel.write(ByteBuffer.allocate(4), last + 4);
+        }
+
+        List<JournalRecord> recovered = newJournal(1 << 16).open();
+
+        assertEquals(1, recovered.size());
+        assertArrayEquals(new int[]{0}, recovered.getFirst().moves());
+        assertEquals("w", recovered.getFirst().userId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips through {@link MoveListCodec}, with and without clocks.
+ */
+class MoveListCodecTest {
+    private static final long BASE_MILLIS = 180_000;
+
+    private static int[] moves(int count) {
+        int[] moves = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = (i * 7919) & 0xFFFF;
+        }
+        return moves;
+    }
+
+    @Test
+    void movesWithoutClocks() {
+        int[] moves = {0x0C1C, 0xFFFF, 0, 0x8001};
+
+        byte[] packed = MoveListCodec.encode(moves, null, BASE_MILLIS);
+        MoveListCodec.MoveList decoded = MoveListCodec.decode(packed, BASE_MILLIS);
+
+        assertEquals(1 + 1 + 2 * moves.length, packed.length);
+        assertArrayEquals(moves, decoded.moves());
+        assertFalse(decoded.hasClocks());
+        assertNull(decoded.clockMillis());
+    }
+
+    @Test
+    void movesWithClocksGoingDownAndUp() {
+        int[] moves = moves(6);
+        // Black gains time on their third move through the increment; white ends above the base
+        long[] clocks = {179_000, 178_500, 150_250, 170_000, 181_000, 175_990};
+
+        MoveListCodec.MoveList decoded = MoveListCodec.decode(MoveListCodec.encode(moves, clocks, BASE_MILLIS),
+                BASE_MILLIS);
+
+        assertArrayEquals(moves, decoded.moves());
+        assertTrue(decoded.hasClocks());
+        assertArrayEquals(clocks, decoded.clockMillis());
+    }
+
+    @Test
+    void clocksAreKeptToTheCentisecond() {
+        long[] clocks = {179_999, 1};
+
+        long[] decoded = MoveListCodec.decode(MoveListCodec.encode(moves(2), clocks, BASE_MILLIS), BASE_MILLIS)
+                .clockMillis();
+
+        assertArrayEquals(new long[]{179_990, 0}, decoded);
+    }
+
+    @Test
+    void clocksNotMatchingTheMovesAreDropped() {
+        byte[] packed = MoveListCodec.encode(moves(3), new long[]{1000, 2000}, BASE_MILLIS);
+
+        assertFalse(MoveListCodec.decode(packed, BASE_MILLIS).hasClocks());
+    }
+
+    @Test
+    void longGamesUseAMultiByteCount() {
+        int[] moves = moves(300);
+        long[] clocks = new long[moves.length];
+        for (int ply = 0; ply < clocks.length; ply++) {
+            clocks[ply] = BASE_MILLIS - ply * 1230L;
+        }
+
+        byte[] packed = MoveListCodec.encode(moves, clocks, BASE_MILLIS);
+        MoveListCodec.MoveList decoded = MoveListCodec.decode(packed, BASE_MILLIS);
+
+        assertArrayEquals(moves, decoded.moves());
+        assertArrayEquals(clocks, decoded.clockMillis());
+    }
+
+    @Test
+    void emptyGame() {
+        MoveListCodec.MoveList decoded = MoveListCodec.decode(MoveListCodec.encode(new int[0], new long[0], 0), 0);
+
+        assertEquals(0, decoded.moves().length);
+        assertEquals(0, decoded.clockMillis().length);
+    }
+}
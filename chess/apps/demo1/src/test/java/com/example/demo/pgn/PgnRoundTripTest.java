@@ -0,0 +1,144 @@
+package com.example.demo.pgn;
+
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.MoveGenerator;
+import com.example.demo.engine.San;
+import com.example.demo.model.Game;
+import com.example.demo.persistence.MoveListCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Games written by {@link PgnWriter} and read back by {@link PgnReader}.
+ */
+class PgnRoundTripTest {
+    /** Disambiguation, a promotion, checks and a recapture by the king. */
+    private static final String[] PROMOTION_GAME = {"e4", "d5", "exd5", "c6", "dxc6", "Nf6", "cxb7", "Nbd7",
+            "bxa8=Q", "Qb6", "Qxc8+", "Qd8", "Qxd8+", "Kxd8"};
+    private static final String[] SCHOLARS_MATE = {"e4", "e5", "Bc4", "Nc6", "Qh5", "Nf6", "Qxf7#"};
+
+    private final PgnWriter writer = new PgnWriter();
+    private final PgnReader reader = new PgnReader();
+
+    private static int[] moves(String... sans) {
+        Board board = new Board();
+        int[] scratch = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[sans.length];
+        for (int ply = 0; ply < sans.length; ply++) {
+            moves[ply] = San.parse(board, sans[ply], scratch);
+            assertNotEquals(Move.NONE, moves[ply], sans[ply]);
+            board.makeMove(moves[ply]);
+        }
+        return moves;
+    }
+
+    private static Game game(String result) {
+        return Game.builder()
+                .gameId("0000-0001")
+                .whitePlayerName("Anna \"The Rook\"")
+                .whitePlayerElo(1650)
+                .blackPlayerName("Ben")
+                .baseTimeMillis(180_000L)
+                .incrementMillis(2000L)
+                .result(result)
+                .finishedAt(LocalDateTime.of(2024, 3, 7, 18, 30))
+                .build();
+    }
+
+    @Test
+    void movesTagsAndClocksSurviveTheRoundTrip() {
+        int[] moves = moves(PROMOTION_GAME);
+        long[] clocks = new long[moves.length];
+        for (int ply = 0; ply < clocks.length; ply++) {
+            clocks[ply] = 180_000 - ply * 4_300L + (ply % 3 == 0 ? 2_000 : 0);
+        }
+        clocks[3] = 3_725_600;
+
+        String pgn = writer.write(game("1-0"), new MoveListCodec.MoveList(moves, clocks));
+        PgnReader.PgnGame read = reader.read(pgn);
+
+        assertArrayEquals(moves, read.moveList().moves());
+        assertArrayEquals(clocks, read.moveList().clockMillis());
+        assertTrue(pgn.contains("{[%clk 1:02:05.6]}"), pgn);
+        assertEquals("1-0", read.result());
+        assertEquals("Anna \"The Rook\"", read.tags().get("White"));
+        assertEquals("1650", read.tags().get("WhiteElo"));
+        assertNull(read.tags().get("BlackElo"));
+        assertEquals("2024.03.07", read.tags().get("Date"));
+        assertEquals("180+2", read.tags().get("TimeControl"));
+        for (String line : pgn.split("\n")) {
+            assertTrue(line.length() <= 80, line);
+        }
+    }
+
+    @Test
+    void movetextIsTheSanOfEachMove() {
+        String pgn = writer.write(game("1-0"), new MoveListCodec.MoveList(moves(PROMOTION_GAME), null));
+
+        String movetext = pgn.substring(pgn.indexOf("\n\n") + 2).trim();
+        assertEquals("1. e4 d5 2. exd5 c6 3. dxc6 Nf6 4. cxb7 Nbd7 5. bxa8=Q Qb6 6. Qxc8+ Qd8 7. Qxd8+\nKxd8 1-0",
+                movetext);
+        assertFalse(pgn.contains("%clk"));
+
+        PgnReader.PgnGame read = reader.read(pgn);
+        assertArrayEquals(moves(PROMOTION_GAME), read.moveList().moves());
+        assertFalse(read.moveList().hasClocks());
+    }
+
+    @Test
+    void mateIsWrittenWithItsSuffix() {
+        int[] moves = moves(SCHOLARS_MATE);
+
+        String pgn = writer.write(game("1-0"), new MoveListCodec.MoveList(moves, null));
+
+        assertTrue(pgn.contains("4. Qxf7# 1-0"), pgn);
+        assertArrayEquals(moves, reader.read(pgn).moveList().moves());
+    }
+
+    @Test
+    void storedGamesComeBackThroughTheCodec() {
+        int[] moves = moves(SCHOLARS_MATE);
+        long[] clocks = {179_000, 178_000, 176_500, 177_100, 170_000, 160_000, 168_900};
+        byte[] packed = MoveListCodec.encode(moves, clocks, 180_000);
+
+        String pgn = writer.write(game("1-0"), MoveListCodec.decode(packed, 180_000));
+        PgnReader.PgnGame read = reader.read(pgn);
+
+        assertArrayEquals(packed, MoveListCodec.encode(read.moveList().moves(), read.moveList().clockMillis(),
+                180_000));
+    }
+
+    @Test
+    void unfinishedGameHasAnUnknownResult() {
+        Game game = game(null);
+        game.setFinishedAt(null);
+
+        String pgn = writer.write(game, new MoveListCodec.MoveList(moves("d4"), null));
+        PgnReader.PgnGame read = reader.read(pgn);
+
+        assertEquals("*", read.result());
+        assertEquals("????.??.??", read.tags().get("Date"));
+    }
+
+    @Test
+    void unbalancedParenthesesDoNotHangTheReader() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(IllegalArgumentException.class, () -> reader.read("1. e4 e5 ) 2. Nf3 *"));
+            assertThrows(IllegalArgumentException.class, () -> reader.read("1. e4 (1. d4) ) e5 *"));
+            // An unclosed variation runs to the end of the text
+            assertArrayEquals(moves("e4", "e5"), reader.read("1. e4 e5 (2. Nf3 Nc6 *").moveList().moves());
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo.service;
+
+import com.example.demo.clock.GameClock;
+import com.example.demo.clock.TimeControl;
+import com.example.demo.engine.Board;
+import com.example.demo.engine.Move;
+import com.example.demo.engine.Piece;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Who may move in a {@link GameSessionService.GameSession}.
+ */
+class GameSessionTest {
+
+    private static GameSessionService.GameSession newSession() {
+        return new GameSessionService.GameSession("game", 1, new GameClock("game", TimeControl.DEFAULT, clock -> { }));
+    }
+
+    @Test
+    void noMoveBeforeTheOpponentHasJoined() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("white", Piece.WHITE);
+
+        assertEquals(Move.NONE, session.applyMove("white", "e2", "e4", null));
+        assertEquals(Board.STARTING_FEN, session.getFen());
+    }
+
+    @Test
+    void onlyTheSideToMoveMayMove() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("black", Piece.BLACK);
+        session.addPlayer("white", Piece.WHITE);
+
+        assertEquals(Move.NONE, session.applyMove("black", "e2", "e4", null));
+        assertEquals(Move.NONE, session.applyMove("black", "e7", "e5", null));
+        assertEquals(Move.NONE, session.applyMove("spectator", "e2", "e4", null));
+        assertNotEquals(Move.NONE, session.applyMove("white", "e2", "e4", null));
+        assertEquals(Move.NONE, session.applyMove("white", "d2", "d4", null));
+        assertNotEquals(Move.NONE, session.applyMove("black", "e7", "e5", null));
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2", session.getFen());
+    }
+
+    @Test
+    void humanCannotMoveForTheBot() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("42", Piece.BLACK);
+        session.addPlayer("-3", Piece.WHITE);
+
+        assertEquals(Move.NONE, session.applyMove("42", "e2", "e4", null));
+        assertTrue(session.isFull());
+        assertFalse(session.isOver());
+    }
+
+    @Test
+    void aSeatIsHeldByOnePlayer() {
+        GameSessionService.GameSession session = newSession();
+        assertTrue(session.addPlayer("white", Piece.WHITE));
+
+        assertFalse(session.addPlayer("intruder", Piece.WHITE));
+        assertTrue(session.addPlayer("white", Piece.BLACK));
+        assertEquals(Piece.WHITE, session.getColor("white"));
+        assertEquals(Piece.NONE, session.getColor("intruder"));
+    }
+
+    @Test
+    void aMoveTakenBackAfterFlagFallLeavesThePositionAsItWas() {
+        GameClock clock = new GameClock("game", new TimeControl(1000, 0), c -> { });
+        GameSessionService.GameSession session = new GameSessionService.GameSession("game", 1, clock);
+        session.addPlayer("white", Piece.WHITE);
+        session.addPlayer("black", Piece.BLACK);
+        session.applyMove("white", "e2", "e4", null);
+        clock.press(Piece.WHITE, 0);
+        String fen = session.getFen();
+
+        assertNotEquals(Move.NONE, session.applyMove("black", "e7", "e5", null));
+        assertEquals(-1, clock.press(Piece.BLACK, TimeUnit.SECONDS.toNanos(2)));
+        session.takeBackMove();
+
+        assertEquals(fen, session.getFen());
+        assertEquals(1, session.getPly());
+        assertEquals("white", session.getLastMoverId());
+        assertTrue(session.isOver());
+        assertEquals("1-0", session.getResult());
+        assertEquals(Move.NONE, session.applyMove("black", "e7", "e5", null));
+    }
+
+    @Test
+    void aGameCodeIsItsOwnHandle() {
+        assertEquals(0x1A2B3C4D, GameSessionService.handleOf("1A2B-3C4D"));
+        assertEquals(0xFFFFFFFF, GameSessionService.handleOf("FFFF-FFFF"));
+        assertNotEquals(GameSessionService.handleOf("1A2B-3C4D"), GameSessionService.handleOf("1A2B-3C4E"));
+        assertEquals("imported".hashCode(), GameSessionService.handleOf("imported"));
+    }
+
+    @Test
+    void aDrawIsAgreedOnlyByTheOpponentOfAStandingOffer() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("white", Piece.WHITE);
+        session.addPlayer("black", Piece.BLACK);
+
+        assertFalse(session.acceptDraw("black"));
+        assertTrue(session.offerDraw("white"));
+        assertFalse(session.acceptDraw("white"));
+        assertFalse(session.acceptDraw("spectator"));
+        assertTrue(session.acceptDraw("black"));
+        assertFalse(session.acceptDraw("black"));
+    }
+
+    @Test
+    void aDrawOfferLapsesWhenDeclinedOrAnsweredWithAMove() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("white", Piece.WHITE);
+        session.addPlayer("black", Piece.BLACK);
+
+        session.offerDraw("white");
+        session.declineDraw("white");
+        session.declineDraw("black");
+        assertFalse(session.acceptDraw("black"));
+
+        session.offerDraw("white");
+        session.applyMove("white", "e2", "e4", null);
+        session.applyMove("black", "e7", "e5", null);
+        assertFalse(session.acceptDraw("black"));
+
+        session.offerDraw("black");
+        session.applyMove("white", "g1", "f3", null);
+        assertFalse(session.acceptDraw("white"));
+    }
+
+    @Test
+    void restoreCarriesTheClocksOverToTheNewSession() {
+        GameSessionService.GameSession session = newSession();
+        session.addPlayer("white", Piece.WHITE);
+        session.addPlayer("black", Piece.BLACK);
+        session.applyMove("white", "e2", "e4", null);
+        session.recordClock(600_000);
+        session.applyMove("black", "e7", "e5", null);
+        session.recordClock(598_500);
+
+        GameSessionService.GameSession adopted = newSession();
+        adopted.restore(Map.of("white", Piece.WHITE, "black", Piece.BLACK), Map.of(), session.getLastMoverId(),
+                session.getMoves(), session.getClockHistory());
+
+        assertArrayEquals(new long[]{600_000, 598_500}, adopted.getClockHistory());
+        assertArrayEquals(session.packMoves(), adopted.packMoves());
+        assertFalse(adopted.isOver());
+
+        GameSessionService.GameSession withoutClocks = newSession();
+        withoutClocks.restore(Map.of(), Map.of(), null, session.getMoves(), null);
+        assertNull(withoutClocks.getClockHistory());
+    }
+}
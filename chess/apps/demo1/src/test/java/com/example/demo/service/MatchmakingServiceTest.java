@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Game;
+import com.example.demo.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Requeueing, matches and failures in {@link MatchmakingService}, with the matcher thread running.
+ */
+class MatchmakingServiceTest {
+    private static final MatchmakingService.MatchRequest BLITZ = new MatchmakingService.MatchRequest(180_000L, 0L);
+
+    private final GameService gameService = mock(GameService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MatchmakingService matchmaking = new MatchmakingService(gameService, messagingTemplate,
+            meterRegistry, 50, 10, 400, 10);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        matchmaking.shutdown();
+    }
+
+    private static User user(long id) {
+        return User.builder().id(id).elo_rating(1500).build();
+    }
+
+    private double waiting() {
+        return meterRegistry.get("matchmaking.waiting").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void aRepeatedJoinReplacesTheWaitingRequest() {
+        MatchmakingService.MatchStatus first = matchmaking.join(user(1), BLITZ);
+        MatchmakingService.MatchStatus second = matchmaking.join(user(1), BLITZ);
+
+        assertEquals("waiting", second.state());
+        assertEquals(1, waiting());
+        assertEquals(second.token(), matchmaking.status(1).token());
+        assertNotEquals(first.token(), second.token());
+    }
+
+    @Test
+    void aJoinAfterAMatchReportsTheGame() throws InterruptedException {
+        Game game = Game.builder().gameId("0000-0001").build();
+        when(gameService.createMatchedGame(any(), any(), any(), any())).thenReturn(game);
+        matchmaking.join(user(1), BLITZ);
+        matchmaking.join(user(2), BLITZ);
+        matchmaking.start();
+        await(() -> matchmaking.status(1).state().equals("matched"));
+
+        MatchmakingService.MatchStatus again = matchmaking.join(user(2), BLITZ);
+
+        assertEquals("matched", again.state());
+        assertEquals("0000-0001", again.gameId());
+        assertEquals(0, waiting());
+        assertEquals("matched", matchmaking.status(2).state());
+        assertEquals("none", matchmaking.status(2).state());
+    }
+
+    @Test
+    void bothPlayersHearOfAFailedGame() throws InterruptedException {
+        when(gameService.createMatchedGame(any(), any(), any(), any())).thenThrow(new IllegalStateException("down"));
+        MatchmakingService.MatchStatus first = matchmaking.join(user(1), BLITZ);
+        MatchmakingService.MatchStatus second = matchmaking.join(user(2), BLITZ);
+        matchmaking.start();
+        await(() -> matchmaking.status(1).state().equals("failed"));
+
+        assertEquals("failed", matchmaking.status(2).state());
+        verify(messagingTemplate).convertAndSend(eq(MatchmakingService.TOPIC_PREFIX + first.token()),
+                any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq(MatchmakingService.TOPIC_PREFIX + second.token()),
+                any(Object.class));
+        assertEquals("waiting", matchmaking.join(user(1), BLITZ).state());
+    }
+}
@@ -53,6 +53,7 @@ const GameScreen = () => {
   const [menuOpen, setMenuOpen] = useState(false);
   const [whiteTime, setWhiteTime] = useState(600);
   const [blackTime, setBlackTime] = useState(600);
+  const [clockRunning, setClockRunning] = useState(false);
   const [selectedSquare, setSelectedSquare] = useState(null);
   const [gameMoves, setGameMoves] = useState([]);
   const [gameId, setGameId] = useState('');
@@ -409,29 +410,7 @@ const GameScreen = () => {
       playerName = isWhitePlayer ? whitePlayer.name : blackPlayer.name;
     }
     
-    if (isConnected) {
-      try {
-        const gameOverData = {
-          result: result,
-          playerName: playerName,
-          isWhitePlayer: isWhitePlayer,
-          reason: 'timeout'
-        };
-        
-        console.log('Sending timeout game over data:', gameOverData);
-        
-        websocketService.send("/app/game.gameOver", {
-          gameId: gameId,
-          userId: userId,
-          type: "GAME_OVER",
-          content: JSON.stringify(gameOverData)
-        });
-        
-        updatePlayerElo(result, false);
-      } catch (err) {
-        console.error("Error sending timeout game over message:", err);
-      }
-    }
+    updatePlayerElo(result, false);
     
     setGameResult({
       result: result,
@@ -440,37 +419,27 @@ const GameScreen = () => {
     });
     setShowGameOver(true);
     setGameStatus("Game Over - Timeout");
-  }, [showGameOver, gameResult, isWhitePlayer, whitePlayer, blackPlayer, isConnected, gameId, userId, setGameResult, setShowGameOver, setGameStatus]);
+  }, [showGameOver, gameResult, isWhitePlayer, whitePlayer, blackPlayer, setGameResult, setShowGameOver, setGameStatus]);
 
   useEffect(() => {
     const timer = setInterval(() => {
+      if (!clockRunning) return;
       if (currentTurn === 'white') {
-        setWhiteTime(prev => {
-          const newTime = Math.max(0, prev - 1);
-          if (isConnected && prev % 5 === 0) {
-            websocketService.sendTimerUpdate(gameId, userId, newTime, blackTime);
-          }
-          if (newTime === 0) {
-            handleTimeOut('white');
-          }
-          return newTime;
-        });
+        setWhiteTime(prev => Math.max(0, prev - 1));
       } else {
-        setBlackTime(prev => {
-          const newTime = Math.max(0, prev - 1);
-          if (isConnected && prev % 5 === 0) {
-            websocketService.sendTimerUpdate(gameId, userId, whiteTime, newTime);
-          }
-          if (newTime === 0) {
-            handleTimeOut('black');
-          }
-          return newTime;
-        });
+        setBlackTime(prev => Math.max(0, prev - 1));
       }
     }, 1000);
     
     return () => clearInterval(timer);
-  }, [currentTurn, isConnected, gameId, userId, whiteTime, blackTime, handleTimeOut]);
+  }, [currentTurn, clockRunning]);
+
+  const syncClock = (clock) => {
+    if (!clock) return;
+    setWhiteTime(Math.ceil(clock.white / 1000));
+    setBlackTime(Math.ceil(clock.black / 1000));
+    setClockRunning(clock.running != null);
+  };
 
   const handleTimerUpdate = (message) => {
     if (message.userId !== userId) {
@@ -496,12 +465,6 @@ const GameScreen = () => {
       setGameStatus("Game started! Waiting for opponent's move.");
     }
     
-    if (isConnected) {
-      setTimeout(() => {
-        websocketService.sendTimerUpdate(gameId, userId, whiteTime, blackTime);
-      }, 500);
-    }
-    
     console.log("Game has started:", message.content);
   };
 
@@ -514,6 +477,11 @@ const GameScreen = () => {
         break;
         
       case "MOVE":
+        try {
+          syncClock(JSON.parse(message.content).clock);
+        } catch (error) {
+          console.error("Error reading clock from move:", error);
+        }
         if (message.userId !== userId) {
           try {
             const moveData = JSON.parse(message.content);
@@ -545,10 +513,6 @@ const GameScreen = () => {
                 const newTurn = currentTurn === 'white' ? 'black' : 'white';
                 setCurrentTurn(newTurn);
                 
-                if (isConnected) {
-                  websocketService.sendTimerUpdate(gameId, userId, whiteTime, blackTime);
-                }
-                
                 setGameStatus("Your turn to move");
               }
             }
@@ -567,6 +531,19 @@ const GameScreen = () => {
           const gameOverData = JSON.parse(message.content);
           console.log('Received game over data:', gameOverData);
           
+          if (message.userId === 'SYSTEM' && gameOverData.reason === 'timeout') {
+            syncClock(gameOverData.clock);
+            handleTimeOut(gameOverData.loser);
+            break;
+          }
+
+          if (message.userId === 'SYSTEM' && gameOverData.result === 'draw') {
+            syncClock(gameOverData.clock);
+            if (gameOverData.lastMover === userId) {
+              updatePlayerElo('draw', false);
+            }
+          }
+          
           if (message.userId !== userId) {
             console.log('Processing opponent game over message');
             if (gameOverData.result === 'resign') {
@@ -814,20 +791,12 @@ const GameScreen = () => {
         
         setCurrentTurn(currentTurn === 'white' ? 'black' : 'white');
         
-        if (isConnected) {
-          websocketService.sendTimerUpdate(gameId, userId, whiteTime, blackTime);
-        }
-        
-        if (chess.isGameOver()) {
-          let result;
-          if (chess.isCheckmate()) {
-            const moveColor = move.color;
-            const playerColor = isWhitePlayer ? 'w' : 'b';
-            result = moveColor === playerColor ? 'win' : 'loss';
-            console.log(`Game Over - Move Color: ${moveColor}, Player Color: ${playerColor}, Result: ${result}`);
-          } else if (chess.isDraw()) {
-            result = 'draw';
-          }
+        // Draws are adjudicated by the server once it has the move, so only mate ends the game here
+        if (chess.isCheckmate()) {
+          const moveColor = move.color;
+          const playerColor = isWhitePlayer ? 'w' : 'b';
+          const result = moveColor === playerColor ? 'win' : 'loss';
+          console.log(`Game Over - Move Color: ${moveColor}, Player Color: ${playerColor}, Result: ${result}`);
           
           if (isConnected) {
             try {
@@ -1125,6 +1094,7 @@ const GameScreen = () => {
             setGameResult(null);
             setWhiteTime(600);
             setBlackTime(600);
+            setClockRunning(false);
             setGameStatus("Game restarted. Make your move.");
           }}
           onExit={() => {
@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import { Card, CardContent } from "../components/ui/Card";
 import { Button } from "../components/ui/Button";
 import { motion } from "framer-motion";
@@ -6,30 +6,36 @@ import { Plus, User } from "lucide-react";
 import { Link, useNavigate } from "react-router-dom";
 import axios from "axios";
 import CreateWaitingRoomButton from "../components/ui/CreateWaitingRoomButton";
+import websocketService from "../utils/websocketService";
+
+const LOBBY_TOPIC = "/topic/lobby";
+
+// Games changed in place keep their position; new ones go on top, newest first
+function applyLobbyDiff(games, diff) {
+  const gone = new Set([...diff.filled, ...diff.removed]);
+  const changed = new Map(diff.added.map(game => [game.gameId, game]));
+  const kept = games
+    .filter(game => !gone.has(game.gameId))
+    .map(game => changed.get(game.gameId) ?? game);
+  const listed = new Set(kept.map(game => game.gameId));
+  return [...diff.added.filter(game => !listed.has(game.gameId)), ...kept];
+}
 
 export default function Lobby() {
   const [gameList, setGameList] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const versionRef = useRef(null);
   const navigate = useNavigate();
 
   useEffect(() => {
+    let pollId = null;
+
+    // Only used while the lobby socket is down
     const fetchGames = async () => {
       try {
-        if (gameList.length === 0) {
-          setLoading(true);
-        }
         const response = await axios.get("http://localhost:8080/game/list");
-        
-        const newGameList = response.data;
-        const hasChanged = JSON.stringify(newGameList) !== JSON.stringify(gameList);
-
-        console.log(newGameList);
-        
-        if (hasChanged) {
-          setGameList(newGameList);
-        }
-        
+        setGameList(response.data.games);
         setError(null);
       } catch (err) {
         console.error("Failed to fetch games:", err);
@@ -39,12 +45,55 @@ export default function Lobby() {
       }
     };
 
-    fetchGames();
-    
-    const intervalId = setInterval(fetchGames, 2000);
-    
-    return () => clearInterval(intervalId);
-  }, [gameList]);
+    const resubscribe = () => {
+      versionRef.current = null;
+      websocketService.unsubscribe(LOBBY_TOPIC);
+      websocketService.subscribe(LOBBY_TOPIC, handleLobbyMessage);
+    };
+
+    const handleLobbyMessage = (message) => {
+      if (message.type === "snapshot") {
+        versionRef.current = message.version;
+        setGameList(message.games);
+        setError(null);
+        setLoading(false);
+        return;
+      }
+      // Diffs already covered by the snapshot still on its way, or by the one we have
+      if (versionRef.current === null || message.version <= versionRef.current) {
+        return;
+      }
+      if (message.fromVersion !== versionRef.current) {
+        // Missed a diff: start over from a fresh snapshot
+        resubscribe();
+        return;
+      }
+      versionRef.current = message.version;
+      setGameList(games => applyLobbyDiff(games, message));
+    };
+
+    websocketService.connect(
+      () => {
+        if (pollId) {
+          clearInterval(pollId);
+          pollId = null;
+        }
+        resubscribe();
+      },
+      (err) => {
+        console.error("Lobby socket failed, polling instead:", err);
+        if (!pollId) {
+          fetchGames();
+          pollId = setInterval(fetchGames, 2000);
+        }
+      }
+    );
+
+    return () => {
+      if (pollId) clearInterval(pollId);
+      websocketService.disconnect();
+    };
+  }, []);
 
   useEffect(() => {
     const userId = localStorage.getItem('id');
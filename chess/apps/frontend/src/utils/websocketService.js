@@ -6,6 +6,8 @@ class WebSocketService {
   constructor() {
     this.stompClient = null;
     this.subscriptions = {};
+    this.callbacks = {};
+    this.lastSeq = {};
     this.connectionAttempts = 0;
     this.MAX_RECONNECT_ATTEMPTS = 3;
     this.userName = ''; 
@@ -45,6 +47,7 @@ class WebSocketService {
         onConnect: () => {
           console.log(`Successfully connected to STOMP server`);
           this.connectionAttempts = 0;
+          this._resubscribe();
           if (onConnected) onConnected();
         },
         onStompError: (frame) => {
@@ -203,15 +206,17 @@ class WebSocketService {
   
   _doSubscribe(topic, callback) {
     if (!this.subscriptions[topic]) {
+      this.callbacks[topic] = callback;
+      // After a reconnect the server replays what we missed since this sequence
+      const headers = this.lastSeq[topic] !== undefined ? { 'last-seq': String(this.lastSeq[topic]) } : {};
       try {
         this.subscriptions[topic] = this.stompClient.subscribe(topic, (message) => {
           try {
-            const payload = JSON.parse(message.body);
-            callback(payload);
+            this._deliver(topic, message, JSON.parse(message.body), callback);
           } catch (error) {
             console.error('Error parsing message:', error);
           }
-        });
+        }, headers);
         console.log(`Successfully subscribed to topic: ${topic}`);
       } catch (error) {
         console.error(`Error subscribing to ${topic}:`, error);
@@ -219,11 +224,46 @@ class WebSocketService {
     }
   }
 
+  _deliver(topic, message, payload, callback) {
+    if (message.headers['game-resync']) {
+      if (payload.type === 'RESYNC') {
+        payload.messages.forEach(({ seq, message }) => this._deliverSequenced(topic, seq, message, callback));
+      } else {
+        this.lastSeq[topic] = payload.seq;
+        callback(payload);
+      }
+      return;
+    }
+    const seq = message.headers['game-seq'];
+    if (seq === undefined) {
+      callback(payload);
+    } else {
+      this._deliverSequenced(topic, Number(seq), payload, callback);
+    }
+  }
+
+  _deliverSequenced(topic, seq, payload, callback) {
+    if (this.lastSeq[topic] !== undefined && seq <= this.lastSeq[topic]) {
+      return;
+    }
+    this.lastSeq[topic] = seq;
+    callback(payload);
+  }
+
+  _resubscribe() {
+    Object.keys(this.callbacks).forEach(topic => {
+      delete this.subscriptions[topic];
+      this._doSubscribe(topic, this.callbacks[topic]);
+    });
+  }
+
   unsubscribe(topic) {
     if (this.subscriptions[topic]) {
       try {
         this.subscriptions[topic].unsubscribe();
         delete this.subscriptions[topic];
+        delete this.callbacks[topic];
+        delete this.lastSeq[topic];
         console.log(`Unsubscribed from topic: ${topic}`);
       } catch (error) {
         console.error(`Error unsubscribing from ${topic}:`, error);